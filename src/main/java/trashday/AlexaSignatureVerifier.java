@@ -0,0 +1,508 @@
+package trashday;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.cert.CertPath;
+import java.security.cert.CertPathValidator;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.security.cert.PKIXParameters;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Check that a request sent to the {@link TrashDayHttpServer} was signed by Alexa.
+ * Lambda functions are only invoked by Alexa, but a self-hosted endpoint must check
+ * every request (see link below):
+ * <ul>
+ * <li>The {@code SignatureCertChainUrl} header must point at Amazon's certificate
+ * 		location: https, host s3.amazonaws.com, port 443, path under /echo.api/.
+ * <li>The certificate chain found there must lead to a trusted root certificate,
+ * 		be valid now, and name {@value #SIGNING_CERT_SAN} as a subject alternative name.
+ * <li>The {@code Signature-256} (SHA256withRSA) or {@code Signature} (SHA1withRSA) header
+ * 		must be a signature of the request body by that certificate's key.
+ * <li>The {@code request.timestamp} in the signed body must be within
+ * 		{@value #TIMESTAMP_TOLERANCE_MILLIS} milliseconds of now (see
+ * 		{@link #verifyTimestamp(byte[])}), so a captured request cannot be replayed later.
+ * </ul>
+ * <p>
+ * Downloading and checking the chain for each request would add a network round trip to
+ * every response.  Instead, the public key of each checked chain is kept in memory by
+ * URL until {@code cacheTimeToLiveMillis} has passed or the certificate expires, whichever
+ * is first.  Chains are downloaded outside the map's locks: the first thread asking for a
+ * URL loads it while later threads for the same URL wait on its future, and requests for
+ * other URLs are not held up.  Expired entries are removed whenever a chain is loaded.
+ * Each thread keeps its own {@link Signature} objects for the checks, as they
+ * cannot be shared between threads.
+ *
+ * @author J. Todd Baldwin
+ * @see <a href="https://developer.amazon.com/public/solutions/alexa/alexa-skills-kit/docs/developing-an-alexa-skill-as-a-web-service#verifying-that-the-request-was-sent-by-alexa">Alexa Skills Kit Docs: Verifying that the Request was Sent by Alexa</a>
+ */
+public class AlexaSignatureVerifier {
+	/** Log object for this class */
+    private static final Logger log = LoggerFactory.getLogger(AlexaSignatureVerifier.class);
+
+    /** Request header holding the certificate chain URL */
+    public static final String HEADER_CERT_CHAIN_URL = "SignatureCertChainUrl";
+    /** Request header holding the base64 SHA1withRSA signature of the body */
+    public static final String HEADER_SIGNATURE = "Signature";
+    /** Request header holding the base64 SHA256withRSA signature of the body */
+    public static final String HEADER_SIGNATURE_256 = "Signature-256";
+    /** Subject alternative name the signing certificate must have */
+    public static final String SIGNING_CERT_SAN = "echo-api.amazon.com";
+    /** Host the certificate chain must be downloaded from */
+    public static final String CERT_CHAIN_HOST = "s3.amazonaws.com";
+    /** Path the certificate chain must be found under */
+    public static final String CERT_CHAIN_PATH_PREFIX = "/echo.api/";
+    /** Time, in milliseconds, a checked certificate chain is used before it is checked again. */
+    public static final long DEFAULT_CACHE_TIME_TO_LIVE_MILLIS = 60 * 60 * 1000L;
+    /** Largest difference, in milliseconds, allowed between a request's timestamp and now. */
+    public static final long TIMESTAMP_TOLERANCE_MILLIS = 150 * 1000L;
+    /** Subject alternative name type for a DNS name */
+    private static final int SAN_DNS_NAME = 2;
+
+    /** Reads the request timestamp from request bodies */
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    /** Each thread's SHA1withRSA signature checker */
+    private static final ThreadLocal<Signature> sha1Signatures = ThreadLocal.withInitial(() -> newSignature("SHA1withRSA"));
+    /** Each thread's SHA256withRSA signature checker */
+    private static final ThreadLocal<Signature> sha256Signatures = ThreadLocal.withInitial(() -> newSignature("SHA256withRSA"));
+
+    /**
+     * Signing key from a checked certificate chain.
+     */
+    private static final class VerifiedKey {
+    	/** Public key of the signing certificate */
+    	final PublicKey publicKey;
+    	/** Time, in milliseconds, after which the chain must be checked again */
+    	final long expiresMillis;
+
+    	/**
+    	 * Create a verified key.
+    	 *
+    	 * @param publicKey public key of the signing certificate
+    	 * @param expiresMillis time after which the chain must be checked again
+    	 */
+    	VerifiedKey(PublicKey publicKey, long expiresMillis) {
+    		this.publicKey = publicKey;
+    		this.expiresMillis = expiresMillis;
+    	}
+    }
+
+    /** Root certificates a chain must lead to */
+    private final Set<TrustAnchor> trustAnchors;
+    /** Time, in milliseconds, a checked chain is used before it is checked again */
+    private final long cacheTimeToLiveMillis;
+    /** Signing keys of checked chains, or chains being checked, by normalized URL */
+    private final ConcurrentHashMap<String, CompletableFuture<VerifiedKey>> verifiedKeys = new ConcurrentHashMap<String, CompletableFuture<VerifiedKey>>();
+    /** Number of certificate chains downloaded and checked */
+    private final AtomicLong chainLoadCount = new AtomicLong();
+
+    /**
+     * Create a verifier trusting the JVM's default root certificates, which
+     * include the ones Amazon's chain leads to.
+     *
+     * @throws IllegalStateException if the default root certificates cannot be loaded
+     */
+    @CoberturaIgnore
+    public AlexaSignatureVerifier() {
+    	this(null, DEFAULT_CACHE_TIME_TO_LIVE_MILLIS);
+    }
+
+    /**
+     * Create a verifier.
+     *
+     * @param trustStore {@link KeyStore} holding the trusted root certificates, or null
+     * 			for the JVM's default root certificates
+     * @param cacheTimeToLiveMillis time, in milliseconds, a checked chain is used before
+     * 			it is checked again
+     * @throws IllegalStateException if the root certificates cannot be loaded
+     */
+    public AlexaSignatureVerifier(KeyStore trustStore, long cacheTimeToLiveMillis) {
+    	log.trace("AlexaSignatureVerifier(cacheTimeToLiveMillis={})", cacheTimeToLiveMillis);
+    	this.cacheTimeToLiveMillis = cacheTimeToLiveMillis;
+    	try {
+	    	TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+	    	factory.init(trustStore);
+	    	Set<TrustAnchor> anchors = new HashSet<TrustAnchor>();
+	    	for (javax.net.ssl.TrustManager trustManager : factory.getTrustManagers()) {
+	    		if (trustManager instanceof X509TrustManager) {
+	    			for (X509Certificate root : ((X509TrustManager) trustManager).getAcceptedIssuers()) {
+	    				anchors.add(new TrustAnchor(root, null));
+	    			}
+	    		}
+	    	}
+	    	if (anchors.isEmpty()) {
+	    		throw new IllegalStateException("No trusted root certificates.");
+	    	}
+	    	trustAnchors = anchors;
+    	} catch (GeneralSecurityException ex) {
+    		throw new IllegalStateException("Cannot load trusted root certificates: "+ex.getMessage(), ex);
+    	}
+    }
+
+    /**
+     * Create a signature checker.
+     *
+     * @param algorithm signature algorithm name
+     * @return new {@link Signature}
+     */
+    private static Signature newSignature(String algorithm) {
+    	try {
+    		return Signature.getInstance(algorithm);
+    	} catch (GeneralSecurityException ex) {
+    		throw new IllegalStateException("Signature algorithm not available: "+algorithm, ex);
+    	}
+    }
+
+    /**
+     * Check that a request body was signed by Alexa.
+     *
+     * @param body request body bytes, exactly as received
+     * @param certChainUrl value of the {@value #HEADER_CERT_CHAIN_URL} header
+     * @param signature256 value of the {@value #HEADER_SIGNATURE_256} header, or null
+     * @param signature value of the {@value #HEADER_SIGNATURE} header, or null
+     * @throws IllegalArgumentException if the request is not signed by Alexa
+     */
+    public void verify(byte[] body, String certChainUrl, String signature256, String signature) {
+    	verify(body, certChainUrl, signature256, signature, System.currentTimeMillis());
+    }
+
+    /**
+     * Check that a request body was signed by Alexa, as of a given time.
+     *
+     * @param body request body bytes, exactly as received
+     * @param certChainUrl value of the {@value #HEADER_CERT_CHAIN_URL} header
+     * @param signature256 value of the {@value #HEADER_SIGNATURE_256} header, or null
+     * @param signature value of the {@value #HEADER_SIGNATURE} header, or null
+     * @param nowMillis current time, in milliseconds
+     * @throws IllegalArgumentException if the request is not signed by Alexa
+     */
+    protected void verify(byte[] body, String certChainUrl, String signature256, String signature, long nowMillis) {
+    	if (certChainUrl == null) {
+    		throw new IllegalArgumentException("Missing "+HEADER_CERT_CHAIN_URL+" header.");
+    	}
+    	Signature checker;
+    	String encodedSignature;
+    	if (signature256 != null) {
+    		checker = sha256Signatures.get();
+    		encodedSignature = signature256;
+    	} else if (signature != null) {
+    		checker = sha1Signatures.get();
+    		encodedSignature = signature;
+    	} else {
+    		throw new IllegalArgumentException("Missing "+HEADER_SIGNATURE_256+" and "+HEADER_SIGNATURE+" headers.");
+    	}
+    	byte[] signatureBytes;
+    	try {
+    		signatureBytes = Base64.getMimeDecoder().decode(encodedSignature);
+    	} catch (IllegalArgumentException ex) {
+    		throw new IllegalArgumentException("Signature is not base64.", ex);
+    	}
+
+    	PublicKey publicKey = getVerifiedKey(normalizeCertChainUrl(certChainUrl), nowMillis);
+    	boolean valid;
+    	try {
+    		checker.initVerify(publicKey);
+    		checker.update(body);
+    		valid = checker.verify(signatureBytes);
+    	} catch (GeneralSecurityException ex) {
+    		throw new IllegalArgumentException("Cannot check signature: "+ex.getMessage(), ex);
+    	}
+    	if (! valid) {
+    		throw new IllegalArgumentException("Signature does not match request body.");
+    	}
+    }
+
+    /**
+     * Check a certificate chain URL points at Amazon's certificate location, and put it
+     * in a standard form for use as a cache key.
+     *
+     * @param certChainUrl URL from the request header
+     * @return normalized URL
+     * @throws IllegalArgumentException if the URL is not an allowed certificate location
+     */
+    protected static String normalizeCertChainUrl(String certChainUrl) {
+    	URI uri;
+    	try {
+    		uri = new URI(certChainUrl.trim()).normalize();
+    	} catch (URISyntaxException ex) {
+    		throw new IllegalArgumentException("Certificate chain URL is not a URL: "+certChainUrl, ex);
+    	}
+    	if ( (uri.getScheme() == null) || (! "https".equalsIgnoreCase(uri.getScheme())) ) {
+    		throw new IllegalArgumentException("Certificate chain URL must use https: "+certChainUrl);
+    	}
+    	if ( (uri.getHost() == null) || (! CERT_CHAIN_HOST.equalsIgnoreCase(uri.getHost())) ) {
+    		throw new IllegalArgumentException("Certificate chain URL host must be "+CERT_CHAIN_HOST+": "+certChainUrl);
+    	}
+    	if ( (uri.getPort() != -1) && (uri.getPort() != 443) ) {
+    		throw new IllegalArgumentException("Certificate chain URL port must be 443: "+certChainUrl);
+    	}
+    	if ( (uri.getPath() == null) || (! uri.getPath().startsWith(CERT_CHAIN_PATH_PREFIX)) ) {
+    		throw new IllegalArgumentException("Certificate chain URL path must start with "+CERT_CHAIN_PATH_PREFIX+": "+certChainUrl);
+    	}
+    	return "https://"+CERT_CHAIN_HOST+uri.getRawPath();
+    }
+
+    /**
+     * Get the signing key of a certificate chain, downloading and checking the chain
+     * unless it was checked recently.
+     *
+     * @param normalizedUrl normalized certificate chain URL
+     * @param nowMillis current time, in milliseconds
+     * @return public key of the signing certificate
+     * @throws IllegalArgumentException if the chain cannot be downloaded or is not valid
+     */
+    private PublicKey getVerifiedKey(String normalizedUrl, long nowMillis) {
+    	while (true) {
+    		CompletableFuture<VerifiedKey> current = verifiedKeys.get(normalizedUrl);
+    		if (current != null) {
+    			VerifiedKey verified;
+    			try {
+    				verified = current.join();
+    			} catch (CompletionException ex) {
+    				// The loading thread removes a failed entry; check again with a fresh load.
+    				verifiedKeys.remove(normalizedUrl, current);
+    				if (ex.getCause() instanceof IllegalArgumentException) {
+    					throw (IllegalArgumentException) ex.getCause();
+    				}
+    				throw ex;
+    			}
+    			if (nowMillis < verified.expiresMillis) {
+    				return verified.publicKey;
+    			}
+    		}
+
+    		// Claim the load with a future, then download and check the chain outside the map.
+    		CompletableFuture<VerifiedKey> loading = new CompletableFuture<VerifiedKey>();
+    		boolean claimed = (current == null) ? (verifiedKeys.putIfAbsent(normalizedUrl, loading) == null)
+    				: verifiedKeys.replace(normalizedUrl, current, loading);
+    		if (! claimed) {
+    			// Another thread started a load first; wait for its result.
+    			continue;
+    		}
+    		try {
+    			VerifiedKey verified = loadVerifiedKey(normalizedUrl, nowMillis);
+    			loading.complete(verified);
+    			removeExpired(nowMillis);
+    			return verified.publicKey;
+    		} catch (RuntimeException ex) {
+    			verifiedKeys.remove(normalizedUrl, loading);
+    			loading.completeExceptionally(ex);
+    			throw ex;
+    		}
+    	}
+    }
+
+    /**
+     * Remove checked chains that may no longer be used, so URLs that are not asked for
+     * again do not stay in memory.
+     *
+     * @param nowMillis current time, in milliseconds
+     */
+    private void removeExpired(long nowMillis) {
+    	verifiedKeys.entrySet().removeIf(entry -> {
+    		CompletableFuture<VerifiedKey> future = entry.getValue();
+    		return future.isDone() && (! future.isCompletedExceptionally()) && (nowMillis >= future.join().expiresMillis);
+    	});
+    }
+
+    /**
+     * Check that a signed request body was sent recently, so a captured request cannot
+     * be replayed.  Call after {@link #verify(byte[], String, String, String)} so the
+     * timestamp read is the one Alexa signed.
+     *
+     * @param body request body bytes, exactly as received
+     * @throws IllegalArgumentException if the timestamp is missing, cannot be read, or
+     * 			is more than {@value #TIMESTAMP_TOLERANCE_MILLIS} milliseconds from now
+     */
+    public void verifyTimestamp(byte[] body) {
+    	verifyTimestamp(body, System.currentTimeMillis());
+    }
+
+    /**
+     * Check that a signed request body was sent close to a given time.
+     *
+     * @param body request body bytes, exactly as received
+     * @param nowMillis current time, in milliseconds
+     * @throws IllegalArgumentException if the timestamp is missing, cannot be read, or
+     * 			is more than {@value #TIMESTAMP_TOLERANCE_MILLIS} milliseconds from nowMillis
+     */
+    protected void verifyTimestamp(byte[] body, long nowMillis) {
+    	JsonNode timestamp;
+    	try {
+    		timestamp = OBJECT_MAPPER.readTree(body).path("request").path("timestamp");
+    	} catch (IOException ex) {
+    		throw new IllegalArgumentException("Request body is not JSON: "+ex.getMessage(), ex);
+    	}
+    	long timestampMillis;
+    	if (timestamp.isNumber()) {
+    		timestampMillis = timestamp.asLong();
+    	} else if (timestamp.isTextual()) {
+    		try {
+    			timestampMillis = OffsetDateTime.parse(timestamp.asText()).toInstant().toEpochMilli();
+    		} catch (DateTimeParseException ex) {
+    			throw new IllegalArgumentException("Request timestamp cannot be read: "+timestamp.asText(), ex);
+    		}
+    	} else {
+    		throw new IllegalArgumentException("Missing request timestamp.");
+    	}
+    	if (Math.abs(nowMillis - timestampMillis) > TIMESTAMP_TOLERANCE_MILLIS) {
+    		throw new IllegalArgumentException("Request timestamp is too far from now: "+timestamp.asText());
+    	}
+    }
+
+    /**
+     * Download and check a certificate chain.
+     *
+     * @param normalizedUrl normalized certificate chain URL
+     * @param nowMillis current time, in milliseconds
+     * @return signing key and how long it may be used
+     * @throws IllegalArgumentException if the chain cannot be downloaded or is not valid
+     */
+    private VerifiedKey loadVerifiedKey(String normalizedUrl, long nowMillis) {
+    	log.info("loadVerifiedKey(url={})", normalizedUrl);
+    	chainLoadCount.incrementAndGet();
+    	List<X509Certificate> chain = new ArrayList<X509Certificate>();
+    	try (InputStream input = openCertificateChain(new URL(normalizedUrl))) {
+    		Collection<? extends Certificate> certificates = CertificateFactory.getInstance("X.509").generateCertificates(input);
+    		for (Certificate certificate : certificates) {
+    			chain.add((X509Certificate) certificate);
+    		}
+    	} catch (IOException | GeneralSecurityException ex) {
+    		throw new IllegalArgumentException("Cannot load certificate chain "+normalizedUrl+": "+ex.getMessage(), ex);
+    	}
+    	if (chain.isEmpty()) {
+    		throw new IllegalArgumentException("No certificates at "+normalizedUrl);
+    	}
+
+    	X509Certificate signingCert = chain.get(0);
+    	checkSubjectAlternativeName(signingCert);
+    	checkChain(chain, nowMillis);
+    	long expiresMillis = Math.min(nowMillis + cacheTimeToLiveMillis, signingCert.getNotAfter().getTime());
+    	return new VerifiedKey(signingCert.getPublicKey(), expiresMillis);
+    }
+
+    /**
+     * Check the signing certificate names {@value #SIGNING_CERT_SAN}.
+     *
+     * @param signingCert signing certificate
+     * @throws IllegalArgumentException if the name is missing
+     */
+    private static void checkSubjectAlternativeName(X509Certificate signingCert) {
+    	try {
+    		Collection<List<?>> names = signingCert.getSubjectAlternativeNames();
+    		if (names != null) {
+    			for (List<?> name : names) {
+    				if ( (((Integer) name.get(0)) == SAN_DNS_NAME) && SIGNING_CERT_SAN.equals(name.get(1)) ) {
+    					return;
+    				}
+    			}
+    		}
+    	} catch (GeneralSecurityException ex) {
+    		throw new IllegalArgumentException("Cannot read signing certificate names: "+ex.getMessage(), ex);
+    	}
+    	throw new IllegalArgumentException("Signing certificate is not for "+SIGNING_CERT_SAN);
+    }
+
+    /**
+     * Check the chain is valid now and leads to a trusted root certificate.
+     *
+     * @param chain certificates, signing certificate first
+     * @param nowMillis current time, in milliseconds
+     * @throws IllegalArgumentException if the chain is not valid
+     */
+    private void checkChain(List<X509Certificate> chain, long nowMillis) {
+    	// Roots included in the file are left out; the trusted copies are used instead.
+    	List<X509Certificate> path = new ArrayList<X509Certificate>();
+    	for (X509Certificate certificate : chain) {
+    		if (! isTrustAnchor(certificate)) {
+    			path.add(certificate);
+    		}
+    	}
+    	try {
+	    	CertPath certPath = CertificateFactory.getInstance("X.509").generateCertPath(path);
+	    	PKIXParameters parameters = new PKIXParameters(trustAnchors);
+	    	parameters.setRevocationEnabled(false);
+	    	parameters.setDate(new Date(nowMillis));
+	    	CertPathValidator.getInstance("PKIX").validate(certPath, parameters);
+    	} catch (GeneralSecurityException ex) {
+    		throw new IllegalArgumentException("Certificate chain is not valid: "+ex.getMessage(), ex);
+    	}
+    }
+
+    /**
+     * Check whether a certificate is one of the trusted root certificates.
+     *
+     * @param certificate certificate to look for
+     * @return true if trusted
+     */
+    private boolean isTrustAnchor(X509Certificate certificate) {
+    	for (TrustAnchor anchor : trustAnchors) {
+    		if (certificate.equals(anchor.getTrustedCert())) {
+    			return true;
+    		}
+    	}
+    	return false;
+    }
+
+    /**
+     * Open a certificate chain for reading.  Tests override this to supply locally
+     * generated certificates without a network connection.
+     *
+     * @param url certificate chain URL
+     * @return stream of PEM certificates
+     * @throws IOException if the chain cannot be downloaded
+     */
+    @CoberturaIgnore
+    protected InputStream openCertificateChain(URL url) throws IOException {
+    	return url.openStream();
+    }
+
+    /**
+     * Get the number of certificate chains downloaded and checked.
+     *
+     * @return chains loaded
+     */
+    public long getChainLoadCount() {
+    	return chainLoadCount.get();
+    }
+
+    /**
+     * Get the number of certificate chains held in memory, including any being loaded.
+     *
+     * @return chains held
+     */
+    public int getCachedChainCount() {
+    	return verifiedKeys.size();
+    }
+}
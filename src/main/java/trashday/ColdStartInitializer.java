@@ -0,0 +1,314 @@
+package trashday;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazon.speech.json.SpeechletRequestEnvelope;
+import com.amazon.speech.json.SpeechletResponseEnvelope;
+import com.amazon.speech.speechlet.Session;
+import com.amazon.speech.speechlet.SpeechletResponse;
+import com.amazon.speech.ui.PlainTextOutputSpeech;
+
+import net.fortuna.ical4j.data.CalendarBuilder;
+import net.fortuna.ical4j.data.ParserException;
+import net.fortuna.ical4j.model.TimeZoneRegistryFactory;
+import trashday.model.Calendar;
+import trashday.model.CalendarData;
+import trashday.model.IntentLog;
+import trashday.storage.SessionDao;
+import trashday.ui.requests.SlotTimeZone;
+
+/**
+ * Runs and times the startup work of a new container, so the first user's
+ * request does not pay for it.
+ * <p>
+ * Jackson, ical4j, the Alexa Skills Kit and the time zone tables all build
+ * their internal tables on first use.  {@link #warmUpSharedComponents()} uses each
+ * of them once on example data.  Other steps, such as creating the
+ * {@link TrashDaySpeechlet} and its Dynamo DB client, are timed with
+ * {@link #create(String, Supplier)} and {@link #warmUp(String, Runnable)}.
+ * {@link #finish()} returns a {@link Report} of how long each step took.
+ * <p>
+ * A warm-up step that fails is logged and recorded in the report, and startup
+ * carries on: the component will be built on first use as before.
+ *
+ * @author J. Todd Baldwin
+ */
+public class ColdStartInitializer {
+	/** Log object for this class */
+    private static final Logger log = LoggerFactory.getLogger(ColdStartInitializer.class);
+
+    /** Example Alexa request, parsed to prepare the Alexa Skills Kit's JSON reader. */
+    private static final String EXAMPLE_REQUEST = "{\"version\":\"1.0\","
+    		+ "\"session\":{\"new\":true,\"sessionId\":\"cold-start-session\",\"attributes\":{},"
+    		+ "\"application\":{\"applicationId\":\"cold-start-application\"},\"user\":{\"userId\":\"cold-start-user\"}},"
+    		+ "\"request\":{\"type\":\"IntentRequest\",\"requestId\":\"cold-start-request\",\"timestamp\":\"2017-01-01T12:00:00Z\",\"locale\":\"en-US\","
+    		+ "\"intent\":{\"name\":\"SetTimeZoneIntent\",\"slots\":{\"TimeZone\":{\"name\":\"TimeZone\",\"value\":\"eastern\"}}}}}";
+
+    /** When the initializer was created, from {@link System#nanoTime()} */
+    private final long startNanos;
+    /** Time taken by each step so far, in nanoseconds, in the order run */
+    private final Map<String, Long> stepNanos = new LinkedHashMap<String, Long>();
+    /** Names of steps that failed */
+    private final List<String> failedSteps = new ArrayList<String>();
+
+    /**
+     * Start timing a container's startup.
+     */
+    public ColdStartInitializer() {
+    	startNanos = System.nanoTime();
+    }
+
+    /**
+     * Run and time a startup step that creates a needed object.  A failure is
+     * recorded and passed on.
+     *
+     * @param <T> type of the object created
+     * @param stepName name of the step in the {@link Report}
+     * @param step creates the object
+     * @return created object
+     */
+    public <T> T create(String stepName, Supplier<T> step) {
+    	log.trace("create({})", stepName);
+    	long start = System.nanoTime();
+    	boolean succeeded = false;
+    	try {
+    		T result = step.get();
+    		succeeded = true;
+    		return result;
+    	} finally {
+    		record(stepName, System.nanoTime() - start, succeeded);
+    	}
+    }
+
+    /**
+     * Run and time an optional warm-up step.  A failure is logged and recorded,
+     * but not passed on.
+     *
+     * @param stepName name of the step in the {@link Report}
+     * @param step warm-up work
+     */
+    public void warmUp(String stepName, Runnable step) {
+    	log.trace("warmUp({})", stepName);
+    	long start = System.nanoTime();
+    	boolean succeeded = false;
+    	try {
+    		step.run();
+    		succeeded = true;
+    	} catch (RuntimeException ex) {
+    		log.warn("Startup step {} failed.  Carrying on without it.", stepName, ex);
+    	} finally {
+    		record(stepName, System.nanoTime() - start, succeeded);
+    	}
+    }
+
+    /**
+     * Record a step's time.
+     *
+     * @param stepName name of the step
+     * @param elapsedNanos time taken, in nanoseconds
+     * @param succeeded true if the step completed
+     */
+    private void record(String stepName, long elapsedNanos, boolean succeeded) {
+    	stepNanos.merge(stepName, elapsedNanos, Long::sum);
+    	if (! succeeded) {
+    		failedSteps.add(stepName);
+    	}
+    }
+
+    /**
+     * Warm up the components every request uses, whatever the user data store:
+     * <ul>
+     * <li>{@code timeZones}: Java's time zone ID table and our spoken time zone names
+     * <li>{@code ical4j}: ical4j's CalendarBuilder, its factory registries and time zone
+     * 			registry, and our calendar reader and recurrence code
+     * <li>{@code jackson}: the shared {@link trashday.model.JsonUtils#OBJECT_MAPPER} and the
+     * 			binary {@link CalendarData} mapper, for session and stored data
+     * <li>{@code alexaSdk}: the Alexa Skills Kit's request reader and response writer
+     * </ul>
+     */
+    public void warmUpSharedComponents() {
+    	warmUp("timeZones", ColdStartInitializer::warmUpTimeZones);
+    	warmUp("ical4j", ColdStartInitializer::warmUpIcal4j);
+    	warmUp("jackson", ColdStartInitializer::warmUpJackson);
+    	warmUp("alexaSdk", ColdStartInitializer::warmUpAlexaSdk);
+    }
+
+    /**
+     * Load the time zone ID table and look up each zone our users can speak.
+     */
+    private static void warmUpTimeZones() {
+    	TimeZone.getAvailableIDs();
+    	for (String zoneName : new String[] { "US/Eastern", "US/Central", "US/Mountain", "US/Pacific", "US/Alaska", "US/Hawaii" }) {
+    		TimeZone.getTimeZone(zoneName);
+    		SlotTimeZone.translateToAlexaSpeak(zoneName);
+    	}
+    	SlotTimeZone.translateFromAlexaSpeak("eastern");
+    }
+
+    /**
+     * Write an example calendar, read it back both with our reader and with ical4j's
+     * CalendarBuilder, and find its next pickups.
+     *
+     * @throws IllegalStateException if the example calendar cannot be read
+     */
+    private static void warmUpIcal4j() throws IllegalStateException {
+    	Calendar calendar = new Calendar();
+    	calendar.initBasicExampleCalendar();
+    	String icalText = calendar.toStringRFC5545();
+    	try {
+    		new CalendarBuilder().build(new StringReader(icalText));
+    		new Calendar(icalText).pickupGetNextOccurrencesInOrder(LocalDateTime.now());
+    	} catch (IOException | ParserException ex) {
+    		throw new IllegalStateException("Unable to read example calendar.", ex);
+    	}
+    	TimeZoneRegistryFactory.getInstance().createRegistry().getTimeZone("America/New_York");
+    }
+
+    /**
+     * Write and read example user data the way requests do: an {@link IntentLog} in the
+     * session and a {@link Calendar} as binary {@link CalendarData}.
+     *
+     * @throws IllegalStateException if the example calendar cannot be read back
+     */
+    private static void warmUpJackson() throws IllegalStateException {
+    	IntentLog intentLog = new IntentLog();
+    	intentLog.incrementIntent(LocalDateTime.now(), "TellNextPickupIntent");
+    	SessionDao sessionDao = new SessionDao(Session.builder().withSessionId("cold-start-session").build());
+    	sessionDao.setIntentLog(intentLog);
+    	sessionDao.getIntentLog();
+
+    	Calendar calendar = new Calendar();
+    	calendar.initBasicExampleCalendar();
+    	try {
+    		CalendarData.decode(CalendarData.encode(calendar));
+    	} catch (IOException | ParserException ex) {
+    		throw new IllegalStateException("Unable to read example calendar data.", ex);
+    	}
+    }
+
+    /**
+     * Read an example Alexa request and write an example response.
+     *
+     * @throws IllegalStateException if the example cannot be read or written
+     */
+    private static void warmUpAlexaSdk() throws IllegalStateException {
+    	try {
+    		SpeechletRequestEnvelope.fromJson(EXAMPLE_REQUEST.getBytes(StandardCharsets.UTF_8));
+    		PlainTextOutputSpeech speech = new PlainTextOutputSpeech();
+    		speech.setText("Cold start.");
+    		SpeechletResponseEnvelope envelope = new SpeechletResponseEnvelope();
+    		envelope.setVersion("1.0");
+    		envelope.setResponse(SpeechletResponse.newTellResponse(speech));
+    		envelope.toJsonBytes();
+    	} catch (IOException ex) {
+    		throw new IllegalStateException("Unable to read example Alexa request.", ex);
+    	}
+    }
+
+    /**
+     * Stop timing and report.
+     *
+     * @return {@link Report} of the steps run
+     */
+    public Report finish() {
+    	return new Report(stepNanos, failedSteps, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * How long each step of a container's startup took.
+     */
+    public static class Report {
+    	/** Time taken by each step, in nanoseconds, in the order run */
+    	private final Map<String, Long> stepNanos;
+    	/** Names of steps that failed */
+    	private final List<String> failedSteps;
+    	/** Time from the start of the first step to the end of the last, in nanoseconds */
+    	private final long totalNanos;
+
+    	/**
+    	 * Create a report.
+    	 *
+    	 * @param stepNanos time taken by each step, in nanoseconds
+    	 * @param failedSteps names of steps that failed
+    	 * @param totalNanos total startup time, in nanoseconds
+    	 */
+    	private Report(Map<String, Long> stepNanos, List<String> failedSteps, long totalNanos) {
+    		this.stepNanos = Collections.unmodifiableMap(new LinkedHashMap<String, Long>(stepNanos));
+    		this.failedSteps = Collections.unmodifiableList(new ArrayList<String>(failedSteps));
+    		this.totalNanos = totalNanos;
+    	}
+
+    	/**
+    	 * Get the names of the steps run.
+    	 *
+    	 * @return step names, in the order run
+    	 */
+    	public List<String> getStepNames() {
+    		return new ArrayList<String>(stepNanos.keySet());
+    	}
+
+    	/**
+    	 * Get the time a step took.
+    	 *
+    	 * @param stepName name of the step
+    	 * @return time taken, in microseconds
+    	 * @throws IllegalArgumentException if no step has that name
+    	 */
+    	public long getStepMicros(String stepName) throws IllegalArgumentException {
+    		Long nanos = stepNanos.get(stepName);
+    		if (nanos == null) {
+    			throw new IllegalArgumentException("No startup step named " + stepName);
+    		}
+    		return nanos / 1000;
+    	}
+
+    	/**
+    	 * Get the steps that failed.
+    	 *
+    	 * @return failed step names, in the order run
+    	 */
+    	public List<String> getFailedSteps() {
+    		return failedSteps;
+    	}
+
+    	/**
+    	 * Get the total startup time, including any work between steps.
+    	 *
+    	 * @return total time, in microseconds
+    	 */
+    	public long getTotalMicros() {
+    		return totalNanos / 1000;
+    	}
+
+    	/**
+    	 * Report in printable form, for the startup log entry.
+    	 *
+    	 * @return String with each step's time in microseconds and any failed steps
+    	 */
+    	@Override
+    	public String toString() {
+    		StringBuilder sb = new StringBuilder();
+    		sb.append("Startup totalUs=").append(getTotalMicros());
+    		for (Map.Entry<String, Long> entry : stepNanos.entrySet()) {
+    			sb.append(" ").append(entry.getKey()).append("Us=").append(entry.getValue() / 1000);
+    		}
+    		if (! failedSteps.isEmpty()) {
+    			sb.append(" failed=").append(failedSteps);
+    		}
+    		return sb.toString();
+    	}
+    }
+}
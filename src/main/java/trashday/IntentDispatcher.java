@@ -0,0 +1,131 @@
+package trashday;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazon.speech.speechlet.IntentRequest;
+import com.amazon.speech.speechlet.Session;
+import com.amazon.speech.speechlet.SpeechletResponse;
+
+/**
+ * Routes Alexa intents to the {@link IntentHandler} registered for each intent name,
+ * timing every call.
+ * <p>
+ * Handlers are registered once, when the skill starts, and looked up by intent name
+ * on each request.  Each call is timed with {@link System#nanoTime()} and recorded in
+ * the intent's {@link IntentMetrics}, so {@link #getMetricsSnapshot()} shows which
+ * intents are slow at the tail and which use the most time overall.
+ *
+ * @author J. Todd Baldwin
+ */
+public class IntentDispatcher {
+	/** Log object for this class */
+    private static final Logger log = LoggerFactory.getLogger(IntentDispatcher.class);
+
+    /**
+     * Registered handler and its metrics.
+     */
+    private static class Registration {
+    	/** Handler for the intent */
+    	final IntentHandler handler;
+    	/** Metrics for the intent */
+    	final IntentMetrics metrics;
+
+    	/**
+    	 * Create a registration.
+    	 *
+    	 * @param intentName Alexa intent name
+    	 * @param handler handler for the intent
+    	 */
+    	Registration(String intentName, IntentHandler handler) {
+    		this.handler = handler;
+    		this.metrics = new IntentMetrics(intentName);
+    	}
+    }
+
+    /** Registered intents keyed by intent name */
+    private final Map<String, Registration> registrations = new ConcurrentHashMap<String, Registration>();
+    /** Number of requests for intents with no handler */
+    private final AtomicLong unrecognizedCount = new AtomicLong();
+
+    /**
+     * Register the handler for an intent.
+     *
+     * @param intentName Alexa intent name
+     * @param handler handler for the intent
+     * @throws IllegalArgumentException if the intent already has a handler
+     */
+    public void register(String intentName, IntentHandler handler) throws IllegalArgumentException {
+    	log.trace("register({})", intentName);
+    	if (registrations.putIfAbsent(intentName, new Registration(intentName, handler)) != null) {
+    		throw new IllegalArgumentException("Intent already registered: " + intentName);
+    	}
+    }
+
+    /**
+     * Check whether an intent has a handler.
+     *
+     * @param intentName Alexa intent name
+     * @return true if registered
+     */
+    public boolean isRegistered(String intentName) {
+    	return registrations.containsKey(intentName);
+    }
+
+    /**
+     * Handle an intent request with its registered handler, recording the
+     * handling time and whether the handler succeeded.
+     *
+     * @param request Alexa intent request
+     * @param session Alexa session
+     * @return Alexa speech and/or card response
+     * @throws IllegalArgumentException if the intent has no handler
+     */
+    public SpeechletResponse dispatch(IntentRequest request, Session session) throws IllegalArgumentException {
+    	String intentName = request.getIntent().getName();
+    	Registration registration = registrations.get(intentName);
+    	if (registration == null) {
+    		unrecognizedCount.incrementAndGet();
+    		throw new IllegalArgumentException("Unrecognized intent: " + intentName);
+    	}
+
+    	boolean succeeded = false;
+    	long start = System.nanoTime();
+    	try {
+    		SpeechletResponse response = registration.handler.handle(request, session);
+    		succeeded = true;
+    		return response;
+    	} finally {
+    		long elapsedNanos = System.nanoTime() - start;
+    		registration.metrics.record(elapsedNanos, succeeded);
+    		log.debug("dispatch {} succeeded={} elapsedUs={}", intentName, succeeded, elapsedNanos / 1000);
+    	}
+    }
+
+    /**
+     * Copy the metrics of every registered intent.
+     *
+     * @return {@link IntentMetrics.Snapshot} for each intent, keyed and sorted by intent name
+     */
+    public Map<String, IntentMetrics.Snapshot> getMetricsSnapshot() {
+    	Map<String, IntentMetrics.Snapshot> snapshot = new TreeMap<String, IntentMetrics.Snapshot>();
+    	for (Map.Entry<String, Registration> entry : registrations.entrySet()) {
+    		snapshot.put(entry.getKey(), entry.getValue().metrics.snapshot());
+    	}
+    	return snapshot;
+    }
+
+    /**
+     * Get the number of requests for intents with no handler.
+     *
+     * @return unrecognized intent count
+     */
+    public long getUnrecognizedCount() {
+    	return unrecognizedCount.get();
+    }
+}
@@ -0,0 +1,23 @@
+package trashday;
+
+import com.amazon.speech.speechlet.IntentRequest;
+import com.amazon.speech.speechlet.Session;
+import com.amazon.speech.speechlet.SpeechletResponse;
+
+/**
+ * Handles one Alexa intent, as registered with an {@link IntentDispatcher}.
+ * Usually a reference to one of the {@link TrashDayManager} handle methods.
+ *
+ * @author J. Todd Baldwin
+ */
+@FunctionalInterface
+public interface IntentHandler {
+	/**
+	 * Handle the intent request.
+	 *
+	 * @param request Alexa intent request
+	 * @param session Alexa session
+	 * @return Alexa speech and/or card response
+	 */
+	SpeechletResponse handle(IntentRequest request, Session session);
+}
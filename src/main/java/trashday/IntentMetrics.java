@@ -0,0 +1,239 @@
+package trashday;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Call counts and handling times for one Alexa intent, recorded by an
+ * {@link IntentDispatcher}.
+ * <p>
+ * Times are kept in a histogram of power-of-two microsecond buckets (bucket
+ * {@code n} holds times below 2<sup>n</sup> microseconds), so recording is a few
+ * atomic increments and percentiles can be read without keeping every time.
+ * A percentile is reported as the upper bound of its bucket, so it is at most
+ * twice the true value.
+ *
+ * @author J. Todd Baldwin
+ */
+public class IntentMetrics {
+	/** Number of histogram buckets.  The last bucket holds all times of 2<sup>30</sup> microseconds (about 18 minutes) or more. */
+	public static final int BUCKET_COUNT = 32;
+
+	/** Intent name */
+	private final String intentName;
+	/** Number of calls that returned a response */
+	private final AtomicLong successCount = new AtomicLong();
+	/** Number of calls that threw an exception */
+	private final AtomicLong failureCount = new AtomicLong();
+	/** Total handling time of all calls, in nanoseconds */
+	private final AtomicLong totalNanos = new AtomicLong();
+	/** Longest handling time of any call, in nanoseconds */
+	private final AtomicLong maxNanos = new AtomicLong();
+	/** Number of calls in each power-of-two microsecond bucket */
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+	/**
+	 * Create empty metrics for an intent.
+	 *
+	 * @param intentName Alexa intent name
+	 */
+	public IntentMetrics(String intentName) {
+		this.intentName = intentName;
+	}
+
+	/**
+	 * Get the intent these metrics are for.
+	 *
+	 * @return Alexa intent name
+	 */
+	public String getIntentName() {
+		return intentName;
+	}
+
+	/**
+	 * Record one call.
+	 *
+	 * @param elapsedNanos handling time, in nanoseconds
+	 * @param succeeded true if the handler returned a response, false if it threw
+	 */
+	public void record(long elapsedNanos, boolean succeeded) {
+		if (succeeded) {
+			successCount.incrementAndGet();
+		} else {
+			failureCount.incrementAndGet();
+		}
+		totalNanos.addAndGet(elapsedNanos);
+		maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+		buckets.incrementAndGet(bucketOf(elapsedNanos));
+	}
+
+	/**
+	 * Find the histogram bucket for a handling time.
+	 *
+	 * @param elapsedNanos handling time, in nanoseconds
+	 * @return bucket index
+	 */
+	protected static int bucketOf(long elapsedNanos) {
+		long micros = elapsedNanos / 1000;
+		int bucket = 64 - Long.numberOfLeadingZeros(micros);
+		return Math.min(bucket, BUCKET_COUNT - 1);
+	}
+
+	/**
+	 * Copy the current values.  Calls recorded while copying may be
+	 * partly included.
+	 *
+	 * @return {@link Snapshot} of these metrics
+	 */
+	public Snapshot snapshot() {
+		long[] counts = new long[BUCKET_COUNT];
+		for (int i=0; i<BUCKET_COUNT; i++) {
+			counts[i] = buckets.get(i);
+		}
+		return new Snapshot(intentName, successCount.get(), failureCount.get(), totalNanos.get(), maxNanos.get(), counts);
+	}
+
+	/**
+	 * Unchanging copy of an intent's metrics at one time.
+	 */
+	public static class Snapshot {
+		/** Intent name */
+		private final String intentName;
+		/** Number of calls that returned a response */
+		private final long successCount;
+		/** Number of calls that threw an exception */
+		private final long failureCount;
+		/** Total handling time of all calls, in nanoseconds */
+		private final long totalNanos;
+		/** Longest handling time of any call, in nanoseconds */
+		private final long maxNanos;
+		/** Number of calls in each power-of-two microsecond bucket */
+		private final long[] buckets;
+
+		/**
+		 * Create a snapshot.
+		 *
+		 * @param intentName Alexa intent name
+		 * @param successCount number of calls that returned a response
+		 * @param failureCount number of calls that threw an exception
+		 * @param totalNanos total handling time, in nanoseconds
+		 * @param maxNanos longest handling time, in nanoseconds
+		 * @param buckets histogram counts, not copied
+		 */
+		private Snapshot(String intentName, long successCount, long failureCount, long totalNanos, long maxNanos, long[] buckets) {
+			this.intentName = intentName;
+			this.successCount = successCount;
+			this.failureCount = failureCount;
+			this.totalNanos = totalNanos;
+			this.maxNanos = maxNanos;
+			this.buckets = buckets;
+		}
+
+		/**
+		 * Get the intent name.
+		 *
+		 * @return Alexa intent name
+		 */
+		public String getIntentName() {
+			return intentName;
+		}
+
+		/**
+		 * Get the number of calls.
+		 *
+		 * @return calls that succeeded plus calls that failed
+		 */
+		public long getCount() {
+			return successCount + failureCount;
+		}
+
+		/**
+		 * Get the number of calls that returned a response.
+		 *
+		 * @return success count
+		 */
+		public long getSuccessCount() {
+			return successCount;
+		}
+
+		/**
+		 * Get the number of calls that threw an exception.
+		 *
+		 * @return failure count
+		 */
+		public long getFailureCount() {
+			return failureCount;
+		}
+
+		/**
+		 * Get the total handling time of all calls.  Shows which intents use
+		 * the most capacity.
+		 *
+		 * @return total time, in microseconds
+		 */
+		public long getTotalMicros() {
+			return totalNanos / 1000;
+		}
+
+		/**
+		 * Get the mean handling time.
+		 *
+		 * @return mean time, in microseconds, or 0 if no calls
+		 */
+		public long getMeanMicros() {
+			long count = getCount();
+			return (count == 0) ? 0 : totalNanos / count / 1000;
+		}
+
+		/**
+		 * Get the longest handling time.
+		 *
+		 * @return longest time, in microseconds
+		 */
+		public long getMaxMicros() {
+			return maxNanos / 1000;
+		}
+
+		/**
+		 * Get an upper bound on a handling time percentile.
+		 *
+		 * @param percent percentile wanted, from 0 to 100
+		 * @return upper bound of the bucket holding the percentile, in microseconds
+		 * 			(no more than {@link #getMaxMicros()}), or 0 if no calls
+		 * @throws IllegalArgumentException if percent is outside 0 to 100
+		 */
+		public long getPercentileMicros(double percent) throws IllegalArgumentException {
+			if ( (percent < 0) || (percent > 100) ) {
+				throw new IllegalArgumentException("Percentile must be from 0 to 100: "+percent);
+			}
+			long count = 0;
+			for (long bucketCount : buckets) {
+				count += bucketCount;
+			}
+			if (count == 0) {
+				return 0;
+			}
+			long rank = Math.max(1, (long) Math.ceil(percent / 100.0 * count));
+			long seen = 0;
+			for (int i=0; i<buckets.length; i++) {
+				seen += buckets[i];
+				if (seen >= rank) {
+					return Math.min(1L << i, getMaxMicros());
+				}
+			}
+			return getMaxMicros();
+		}
+
+		/**
+		 * Metrics in printable form.
+		 *
+		 * @return String with counts and times in microseconds
+		 */
+		@Override
+		public String toString() {
+			return String.format("%s: count=%d failed=%d totalUs=%d meanUs=%d p50Us=%d p99Us=%d maxUs=%d",
+					intentName, getCount(), failureCount, getTotalMicros(), getMeanMicros(),
+					getPercentileMicros(50), getPercentileMicros(99), getMaxMicros());
+		}
+	}
+}
@@ -0,0 +1,392 @@
+package trashday;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serve Alexa requests over HTTP from a long-running process, instead of
+ * one Lambda invocation per request.  Each POSTed Alexa request JSON body is passed to the
+ * same {@link TrashDaySpeechletRequestStreamHandler} the Lambda function uses, and
+ * its JSON output is the HTTP response.
+ * <p>
+ * Requests are handled by a fixed pool of worker threads.  At most
+ * {@code queueLimit} requests wait for a worker.  Requests beyond that are refused at
+ * once with HTTP 503, so a burst cannot pile up requests Alexa will have given up
+ * on.  {@link #stop(long)} stops taking requests and lets those already accepted
+ * finish before closing the port.
+ * <p>
+ * Alexa only calls HTTPS endpoints, so a TLS proxy is expected in front of this
+ * server.  Given an {@link AlexaSignatureVerifier}, the server refuses requests
+ * not signed by Alexa, or whose timestamp is too far from now, with HTTP 400.
+ *
+ * @author J. Todd Baldwin
+ */
+public class TrashDayHttpServer {
+	/** Log object for this class */
+    private static final Logger log = LoggerFactory.getLogger(TrashDayHttpServer.class);
+
+    /** Port used when none is given. */
+    public static final int DEFAULT_PORT = 8080;
+    /** Requests allowed to wait for a worker when no limit is given. */
+    public static final int DEFAULT_QUEUE_LIMIT = 64;
+    /** Longest time, in milliseconds, {@link #main(String[])} waits for requests to finish at shutdown. */
+    public static final long DEFAULT_DRAIN_MILLIS = 10000L;
+    /** Largest request body accepted, in bytes.  Alexa requests are a few kilobytes. */
+    public static final int MAX_REQUEST_BYTES = 128 * 1024;
+    /** Seconds a refused caller is told to wait before trying again. */
+    public static final int RETRY_AFTER_SECONDS = 1;
+
+    /** Handler that turns Alexa request JSON into response JSON */
+    private final RequestStreamHandler requestHandler;
+    /** Checks requests were signed by Alexa, or null to accept any request */
+    private final AlexaSignatureVerifier signatureVerifier;
+    /** JDK HTTP server accepting connections */
+    private final HttpServer httpServer;
+    /** Workers handling requests, with a bounded queue of waiting requests */
+    private final ThreadPoolExecutor workers;
+    /** Number of requests answered by the request handler */
+    private final AtomicLong handledCount = new AtomicLong();
+    /** Number of requests refused because the workers and queue were full or stopping */
+    private final AtomicLong shedCount = new AtomicLong();
+    /** Number of requests the request handler failed on */
+    private final AtomicLong failedCount = new AtomicLong();
+    /** Number of requests refused because they were not signed by Alexa or were too old */
+    private final AtomicLong unsignedCount = new AtomicLong();
+
+    /**
+     * Create a server that accepts requests without checking their signatures.  Used for
+     * tests and load tests.  Nothing is accepted until {@link #start()}.
+     *
+     * @param requestHandler {@link RequestStreamHandler} that handles each request,
+     * 			normally a {@link TrashDaySpeechletRequestStreamHandler}
+     * @param address address and port to listen on.  Port 0 picks any free port
+     * 			(see {@link #getPort()}).
+     * @param workerThreads number of requests handled at once
+     * @param queueLimit number of requests allowed to wait for a worker
+     * @throws IOException if the port cannot be opened
+     * @throws IllegalArgumentException if workerThreads is less than 1 or queueLimit
+     * 			is less than 0
+     */
+    public TrashDayHttpServer(RequestStreamHandler requestHandler, InetSocketAddress address, int workerThreads, int queueLimit) throws IOException {
+    	this(requestHandler, address, workerThreads, queueLimit, null);
+    }
+
+    /**
+     * Create a server.  Nothing is accepted until {@link #start()}.
+     *
+     * @param requestHandler {@link RequestStreamHandler} that handles each request,
+     * 			normally a {@link TrashDaySpeechletRequestStreamHandler}
+     * @param address address and port to listen on.  Port 0 picks any free port
+     * 			(see {@link #getPort()}).
+     * @param workerThreads number of requests handled at once
+     * @param queueLimit number of requests allowed to wait for a worker
+     * @param signatureVerifier {@link AlexaSignatureVerifier} checking each request was
+     * 			signed by Alexa, or null to accept any request
+     * @throws IOException if the port cannot be opened
+     * @throws IllegalArgumentException if workerThreads is less than 1 or queueLimit
+     * 			is less than 0
+     */
+    public TrashDayHttpServer(RequestStreamHandler requestHandler, InetSocketAddress address, int workerThreads, int queueLimit,
+    		AlexaSignatureVerifier signatureVerifier) throws IOException {
+    	log.trace("TrashDayHttpServer(address={}, workerThreads={}, queueLimit={})", address, workerThreads, queueLimit);
+    	if (workerThreads < 1) {
+    		throw new IllegalArgumentException("Worker threads must be at least 1: "+workerThreads);
+    	}
+    	if (queueLimit < 0) {
+    		throw new IllegalArgumentException("Queue limit must not be negative: "+queueLimit);
+    	}
+    	this.requestHandler = requestHandler;
+    	this.signatureVerifier = signatureVerifier;
+    	// With no queue, a request is only taken when a worker is free.
+    	BlockingQueue<Runnable> queue = (queueLimit == 0) ? new SynchronousQueue<Runnable>() : new ArrayBlockingQueue<Runnable>(queueLimit);
+    	workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS, queue, new WorkerThreadFactory());
+    	httpServer = HttpServer.create(address, 0);
+    	httpServer.createContext("/", new AlexaRequestHandler());
+    	// Exchanges are accepted on the server's own thread and passed to the workers.
+    	httpServer.setExecutor(null);
+    }
+
+    /**
+     * Names worker threads so they can be found in thread dumps and logs.
+     */
+    private static class WorkerThreadFactory implements ThreadFactory {
+    	/** Number of worker threads created */
+    	private final AtomicInteger created = new AtomicInteger();
+
+    	/**
+    	 * Create a worker thread.
+    	 *
+    	 * @param runnable work for the thread
+    	 * @return new Thread
+    	 */
+		@Override
+		public Thread newThread(Runnable runnable) {
+			return new Thread(runnable, "trashday-http-worker-"+created.incrementAndGet());
+		}
+    }
+
+    /**
+     * Passes each exchange to the workers, or refuses it when they are full.
+     */
+    private class AlexaRequestHandler implements HttpHandler {
+    	/**
+    	 * Queue an exchange for a worker.  Runs on the server's accept thread, so it only
+    	 * decides whether the request can be taken.
+    	 *
+    	 * @param exchange {@link HttpExchange} for one request
+    	 * @throws IOException if a refusal cannot be sent
+    	 */
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			if (! "POST".equals(exchange.getRequestMethod())) {
+				exchange.getResponseHeaders().set("Allow", "POST");
+				sendEmpty(exchange, 405);
+				return;
+			}
+			try {
+				workers.execute(() -> handleExchange(exchange));
+			} catch (RejectedExecutionException ex) {
+				shed(exchange);
+			}
+		}
+
+		/**
+		 * Refuse a request the workers have no room for.
+		 *
+		 * @param exchange {@link HttpExchange} to refuse
+		 * @throws IOException if the refusal cannot be sent
+		 */
+		private void shed(HttpExchange exchange) throws IOException {
+			long shed = shedCount.incrementAndGet();
+			log.warn("Request refused, workers busy.  active={} queued={} shed={}", workers.getActiveCount(), workers.getQueue().size(), shed);
+			exchange.getResponseHeaders().set("Retry-After", Integer.toString(RETRY_AFTER_SECONDS));
+			sendEmpty(exchange, 503);
+		}
+    }
+
+    /**
+     * Handle one request on a worker thread: read the Alexa request JSON, run it through
+     * the request handler and send back its output.
+     *
+     * @param exchange {@link HttpExchange} for one request
+     */
+    private void handleExchange(HttpExchange exchange) {
+    	try {
+    		byte[] requestBytes = readBody(exchange.getRequestBody());
+    		if (requestBytes == null) {
+    			sendEmpty(exchange, 413);
+    			return;
+    		}
+    		if (signatureVerifier != null) {
+    			Headers headers = exchange.getRequestHeaders();
+    			try {
+    				signatureVerifier.verify(requestBytes, headers.getFirst(AlexaSignatureVerifier.HEADER_CERT_CHAIN_URL),
+    						headers.getFirst(AlexaSignatureVerifier.HEADER_SIGNATURE_256), headers.getFirst(AlexaSignatureVerifier.HEADER_SIGNATURE));
+    				signatureVerifier.verifyTimestamp(requestBytes);
+    			} catch (IllegalArgumentException ex) {
+    				long unsigned = unsignedCount.incrementAndGet();
+    				log.warn("Request not signed by Alexa: {}  unsigned={}", ex.getMessage(), unsigned);
+    				sendEmpty(exchange, 400);
+    				return;
+    			}
+    		}
+    		ByteArrayOutputStream responseBytes = new ByteArrayOutputStream(4096);
+    		try {
+    			requestHandler.handleRequest(new ByteArrayInputStream(requestBytes), responseBytes, null);
+    		} catch (IOException | RuntimeException ex) {
+    			long failed = failedCount.incrementAndGet();
+    			log.error("Request handler failed.  failed={}", failed, ex);
+    			sendEmpty(exchange, 500);
+    			return;
+    		}
+    		handledCount.incrementAndGet();
+    		exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+    		exchange.sendResponseHeaders(200, responseBytes.size());
+    		try (OutputStream body = exchange.getResponseBody()) {
+    			responseBytes.writeTo(body);
+    		}
+    	} catch (IOException ex) {
+    		log.warn("Could not answer request: {}", ex.getMessage());
+    	} finally {
+    		exchange.close();
+    	}
+    }
+
+    /**
+     * Read a request body, up to {@link #MAX_REQUEST_BYTES}.
+     *
+     * @param input request body
+     * @return body bytes, or null if the body is too large
+     * @throws IOException if the body cannot be read
+     */
+    private static byte[] readBody(InputStream input) throws IOException {
+    	ByteArrayOutputStream body = new ByteArrayOutputStream(4096);
+    	byte[] buffer = new byte[4096];
+    	int read;
+    	while ((read = input.read(buffer)) != -1) {
+    		body.write(buffer, 0, read);
+    		if (body.size() > MAX_REQUEST_BYTES) {
+    			return null;
+    		}
+    	}
+    	return body.toByteArray();
+    }
+
+    /**
+     * Send a response with a status code and no body.
+     *
+     * @param exchange {@link HttpExchange} to answer
+     * @param status HTTP status code
+     * @throws IOException if the response cannot be sent
+     */
+    private static void sendEmpty(HttpExchange exchange, int status) throws IOException {
+    	exchange.sendResponseHeaders(status, -1);
+    	exchange.close();
+    }
+
+    /**
+     * Start accepting requests.
+     */
+    public void start() {
+    	httpServer.start();
+    	log.info("Listening on {} with {} workers.", httpServer.getAddress(), workers.getCorePoolSize());
+    }
+
+    /**
+     * Stop accepting requests, wait for accepted requests to finish and close the port.
+     * Requests arriving while this waits are refused with HTTP 503.
+     *
+     * @param drainMillis longest time, in milliseconds, to wait for accepted requests
+     * @return true if every accepted request finished, false if some were still
+     * 			running when the wait ended
+     */
+    public boolean stop(long drainMillis) {
+    	log.info("Stopping.  active={} queued={}", workers.getActiveCount(), workers.getQueue().size());
+    	workers.shutdown();
+    	boolean drained = false;
+    	try {
+    		drained = workers.awaitTermination(drainMillis, TimeUnit.MILLISECONDS);
+    	} catch (InterruptedException ex) {
+    		Thread.currentThread().interrupt();
+    	}
+    	if (! drained) {
+    		log.warn("Requests still running after {} ms.", drainMillis);
+    		workers.shutdownNow();
+    	}
+    	httpServer.stop(0);
+    	log.info("Stopped.  handled={} shed={} failed={} unsigned={}", handledCount.get(), shedCount.get(), failedCount.get(), unsignedCount.get());
+    	return drained;
+    }
+
+    /**
+     * Check whether {@link #stop(long)} has been called.  A stopping server refuses
+     * new requests.
+     *
+     * @return true once stopping has started
+     */
+    public boolean isStopping() {
+    	return workers.isShutdown();
+    }
+
+    /**
+     * Get the port this server listens on.
+     *
+     * @return port number
+     */
+    public int getPort() {
+    	return httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Get the number of accepted requests waiting for a worker.
+     *
+     * @return requests waiting
+     */
+    public int getQueuedCount() {
+    	return workers.getQueue().size();
+    }
+
+    /**
+     * Get the number of requests answered by the request handler.
+     *
+     * @return requests handled
+     */
+    public long getHandledCount() {
+    	return handledCount.get();
+    }
+
+    /**
+     * Get the number of requests refused with HTTP 503 because every worker was
+     * busy and the queue was full, or the server was stopping.
+     *
+     * @return requests refused
+     */
+    public long getShedCount() {
+    	return shedCount.get();
+    }
+
+    /**
+     * Get the number of requests the request handler failed on.
+     *
+     * @return requests failed
+     */
+    public long getFailedCount() {
+    	return failedCount.get();
+    }
+
+    /**
+     * Get the number of requests refused with HTTP 400 because they were not
+     * signed by Alexa or their timestamp was too far from now.
+     *
+     * @return requests refused
+     */
+    public long getUnsignedCount() {
+    	return unsignedCount.get();
+    }
+
+    /**
+     * Run the skill as an HTTP service storing user data in the Amazon Dynamo DB cloud.
+     * Requires the {@code ApplicationId} environment variable, as the Lambda function does.
+     * Every request must be signed by Alexa (see {@link AlexaSignatureVerifier}).
+     * Stops gracefully, waiting up to {@link #DEFAULT_DRAIN_MILLIS}, when the process is
+     * told to exit.
+     * <p>
+     * Usage: {@code TrashDayHttpServer [PORT [WORKER_THREADS [QUEUE_LIMIT]]]}
+     *
+     * @param args optional port, worker thread count and queue limit
+     * @throws IOException if the port cannot be opened
+     */
+    @CoberturaIgnore
+    public static void main(String[] args) throws IOException {
+    	int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+    	int workerThreads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors() * 2;
+    	int queueLimit = (args.length > 2) ? Integer.parseInt(args[2]) : DEFAULT_QUEUE_LIMIT;
+
+    	TrashDayHttpServer server = new TrashDayHttpServer(new TrashDaySpeechletRequestStreamHandler(),
+    			new InetSocketAddress(port), workerThreads, queueLimit, new AlexaSignatureVerifier());
+    	Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(DEFAULT_DRAIN_MILLIS), "trashday-http-shutdown"));
+    	server.start();
+    }
+}
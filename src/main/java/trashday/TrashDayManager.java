@@ -4,8 +4,14 @@ import java.time.DayOfWeek;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +21,7 @@ import com.amazon.speech.speechlet.IntentRequest;
 import com.amazon.speech.speechlet.LaunchRequest;
 import com.amazon.speech.speechlet.Session;
 import com.amazon.speech.speechlet.SpeechletResponse;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsyncClient;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
 import trashday.model.Calendar;
 import trashday.model.DateTimeUtils;
@@ -22,6 +29,7 @@ import trashday.model.IntentLog;
 import trashday.model.NextPickups;
 import trashday.storage.DynamoDao;
 import trashday.storage.SessionDao;
+import trashday.storage.UserDataUnitOfWork;
 import trashday.ui.requests.SlotDayOfMonth;
 import trashday.ui.requests.SlotDayOfWeek;
 import trashday.ui.requests.SlotNthOfMonth;
@@ -34,6 +42,7 @@ import trashday.ui.responses.ResponsesHelp;
 import trashday.ui.responses.ResponsesSchedule;
 import trashday.ui.responses.ResponsesYesNo;
 import trashday.storage.DynamoItemPersistence;
+import trashday.storage.UserDataStore;
 
 /**
  * Handles the core application logic.  The {@link TrashDaySpeechlet}
@@ -49,22 +58,42 @@ public class TrashDayManager {
 	/** Log object for this class */
     private static final Logger log = LoggerFactory.getLogger(TrashDayManager.class);
     	
+    /**
+     * Longest time, in milliseconds, calendar and time zone changes may wait in the
+     * Session before they are written to Dynamo DB, even though the session continues.
+     * See {@link #flushStaleUserData(Session, Date)}.
+     */
+    public static final long USER_DATA_WRITE_DELAY_MAX = 60000L;
+    
+    /**
+     * Longest time, in milliseconds, a handler waits for its intent log write
+     * (see {@link #startIntentLogFlush(SessionDao)}) before returning its response anyway.
+     * <p>
+     * The session's counts are cleared when the write starts, so a write still running
+     * when the wait ends is the only copy of them.  On Lambda the container is frozen once
+     * the handler returns, and such a write may not finish until the next request, or
+     * ever.  Its counts are then lost.  Late failures are still counted in
+     * {@link #getIntentLogFlushFailures()} if the write gets to run.
+     */
+    public static final long INTENT_LOG_FLUSH_WAIT_MAX = 1000L;
+    
+    /** Number of intent log writes that failed in this JVM. */
+    private static final AtomicLong intentLogFlushFailures = new AtomicLong();
+    /** Number of intent log writes not finished within {@link #INTENT_LOG_FLUSH_WAIT_MAX} in this JVM. */
+    private static final AtomicLong intentLogFlushTimeouts = new AtomicLong();
+    	
     /** Connection to the Dynamo DB used to store the user's pickup schedule data. */
     private final DynamoDao dynamoDao;
-    /** Connection to the Alexa Session used to store user's information. */
-    private SessionDao sessionDao = null;
-    /** User time zone loaded from the Session or Dynamo DB when request handler requires. */
-    private TimeZone timeZone = null;
-    /** User schedule loaded from the Session or Dynamo DB when request handler requires. */
-    //private Schedule schedule = null;
-    /** User calendar loaded from the Session or Dynamo DB when request handler requires. */
-    private Calendar calendar = null;
 
 	/** 
      * Create manager object to handle mapping user intents to application
      * actions.  Methods will usually perform some action on the user's
      * pickup schedule and then will return verbal response from the
      * classes in the {@link trashday.ui.responses} package.
+     * <p>
+     * The manager keeps no data about the request it is handling.  Each handler
+     * works from its own {@link TrashDayRequestContext}, so one manager may
+     * handle requests from many threads at once.
      * 
      * @param amazonDynamoDbClient
      *            {@link AmazonDynamoDBClient} connection for the Dynamo DB holding our schedule data.
@@ -75,12 +104,32 @@ public class TrashDayManager {
      */
     public TrashDayManager(AmazonDynamoDBClient amazonDynamoDbClient, String tableNameOverride) {
     	if (amazonDynamoDbClient==null) {
-    		amazonDynamoDbClient = new AmazonDynamoDBClient();
+    		// Asynchronous client, so intent log writes overlap with building responses.
+    		amazonDynamoDbClient = new AmazonDynamoDBAsyncClient();
     	}
     	DynamoItemPersistence dynamoItemPersistence = new DynamoItemPersistence(amazonDynamoDbClient, tableNameOverride);
     	dynamoDao = new DynamoDao(dynamoItemPersistence);
     }
     
+	/** 
+     * Create manager object that stores user data in the given {@link UserDataStore}
+     * instead of Dynamo DB.  Used to load test request handling without a database.
+     * 
+     * @param userDataStore {@link UserDataStore} holding users' pickup schedule data
+     */
+    public TrashDayManager(UserDataStore userDataStore) {
+    	dynamoDao = new DynamoDao(userDataStore);
+    }
+    
+    /**
+     * Prepare user data storage for the first user's request
+     * (see {@link trashday.storage.UserDataStore#warmUp()}).
+     */
+    public void warmUp() {
+    	log.trace("warmUp()");
+    	dynamoDao.warmUp();
+    }
+    
 	/**
 	 * Find a {@link java.time.LocalDateTime} for the given user 
 	 * {@link com.amazon.speech.speechlet.LaunchRequest} and {@link java.util.TimeZone}.
@@ -107,70 +156,65 @@ public class TrashDayManager {
 		return DateTimeUtils.getLocalDateTime(request.getTimestamp(), timeZone);
 	}
     
+	/**
+	 * Start the {@link TrashDayRequestContext} for a request.
+	 * 
+	 * @param session
+	 *            {@link com.amazon.speech.speechlet.Session} for this request
+	 * @param requestTimestamp {@link java.util.Date} timestamp of the Alexa request being handled,
+	 * 			or null if not known
+	 * @return new {@link TrashDayRequestContext} with nothing yet loaded
+	 */
+    protected TrashDayRequestContext newRequestContext(Session session, Date requestTimestamp) {
+    	return new TrashDayRequestContext(new SessionDao(session, requestTimestamp), dynamoDao);
+    }
+    
 	/**
      * 
      * Get the {@link trashday.model.Calendar} from the {@link com.amazon.speech.speechlet.Session} if 
-     * it is available.  Otherwise, try to load from Dynamo DB.
+     * it is available.  Otherwise, try to load from Dynamo DB (at most once per request,
+     * see {@link UserDataUnitOfWork}).
      * Finally, return null if it is not available in either
      * location.
 	 * 
-	 * @param sessionDao {@link SessionDao} data access object for user data stored in 
-	 * 			current {@link com.amazon.speech.speechlet.Session}.
-	 * @param dynamoDao {@link DynamoDao} data access object for storing user data between
-	 * 			Alexa sessions.
+	 * @param context {@link TrashDayRequestContext} of the request being handled
 	 * @return {@link trashday.model.Calendar} containing user's pickup schedule
 	 */
-    private Calendar loadCalendar(SessionDao sessionDao, DynamoDao dynamoDao) {
+    private Calendar loadCalendar(TrashDayRequestContext context) {
     	log.trace("loadCalendar()");
-    	
-    	// Try loading schedule from session.
-    	Calendar calendar = sessionDao.getCalendar();
-    	if (calendar == null) {
-        	// If no schedule data available in the session, try load from DB.
-    		dynamoDao.readUserData(sessionDao);
-    		calendar = sessionDao.getCalendar();
-    	}
-    	return calendar;
+    	return context.getUserData().getCalendar();
     }
     
 	/**
      * Get the {@link java.util.TimeZone} from the {@link Session} if 
-     * it is available.  Otherwise, try to load from Dynamo DB.
+     * it is available.  Otherwise, try to load from Dynamo DB (at most once per request,
+     * see {@link UserDataUnitOfWork}).
      * Finally, return null if it is not available in either
      * location.
 	 * 
-	 * @param sessionDao {@link SessionDao} data access object for user data stored in 
-	 * 			current {@link com.amazon.speech.speechlet.Session}.
-	 * @param dynamoDao {@link DynamoDao} data access object for storing user data between
-	 * 			Alexa sessions.
+	 * @param context {@link TrashDayRequestContext} of the request being handled
 	 * @return {@link java.util.TimeZone} for this user.
 	 */
-    private TimeZone loadTimeZone(SessionDao sessionDao, DynamoDao dynamoDao) {
+    private TimeZone loadTimeZone(TrashDayRequestContext context) {
     	log.trace("loadTimeZone()");
-    	
-    	// Try loading time zone from session.
-    	TimeZone timeZone = sessionDao.getTimeZone();
-    	if (timeZone == null) {
-        	// If no time zone data available in the session, try load from DB.
-    		dynamoDao.readUserData(sessionDao);
-    		timeZone = sessionDao.getTimeZone();
-    	}
-    	return timeZone;
+    	return context.getUserData().getTimeZone();
     }
 
     /**
      * For handlers that require user time zone and schedule data to exist, use this
-     * method to load the information from the {@link com.amazon.speech.speechlet.Session}
-     * or from Dynomo DB.  If data is missing, respond to user with prompts to add
-     * this information.
+     * method to check the information loaded by {@link TrashDayRequestContext#withUserConfiguration()}
+     * from the {@link com.amazon.speech.speechlet.Session} or from Dynomo DB.  If data is missing,
+     * respond to user with prompts to add this information.
      * 
+	 * @param context {@link TrashDayRequestContext} holding the user's calendar and time zone
      * @return {@link com.amazon.speech.speechlet.SpeechletResponse} null if configuration
      * 		is complete.  Otherwise, a {@link com.amazon.speech.speechlet.SpeechletResponse}
      * 		prompting the user to add the missing information.
      */
-    protected SpeechletResponse isConfigurationComplete() {
-    	calendar = loadCalendar(sessionDao, dynamoDao);
-    	timeZone = loadTimeZone(sessionDao, dynamoDao);
+    protected SpeechletResponse isConfigurationComplete(TrashDayRequestContext context) {
+    	SessionDao sessionDao = context.getSessionDao();
+    	Calendar calendar = context.getCalendar();
+    	TimeZone timeZone = context.getTimeZone();
 
     	// No configuration available for this user => Welcome and start configuring.
     	if ( (calendar == null) && (timeZone==null)) {
@@ -195,17 +239,19 @@ public class TrashDayManager {
     
     /**
      * For handlers that require user time zone data to exist, use this
-     * method to load the information from the {@link com.amazon.speech.speechlet.Session}
-     * or from Dynomo DB.  If data is missing, respond to user with prompts to add
-     * this information.
+     * method to check the information loaded by {@link TrashDayRequestContext#withUserConfiguration()}
+     * from the {@link com.amazon.speech.speechlet.Session} or from Dynomo DB.  If data is missing,
+     * respond to user with prompts to add this information.
      * 
+	 * @param context {@link TrashDayRequestContext} holding the user's calendar and time zone
      * @return {@link com.amazon.speech.speechlet.SpeechletResponse} null if time zone configuration
      * 		is complete.  Otherwise, a {@link com.amazon.speech.speechlet.SpeechletResponse}
      * 		prompting the user to add the missing information.
      */
-    protected SpeechletResponse isTimeZoneConfigurationComplete() {
-    	calendar = loadCalendar(sessionDao, dynamoDao);
-    	timeZone = loadTimeZone(sessionDao, dynamoDao);
+    protected SpeechletResponse isTimeZoneConfigurationComplete(TrashDayRequestContext context) {
+    	SessionDao sessionDao = context.getSessionDao();
+    	Calendar calendar = context.getCalendar();
+    	TimeZone timeZone = context.getTimeZone();
     	
     	// No configuration available for this user => Welcome and start configuring.
     	if ( (calendar == null) && (timeZone==null)) {
@@ -230,28 +276,180 @@ public class TrashDayManager {
      *            {@link com.amazon.speech.speechlet.Session} for this request
      */
     public void flushIntentLog(Session session) {
-    	sessionDao = new SessionDao(session);
-    	flushIntentLog();
+    	flushIntentLog(new SessionDao(session));
     }
     
     /**
-     * Flush any intent log data that has accumulated in the current
-     * user's session attributes to their correct Dynamo DB item.  Use 
-     * the current {@link #sessionDao}.
+     * Write any calendar and time zone changes waiting in the current
+     * user's session attributes to their Dynamo DB item.
+     * 
+     * @param session
+     *            {@link com.amazon.speech.speechlet.Session} for this request
+     * @param requestTimestamp {@link java.util.Date} timestamp of the Alexa request being handled
+     */
+    public void flushUserData(Session session, Date requestTimestamp) {
+    	flushUserData(new SessionDao(session, requestTimestamp));
+    }
+    
+    /**
+     * Safety flush for sessions that stay open.  Calendar and time zone changes
+     * normally wait for a tell response or 
+     * {@link TrashDaySpeechlet#onSessionEnded(com.amazon.speech.json.SpeechletRequestEnvelope)}.
+     * If they have already waited {@link #USER_DATA_WRITE_DELAY_MAX} when this request is
+     * handled, write them now so a session that times out without a session ended
+     * request cannot hold them for long.
+     * 
+     * @param session
+     *            {@link com.amazon.speech.speechlet.Session} for this request
+     * @param requestTimestamp {@link java.util.Date} timestamp of the Alexa request being handled
      */
-    protected void flushIntentLog() {
-    	// Update the user's intent log before we exit.
-    	if (sessionDao.getIntentLogUpdated()) {
-    		IntentLog intentLog = sessionDao.getIntentLog();
-    		dynamoDao.appendIntentLogData(sessionDao, intentLog);
-    		sessionDao.clearIntentLog();
+    public void flushStaleUserData(Session session, Date requestTimestamp) {
+    	if (requestTimestamp==null) { return; };
+    	SessionDao staleSessionDao = new SessionDao(session, requestTimestamp);
+    	Long dirtySince = staleSessionDao.getUserDataDirtySince();
+    	if ( (dirtySince != null) && (requestTimestamp.getTime() - dirtySince >= USER_DATA_WRITE_DELAY_MAX) ) {
+    		log.info("flushStaleUserData: Changes waiting {} ms.", requestTimestamp.getTime() - dirtySince);
+    		flushUserData(staleSessionDao);
     	}
-    }    
+    }
+    
+    /**
+     * Write any calendar and time zone changes waiting in the 
+     * user's session attributes to their Dynamo DB item.  Handlers only mark these changes
+     * (see {@link SessionDao#markUserDataDirty()}) so that a session making
+     * several changes writes the item once.
+     * 
+     * @param sessionDao {@link SessionDao} of the request being handled
+     */
+    protected void flushUserData(SessionDao sessionDao) {
+    	if (sessionDao.isUserDataDirty()) {
+    		dynamoDao.writeUserData(sessionDao);
+    		sessionDao.clearUserDataDirty();
+    	}
+    }
+    
+    /**
+     * Write both the user data changes and intent log data waiting in the 
+     * given {@link SessionDao}.  Handlers call this when their response
+     * ends the session.  The intent log write runs while the user data is written.
+     * 
+     * @param sessionDao {@link SessionDao} of the request being handled
+     */
+    protected void flushSessionData(SessionDao sessionDao) {
+    	flushSessionData(sessionDao, null);
+    }
+    
+    /**
+     * Write both the user data changes and intent log data waiting in the 
+     * given {@link SessionDao}, then wait for the intent log write a handler
+     * already started with {@link #startIntentLogFlush(SessionDao)}.
+     * 
+     * @param sessionDao {@link SessionDao} of the request being handled
+     * @param startedIntentLogFlush intent log write started by the handler, or null if none
+     */
+    protected void flushSessionData(SessionDao sessionDao, CompletableFuture<Void> startedIntentLogFlush) {
+    	CompletableFuture<Void> intentLogFlush = startIntentLogFlush(sessionDao);
+    	flushUserData(sessionDao);
+    	awaitIntentLogFlush(startedIntentLogFlush);
+    	awaitIntentLogFlush(intentLogFlush);
+    }
+    
+    /**
+     * Flush any intent log data that has accumulated in the 
+     * user's session attributes to their correct Dynamo DB item.
+     * 
+     * @param sessionDao {@link SessionDao} of the request being handled
+     */
+    protected void flushIntentLog(SessionDao sessionDao) {
+    	awaitIntentLogFlush(startIntentLogFlush(sessionDao));
+    }
+    
+    /**
+     * Start writing any intent log data that has accumulated in the 
+     * user's session attributes, without waiting for Dynamo DB.  Tell handlers
+     * call this as soon as the intent is counted, so the write overlaps with
+     * building the response.  {@link #awaitIntentLogFlush(CompletableFuture)} waits for it.
+     * <p>
+     * The counts are removed from the Session when the write starts.  A failed 
+     * write is counted and logged (see {@link #getIntentLogFlushFailures()}) when it
+     * fails, even if that is after {@link #awaitIntentLogFlush(CompletableFuture)} has
+     * stopped waiting.  Its counts are not kept for a retry.
+     * 
+     * @param sessionDao {@link SessionDao} of the request being handled
+     * @return CompletableFuture for the write, or null if there was nothing to write
+     */
+    protected CompletableFuture<Void> startIntentLogFlush(SessionDao sessionDao) {
+    	if (! sessionDao.getIntentLogUpdated()) {
+    		return null;
+    	}
+		IntentLog intentLog = sessionDao.getIntentLog();
+		sessionDao.clearIntentLog();
+		CompletableFuture<Void> flush;
+		try {
+			flush = dynamoDao.appendIntentLogDataAsync(sessionDao, intentLog);
+		} catch (RuntimeException ex) {
+			flush = new CompletableFuture<Void>();
+			flush.completeExceptionally(ex);
+		}
+		// Count failures when they happen, so writes that outlive the wait are not missed.
+		return flush.whenComplete((result, ex) -> {
+			if (ex != null) {
+				long failures = intentLogFlushFailures.incrementAndGet();
+				log.error("startIntentLogFlush: Intent log write failed.  Failures={}", failures, ex);
+			}
+		});
+    }
+    
+    /**
+     * Wait up to {@link #INTENT_LOG_FLUSH_WAIT_MAX} for an intent log write started by
+     * {@link #startIntentLogFlush(SessionDao)}.  Timeouts are counted and logged here and
+     * failures where the write was started, but neither reaches the user.  A write still
+     * running after the wait is left to finish.
+     * 
+     * @param flush CompletableFuture for the write, or null if none was started
+     */
+    protected void awaitIntentLogFlush(CompletableFuture<Void> flush) {
+    	if (flush == null) {
+    		return;
+    	}
+    	try {
+    		flush.get(INTENT_LOG_FLUSH_WAIT_MAX, TimeUnit.MILLISECONDS);
+    	} catch (TimeoutException ex) {
+    		long timeouts = intentLogFlushTimeouts.incrementAndGet();
+    		log.warn("awaitIntentLogFlush: Intent log write not done after {} ms.  Timeouts={}", INTENT_LOG_FLUSH_WAIT_MAX, timeouts);
+    	} catch (ExecutionException ex) {
+    		// Already counted and logged by the future from startIntentLogFlush.
+    		log.debug("awaitIntentLogFlush: Intent log write failed. {}", ex.getMessage());
+    	} catch (InterruptedException ex) {
+    		Thread.currentThread().interrupt();
+    		long timeouts = intentLogFlushTimeouts.incrementAndGet();
+    		log.warn("awaitIntentLogFlush: Interrupted waiting for intent log write.  Timeouts={}", timeouts);
+    	}
+    }
+    
+    /**
+     * Get the number of intent log writes that failed in this JVM.
+     * 
+     * @return intent log write failures
+     */
+    public static long getIntentLogFlushFailures() {
+    	return intentLogFlushFailures.get();
+    }
+    
+    /**
+     * Get the number of intent log writes not finished within 
+     * {@link #INTENT_LOG_FLUSH_WAIT_MAX} in this JVM.
+     * 
+     * @return intent log write timeouts
+     */
+    public static long getIntentLogFlushTimeouts() {
+    	return intentLogFlushTimeouts.get();
+    }
     
     /**
      * Respond when the user says "Open Trash Day"
      * <p>
-     * Use {@link #isConfigurationComplete()} to 
+     * Use {@link #isConfigurationComplete(TrashDayRequestContext)} to 
      * load the pickup schedule from the user's Session or,
      * if not available, from the Dynamo DB. If no
      * schedule available respond with instructions to add to
@@ -266,9 +464,11 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleLaunchRequest(LaunchRequest request, Session session) {
     	log.info("handleLaunchRequest(sessionId={})", session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	SpeechletResponse configurationNeeded = isConfigurationComplete();
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp()).withUserConfiguration();
+    	SessionDao sessionDao = context.getSessionDao();
+    	SpeechletResponse configurationNeeded = isConfigurationComplete(context);
     	if (configurationNeeded != null) { return configurationNeeded; };
+    	TimeZone timeZone = context.getTimeZone();
  
     	// Log one more use of this intent for this week.
     	LocalDateTime ldtRequest = getRequestLocalDateTime(request, timeZone);
@@ -292,8 +492,9 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleUpdateScheduleRequest(IntentRequest request, Session session) {
     	log.info("handleUpdateScheduleRequest(intentName={}, sessionId={})", request.getIntent().getName(), session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	SpeechletResponse configurationNeeded = isConfigurationComplete();
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp()).withUserConfiguration();
+    	SessionDao sessionDao = context.getSessionDao();
+    	SpeechletResponse configurationNeeded = isConfigurationComplete(context);
     	if (configurationNeeded != null) { return configurationNeeded; };
     	
     	sessionDao.setScheduleConfigInProgress();
@@ -304,7 +505,7 @@ public class TrashDayManager {
      * Respond when the user asks for the next pickup time for one or
      * all of the scheduled pickups.
      * <p>
-     * Use {@link #isConfigurationComplete()} to load the pickup schedule from
+     * Use {@link #isConfigurationComplete(TrashDayRequestContext)} to load the pickup schedule from
      * the Session or Dynamo DB, if it exists.  Respond with instructions to add to
      * the schedule if the schedule is missing or empty.
      * 
@@ -321,9 +522,12 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleTellNextPickupRequest(IntentRequest request, Session session) {
     	log.info("handleTellNextPickupRequest(intentName={}, sessionId={})", request.getIntent().getName(), session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	SpeechletResponse configurationNeeded = isConfigurationComplete();
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp()).withUserConfiguration();
+    	SessionDao sessionDao = context.getSessionDao();
+    	SpeechletResponse configurationNeeded = isConfigurationComplete(context);
     	if (configurationNeeded != null) { return configurationNeeded; };
+    	Calendar calendar = context.getCalendar();
+    	TimeZone timeZone = context.getTimeZone();
     	
     	Intent intent = request.getIntent();
     	LocalDateTime ldtRequest = getRequestLocalDateTime(request, timeZone);
@@ -332,8 +536,9 @@ public class TrashDayManager {
         	// Respond with next pickup for each item on the schedule.
         	NextPickups pickupsActual = new NextPickups(ldtRequest, calendar, null);
         	sessionDao.incrementIntentLog(ldtRequest, "tellAllNextPickups");
+        	CompletableFuture<Void> intentLogFlush = startIntentLogFlush(sessionDao);
     		SpeechletResponse response = ResponsesSchedule.tellAllNextPickups(sessionDao, true, request.getTimestamp(), timeZone, pickupsActual);
-    		flushIntentLog();
+    		flushSessionData(sessionDao, intentLogFlush);
     		return response;
     	}
     	String pickupName = slotPickupName.validate();
@@ -341,23 +546,25 @@ public class TrashDayManager {
         	// Respond with next pickup for each item on the schedule.
     		NextPickups pickupsActual = new NextPickups(ldtRequest, calendar, null);
         	sessionDao.incrementIntentLog(ldtRequest, "tellAllNextPickups");
+        	CompletableFuture<Void> intentLogFlush = startIntentLogFlush(sessionDao);
     		SpeechletResponse response = ResponsesSchedule.tellAllNextPickups(sessionDao, true, request.getTimestamp(), timeZone, pickupsActual);
-    		flushIntentLog();
+    		flushSessionData(sessionDao, intentLogFlush);
     		return response;
     	}
     	
     	// Respond with next pickup for one item on the schedule.
 		NextPickups pickupsActual = new NextPickups(ldtRequest, calendar, pickupName);
     	sessionDao.incrementIntentLog(ldtRequest, "tellOneNextPickup");
+    	CompletableFuture<Void> intentLogFlush = startIntentLogFlush(sessionDao);
 		SpeechletResponse response = ResponsesSchedule.tellOneNextPickup(sessionDao, true, request.getTimestamp(), timeZone, pickupsActual, pickupName);
-		flushIntentLog();
+		flushSessionData(sessionDao, intentLogFlush);
 		return response;
     }
 
     /**
      * Respond when the user asks to hear the entire pickup schedule.
      * <p>
-     * Use {@link #isConfigurationComplete()} to load the pickup schedule from
+     * Use {@link #isConfigurationComplete(TrashDayRequestContext)} to load the pickup schedule from
      * the Session or Dynamo DB, if it exists.  Respond with instructions to add to
      * the schedule if the schedule is missing or empty.  Otherwise,
      * recite the schedule to the user.
@@ -370,16 +577,20 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleTellScheduleRequest(IntentRequest request, Session session) {
     	log.info("handleTellScheduleRequest(intentName={}, sessionId={})", request.getIntent().getName(), session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	SpeechletResponse configurationNeeded = isConfigurationComplete();
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp()).withUserConfiguration();
+    	SessionDao sessionDao = context.getSessionDao();
+    	SpeechletResponse configurationNeeded = isConfigurationComplete(context);
     	if (configurationNeeded != null) { return configurationNeeded; };
+    	Calendar calendar = context.getCalendar();
+    	TimeZone timeZone = context.getTimeZone();
     	
     	// Log one more use of this intent for this week.
     	LocalDateTime ldtRequest = getRequestLocalDateTime(request, timeZone);
     	sessionDao.incrementIntentLog(ldtRequest, "tellSchedule");
+    	CompletableFuture<Void> intentLogFlush = startIntentLogFlush(sessionDao);
 
     	SpeechletResponse response = ResponsesSchedule.tellSchedule(sessionDao, true, ldtRequest, calendar);
-		flushIntentLog();
+		flushSessionData(sessionDao, intentLogFlush);
 		return response;
     }
     
@@ -398,9 +609,10 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleSetTimeZoneRequest(IntentRequest request, Session session) {
     	log.info("handleSetTimeZoneRequest(intentName={}, sessionId={})", request.getIntent().getName(), session.getSessionId());
-    	sessionDao = new SessionDao(session);
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp());
+    	SessionDao sessionDao = context.getSessionDao();
     	LocalDateTime ldtRequest = null;
-    	TimeZone timeZone = loadTimeZone(sessionDao, dynamoDao);
+    	TimeZone timeZone = loadTimeZone(context);
     	if (timeZone != null) {
     		ldtRequest = getRequestLocalDateTime(request, timeZone);
     	}
@@ -412,7 +624,7 @@ public class TrashDayManager {
     	if ( ! missingDataFields.isEmpty() ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondSetTimeZoneMissingData");
     		SpeechletResponse response = ResponsesSchedule.respondSetTimeZoneMissingData(sessionDao, true, missingDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -420,7 +632,7 @@ public class TrashDayManager {
     	if (slotTimeZone.isOther()) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondSetTimeZoneOther");
     		SpeechletResponse response = ResponsesHelp.respondHelpOtherTimeZone(sessionDao, true);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -431,34 +643,34 @@ public class TrashDayManager {
     	if ( invalidDataFields.size() > 0 ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondSetTimeZoneInvalidData");
     		SpeechletResponse response = ResponsesSchedule.respondSetTimeZoneInvalidData(sessionDao, true, invalidDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
 		// Got validated time zone value.  Let's add it to the database.
     	sessionDao.setTimeZone(timeZone);
-    	dynamoDao.writeUserData(sessionDao);
+    	sessionDao.markUserDataDirty();
     	
 		ldtRequest = getRequestLocalDateTime(request, timeZone);
-    	Calendar calendar = loadCalendar(sessionDao, dynamoDao);
+    	Calendar calendar = loadCalendar(context);
     	if ( (calendar==null) || (calendar.isEmpty()) ) {
     		sessionDao.setScheduleConfigInProgress();
         	sessionDao.incrementIntentLog(ldtRequest, "respondTimeZoneUpdatedScheduleMissing");
             SpeechletResponse response = ResponsesSchedule.respondTimeZoneUpdatedScheduleMissing(sessionDao, true, timeZone);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
     	sessionDao.incrementIntentLog(ldtRequest, "respondTimeZoneUpdatedScheduleExists");
         SpeechletResponse response = ResponsesSchedule.respondTimeZoneUpdatedScheduleExists(sessionDao, false, timeZone);
-		if (response.getShouldEndSession()) { flushIntentLog(); }
+		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }
     
     /**
      * Respond when the user adds a (weekly) pickup time into the schedule.
      * <p>
-     * Use {@link #isTimeZoneConfigurationComplete()} to load the time zone from
+     * Use {@link #isTimeZoneConfigurationComplete(TrashDayRequestContext)} to load the time zone from
      * the Session or Dynamo DB.  If not available, prompt the user to set the
      * time zone.  If time zone is available, check for any missing or invalid data 
      * in the request and respond appropriately so the user can correct and try again.
@@ -477,9 +689,12 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleAddPickupRequest(IntentRequest request, Session session) {
     	log.info("handleAddPickupRequest(intentName={}, sessionId={})", request.getIntent().getName(), session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete();
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp()).withUserConfiguration();
+    	SessionDao sessionDao = context.getSessionDao();
+    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete(context);
     	if (configNeeded != null) { return configNeeded; };
+    	Calendar calendar = context.getCalendar();
+    	TimeZone timeZone = context.getTimeZone();
     	LocalDateTime ldtRequest = getRequestLocalDateTime(request, timeZone);
     	
     	Intent intent = request.getIntent();
@@ -495,7 +710,7 @@ public class TrashDayManager {
     	if ( ! missingDataFields.isEmpty() ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddMissingData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupAddMissingData(sessionDao, true, missingDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -510,7 +725,7 @@ public class TrashDayManager {
     	if ( invalidDataFields.size() > 0 ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddInvalidData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupAddInvalidData(sessionDao, true, invalidDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -522,22 +737,22 @@ public class TrashDayManager {
     	if (! added) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondGeneralPickupNotAdded");
     		SpeechletResponse response = ResponsesSchedule.respondGeneralPickupNotAdded(sessionDao, false, pickupName);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
     	sessionDao.setCalendar(calendar);
-    	dynamoDao.writeUserData(sessionDao);
+    	sessionDao.markUserDataDirty();
     	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddSingle");
         SpeechletResponse response = ResponsesSchedule.respondPickupAddSingle(sessionDao, false, pickupName, dow, tod);
-		if (response.getShouldEndSession()) { flushIntentLog(); }
+		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }
     
     /**
      * Respond when the user adds a weekly pickup time into the schedule.
      * <p>
-     * Use {@link #isTimeZoneConfigurationComplete()} to load the time zone from
+     * Use {@link #isTimeZoneConfigurationComplete(TrashDayRequestContext)} to load the time zone from
      * the Session or Dynamo DB.  If not available, prompt the user to set the
      * time zone.  If time zone is available, check for any missing or invalid data 
      * in the request and respond appropriately so the user can correct and try again.
@@ -556,9 +771,12 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleAddWeeklyPickupRequest(IntentRequest request, Session session) {
     	log.info("handleAddWeeklyPickupRequest(intentName={}, sessionId={})", request.getIntent().getName(), session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete();
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp()).withUserConfiguration();
+    	SessionDao sessionDao = context.getSessionDao();
+    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete(context);
     	if (configNeeded != null) { return configNeeded; };
+    	Calendar calendar = context.getCalendar();
+    	TimeZone timeZone = context.getTimeZone();
     	LocalDateTime ldtRequest = getRequestLocalDateTime(request, timeZone);
     	
     	Intent intent = request.getIntent();
@@ -574,7 +792,7 @@ public class TrashDayManager {
     	if ( ! missingDataFields.isEmpty() ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddWeeklyMissingData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupAddWeeklyMissingData(sessionDao, true, missingDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -589,7 +807,7 @@ public class TrashDayManager {
     	if ( invalidDataFields.size() > 0 ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddWeeklyInvalidData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupAddWeeklyInvalidData(sessionDao, true, invalidDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -601,22 +819,22 @@ public class TrashDayManager {
     	if (! added) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondGeneralPickupNotAdded");
     		SpeechletResponse response = ResponsesSchedule.respondGeneralPickupNotAdded(sessionDao, false, pickupName);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
     	sessionDao.setCalendar(calendar);
-    	dynamoDao.writeUserData(sessionDao);    	
+    	sessionDao.markUserDataDirty();    	
     	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddWeeklySingle");
         SpeechletResponse response = ResponsesSchedule.respondPickupAddWeeklySingle(sessionDao, false, pickupName, dow, tod);
-		if (response.getShouldEndSession()) { flushIntentLog(); }
+		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }
     
     /**
      * Respond when the user adds a biweekly pickup time into the schedule.
      * <p>
-     * Use {@link #isTimeZoneConfigurationComplete()} to load the time zone from
+     * Use {@link #isTimeZoneConfigurationComplete(TrashDayRequestContext)} to load the time zone from
      * the Session or Dynamo DB.  If not available, prompt the user to set the
      * time zone.  If time zone is available, check for any missing or invalid data 
      * in the request and respond appropriately so the user can correct and try again.
@@ -635,9 +853,12 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleAddThisBiWeeklyPickupRequest(IntentRequest request, Session session) {
     	log.info("handleAddThisBiWeeklyPickupRequest(intentName={}, sessionId={})", request.getIntent().getName(), session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete();
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp()).withUserConfiguration();
+    	SessionDao sessionDao = context.getSessionDao();
+    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete(context);
     	if (configNeeded != null) { return configNeeded; };
+    	Calendar calendar = context.getCalendar();
+    	TimeZone timeZone = context.getTimeZone();
     	LocalDateTime ldtRequest = getRequestLocalDateTime(request, timeZone);
     	
     	Intent intent = request.getIntent();
@@ -653,7 +874,7 @@ public class TrashDayManager {
     	if ( ! missingDataFields.isEmpty() ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddThisBiWeeklyMissingData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupAddBiWeeklyMissingData(sessionDao, true, missingDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -668,7 +889,7 @@ public class TrashDayManager {
     	if ( invalidDataFields.size() > 0 ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddThisBiWeeklyInvalidData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupAddBiWeeklyInvalidData(sessionDao, true, invalidDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -680,22 +901,22 @@ public class TrashDayManager {
     	if (! added) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondGeneralPickupNotAdded");
     		SpeechletResponse response = ResponsesSchedule.respondGeneralPickupNotAdded(sessionDao, false, pickupName);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
     	sessionDao.setCalendar(calendar);
-    	dynamoDao.writeUserData(sessionDao);
+    	sessionDao.markUserDataDirty();
     	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddThisBiWeeklySingle");
         SpeechletResponse response = ResponsesSchedule.respondPickupAddBiWeeklySingle(sessionDao, false, pickupName, false, dow, tod);
-		if (response.getShouldEndSession()) { flushIntentLog(); }
+		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }
     
     /**
      * Respond when the user adds a biweekly pickup time into the schedule.
      * <p>
-     * Use {@link #isTimeZoneConfigurationComplete()} to load the time zone from
+     * Use {@link #isTimeZoneConfigurationComplete(TrashDayRequestContext)} to load the time zone from
      * the Session or Dynamo DB.  If not available, prompt the user to set the
      * time zone.  If time zone is available, check for any missing or invalid data 
      * in the request and respond appropriately so the user can correct and try again.
@@ -714,9 +935,12 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleAddFollowingBiWeeklyPickupRequest(IntentRequest request, Session session) {
     	log.info("handleAddFollowingBiWeeklyPickupRequest(intentName={}, sessionId={})", request.getIntent().getName(), session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete();
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp()).withUserConfiguration();
+    	SessionDao sessionDao = context.getSessionDao();
+    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete(context);
     	if (configNeeded != null) { return configNeeded; };
+    	Calendar calendar = context.getCalendar();
+    	TimeZone timeZone = context.getTimeZone();
     	LocalDateTime ldtRequest = getRequestLocalDateTime(request, timeZone);
     	
     	Intent intent = request.getIntent();
@@ -732,7 +956,7 @@ public class TrashDayManager {
     	if ( ! missingDataFields.isEmpty() ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddFollowingBiWeeklyMissingData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupAddBiWeeklyMissingData(sessionDao, true, missingDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -747,7 +971,7 @@ public class TrashDayManager {
     	if ( invalidDataFields.size() > 0 ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddFollowingBiWeeklyInvalidData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupAddBiWeeklyInvalidData(sessionDao, true, invalidDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -759,22 +983,22 @@ public class TrashDayManager {
     	if (! added) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondGeneralPickupNotAdded");
     		SpeechletResponse response = ResponsesSchedule.respondGeneralPickupNotAdded(sessionDao, false, pickupName);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
 
     	sessionDao.setCalendar(calendar);
-    	dynamoDao.writeUserData(sessionDao);    	
+    	sessionDao.markUserDataDirty();    	
     	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddFollowingBiWeeklySingle");
         SpeechletResponse response = ResponsesSchedule.respondPickupAddBiWeeklySingle(sessionDao, false, pickupName, true, dow, tod);
-		if (response.getShouldEndSession()) { flushIntentLog(); }
+		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }
     
     /**
      * Respond when the user adds a monthly pickup time into the schedule.
      * <p>
-     * Use {@link #isTimeZoneConfigurationComplete()} to load the time zone from
+     * Use {@link #isTimeZoneConfigurationComplete(TrashDayRequestContext)} to load the time zone from
      * the Session or Dynamo DB.  If not available, prompt the user to set the
      * time zone.  If time zone is available, check for any missing or invalid data 
      * in the request and respond appropriately so the user can correct and try again.
@@ -793,9 +1017,12 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleAddMonthlyPickupRequest(IntentRequest request, Session session) {
     	log.info("handleAddMonthlyPickupRequest(intentName={}, sessionId={})", request.getIntent().getName(), session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete();
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp()).withUserConfiguration();
+    	SessionDao sessionDao = context.getSessionDao();
+    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete(context);
     	if (configNeeded != null) { return configNeeded; };
+    	Calendar calendar = context.getCalendar();
+    	TimeZone timeZone = context.getTimeZone();
     	LocalDateTime ldtRequest = getRequestLocalDateTime(request, timeZone);
     	
     	Intent intent = request.getIntent();
@@ -811,7 +1038,7 @@ public class TrashDayManager {
     	if ( ! missingDataFields.isEmpty() ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddMonthlyMissingData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupAddMonthlyMissingData(sessionDao, true, missingDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -826,7 +1053,7 @@ public class TrashDayManager {
     	if ( invalidDataFields.size() > 0 ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddMonthlyInvalidData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupAddMonthlyInvalidData(sessionDao, true, invalidDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -838,22 +1065,22 @@ public class TrashDayManager {
     	if (! added) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondGeneralPickupNotAdded");
     		SpeechletResponse response = ResponsesSchedule.respondGeneralPickupNotAdded(sessionDao, false, pickupName);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
 
     	sessionDao.setCalendar(calendar);
-    	dynamoDao.writeUserData(sessionDao);
+    	sessionDao.markUserDataDirty();
     	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddMonthlySingle");
         SpeechletResponse response = ResponsesSchedule.respondPickupAddMonthlySingle(sessionDao, false, pickupName, dom, tod);
-		if (response.getShouldEndSession()) { flushIntentLog(); }
+		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }
     
     /**
      * Respond when the user adds a last-day-of-month monthly pickup time into the schedule.
      * <p>
-     * Use {@link #isTimeZoneConfigurationComplete()} to load the time zone from
+     * Use {@link #isTimeZoneConfigurationComplete(TrashDayRequestContext)} to load the time zone from
      * the Session or Dynamo DB.  If not available, prompt the user to set the
      * time zone.  If time zone is available, check for any missing or invalid data 
      * in the request and respond appropriately so the user can correct and try again.
@@ -872,9 +1099,12 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleAddMonthlyLastDayPickupRequest(IntentRequest request, Session session) {
     	log.info("handleAddMonthlyLastDayPickupRequest(intentName={}, sessionId={})", request.getIntent().getName(), session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete();
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp()).withUserConfiguration();
+    	SessionDao sessionDao = context.getSessionDao();
+    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete(context);
     	if (configNeeded != null) { return configNeeded; };
+    	Calendar calendar = context.getCalendar();
+    	TimeZone timeZone = context.getTimeZone();
     	LocalDateTime ldtRequest = getRequestLocalDateTime(request, timeZone);
     	
     	Intent intent = request.getIntent();
@@ -888,7 +1118,7 @@ public class TrashDayManager {
     	if ( ! missingDataFields.isEmpty() ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddMonthlyLastDayMissingData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupAddMonthlyLastDayMissingData(sessionDao, true, missingDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -901,7 +1131,7 @@ public class TrashDayManager {
     	if ( invalidDataFields.size() > 0 ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddMonthlyLastDayInvalidData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupAddMonthlyLastDayInvalidData(sessionDao, true, invalidDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -913,22 +1143,22 @@ public class TrashDayManager {
     	if (! added) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondGeneralPickupNotAdded");
     		SpeechletResponse response = ResponsesSchedule.respondGeneralPickupNotAdded(sessionDao, false, pickupName);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
 
     	sessionDao.setCalendar(calendar);
-    	dynamoDao.writeUserData(sessionDao);
+    	sessionDao.markUserDataDirty();
     	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddMonthlyLastDaySingle");
         SpeechletResponse response = ResponsesSchedule.respondPickupAddMonthlyLastDaySingle(sessionDao, false, pickupName, -1, tod);
-		if (response.getShouldEndSession()) { flushIntentLog(); }
+		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }
     
     /**
      * Respond when the user adds a last-Nth-day-of-month monthly pickup time into the schedule.
      * <p>
-     * Use {@link #isTimeZoneConfigurationComplete()} to load the time zone from
+     * Use {@link #isTimeZoneConfigurationComplete(TrashDayRequestContext)} to load the time zone from
      * the Session or Dynamo DB.  If not available, prompt the user to set the
      * time zone.  If time zone is available, check for any missing or invalid data 
      * in the request and respond appropriately so the user can correct and try again.
@@ -947,9 +1177,12 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleAddMonthlyLastNDayPickupRequest(IntentRequest request, Session session) {
     	log.info("handleAddMonthlyLastNDayPickupRequest(intentName={}, sessionId={})", request.getIntent().getName(), session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete();
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp()).withUserConfiguration();
+    	SessionDao sessionDao = context.getSessionDao();
+    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete(context);
     	if (configNeeded != null) { return configNeeded; };
+    	Calendar calendar = context.getCalendar();
+    	TimeZone timeZone = context.getTimeZone();
     	LocalDateTime ldtRequest = getRequestLocalDateTime(request, timeZone);
     	
     	Intent intent = request.getIntent();
@@ -966,7 +1199,7 @@ public class TrashDayManager {
     	if ( ! missingDataFields.isEmpty() ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddMonthlyLastNDayMissingData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupAddMonthlyLastNDayMissingData(sessionDao, true, missingDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -982,7 +1215,7 @@ public class TrashDayManager {
     	if ( invalidDataFields.size() > 0 ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddMonthlyLastNDayInvalidData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupAddMonthlyLastNDayInvalidData(sessionDao, true, invalidDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -997,22 +1230,22 @@ public class TrashDayManager {
     	if (! added) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondGeneralPickupNotAdded");
     		SpeechletResponse response = ResponsesSchedule.respondGeneralPickupNotAdded(sessionDao, false, pickupName);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
 
     	sessionDao.setCalendar(calendar);
-    	dynamoDao.writeUserData(sessionDao);    	
+    	sessionDao.markUserDataDirty();    	
     	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddMonthlyLastNDaySingle");
         SpeechletResponse response = ResponsesSchedule.respondPickupAddMonthlyLastNDaySingle(sessionDao, false, pickupName, -dom, tod);
-		if (response.getShouldEndSession()) { flushIntentLog(); }
+		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }
     
     /**
      * Respond when the user adds a pickup on the Nth weekday of the month into the schedule.
      * <p>
-     * Use {@link #isTimeZoneConfigurationComplete()} to load the time zone from
+     * Use {@link #isTimeZoneConfigurationComplete(TrashDayRequestContext)} to load the time zone from
      * the Session or Dynamo DB.  If not available, prompt the user to set the
      * time zone.  If time zone is available, check for any missing or invalid data 
      * in the request and respond appropriately so the user can correct and try again.
@@ -1031,9 +1264,12 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleAddMonthlyWeekdayPickupRequest(IntentRequest request, Session session) {
     	log.info("handleAddMonthlyWeekdayPickupRequest(intentName={}, sessionId={})", request.getIntent().getName(), session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete();
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp()).withUserConfiguration();
+    	SessionDao sessionDao = context.getSessionDao();
+    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete(context);
     	if (configNeeded != null) { return configNeeded; };
+    	Calendar calendar = context.getCalendar();
+    	TimeZone timeZone = context.getTimeZone();
     	LocalDateTime ldtRequest = getRequestLocalDateTime(request, timeZone);
     	
     	Intent intent = request.getIntent();
@@ -1051,7 +1287,7 @@ public class TrashDayManager {
     	if ( ! missingDataFields.isEmpty() ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddMonthlyWeekdayMissingData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupAddMonthlyWeekdayMissingData(sessionDao, true, missingDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -1068,7 +1304,7 @@ public class TrashDayManager {
     	if ( invalidDataFields.size() > 0 ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddMonthlyWeekdayInvalidData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupAddMonthlyWeekdayInvalidData(sessionDao, true, invalidDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -1080,22 +1316,22 @@ public class TrashDayManager {
     	if (! added) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondGeneralPickupNotAdded");
     		SpeechletResponse response = ResponsesSchedule.respondGeneralPickupNotAdded(sessionDao, false, pickupName);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
     	sessionDao.setCalendar(calendar);
-    	dynamoDao.writeUserData(sessionDao);
+    	sessionDao.markUserDataDirty();
     	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddMonthlyWeekdaySingle");
         SpeechletResponse response = ResponsesSchedule.respondPickupAddMonthlyWeekdaySingle(sessionDao, false, pickupName, weekOfMonth, dow, tod);
-		if (response.getShouldEndSession()) { flushIntentLog(); }
+		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }
     
     /**
      * Respond when the user adds a pickup on the Nth-to-last weekday of the month into the schedule.
      * <p>
-     * Use {@link #isTimeZoneConfigurationComplete()} to load the time zone from
+     * Use {@link #isTimeZoneConfigurationComplete(TrashDayRequestContext)} to load the time zone from
      * the Session or Dynamo DB.  If not available, prompt the user to set the
      * time zone.  If time zone is available, check for any missing or invalid data 
      * in the request and respond appropriately so the user can correct and try again.
@@ -1114,9 +1350,12 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleAddMonthlyLastNWeekdayPickupRequest(IntentRequest request, Session session) {
     	log.info("handleAddMonthlyLastNWeekdayPickupRequest(intentName={}, sessionId={})", request.getIntent().getName(), session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete();
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp()).withUserConfiguration();
+    	SessionDao sessionDao = context.getSessionDao();
+    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete(context);
     	if (configNeeded != null) { return configNeeded; };
+    	Calendar calendar = context.getCalendar();
+    	TimeZone timeZone = context.getTimeZone();
     	LocalDateTime ldtRequest = getRequestLocalDateTime(request, timeZone);
     	
     	Intent intent = request.getIntent();
@@ -1134,7 +1373,7 @@ public class TrashDayManager {
     	if ( ! missingDataFields.isEmpty() ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddMonthlyLastNWeekdayMissingData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupAddMonthlyLastNWeekdayMissingData(sessionDao, true, missingDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -1151,7 +1390,7 @@ public class TrashDayManager {
     	if ( invalidDataFields.size() > 0 ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddMonthlyLastNWeekdayInvalidData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupAddMonthlyLastNWeekdayInvalidData(sessionDao, true, invalidDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -1163,22 +1402,22 @@ public class TrashDayManager {
     	if (! added) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondGeneralPickupNotAdded");
     		SpeechletResponse response = ResponsesSchedule.respondGeneralPickupNotAdded(sessionDao, false, pickupName);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
 
     	sessionDao.setCalendar(calendar);
-    	dynamoDao.writeUserData(sessionDao);
+    	sessionDao.markUserDataDirty();
     	sessionDao.incrementIntentLog(ldtRequest, "respondPickupAddMonthlyLastNWeekdaySingle");
         SpeechletResponse response = ResponsesSchedule.respondPickupAddMonthlyLastNWeekdaySingle(sessionDao, false, pickupName, weekOfMonth, dow, tod);
-		if (response.getShouldEndSession()) { flushIntentLog(); }
+		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }
     
     /**
      * Respond when the user deletes a (weekly) pickup time from the schedule.
      * <p>
-     * Use {@link #isTimeZoneConfigurationComplete()} to load the time zone from
+     * Use {@link #isTimeZoneConfigurationComplete(TrashDayRequestContext)} to load the time zone from
      * the Session or Dynamo DB.  If not available, prompt the user to set the
      * time zone.  If time zone is available, check for any missing or invalid data 
      * in the request and respond appropriately so the user can correct and try again.
@@ -1198,9 +1437,12 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleDeletePickupRequest(IntentRequest request, Session session) {
     	log.info("handleDeletePickupRequest(intentName={}, sessionId={})", request.getIntent().getName(), session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete();
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp()).withUserConfiguration();
+    	SessionDao sessionDao = context.getSessionDao();
+    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete(context);
     	if (configNeeded != null) { return configNeeded; };
+    	Calendar calendar = context.getCalendar();
+    	TimeZone timeZone = context.getTimeZone();
     	LocalDateTime ldtRequest = getRequestLocalDateTime(request, timeZone);
     	
     	Intent intent = request.getIntent();
@@ -1217,7 +1459,7 @@ public class TrashDayManager {
 			// Need more information
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteMissingData");
 			SpeechletResponse response = ResponsesSchedule.respondPickupDeleteMissingData(sessionDao, true, missingDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -1232,7 +1474,7 @@ public class TrashDayManager {
     	if ( invalidDataFields.size() > 0 ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteInvalidData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupDeleteInvalidData(sessionDao, true, invalidDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -1243,19 +1485,19 @@ public class TrashDayManager {
     	int removedCount = calendar.pickupDeleteWeekly(pickupName, dow, tod);
 		sessionDao.setCalendar(calendar);
     	if (removedCount > 0) {
-        	dynamoDao.writeUserData(sessionDao);
+        	sessionDao.markUserDataDirty();
     	}
     	
     	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteSingle");
         SpeechletResponse response = ResponsesSchedule.respondPickupDeleteSingle(sessionDao, false, pickupName, dow, tod, removedCount > 0);
-		if (response.getShouldEndSession()) { flushIntentLog(); }
+		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }    
     
     /**
      * Respond when the user deletes a weekly pickup time from the schedule.
      * <p>
-     * Use {@link #isTimeZoneConfigurationComplete()} to load the time zone from
+     * Use {@link #isTimeZoneConfigurationComplete(TrashDayRequestContext)} to load the time zone from
      * the Session or Dynamo DB.  If not available, prompt the user to set the
      * time zone.  If time zone is available, check for any missing or invalid data 
      * in the request and respond appropriately so the user can correct and try again.
@@ -1275,9 +1517,12 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleDeleteWeeklyPickupRequest(IntentRequest request, Session session) {
     	log.info("handleDeleteWeeklyPickupRequest(intentName={}, sessionId={})", request.getIntent().getName(), session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete();
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp()).withUserConfiguration();
+    	SessionDao sessionDao = context.getSessionDao();
+    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete(context);
     	if (configNeeded != null) { return configNeeded; };
+    	Calendar calendar = context.getCalendar();
+    	TimeZone timeZone = context.getTimeZone();
     	LocalDateTime ldtRequest = getRequestLocalDateTime(request, timeZone);
     	
     	Intent intent = request.getIntent();
@@ -1294,7 +1539,7 @@ public class TrashDayManager {
 			// Need more information
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteWeeklyMissingData");
 			SpeechletResponse response = ResponsesSchedule.respondPickupDeleteWeeklyMissingData(sessionDao, true, missingDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -1309,7 +1554,7 @@ public class TrashDayManager {
     	if ( invalidDataFields.size() > 0 ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteWeeklyInvalidData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupDeleteWeeklyInvalidData(sessionDao, true, invalidDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -1320,19 +1565,19 @@ public class TrashDayManager {
     	int removedCount = calendar.pickupDeleteWeekly(pickupName, dow, tod);
 		sessionDao.setCalendar(calendar);
     	if (removedCount > 0) {
-        	dynamoDao.writeUserData(sessionDao);
+        	sessionDao.markUserDataDirty();
     	}
     	
     	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteSingle");
         SpeechletResponse response = ResponsesSchedule.respondPickupDeleteWeeklySingle(sessionDao, false, pickupName, dow, tod, removedCount > 0);
-		if (response.getShouldEndSession()) { flushIntentLog(); }
+		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }
     
     /**
      * Respond when the user deletes a biweekly pickup time from the schedule.
      * <p>
-     * Use {@link #isTimeZoneConfigurationComplete()} to load the time zone from
+     * Use {@link #isTimeZoneConfigurationComplete(TrashDayRequestContext)} to load the time zone from
      * the Session or Dynamo DB.  If not available, prompt the user to set the
      * time zone.  If time zone is available, check for any missing or invalid data 
      * in the request and respond appropriately so the user can correct and try again.
@@ -1360,9 +1605,12 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleDeleteBiWeeklyPickupRequest(IntentRequest request, Session session) {
     	log.info("handleDeleteBiWeeklyPickupRequest(intentName={}, sessionId={})", request.getIntent().getName(), session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete();
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp()).withUserConfiguration();
+    	SessionDao sessionDao = context.getSessionDao();
+    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete(context);
     	if (configNeeded != null) { return configNeeded; };
+    	Calendar calendar = context.getCalendar();
+    	TimeZone timeZone = context.getTimeZone();
     	LocalDateTime ldtRequest = getRequestLocalDateTime(request, timeZone);
     	
     	Intent intent = request.getIntent();
@@ -1379,7 +1627,7 @@ public class TrashDayManager {
 			// Need more information
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteBiWeeklyMissingData");
 			SpeechletResponse response = ResponsesSchedule.respondPickupDeleteBiWeeklyMissingData(sessionDao, true, missingDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -1394,7 +1642,7 @@ public class TrashDayManager {
     	if ( invalidDataFields.size() > 0 ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteBiWeeklyInvalidData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupDeleteBiWeeklyInvalidData(sessionDao, true, invalidDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -1405,19 +1653,19 @@ public class TrashDayManager {
     	int removedCount = calendar.pickupDeleteBiWeekly(pickupName, dow, tod);
 		sessionDao.setCalendar(calendar);
     	if (removedCount > 0) {
-        	dynamoDao.writeUserData(sessionDao);
+        	sessionDao.markUserDataDirty();
     	}
     	
     	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteSingle");
         SpeechletResponse response = ResponsesSchedule.respondPickupDeleteBiWeeklySingle(sessionDao, false, pickupName, dow, tod, removedCount > 0);
-		if (response.getShouldEndSession()) { flushIntentLog(); }
+		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }    
     
     /**
      * Respond when the user deletes a monthly pickup time from the schedule.
      * <p>
-     * Use {@link #isTimeZoneConfigurationComplete()} to load the time zone from
+     * Use {@link #isTimeZoneConfigurationComplete(TrashDayRequestContext)} to load the time zone from
      * the Session or Dynamo DB.  If not available, prompt the user to set the
      * time zone.  If time zone is available, check for any missing or invalid data 
      * in the request and respond appropriately so the user can correct and try again.
@@ -1437,9 +1685,12 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleDeleteMonthlyPickupRequest(IntentRequest request, Session session) {
     	log.info("handleDeleteMonthlyPickupRequest(intentName={}, sessionId={})", request.getIntent().getName(), session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete();
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp()).withUserConfiguration();
+    	SessionDao sessionDao = context.getSessionDao();
+    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete(context);
     	if (configNeeded != null) { return configNeeded; };
+    	Calendar calendar = context.getCalendar();
+    	TimeZone timeZone = context.getTimeZone();
     	LocalDateTime ldtRequest = getRequestLocalDateTime(request, timeZone);
     	
     	Intent intent = request.getIntent();
@@ -1456,7 +1707,7 @@ public class TrashDayManager {
 			// Need more information
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteMonthlyMissingData");
 			SpeechletResponse response = ResponsesSchedule.respondPickupDeleteMonthlyMissingData(sessionDao, true, missingDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -1471,7 +1722,7 @@ public class TrashDayManager {
     	if ( invalidDataFields.size() > 0 ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteMonthlyInvalidData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupDeleteMonthlyInvalidData(sessionDao, true, invalidDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -1482,19 +1733,19 @@ public class TrashDayManager {
     	int removedCount = calendar.pickupDeleteDayOfMonth(pickupName, dom, tod);
 		sessionDao.setCalendar(calendar);
     	if (removedCount > 0) {
-        	dynamoDao.writeUserData(sessionDao);
+        	sessionDao.markUserDataDirty();
     	}
     	
     	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteSingle");
         SpeechletResponse response = ResponsesSchedule.respondPickupDeleteMonthlySingle(sessionDao, false, pickupName, dom, tod, removedCount > 0);
-		if (response.getShouldEndSession()) { flushIntentLog(); }
+		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }    
     
     /**
      * Respond when the user deletes a monthly pickup time from the schedule.
      * <p>
-     * Use {@link #isTimeZoneConfigurationComplete()} to load the time zone from
+     * Use {@link #isTimeZoneConfigurationComplete(TrashDayRequestContext)} to load the time zone from
      * the Session or Dynamo DB.  If not available, prompt the user to set the
      * time zone.  If time zone is available, check for any missing or invalid data 
      * in the request and respond appropriately so the user can correct and try again.
@@ -1514,9 +1765,12 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleDeleteMonthlyLastDayPickupRequest(IntentRequest request, Session session) {
     	log.info("handleDeleteMonthlyLastDayPickupRequest(intentName={}, sessionId={})", request.getIntent().getName(), session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete();
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp()).withUserConfiguration();
+    	SessionDao sessionDao = context.getSessionDao();
+    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete(context);
     	if (configNeeded != null) { return configNeeded; };
+    	Calendar calendar = context.getCalendar();
+    	TimeZone timeZone = context.getTimeZone();
     	LocalDateTime ldtRequest = getRequestLocalDateTime(request, timeZone);
     	
     	Intent intent = request.getIntent();
@@ -1531,7 +1785,7 @@ public class TrashDayManager {
 			// Need more information
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteMonthlyLastDayMissingData");
 			SpeechletResponse response = ResponsesSchedule.respondPickupDeleteMonthlyLastDayMissingData(sessionDao, true, missingDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -1544,7 +1798,7 @@ public class TrashDayManager {
     	if ( invalidDataFields.size() > 0 ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteMonthlyLastDayInvalidData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupDeleteMonthlyLastDayInvalidData(sessionDao, true, invalidDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -1555,19 +1809,19 @@ public class TrashDayManager {
     	int removedCount = calendar.pickupDeleteDayOfMonth(pickupName, -1, tod);
 		sessionDao.setCalendar(calendar);
     	if (removedCount > 0) {
-        	dynamoDao.writeUserData(sessionDao);
+        	sessionDao.markUserDataDirty();
     	}
     	
     	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteMonthlyLastDaySingle");
         SpeechletResponse response = ResponsesSchedule.respondPickupDeleteMonthlyLastDaySingle(sessionDao, false, pickupName, -1, tod, removedCount > 0);
-		if (response.getShouldEndSession()) { flushIntentLog(); }
+		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }    
     
     /**
      * Respond when the user deletes a monthly pickup time from the schedule.
      * <p>
-     * Use {@link #isTimeZoneConfigurationComplete()} to load the time zone from
+     * Use {@link #isTimeZoneConfigurationComplete(TrashDayRequestContext)} to load the time zone from
      * the Session or Dynamo DB.  If not available, prompt the user to set the
      * time zone.  If time zone is available, check for any missing or invalid data 
      * in the request and respond appropriately so the user can correct and try again.
@@ -1587,9 +1841,12 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleDeleteMonthlyLastNDayPickupRequest(IntentRequest request, Session session) {
     	log.info("handleDeleteMonthlyLastNDayPickupRequest(intentName={}, sessionId={})", request.getIntent().getName(), session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete();
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp()).withUserConfiguration();
+    	SessionDao sessionDao = context.getSessionDao();
+    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete(context);
     	if (configNeeded != null) { return configNeeded; };
+    	Calendar calendar = context.getCalendar();
+    	TimeZone timeZone = context.getTimeZone();
     	LocalDateTime ldtRequest = getRequestLocalDateTime(request, timeZone);
     	
     	Intent intent = request.getIntent();
@@ -1607,7 +1864,7 @@ public class TrashDayManager {
 			// Need more information
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteMonthlyLastNDayMissingData");
 			SpeechletResponse response = ResponsesSchedule.respondPickupDeleteMonthlyLastNDayMissingData(sessionDao, true, missingDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -1623,7 +1880,7 @@ public class TrashDayManager {
     	if ( invalidDataFields.size() > 0 ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteMonthlyLastNDayInvalidData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupDeleteMonthlyLastNDayInvalidData(sessionDao, true, invalidDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -1637,19 +1894,19 @@ public class TrashDayManager {
     	int removedCount = calendar.pickupDeleteDayOfMonth(pickupName, -dom, tod);
 		sessionDao.setCalendar(calendar);
     	if (removedCount > 0) {
-        	dynamoDao.writeUserData(sessionDao);
+        	sessionDao.markUserDataDirty();
     	}
     	
     	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteMonthlyLastNDaySingle");
         SpeechletResponse response = ResponsesSchedule.respondPickupDeleteMonthlyLastNDaySingle(sessionDao, false, pickupName, -dom, tod, removedCount > 0);
-		if (response.getShouldEndSession()) { flushIntentLog(); }
+		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }    
     
     /**
      * Respond when the user deletes a weekday-of-monthly pickup time from the schedule.
      * <p>
-     * Use {@link #isTimeZoneConfigurationComplete()} to load the time zone from
+     * Use {@link #isTimeZoneConfigurationComplete(TrashDayRequestContext)} to load the time zone from
      * the Session or Dynamo DB.  If not available, prompt the user to set the
      * time zone.  If time zone is available, check for any missing or invalid data 
      * in the request and respond appropriately so the user can correct and try again.
@@ -1669,9 +1926,12 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleDeleteMonthlyWeekdayPickupRequest(IntentRequest request, Session session) {
     	log.info("handleDeleteMonthlyWeekdayPickupRequest(intentName={}, sessionId={})", request.getIntent().getName(), session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete();
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp()).withUserConfiguration();
+    	SessionDao sessionDao = context.getSessionDao();
+    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete(context);
     	if (configNeeded != null) { return configNeeded; };
+    	Calendar calendar = context.getCalendar();
+    	TimeZone timeZone = context.getTimeZone();
     	LocalDateTime ldtRequest = getRequestLocalDateTime(request, timeZone);
     	
     	Intent intent = request.getIntent();
@@ -1690,7 +1950,7 @@ public class TrashDayManager {
 			// Need more information
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteMonthlyWeekdayMissingData");
 			SpeechletResponse response = ResponsesSchedule.respondPickupDeleteMonthlyWeekdayMissingData(sessionDao, true, missingDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -1707,7 +1967,7 @@ public class TrashDayManager {
     	if ( invalidDataFields.size() > 0 ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteMonthlyWeekdayInvalidData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupDeleteMonthlyWeekdayInvalidData(sessionDao, true, invalidDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -1718,19 +1978,19 @@ public class TrashDayManager {
     	int removedCount = calendar.pickupDeleteWeekdayOfMonth(pickupName, weekOfMonth, dow, tod);
 		sessionDao.setCalendar(calendar);
     	if (removedCount > 0) {
-        	dynamoDao.writeUserData(sessionDao);
+        	sessionDao.markUserDataDirty();
     	}
     	
     	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteMonthlyWeekdaySingle");
         SpeechletResponse response = ResponsesSchedule.respondPickupDeleteMonthlyWeekdaySingle(sessionDao, false, pickupName, weekOfMonth, dow, tod, removedCount > 0);
-		if (response.getShouldEndSession()) { flushIntentLog(); }
+		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }    
     
     /**
      * Respond when the user deletes a Nth to last weekday-of-monthly pickup time from the schedule.
      * <p>
-     * Use {@link #isTimeZoneConfigurationComplete()} to load the time zone from
+     * Use {@link #isTimeZoneConfigurationComplete(TrashDayRequestContext)} to load the time zone from
      * the Session or Dynamo DB.  If not available, prompt the user to set the
      * time zone.  If time zone is available, check for any missing or invalid data 
      * in the request and respond appropriately so the user can correct and try again.
@@ -1750,9 +2010,12 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleDeleteMonthlyLastNWeekdayPickupRequest(IntentRequest request, Session session) {
     	log.info("handleDeleteMonthlyLastNWeekdayPickupRequest(intentName={}, sessionId={})", request.getIntent().getName(), session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete();
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp()).withUserConfiguration();
+    	SessionDao sessionDao = context.getSessionDao();
+    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete(context);
     	if (configNeeded != null) { return configNeeded; };
+    	Calendar calendar = context.getCalendar();
+    	TimeZone timeZone = context.getTimeZone();
     	LocalDateTime ldtRequest = getRequestLocalDateTime(request, timeZone);
     	
     	Intent intent = request.getIntent();
@@ -1771,7 +2034,7 @@ public class TrashDayManager {
 			// Need more information
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteMonthlyLastNWeekdayMissingData");
 			SpeechletResponse response = ResponsesSchedule.respondPickupDeleteMonthlyLastNWeekdayMissingData(sessionDao, true, missingDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -1788,7 +2051,7 @@ public class TrashDayManager {
     	if ( invalidDataFields.size() > 0 ) {
         	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteMonthlyLastNWeekdayInvalidData");
     		SpeechletResponse response = ResponsesSchedule.respondPickupDeleteMonthlyLastNWeekdayInvalidData(sessionDao, true, invalidDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -1799,19 +2062,19 @@ public class TrashDayManager {
     	int removedCount = calendar.pickupDeleteWeekdayOfMonth(pickupName, -weekOfMonth, dow, tod);
 		sessionDao.setCalendar(calendar);
     	if (removedCount > 0) {
-        	dynamoDao.writeUserData(sessionDao);
+        	sessionDao.markUserDataDirty();
     	}
     	
     	sessionDao.incrementIntentLog(ldtRequest, "respondPickupDeleteMonthlyLastNWeekdaySingle");
         SpeechletResponse response = ResponsesSchedule.respondPickupDeleteMonthlyLastNWeekdaySingle(sessionDao, false, pickupName, weekOfMonth, dow, tod, removedCount > 0);
-		if (response.getShouldEndSession()) { flushIntentLog(); }
+		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }    
     
     /**
      * Respond when the user deletes an entire pickup name from the schedule.
      * <p>
-     * Use {@link #isTimeZoneConfigurationComplete()} to load the time zone from
+     * Use {@link #isTimeZoneConfigurationComplete(TrashDayRequestContext)} to load the time zone from
      * the Session or Dynamo DB.  If not available, prompt the user to set the
      * time zone.  If time zone is available, check for any missing or invalid data 
      * in the request and respond appropriately so the user can correct and try again.
@@ -1831,9 +2094,11 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleDeleteEntirePickupRequest(IntentRequest request, Session session) {
     	log.info("handleDeleteEntirePickupRequest(intentName={}, sessionId={})", request.getIntent().getName(), session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete();
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp()).withUserConfiguration();
+    	SessionDao sessionDao = context.getSessionDao();
+    	SpeechletResponse configNeeded = isTimeZoneConfigurationComplete(context);
     	if (configNeeded != null) { return configNeeded; };
+    	TimeZone timeZone = context.getTimeZone();
     	LocalDateTime ldtRequest = getRequestLocalDateTime(request, timeZone);
 
     	// Respond if we're missing any data fields.
@@ -1845,7 +2110,7 @@ public class TrashDayManager {
 		if (! missingDataFields.isEmpty()) {
 	    	sessionDao.incrementIntentLog(ldtRequest, "respondEntirePickupDeleteMissingData");
     		SpeechletResponse response = ResponsesSchedule.respondEntirePickupDeleteMissingName(sessionDao, true, missingDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -1857,12 +2122,12 @@ public class TrashDayManager {
 		if (! invalidDataFields.isEmpty()) {
 	    	sessionDao.incrementIntentLog(ldtRequest, "respondEntirePickupDeleteInvalidData");
     		SpeechletResponse response = ResponsesSchedule.respondEntirePickupDeleteInvalidName(sessionDao, true, invalidDataFields);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
 		// Got needed validated value.  Let's delete it from the schedule.
-    	Calendar calendar = loadCalendar(sessionDao, dynamoDao);
+    	Calendar calendar = loadCalendar(context);
     	if (calendar==null) {
     		calendar = new Calendar();
     		sessionDao.setCalendar(calendar);
@@ -1870,12 +2135,12 @@ public class TrashDayManager {
     	Boolean removed = calendar.pickupDelete(pickupName);
     	if (removed) {
     		sessionDao.setCalendar(calendar);
-        	dynamoDao.writeUserData(sessionDao);
+        	sessionDao.markUserDataDirty();
     	}
     	
     	sessionDao.incrementIntentLog(ldtRequest, "respondEntirePickupDelete");
     	SpeechletResponse response = ResponsesSchedule.respondEntirePickupDelete(sessionDao, false, pickupName, removed);
-		if (response.getShouldEndSession()) { flushIntentLog(); }
+		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }    
 
@@ -1902,9 +2167,10 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleDeleteEntireScheduleRequest(IntentRequest request, Session session) {
     	log.info("handleDeleteEntireScheduleRequest(intentName={}, sessionId={})", request.getIntent().getName(), session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	TimeZone timeZone = loadTimeZone(sessionDao, dynamoDao);
-    	Calendar calendar = loadCalendar(sessionDao, dynamoDao);
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp());
+    	SessionDao sessionDao = context.getSessionDao();
+    	TimeZone timeZone = loadTimeZone(context);
+    	Calendar calendar = loadCalendar(context);
     	
     	boolean alreadyClear = true;
     	if ( timeZone!=null || ( calendar!=null && (! calendar.isEmpty()) ) ) {    	
@@ -1913,7 +2179,7 @@ public class TrashDayManager {
 	    	alreadyClear = false;
     	}
     	SpeechletResponse response = ResponsesSchedule.respondScheduleDeleteAllRequested(sessionDao, false, alreadyClear);
-		if (response.getShouldEndSession()) { flushIntentLog(); }
+		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }
     
@@ -1929,16 +2195,16 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleHelpRequest(IntentRequest request, Session session) {
     	log.trace("handleHelpRequest()");
-    	sessionDao = new SessionDao(session);
-    	calendar = loadCalendar(sessionDao, dynamoDao);
-    	timeZone = loadTimeZone(sessionDao, dynamoDao);
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp()).withUserConfiguration();
+    	SessionDao sessionDao = context.getSessionDao();
+    	Calendar calendar = context.getCalendar();
+    	TimeZone timeZone = context.getTimeZone();
     	
     	SpeechletResponse response;
     	if (timeZone == null) {
     		// User hasn't defined any time zone or schedule data yet.
     		response = ResponsesHelp.respondHelpInitial(sessionDao, true);
     	} else {
-        	sessionDao = new SessionDao(session);
         	LocalDateTime ldtRequest = getRequestLocalDateTime(request, timeZone);
         	sessionDao.incrementIntentLog(ldtRequest, "help");
     		
@@ -1950,7 +2216,7 @@ public class TrashDayManager {
         	}
     	}
     	
-   	 	if (response.getShouldEndSession()) { flushIntentLog(); }
+   	 	if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }
 
@@ -1979,8 +2245,9 @@ public class TrashDayManager {
      */
     public SpeechletResponse handleYesRequest(IntentRequest request, Session session) {
     	log.info("handleYesRequest(sessionId={})", session.getSessionId());
-    	sessionDao = new SessionDao(session);
-    	LocalDateTime ldtRequest = getRequestLocalDateTime(request, timeZone);
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp());
+    	SessionDao sessionDao = context.getSessionDao();
+    	LocalDateTime ldtRequest = getRequestLocalDateTime(request, loadTimeZone(context));
     	String intentToConfirm = sessionDao.getConfirmationIntent();
     	
     	if(intentToConfirm == null || intentToConfirm.trim().isEmpty()) {
@@ -1988,15 +2255,15 @@ public class TrashDayManager {
     		sessionDao.clearConfirmationData();
         	sessionDao.incrementIntentLog(ldtRequest, "tellYesNoMisunderstood");
 	    	SpeechletResponse response = ResponsesYesNo.tellYesNoMisunderstood();
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
 		// Got a positive confirmation and an outstanding question we asked.
 		if (intentToConfirm.equals("DeleteEntireScheduleIntent")) {
     		sessionDao.clearConfirmationData();
-        	TimeZone timeZone = loadTimeZone(sessionDao, dynamoDao);
-        	Calendar calendar = loadCalendar(sessionDao, dynamoDao);
+        	TimeZone timeZone = loadTimeZone(context);
+        	Calendar calendar = loadCalendar(context);
         	Boolean removed=false;
         	if (timeZone!= null || calendar!=null) {
         		if (calendar != null) {
@@ -2008,10 +2275,11 @@ public class TrashDayManager {
     			sessionDao.clearCalendar();
     			sessionDao.clearTimeZone();
         		dynamoDao.eraseUserData(sessionDao);
+        		sessionDao.clearUserDataDirty();
         	}
         	sessionDao.incrementIntentLog(ldtRequest, "deleteEntireSchedule");
 			SpeechletResponse response = ResponsesSchedule.respondScheduleDeleted(sessionDao, false, removed);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
 		}
 		
@@ -2020,7 +2288,7 @@ public class TrashDayManager {
 		sessionDao.clearConfirmationData();
     	sessionDao.incrementIntentLog(ldtRequest, "tellYesNoProblem");
     	SpeechletResponse response = ResponsesYesNo.tellYesNoProblem(confirmActionDesc);
-		if (response.getShouldEndSession()) { flushIntentLog(); }
+		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }
     
@@ -2039,22 +2307,25 @@ public class TrashDayManager {
      * response using the description from {@link SessionDao#SESSION_ATTR_CONFIRM_DESC}.
      * We return a helpful message when a question has not already been asked.
      * 
+     * @param request
+     *            {@link IntentRequest} for this request.  Its timestamp is used to
+     *            rebase calendar event starts if user data is saved.
      * @param session
      *            {@link com.amazon.speech.speechlet.Session} for this Yes/No request
-     * 
      * @return a generic "Cancelled" response or a perform a specific
      * 			action corresponding to a previously stored intent
      */
-    public SpeechletResponse handleNoRequest(Session session) {
+    public SpeechletResponse handleNoRequest(IntentRequest request, Session session) {
     	log.info("handleNoRequest(sessionId={})", session.getSessionId());
-    	sessionDao = new SessionDao(session);
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp());
+    	SessionDao sessionDao = context.getSessionDao();
     	String intentToConfirm = sessionDao.getConfirmationIntent();
     	
     	if(intentToConfirm == null || intentToConfirm.trim().isEmpty()) {
 			// Did not understand what we are saying yes/no to...
     		sessionDao.clearConfirmationData();
 	    	SpeechletResponse response = ResponsesYesNo.tellYesNoMisunderstood();
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
     	
@@ -2062,7 +2333,7 @@ public class TrashDayManager {
     	String confirmActionDesc = sessionDao.getConfirmationDescription();
 		sessionDao.clearConfirmationData();
 		SpeechletResponse response = ResponsesYesNo.tellCancellingAction(confirmActionDesc);
-		if (response.getShouldEndSession()) { flushIntentLog(); }
+		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }
     
@@ -2073,14 +2344,17 @@ public class TrashDayManager {
      * as a "No" answer.  Cleanup and respond appropriately. Otherwise, 
      * simply exit with a "Goodbye" message.
      * 
+     * @param request
+     *            {@link IntentRequest} for this request.  Its timestamp is used to
+     *            rebase calendar event starts if user data is saved.
      * @param session
      *            {@link com.amazon.speech.speechlet.Session} for this request
-     *
      * @return response for the Stop or Cancel intent
      */
-    public SpeechletResponse handleExitRequest(Session session) {
+    public SpeechletResponse handleExitRequest(IntentRequest request, Session session) {
     	log.info("handleExitRequest(sessionId={})", session.getSessionId());
-    	sessionDao = new SessionDao(session);
+    	TrashDayRequestContext context = newRequestContext(session, request.getTimestamp());
+    	SessionDao sessionDao = context.getSessionDao();
     	
     	// If we had just asked the user a question, cancel it and tell user.
     	String intentToConfirm = sessionDao.getConfirmationIntent();
@@ -2088,12 +2362,12 @@ public class TrashDayManager {
         	String confirmActionDesc = sessionDao.getConfirmationDescription();
     		sessionDao.clearConfirmationData();
     		SpeechletResponse response = ResponsesYesNo.tellCancellingAction(confirmActionDesc);
-    		if (response.getShouldEndSession()) { flushIntentLog(); }
+    		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
     		return response;
     	}
 
     	SpeechletResponse response = ResponsesExit.buildExitResponse(sessionDao);
-		if (response.getShouldEndSession()) { flushIntentLog(); }
+		if (response.getShouldEndSession()) { flushSessionData(sessionDao); }
 		return response;
     }
 }
@@ -0,0 +1,116 @@
+package trashday;
+
+import java.util.TimeZone;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import trashday.model.Calendar;
+import trashday.storage.DynamoDao;
+import trashday.storage.SessionDao;
+import trashday.storage.UserDataUnitOfWork;
+
+/**
+ * Everything {@link TrashDayManager} knows about the one Alexa request it is
+ * handling: the user's {@link SessionDao}, the {@link UserDataUnitOfWork} that reads
+ * their stored data, and (once loaded) their calendar and time zone.
+ * <p>
+ * Each handler creates its own context and passes it to the methods it calls, so the
+ * manager keeps no per-request fields and one manager can handle requests from many
+ * threads at once.  A context's fields never change.
+ * {@link #withUserConfiguration()} returns a new context holding the loaded calendar
+ * and time zone.  A context belongs to the thread handling its request and is not
+ * shared with others.
+ *
+ * @author J. Todd Baldwin
+ */
+public final class TrashDayRequestContext {
+	/** Log object for this class */
+    private static final Logger log = LoggerFactory.getLogger(TrashDayRequestContext.class);
+
+    /** Connection to the Alexa Session used to store user's information. */
+    private final SessionDao sessionDao;
+    /** Loads user data for {@link #sessionDao}, reading Dynamo DB at most once per request. */
+    private final UserDataUnitOfWork userData;
+    /** User calendar, if loaded by {@link #withUserConfiguration()} and stored for this user. */
+    private final Calendar calendar;
+    /** User time zone, if loaded by {@link #withUserConfiguration()} and stored for this user. */
+    private final TimeZone timeZone;
+
+    /**
+     * Create the context for one request.  Nothing is read until a handler asks for it.
+     *
+	 * @param sessionDao {@link SessionDao} data access object for user data stored in
+	 * 			current {@link com.amazon.speech.speechlet.Session}.
+	 * @param dynamoDao {@link DynamoDao} data access object for storing user data between
+	 * 			Alexa sessions.
+     */
+    public TrashDayRequestContext(SessionDao sessionDao, DynamoDao dynamoDao) {
+    	this(sessionDao, new UserDataUnitOfWork(sessionDao, dynamoDao), null, null);
+    }
+
+    /**
+     * Create a context with every field given.
+     *
+     * @param sessionDao {@link SessionDao} for this request
+     * @param userData {@link UserDataUnitOfWork} for this request
+     * @param calendar {@link trashday.model.Calendar} loaded for this user, or null
+     * @param timeZone {@link java.util.TimeZone} loaded for this user, or null
+     */
+    private TrashDayRequestContext(SessionDao sessionDao, UserDataUnitOfWork userData, Calendar calendar, TimeZone timeZone) {
+    	log.trace("TrashDayRequestContext()");
+    	this.sessionDao = sessionDao;
+    	this.userData = userData;
+    	this.calendar = calendar;
+    	this.timeZone = timeZone;
+    }
+
+    /**
+     * Load the user's calendar and time zone from the Session or, if not available,
+     * Dynamo DB (at most once per request, see {@link UserDataUnitOfWork}).
+     *
+     * @return new {@link TrashDayRequestContext} for the same request holding the
+     * 			user's calendar and time zone
+     */
+    public TrashDayRequestContext withUserConfiguration() {
+    	log.trace("withUserConfiguration()");
+    	return new TrashDayRequestContext(sessionDao, userData, userData.getCalendar(), userData.getTimeZone());
+    }
+
+    /**
+     * Get the Session data access object for this request.
+     *
+     * @return {@link SessionDao} for this request
+     */
+    public SessionDao getSessionDao() {
+    	return sessionDao;
+    }
+
+    /**
+     * Get the user data unit of work for this request.
+     *
+     * @return {@link UserDataUnitOfWork} for this request
+     */
+    public UserDataUnitOfWork getUserData() {
+    	return userData;
+    }
+
+    /**
+     * Get the user's calendar loaded by {@link #withUserConfiguration()}.
+     *
+     * @return {@link trashday.model.Calendar} containing user's pickup schedule, or
+     * 			null if not loaded or none stored
+     */
+    public Calendar getCalendar() {
+    	return calendar;
+    }
+
+    /**
+     * Get the user's time zone loaded by {@link #withUserConfiguration()}.
+     *
+     * @return {@link java.util.TimeZone} for this user, or null if not loaded or none stored
+     */
+    public TimeZone getTimeZone() {
+    	return timeZone;
+    }
+}
@@ -1,5 +1,7 @@
 package trashday;
 
+import java.util.Map;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,6 +16,8 @@ import com.amazon.speech.speechlet.SpeechletResponse;
 import com.amazon.speech.speechlet.SpeechletV2;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
 
+import trashday.storage.UserDataStore;
+
 /**
  * Handles routing session requests to the appropriate
  * {@link TrashDayManager} methods.
@@ -32,6 +36,8 @@ public class TrashDaySpeechlet implements SpeechletV2 {
     private static final Logger log = LoggerFactory.getLogger(TrashDaySpeechlet.class);
     /** The methods for appropriately handling our skill Intents. */
     private TrashDayManager tdm = null;
+    /** Routes each intent name to its {@link TrashDayManager} method, with timing. */
+    private final IntentDispatcher dispatcher;
     
 	/** 
      * Handle requests using a new connection to the Amazon Dynamo DB
@@ -44,7 +50,8 @@ public class TrashDaySpeechlet implements SpeechletV2 {
     @CoberturaIgnore
     public TrashDaySpeechlet() {
     	//ProfileCredentialsProvider pcp = new ProfileCredentialsProvider(credentialFile, credentialProfileName);
-		tdm = new TrashDayManager(null, null);    	
+		tdm = new TrashDayManager(null, null);
+		dispatcher = newIntentDispatcher(tdm);
     }
     
 	/** 
@@ -61,7 +68,84 @@ public class TrashDaySpeechlet implements SpeechletV2 {
      * 				Any other value is the Dynamo table name to be used.
      */
     public TrashDaySpeechlet(AmazonDynamoDBClient db, String tableNameOverride) {
-		tdm = new TrashDayManager(db, tableNameOverride);    	
+		tdm = new TrashDayManager(db, tableNameOverride);
+		dispatcher = newIntentDispatcher(tdm);
+    }
+    
+	/** 
+     * Handle requests storing user data in the given {@link UserDataStore}.
+     * Used only for load tests at this time.
+     *
+     * @param userDataStore {@link UserDataStore} holding users' pickup schedule data
+     */
+    public TrashDaySpeechlet(UserDataStore userDataStore) {
+		tdm = new TrashDayManager(userDataStore);
+		dispatcher = newIntentDispatcher(tdm);
+    }
+    
+    /**
+     * Register the {@link TrashDayManager} method handling each of our skill's intents.
+     * 
+     * @param tdm	{@link TrashDayManager} handling this speechlet's requests
+     * @return		{@link IntentDispatcher} for all our intents
+     */
+    private static IntentDispatcher newIntentDispatcher(TrashDayManager tdm) {
+    	IntentDispatcher dispatcher = new IntentDispatcher();
+
+    	// User Queries for information
+    	dispatcher.register("TellScheduleIntent", tdm::handleTellScheduleRequest);
+    	dispatcher.register("TellNextPickupIntent", tdm::handleTellNextPickupRequest);
+    	dispatcher.register("UpdateScheduleIntent", tdm::handleUpdateScheduleRequest);
+
+    	// User Answers to Questions from our skill.
+    	dispatcher.register("AMAZON.YesIntent", tdm::handleYesRequest);
+    	dispatcher.register("AMAZON.NoIntent", tdm::handleNoRequest);
+
+    	// User commands to alter the Schedule of weekly pickups
+    	dispatcher.register("SetTimeZoneIntent", tdm::handleSetTimeZoneRequest);
+    	dispatcher.register("AddPickupIntent", tdm::handleAddPickupRequest);
+    	dispatcher.register("AddWeeklyPickupIntent", tdm::handleAddWeeklyPickupRequest);
+    	dispatcher.register("AddThisBiWeeklyPickupIntent", tdm::handleAddThisBiWeeklyPickupRequest);
+    	dispatcher.register("AddFollowingBiWeeklyPickupIntent", tdm::handleAddFollowingBiWeeklyPickupRequest);
+    	dispatcher.register("AddMonthlyPickupIntent", tdm::handleAddMonthlyPickupRequest);
+    	dispatcher.register("AddMonthlyLastDayPickupIntent", tdm::handleAddMonthlyLastDayPickupRequest);
+    	dispatcher.register("AddMonthlyLastNDayPickupIntent", tdm::handleAddMonthlyLastNDayPickupRequest);
+    	dispatcher.register("AddMonthlyWeekdayPickupIntent", tdm::handleAddMonthlyWeekdayPickupRequest);
+    	dispatcher.register("AddMonthlyLastNWeekdayPickupIntent", tdm::handleAddMonthlyLastNWeekdayPickupRequest);
+    	dispatcher.register("DeletePickupIntent", tdm::handleDeletePickupRequest);
+    	dispatcher.register("DeleteWeeklyPickupIntent", tdm::handleDeleteWeeklyPickupRequest);
+    	dispatcher.register("DeleteBiWeeklyPickupIntent", tdm::handleDeleteBiWeeklyPickupRequest);
+    	dispatcher.register("DeleteMonthlyPickupIntent", tdm::handleDeleteMonthlyPickupRequest);
+    	dispatcher.register("DeleteMonthlyLastDayPickupIntent", tdm::handleDeleteMonthlyLastDayPickupRequest);
+    	dispatcher.register("DeleteMonthlyLastNDayPickupIntent", tdm::handleDeleteMonthlyLastNDayPickupRequest);
+    	dispatcher.register("DeleteMonthlyWeekdayPickupIntent", tdm::handleDeleteMonthlyWeekdayPickupRequest);
+    	dispatcher.register("DeleteMonthlyLastNWeekdayPickupIntent", tdm::handleDeleteMonthlyLastNWeekdayPickupRequest);
+    	dispatcher.register("DeleteEntirePickupIntent", tdm::handleDeleteEntirePickupRequest);
+    	dispatcher.register("DeleteEntireScheduleIntent", tdm::handleDeleteEntireScheduleRequest);
+
+    	// User gives standard, one-word commands
+    	dispatcher.register("AMAZON.HelpIntent", tdm::handleHelpRequest);
+    	dispatcher.register("AMAZON.CancelIntent", tdm::handleExitRequest);
+    	dispatcher.register("AMAZON.StopIntent", tdm::handleExitRequest);
+    	return dispatcher;
+    }
+
+    /**
+     * Prepare user data storage for the first user's request.  Called once per
+     * container by {@link TrashDaySpeechletRequestStreamHandler} at startup.
+     */
+    public void warmUp() {
+    	log.trace("warmUp()");
+    	tdm.warmUp();
+    }
+    
+    /**
+     * Get the call counts and handling times of each intent handled so far.
+     * 
+     * @return	{@link IntentMetrics.Snapshot} for each intent, keyed and sorted by intent name
+     */
+    public Map<String, IntentMetrics.Snapshot> getIntentMetrics() {
+    	return dispatcher.getMetricsSnapshot();
     }
     
     /**
@@ -76,14 +160,20 @@ public class TrashDaySpeechlet implements SpeechletV2 {
 		LaunchRequest request = requestEnvelope.getRequest();
 		Session session = requestEnvelope.getSession();
 		log.info("onLaunch requestId={}, sessionId={}", request.getRequestId(), session.getSessionId());
-		return tdm.handleLaunchRequest(request, session);
+		SpeechletResponse response = tdm.handleLaunchRequest(request, session);
+		tdm.flushStaleUserData(session, request.getTimestamp());
+		return response;
 	}
 
     /**
      * Handle the Alexa request for all the regular user conversation.
+     * <p>
+     * The intent is routed by an {@link IntentDispatcher}, which times each call
+     * (see {@link #getIntentMetrics()}).
      * 
      * @param requestEnvelope	Alexa request data
      * @return Alexa speech and/or card response
+     * @throws IllegalArgumentException if the intent is not one of ours
      * @see <a href="https://developer.amazon.com/public/solutions/alexa/alexa-skills-kit/docs/handling-requests-sent-by-alexa#types-of-requests-sent-by-alexa">Alexa Skills Kit Docs: Types of Requests Sent by Alexa</a>
      * @see <a href="https://developer.amazon.com/public/solutions/alexa/alexa-skills-kit/docs/built-in-intent-ref/standard-intents">Alexa Skills Kit Docs: Available Standard Built-in Intents</a>
      */
@@ -94,105 +184,10 @@ public class TrashDaySpeechlet implements SpeechletV2 {
         Intent intent = request.getIntent();
 		log.info("onIntent {} requestId={}, sessionId={}", intent.getName(), request.getRequestId(), session.getSessionId());
 
-		SpeechletResponse response = null;
-		switch (intent.getName()) {
-		
-		// User Queries for information
-		case "TellScheduleIntent":
-            response = tdm.handleTellScheduleRequest(request, session);
-			break;
-		case "TellNextPickupIntent":
-			response = tdm.handleTellNextPickupRequest(request, session);
-			break;
-		case "UpdateScheduleIntent":
-			response = tdm.handleUpdateScheduleRequest(request, session);
-			break;
-        
-        // User Answers to Questions from our skill.
-		case "AMAZON.YesIntent":
-			response = tdm.handleYesRequest(request, session);
-			break;
-		case "AMAZON.NoIntent":
-			response = tdm.handleNoRequest(session);
-			break;
-        
-        // User commands to alter the Schedule of weekly pickups
-		case "SetTimeZoneIntent":
-			response = tdm.handleSetTimeZoneRequest(request, session);
-			break;
-		case "AddPickupIntent":
-			response = tdm.handleAddPickupRequest(request, session);
-			break;
-		case "AddWeeklyPickupIntent":
-			response = tdm.handleAddWeeklyPickupRequest(request, session);
-			break;
-		case "AddThisBiWeeklyPickupIntent":
-			response = tdm.handleAddThisBiWeeklyPickupRequest(request, session);
-			break;
-		case "AddFollowingBiWeeklyPickupIntent":
-			response = tdm.handleAddFollowingBiWeeklyPickupRequest(request, session);
-			break;
-		case "AddMonthlyPickupIntent":
-			response = tdm.handleAddMonthlyPickupRequest(request, session);
-			break;
-		case "AddMonthlyLastDayPickupIntent":
-			response = tdm.handleAddMonthlyLastDayPickupRequest(request, session);
-			break;
-		case "AddMonthlyLastNDayPickupIntent":
-			response = tdm.handleAddMonthlyLastNDayPickupRequest(request, session);
-			break;
-		case "AddMonthlyWeekdayPickupIntent":
-			response = tdm.handleAddMonthlyWeekdayPickupRequest(request, session);
-			break;
-		case "AddMonthlyLastNWeekdayPickupIntent":
-			response = tdm.handleAddMonthlyLastNWeekdayPickupRequest(request, session);
-			break;
-		case "DeletePickupIntent":
-			response = tdm.handleDeletePickupRequest(request, session);
-			break;
-		case "DeleteWeeklyPickupIntent":
-			response = tdm.handleDeleteWeeklyPickupRequest(request, session);
-			break;
-		case "DeleteBiWeeklyPickupIntent":
-			response = tdm.handleDeleteBiWeeklyPickupRequest(request, session);
-			break;
-		case "DeleteMonthlyPickupIntent":
-			response = tdm.handleDeleteMonthlyPickupRequest(request, session);
-			break;
-		case "DeleteMonthlyLastDayPickupIntent":
-			response = tdm.handleDeleteMonthlyLastDayPickupRequest(request, session);
-			break;
-		case "DeleteMonthlyLastNDayPickupIntent":
-			response = tdm.handleDeleteMonthlyLastNDayPickupRequest(request, session);
-			break;
-		case "DeleteMonthlyWeekdayPickupIntent":
-			response = tdm.handleDeleteMonthlyWeekdayPickupRequest(request, session);
-			break;
-		case "DeleteMonthlyLastNWeekdayPickupIntent":
-			response = tdm.handleDeleteMonthlyLastNWeekdayPickupRequest(request, session);
-			break;
-		case "DeleteEntirePickupIntent":
-			response = tdm.handleDeleteEntirePickupRequest(request, session);
-			break;
-		case "DeleteEntireScheduleIntent":
-			response = tdm.handleDeleteEntireScheduleRequest(request, session);
-            break;
-        
-        // User gives standard, one-word commands
-		case "AMAZON.HelpIntent":
-			response = tdm.handleHelpRequest(request, session);
-			break;
-		case "AMAZON.CancelIntent":
-			response = tdm.handleExitRequest(session);
-			break;
-		case "AMAZON.StopIntent":
-			response = tdm.handleExitRequest(session);
-			break;
-			
-		// Error if program gets an unexpected Intent Name
-        default:
-            throw new IllegalArgumentException("Unrecognized intent: " + intent.getName());
-		}
+		SpeechletResponse response = dispatcher.dispatch(request, session);
+
+		// Don't let a long session hold schedule changes indefinitely.
+		tdm.flushStaleUserData(session, request.getTimestamp());
 		return response;
 	}
 
@@ -212,7 +207,9 @@ public class TrashDaySpeechlet implements SpeechletV2 {
     /**
      * Handle the Alexa request when a user session ends.
      * <p>
-     * At session end, we flush {@link trashday.model.IntentLog} information.  This
+     * At session end, we write any calendar and time zone changes the user made
+     * during the session (see {@link TrashDayManager#flushUserData(Session, java.util.Date)}).
+     * We also flush {@link trashday.model.IntentLog} information.  This
      * records the actions a user performed in order to provide later analysis of
      * how often users use which functions from our skill.
      * 
@@ -227,7 +224,8 @@ public class TrashDaySpeechlet implements SpeechletV2 {
 		//SessionEndedRequest.Reason.USER_INITIATED - User said "exit"
 		log.info("onSessionEnded reason={}, error={}, requestId={}, sessionId={}", request.getReason(), request.getError(), request.getRequestId(), session.getSessionId());
 		
-    	// Update the user's intent log before we exit.
+    	// Save the user's schedule changes and intent log before we exit.
+		tdm.flushUserData(session, request.getTimestamp());
 		tdm.flushIntentLog(session);
 	}
 
@@ -1,7 +1,9 @@
 package trashday;
 
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,6 +11,8 @@ import org.slf4j.LoggerFactory;
 import com.amazon.speech.speechlet.lambda.SpeechletRequestStreamHandler;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
 
+import trashday.storage.UserDataStore;
+
 /**
  * Ensure the Alexa request is intended for our service and pass it on
  * to our {@link TrashDaySpeechlet}.
@@ -20,6 +24,11 @@ import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
  * variable {@code ApplicationId} to be set to the correct value for the 
  * registered Traash Day skill.  If not available, the application will exit
  * before allowing any information to be processed.
+ * <p>
+ * Creating the first handler in a container is the skill's startup phase.  The
+ * components every request uses are warmed up and timed by a
+ * {@link ColdStartInitializer}, and the report is logged once
+ * (see {@link #getStartupReport()}).
  * 
  * @author      J. Todd Baldwin
  * @see			<a href="https://developer.amazon.com/public/solutions/alexa/alexa-skills-kit/docs/handling-requests-sent-by-alexa#verifying-that-the-request-is-intended-for-your-service">Alexa Skills Kit Doc: Handling Requests Sent By Alexa</a>
@@ -33,6 +42,10 @@ public class TrashDaySpeechletRequestStreamHandler extends SpeechletRequestStrea
     private static final Logger log = LoggerFactory.getLogger(TrashDaySpeechletRequestStreamHandler.class);
     /** Application id(s) for this Trash Day skill */
 	private static final Set<String> supportedApplicationIds;
+	/** Startup report of the first handler created in this container, or null before then */
+	private static ColdStartInitializer.Report startupReport = null;
+	/** Speechlet handling the requests */
+	private final TrashDaySpeechlet speechlet;
 
     static {
         supportedApplicationIds = new HashSet<String>();
@@ -61,10 +74,7 @@ public class TrashDaySpeechletRequestStreamHandler extends SpeechletRequestStrea
      */
     @CoberturaIgnore
 	public TrashDaySpeechletRequestStreamHandler() throws IllegalStateException {
-		super(new TrashDaySpeechlet(), supportedApplicationIds);
-		if (supportedApplicationIds.size() < 1) {
-			throw new IllegalStateException("REQUIRE an environment variable defined for \"ApplicationId\".  Exiting application.");
-		}
+		this(startUp(TrashDaySpeechlet::new));
 	}
 
 	/** 
@@ -82,9 +92,79 @@ public class TrashDaySpeechletRequestStreamHandler extends SpeechletRequestStrea
 	 * 			not start.
      */
 	public TrashDaySpeechletRequestStreamHandler(AmazonDynamoDBClient db, String tableNameOverride) throws IllegalStateException {
-		super(new TrashDaySpeechlet(db, tableNameOverride), supportedApplicationIds);
+		this(startUp(() -> new TrashDaySpeechlet(db, tableNameOverride)));
+    }
+
+	/** 
+     * Handle requests storing user data in the given {@link UserDataStore}.
+     * Used only for load tests at this time, with an
+     * {@link trashday.storage.InMemoryUserDataStore} or
+     * {@link trashday.storage.MappedFileUserDataStore}.
+     *
+     * @param userDataStore {@link UserDataStore} holding users' pickup schedule data
+	 * @throws IllegalStateException if the environment does not 
+	 * 			define "applicationId" then this Alexa skill will 
+	 * 			not start.
+     */
+	public TrashDaySpeechletRequestStreamHandler(UserDataStore userDataStore) throws IllegalStateException {
+		this(startUp(() -> new TrashDaySpeechlet(userDataStore)));
+    }
+
+	/**
+	 * Create the speechlet for a new handler.  For the first handler in this container
+	 * (Lambda creates just one), this is the container's startup phase: the shared
+	 * components and the speechlet's user data store are warmed up, each step is timed
+	 * and the {@link ColdStartInitializer.Report} is logged.
+	 * 
+	 * @param newSpeechlet creates the speechlet
+	 * @return new {@link TrashDaySpeechlet}
+	 */
+	private static synchronized TrashDaySpeechlet startUp(Supplier<TrashDaySpeechlet> newSpeechlet) {
+		if (startupReport != null) {
+			return newSpeechlet.get();
+		}
+		ColdStartInitializer initializer = new ColdStartInitializer();
+		initializer.warmUpSharedComponents();
+		TrashDaySpeechlet speechlet = initializer.create("speechlet", newSpeechlet);
+		initializer.warmUp("userDataStore", speechlet::warmUp);
+		startupReport = initializer.finish();
+		log.info("{}", startupReport);
+		return speechlet;
+	}
+
+	/**
+	 * Get how long each step of this container's startup took.
+	 * 
+	 * @return {@link ColdStartInitializer.Report} of the first handler created, or null
+	 * 			if no handler has been created yet
+	 */
+	public static synchronized ColdStartInitializer.Report getStartupReport() {
+		return startupReport;
+	}
+
+	/** 
+     * Handle requests with the given speechlet.
+     *
+     * @param speechlet {@link TrashDaySpeechlet} handling the requests
+	 * @throws IllegalStateException if the environment does not 
+	 * 			define "applicationId" then this Alexa skill will 
+	 * 			not start.
+     */
+	private TrashDaySpeechletRequestStreamHandler(TrashDaySpeechlet speechlet) throws IllegalStateException {
+		super(speechlet, supportedApplicationIds);
+		this.speechlet = speechlet;
 		if (supportedApplicationIds.size() < 1) {
 			throw new IllegalStateException("REQUIRE an environment variable defined for \"ApplicationId\".  Exiting application.");
 		}
     }
+
+    /**
+     * Get the call counts and handling times of each intent handled so far.
+     * 
+     * @return	{@link IntentMetrics.Snapshot} for each intent, keyed and sorted by intent name
+     * @see		TrashDaySpeechlet#getIntentMetrics()
+     */
+    public Map<String, IntentMetrics.Snapshot> getIntentMetrics() {
+    	return speechlet.getIntentMetrics();
+    }
 }
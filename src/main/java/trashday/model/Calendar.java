@@ -3,11 +3,16 @@ package trashday.model;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.net.URISyntaxException;
+import java.text.ParseException;
 import java.time.DayOfWeek;
-import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -19,7 +24,6 @@ import net.fortuna.ical4j.data.CalendarOutputter;
 import net.fortuna.ical4j.data.ParserException;
 import net.fortuna.ical4j.model.Component;
 import net.fortuna.ical4j.model.ComponentList;
-import net.fortuna.ical4j.model.Date;
 import net.fortuna.ical4j.model.NumberList;
 import net.fortuna.ical4j.model.Recur;
 import net.fortuna.ical4j.model.WeekDay;
@@ -53,6 +57,76 @@ public class Calendar {
     
     /** The iCal calendar that forms the basis of this Calendar object. */
     private net.fortuna.ical4j.model.Calendar cal = null;
+    
+    /**
+     * One {@link CalendarEvent} wrapper per iCal event, so work cached on the wrapper (e.g.
+     * its {@link CompiledRecurrence} rules) survives from one calendar query to the next.
+     * Keyed on object identity since {@link net.fortuna.ical4j.model.component.VEvent#equals(Object)}
+     * compares event contents.
+     */
+    private final Map<VEvent, CalendarEvent> eventWrappers = new IdentityHashMap<VEvent, CalendarEvent>();
+    
+    /**
+     * Set while this calendar shares its iCal data with a {@link CalendarCache} entry.  The
+     * first change takes a private copy of the iCal data and clears this flag.
+     */
+    private boolean shared = false;
+    
+    /**
+     * Pickup name (lowercase) to events index.  Built on first use and kept up to date by the
+     * methods that add and delete events, so name lookups do not scan every calendar component.
+     * Iterates in the order pickups first appear in the calendar.  {@code null} until needed.
+     */
+    private Map<String, PickupEvents> pickupIndex = null;
+    
+    /** All events in calendar order.  Built and maintained with {@link #pickupIndex}. */
+    private PickupEvents allEvents = null;
+    
+    /**
+     * Number of events carrying each canonical rule signature (see {@link CalendarEvent#getRuleSignatures()}),
+     * so {@link #has(CalendarEvent)} is a single lookup.  Built and maintained with {@link #pickupIndex}.
+     */
+    private Map<String, Integer> ruleSignatureCounts = null;
+    
+    /**
+     * Signatures counted in {@link #ruleSignatureCounts} for each event, so they can be
+     * uncounted after the event's RRULEs change.  Built and maintained with {@link #pickupIndex}.
+     */
+    private Map<CalendarEvent, List<String>> eventSignatures = null;
+    
+    /** Bits of a {@link #nextOccurrenceKeys} entry that hold the pickup ordinal. */
+    private static final int PICKUP_ORDINAL_BITS = 20;
+    
+    /**
+     * Scratch buffer for {@link #pickupGetNextOccurrencesInOrder(LocalDateTime)}: one entry per
+     * pickup holding its next occurrence (local epoch minute) in the high bits and its
+     * ordinal in {@link #pickupIndex} in the low {@link #PICKUP_ORDINAL_BITS} bits, so a
+     * primitive sort orders pickups by time.  Reused between calls; never shared with
+     * {@link CalendarCache} views.
+     */
+    private long[] nextOccurrenceKeys = new long[0];
+    
+    /** Scratch buffer of pickup names, by ordinal in {@link #pickupIndex}. */
+    private String[] nextOccurrenceNames = new String[0];
+    
+    /**
+     * Optional materialized occurrences of every event, used by the next occurrence
+     * queries.  {@code null} unless enabled with {@link #setOccurrenceHorizonWeeks(int)}.
+     * {@link CalendarCache} views share their master's horizon until their first change,
+     * which gives them one of their own.
+     */
+    private OccurrenceHorizon horizon = null;
+    
+    /**
+     * A list of events, plus the read-only view of that list handed out to callers
+     * so the read paths do not allocate.
+     */
+    private static class PickupEvents {
+    	/** Events in calendar order */
+    	private final List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+    	/** Read-only view of {@link #events} */
+    	private final List<CalendarEvent> view = Collections.unmodifiableList(events);
+    }
 	
 	/**
 	 * Create an empty pickups calendar.
@@ -84,18 +158,139 @@ public class Calendar {
 	
 	/**
 	 * Create a calendar from a {@link trashday.model.Schedule}
+	 * <p>
+	 * Calendars stored by this skill are read with the {@link IcalStreamReader}.  Any
+	 * other iCalendar text is read with ical4j's CalendarBuilder.
+	 *
 	 * @param icalString String with an iCalendar text.
 	 * @throws ParserException Failed to understand the provided ical source.
 	 * @throws IOException Could not read the ical source string correctly.
 	 */
 	public Calendar(String icalString) throws IOException, ParserException {
 		log.trace("Calendar(): Create from icalString={}", icalString);
-		
+
+		cal = IcalStreamReader.read(icalString);
+		if (cal != null) {
+			return;
+		}
 		StringReader sin = new StringReader(icalString);
 		CalendarBuilder builder = new CalendarBuilder();
 		cal = builder.build(sin);
 	}
 	
+	/**
+	 * Create a calendar around an ical4j calendar built elsewhere in this package (see
+	 * {@link CalendarData#decode(byte[])}).
+	 * 
+	 * @param cal ical4j calendar.  Now owned by this calendar.
+	 */
+	Calendar(net.fortuna.ical4j.model.Calendar cal) {
+		log.trace("Calendar(): Create from ical4j calendar");
+		this.cal = cal;
+	}
+	
+	/**
+	 * Create a copy-on-write view of a calendar held by a {@link CalendarCache}.  Reads use
+	 * the cached iCal data directly.  The first change takes a private copy.
+	 * 
+	 * @param master cached calendar, prepared with {@link #prepareShared()}
+	 */
+	Calendar(Calendar master) {
+		log.trace("Calendar(): Create view of shared calendar");
+		cal = master.cal;
+		eventWrappers.putAll(master.eventWrappers);
+		pickupIndex = master.pickupIndex;
+		allEvents = master.allEvents;
+		ruleSignatureCounts = master.ruleSignatureCounts;
+		eventSignatures = master.eventSignatures;
+		horizon = master.horizon;
+		shared = true;
+	}
+	
+	/**
+	 * Get the underlying ical4j calendar.  Callers in this package must not change it.
+	 * 
+	 * @return ical4j calendar
+	 */
+	net.fortuna.ical4j.model.Calendar getIcalCalendar() {
+		return cal;
+	}
+	
+	/**
+	 * Prepare this calendar to be shared by {@link CalendarCache} views: wrap and compile
+	 * every event up front and make the wrappers read-only.  This calendar must not be
+	 * changed afterwards.
+	 */
+	void prepareShared() {
+		log.trace("prepareShared()");
+		for (CalendarEvent event : getEvents()) {
+			event.getCompiledRecurrences();
+			event.setReadOnly();
+		}
+		// getEvents() has built the pickup index, which views share until their first change.
+		shared = true;
+	}
+	
+	/**
+	 * Check if this calendar still shares its iCal data with a {@link CalendarCache} entry.
+	 * 
+	 * @return {@code true} if this calendar has not been changed since it was taken from the cache
+	 */
+	public boolean isShared() {
+		return shared;
+	}
+	
+	/**
+	 * Materialize the next few weeks of occurrences of every event, so next occurrence
+	 * queries are answered by a binary search.  {@link CalendarCache} turns this on for the
+	 * calendars it holds, since each answers queries for request after request.  The horizon
+	 * is built on the next query and follows later queries forward.
+	 * 
+	 * @param weeks Number of weeks to materialize.  Zero or less turns the horizon off.
+	 * @see OccurrenceHorizon
+	 */
+	public void setOccurrenceHorizonWeeks(int weeks) {
+		log.trace("setOccurrenceHorizonWeeks({})", weeks);
+		if (weeks < 1) {
+			horizon = null;
+			return;
+		}
+		horizon = new OccurrenceHorizon(weeks);
+		for (CalendarEvent event : getEvents()) {
+			horizon.addEvent(event);
+		}
+	}
+	
+	/**
+	 * Get the number of weeks of materialized occurrences.
+	 * 
+	 * @return horizon length in weeks, or zero if there is no horizon
+	 */
+	public int getOccurrenceHorizonWeeks() {
+		return (horizon == null) ? 0 : horizon.getWeeks();
+	}
+	
+	/**
+	 * Called before any change to this calendar.  If the iCal data is shared with a
+	 * {@link CalendarCache} entry, replace it with a private copy.
+	 */
+	private void ensureWritable() {
+		if (! shared) { return; }
+		log.debug("Copying shared calendar before change.");
+		try {
+			cal = new net.fortuna.ical4j.model.Calendar(cal);
+		} catch (ParseException | IOException | URISyntaxException e) {
+			throw new IllegalStateException("Unable to copy shared calendar.", e);
+		}
+		eventWrappers.clear();
+		clearPickupIndex();
+		shared = false;
+		if (horizon != null) {
+			// The shared horizon tracks the cached events.  Track the new wrappers instead.
+			setOccurrenceHorizonWeeks(horizon.getWeeks());
+		}
+	}
+	
 	/**
 	 * Continue to support version 1 pickup schedules in {@link trashday.model.Schedule}
 	 * form by converting all {@link trashday.model.Schedule} objects into the current
@@ -107,6 +302,7 @@ public class Calendar {
 	@SuppressWarnings("deprecation")
 	public List<String> loadFromSchedule(Schedule schedule) {
 		log.trace("loadFromSchedule({})", schedule.toJson());
+		ensureWritable();
 		List<String> pickupNames = schedule.getPickupNames();
 		
 		for (String pickupName : pickupNames) {
@@ -125,6 +321,7 @@ public class Calendar {
 	 */
 	public void initBasicExampleCalendar() {
 		log.trace("initBasicExampleCalendar");
+		ensureWritable();
 		
 		// Trash: Tuesday morning
 		CalendarEvent event = new CalendarEvent("Trash", java.time.LocalDateTime.of(2017, 1, 31, 7, 30));
@@ -147,6 +344,7 @@ public class Calendar {
 	 */
 	public void initComplexExampleCalendar() {
 		log.trace("initComplexExampleCalendar");
+		ensureWritable();
 		
 		// Trash: Tuesday morning
 		CalendarEvent event = new CalendarEvent("Trash", java.time.LocalDateTime.of(2017, 1, 31, 7, 30));
@@ -201,6 +399,7 @@ public class Calendar {
 	 */
 	public Boolean deleteEntireSchedule() {
 		log.trace("deleteEntireSchedule()");
+		ensureWritable();
 		
 		// Delete all event components...
 		boolean eventsRemoved=false;
@@ -212,6 +411,11 @@ public class Calendar {
         		eventsRemoved=true;
         	}
 		}
+		eventWrappers.clear();
+		clearPickupIndex();
+		if (horizon != null) {
+			horizon.clear();
+		}
 		return eventsRemoved;
 	}
 	
@@ -237,32 +441,186 @@ public class Calendar {
 		if (has(event)) {
 			return false;
 		}
-		cal.getComponents().add(event.getVEvent());
+		ensureWritable();
+		VEvent vevent = event.getVEvent();
+		cal.getComponents().add(vevent);
+		eventWrappers.put(vevent, event);
+		if (pickupIndex != null) {
+			indexEvent(event);
+		}
+		if (horizon != null) {
+			horizon.addEvent(event);
+		}
 		return true;
 	}
 	
+	/**
+	 * Get the {@link CalendarEvent} wrapper for an iCal event in this calendar, creating it
+	 * on first use.
+	 * 
+	 * @param vevent {@link net.fortuna.ical4j.model.component.VEvent} from this calendar
+	 * @return {@link CalendarEvent} wrapping the given event
+	 */
+	private CalendarEvent getCalendarEvent(VEvent vevent) {
+		CalendarEvent event = eventWrappers.get(vevent);
+		if (event == null) {
+			event = new CalendarEvent(vevent);
+			eventWrappers.put(vevent, event);
+		}
+		return event;
+	}
+	
+	/**
+	 * Get the pickup name index, building it from the calendar components on first use.
+	 * 
+	 * @return Map of lowercase pickup name to the events for that pickup
+	 */
+	private Map<String, PickupEvents> getPickupIndex() {
+		if (pickupIndex == null) {
+			log.trace("getPickupIndex(): build");
+			pickupIndex = new LinkedHashMap<String, PickupEvents>();
+			allEvents = new PickupEvents();
+			ruleSignatureCounts = new HashMap<String, Integer>();
+			eventSignatures = new IdentityHashMap<CalendarEvent, List<String>>();
+			ComponentList<CalendarComponent> components = cal.getComponents();
+			for (CalendarComponent component : components) {
+				if (Component.VEVENT.equals(component.getName())) {
+					indexEvent(getCalendarEvent( (VEvent) component ));
+				}
+			}
+		}
+		return pickupIndex;
+	}
+	
+	/**
+	 * Add an event to the end of the pickup name index.  Index must already be built.
+	 * 
+	 * @param event {@link CalendarEvent} added to this calendar
+	 */
+	private void indexEvent(CalendarEvent event) {
+		allEvents.events.add(event);
+		String pickupName = event.getName();
+		PickupEvents pickupEvents = pickupIndex.get(pickupName);
+		if (pickupEvents == null) {
+			pickupEvents = new PickupEvents();
+			pickupIndex.put(pickupName, pickupEvents);
+		}
+		pickupEvents.events.add(event);
+		signEvent(event);
+	}
+	
+	/**
+	 * Count an event's rule signatures.  Index must already be built.
+	 * 
+	 * @param event {@link CalendarEvent} in this calendar
+	 */
+	private void signEvent(CalendarEvent event) {
+		List<String> signatures = event.getRuleSignatures();
+		eventSignatures.put(event, signatures);
+		for (String signature : signatures) {
+			Integer count = ruleSignatureCounts.get(signature);
+			ruleSignatureCounts.put(signature, (count == null) ? 1 : count + 1);
+		}
+	}
+	
+	/**
+	 * Uncount the rule signatures last counted for an event.  Index must already be built.
+	 * 
+	 * @param event {@link CalendarEvent} in this calendar
+	 */
+	private void unsignEvent(CalendarEvent event) {
+		List<String> signatures = eventSignatures.remove(event);
+		if (signatures == null) { return; }
+		for (String signature : signatures) {
+			Integer count = ruleSignatureCounts.get(signature);
+			if (count == null) { continue; }
+			if (count <= 1) {
+				ruleSignatureCounts.remove(signature);
+			} else {
+				ruleSignatureCounts.put(signature, count - 1);
+			}
+		}
+	}
+	
+	/**
+	 * Bring the indexes up to date after an event's RRULEs have changed.
+	 * 
+	 * @param event {@link CalendarEvent} in this calendar
+	 */
+	private void refreshEvent(CalendarEvent event) {
+		if (pickupIndex != null) {
+			unsignEvent(event);
+			signEvent(event);
+		}
+		if (horizon != null) {
+			horizon.refreshEvent(event);
+		}
+	}
+	
+	/**
+	 * Forget the pickup name index.  It is rebuilt on next use.
+	 */
+	private void clearPickupIndex() {
+		pickupIndex = null;
+		allEvents = null;
+		ruleSignatureCounts = null;
+		eventSignatures = null;
+	}
+	
+	/**
+	 * Remove an event from this calendar: its iCal component, its wrapper and its
+	 * pickup name index entries.
+	 * 
+	 * @param event {@link CalendarEvent} in this calendar
+	 */
+	private void removeEvent(CalendarEvent event) {
+		VEvent vevent = event.getVEvent();
+		ComponentList<CalendarComponent> components = cal.getComponents();
+		for (int indexComponents=components.size()-1; indexComponents>=0; indexComponents--) {
+			// Identity match, since VEvent equals() compares event contents.
+			if (components.get(indexComponents) == vevent) {
+				components.remove(indexComponents);
+				break;
+			}
+		}
+		eventWrappers.remove(vevent);
+		if (horizon != null) {
+			horizon.removeEvent(event);
+		}
+		if (pickupIndex != null) {
+			unsignEvent(event);
+			allEvents.events.remove(event);
+			String pickupName = event.getName();
+			PickupEvents pickupEvents = pickupIndex.get(pickupName);
+			if (pickupEvents != null) {
+				pickupEvents.events.remove(event);
+				if (pickupEvents.events.isEmpty()) {
+					pickupIndex.remove(pickupName);
+				}
+			}
+		}
+	}
+	
 	/**
 	 * Get all the iCal events in the {@link trashday.model.Calendar}.
+	 * <p>
+	 * The returned list is a read-only view that is only valid until this calendar
+	 * is next changed.
 	 * 
 	 * @return List of {@link CalendarEvent}
 	 */
 	public List<CalendarEvent> getEvents() {
 		log.trace("getEvents()");
-		List<CalendarEvent> events = new ArrayList<CalendarEvent>();
-		ComponentList<CalendarComponent> components = cal.getComponents();
-		for (CalendarComponent component : components) {
-			String name = component.getName();
-			if (name.equals("VEVENT")) {
-	        	CalendarEvent event = new CalendarEvent( (VEvent) component );
-				events.add(event);				
-			}
-		}
-		return events;
+		getPickupIndex();
+		return allEvents.view;
 	}
 	
 	/**
 	 * Get all the iCal events in the {@link trashday.model.Calendar} for the
 	 * given pickup name.
+	 * <p>
+	 * The returned list is a read-only view that is only valid until this calendar
+	 * is next changed.
 	 * 
 	 * @param pickupName find all events for this pickup name (e.g. "trash", "recycling", etc.)
 	 * @return List of {@link CalendarEvent}
@@ -271,19 +629,48 @@ public class Calendar {
 		log.trace("getEvents(pickupName={})", pickupName);
 		if (pickupName==null) { return null; }
 		
-		String pickupCheck = pickupName.trim().toLowerCase();
-		List<CalendarEvent> events = new ArrayList<CalendarEvent>();
-		ComponentList<CalendarComponent> components = cal.getComponents();
-		for (CalendarComponent component : components) {
-			String name = component.getName();
-			if (name.equals("VEVENT")) {
-	        	CalendarEvent event = new CalendarEvent( (VEvent) component );
-				if (event.getName().equals(pickupCheck)) {
-					events.add(event);				
+		PickupEvents pickupEvents = getPickupIndex().get(pickupName.trim().toLowerCase());
+		if (pickupEvents == null) {
+			return Collections.emptyList();
+		}
+		return pickupEvents.view;
+	}
+	
+	/**
+	 * Move the start of every event forward to its most recent occurrence at or before
+	 * the given {@link java.time.LocalDateTime}.  Pickup times are not changed.
+	 * 
+	 * @param ldtLimit no event start is moved past this date/time
+	 * @return Number of events whose start was moved
+	 * @see CalendarEvent#rebaseStart(LocalDateTime)
+	 */
+	public int rebase(LocalDateTime ldtLimit) {
+		log.trace("rebase({})", ldtLimit);
+		if (shared) {
+			// Only copy shared iCal data if some event start will actually move.
+			boolean rebaseNeeded = false;
+			long limitEpochMinute = CompiledRecurrence.toEpochMinute(ldtLimit);
+			for (CalendarEvent event : getEvents()) {
+				if (CompiledRecurrence.rebaseEpochMinute(event.getCompiledRecurrences(), limitEpochMinute) != CompiledRecurrence.NO_OCCURRENCE) {
+					rebaseNeeded = true;
+					break;
+				}
+			}
+			if (! rebaseNeeded) {
+				return 0;
+			}
+			ensureWritable();
+		}
+		int rebaseCount = 0;
+		for (CalendarEvent event : getEvents()) {
+			if (event.rebaseStart(ldtLimit)) {
+				rebaseCount++;
+				if (horizon != null) {
+					horizon.refreshEvent(event);
 				}
 			}
 		}
-		return events;
+		return rebaseCount;
 	}
 	
 	/**
@@ -325,6 +712,9 @@ public class Calendar {
      * RRULE:FREQ=MONTHLY;BYMONTHDAY=1
 	 * RRULE:FREQ=MONTHLY;BYMONTHDAY=-3
 	 * RRULE:FREQ=MONTHLY;BYDAY=1FR
+	 * <p>
+	 * The new RRULE is reduced to its canonical signature (see {@link CalendarEvent#ruleSignature(String, String, int, String, LocalDateTime)})
+	 * and looked up among the signatures of the existing events' RRULEs.
 	 * 
 	 * @param newEvent {@link trashday.model.CalendarEvent} the we are checking may
 	 * 			already have a "duplicate" in the calendar.
@@ -332,7 +722,7 @@ public class Calendar {
 	 * @see   <a href="https://github.com/ical4j/ical4j/issues/42">Can ical4j identify exceptions to recurring calendar events?</a>
 	 */
 	public Boolean has(CalendarEvent newEvent) {
-		log.debug("has(newEvent={})", newEvent.getVEvent());
+		log.debug("has(newEvent={})", newEvent.getName());
 		
 		// First, gather information from the newEvent and confirm the new event meets our assertions.
 		String newEventName = newEvent.getName();
@@ -381,100 +771,14 @@ public class Calendar {
 			}
 			break;
 		}
-		net.fortuna.ical4j.model.Date dateNow = new net.fortuna.ical4j.model.Date(java.util.Date.from(Instant.now()));
-		Date newStartDate = newEvent.getStartIcalDate();
-        Date newNextDate = newRecur.getNextDate(newStartDate, dateNow);
-
 		
-		// Find any events that match...
-		for (CalendarEvent existingEvent : getEvents()) {
-			// Ignore events with a different pickup name.
-			if (! newEventName.equals(existingEvent.getName())) {
-				continue;
-			}
-			log.debug("name match for: {}", existingEvent);
-			
-			// For all the existing RRULEs
-			Date existingStartDate = existingEvent.getStartIcalDate();
-			for (RRule existingRRule : existingEvent.getRRules()) {
-				log.debug("check RRULE: {}", existingRRule);
-				Recur existingRecur = existingRRule.getRecur();
-			
-				// Check FREQUENCY: Ignore event where RRULE frequency doesn't match.
-				if (! newFrequency.equals(existingRecur.getFrequency())) {
-					log.debug("no match: frequency={}", existingRecur.getFrequency());
-					continue;
-				}
-			
-				// Check INTERVAL: Ignore event if RRULE intervals do not match.
-				int existingInterval = existingRecur.getInterval();
-				if (existingInterval==0) { existingInterval=1; }					
-				if (newInterval != existingInterval) {
-					log.debug("no match: interval={}", existingInterval);
-					continue;
-				}
-			
-				WeekDayList existingDayList = existingRecur.getDayList();
-				NumberList existingMonthDayList = existingRecur.getMonthDayList();
-
-				switch (newFrequency) {
-				case "WEEKLY":
-					// Check BYDAY: new BYDAY must be in existing BYDAY
-					if (existingDayList.contains(newDay)) {
-						// Check INTERVAL match: The existing and new events start date makes them overlap
-						Recur testRecur = new Recur("WEEKLY", 0);
-						testRecur.setInterval(existingInterval);
-						testRecur.getDayList().add(newDay);
-				        Date existingNextDate = testRecur.getNextDate(existingStartDate, dateNow);
-						if (newNextDate.equals(existingNextDate)) {
-							// MATCH found
-							log.debug("Matched to existing RRULE: {}", existingRRule);
-							return true;
-						}
-					} else {
-						log.debug("no match: newDay={} not in existing BYDAY={}", newDay, existingDayList);
-					}
-					break;
-				case "MONTHLY":
-					// Check BYMONTHDAY: new BYMONTHDAY must be in existing BYMONTHDAY
-					if (newMonthDay!=null) {
-						if (existingMonthDayList.contains(newMonthDay)) {
-							// Check INTERVAL match: The existing and new events start date makes them overlap
-							Recur testRecur = new Recur("MONTHLY", 0);
-							testRecur.setInterval(existingInterval);
-							testRecur.getMonthDayList().add(newMonthDay);
-					        Date existingNextDate = testRecur.getNextDate(existingStartDate, dateNow);
-							if (newNextDate.equals(existingNextDate)) {
-								// MATCH found
-								log.debug("Matched to existing RRULE: {}", existingRRule);
-								return true;
-							}
-						} else {
-							log.debug("no match: newMonthDay={} not in existing BYMONTHDAY={}", newMonthDay, existingMonthDayList);
-						}
-					}
-					// Check BYDAY: new BYDAY must be in existing BYDAY
-					if (newDay!=null) {
-						if (existingDayList.contains(newDay)) {
-							// Check INTERVAL match: The existing and new events start date makes them overlap
-							Recur testRecur = new Recur("MONTHLY", 0);
-							testRecur.setInterval(existingInterval);
-							testRecur.getDayList().add(newDay);
-					        Date existingNextDate = testRecur.getNextDate(existingStartDate, dateNow);
-							if (newNextDate.equals(existingNextDate)) {
-								// MATCH found
-								log.debug("Matched to existing RRULE: {}", existingRRule);
-								return true;
-							}
-						} else {
-							log.debug("no match: newDay={} not in existing BYDAY={}", newDay, existingDayList);
-						}
-					}
-					break;
-				}			
-			}
-			
-			// So no match on this event, go to next one.
+		// Look for an existing event with the same signature.
+		String byRule = (newMonthDay != null) ? "BYMONTHDAY="+newMonthDay : "BYDAY="+newDay;
+		String newSignature = CalendarEvent.ruleSignature(newEventName, newFrequency, newInterval, byRule, newEvent.getStartLocalDateTime());
+		getPickupIndex();
+		if (ruleSignatureCounts.containsKey(newSignature)) {
+			log.debug("Matched to existing rule signature: {}", newSignature);
+			return true;
 		}
 
 		log.debug("No RRULE match");
@@ -560,23 +864,19 @@ public class Calendar {
 	 */
 	public Boolean pickupDelete(String pickupName) {
 		log.trace("pickupDelete({})",pickupName);
+		ensureWritable();
 		
-		// Delete all event components...
-		boolean eventsRemoved=false;
-		ComponentList<CalendarComponent> components = cal.getComponents();
-		for (int indexComponents=components.size()-1; indexComponents>=0; indexComponents--) {
-			CalendarComponent component = components.get(indexComponents);
-        	if (Component.VEVENT.equals(component.getName())) {
-        		// *If* the event name matches pickupName
-        		VEvent event = (VEvent) component;
-        		String eventName = event.getSummary().getValue().trim().toLowerCase();
-        		if (pickupName.equals(eventName)) {
-	        		components.remove(indexComponents);
-	        		eventsRemoved=true;
-        		}
-        	}
+		// Delete all events whose name matches pickupName
+		if (pickupName==null) { return false; }
+		PickupEvents pickupEvents = getPickupIndex().get(pickupName);
+		if (pickupEvents == null) {
+			return false;
 		}
-		return eventsRemoved;
+		List<CalendarEvent> events = pickupEvents.events;
+		for (int indexEvents=events.size()-1; indexEvents>=0; indexEvents--) {
+			removeEvent(events.get(indexEvents));
+		}
+		return true;
 	}
 		
 	/**
@@ -590,19 +890,14 @@ public class Calendar {
 	 */
 	public int pickupDeleteWeekly(String pickupName, java.time.DayOfWeek dow, java.time.LocalTime tod, Integer interval) {
 		log.trace("pickupDeleteWeekly(pickupName={}, dow={}, tod={}, interval={}", pickupName, dow, tod, interval);
+		ensureWritable();
 		// Count how many removals get performed.
 		int removeCount = 0;
 		
-		// Check all calendar components...
-		ComponentList<CalendarComponent> components = cal.getComponents();
-		for (int indexComponents=components.size()-1; indexComponents>=0; indexComponents--) {
-			
-    		// Ignore components that are not events.
-        	CalendarComponent component = components.get(indexComponents);
-        	if (! Component.VEVENT.equals(component.getName())) {
-        		continue;
-        	}
-        	CalendarEvent event = new CalendarEvent( (VEvent) component );
+		// Check all events for this pickup...
+		List<CalendarEvent> events = getEvents(pickupName);
+		for (int indexEvents=events.size()-1; indexEvents>=0; indexEvents--) {
+        	CalendarEvent event = events.get(indexEvents);
         	
         	// Ignore any events that don't match the pickupName or TimeOfDay.
         	if (! event.matchesNameTod(pickupName, tod)) {
@@ -621,7 +916,9 @@ public class Calendar {
         	if (! event.hasRrules()) {
         		// There are no more RRULES on the event 
         		// => delete this entire event (component)
-        		components.remove(indexComponents);
+        		removeEvent(event);
+        	} else {
+        		refreshEvent(event);
         	}
         }
         
@@ -665,19 +962,14 @@ public class Calendar {
 	 */
 	public int pickupDeleteDayOfMonth(String pickupName, Integer dom, java.time.LocalTime tod) {
 		log.debug("pickupDeleteDayOfMonth(pickupName={}, dom={}, tod={}", pickupName, dom, tod);
+		ensureWritable();
 		// Count how many removals get performed.
 		int removeCount = 0;
 		
-		// Check all calendar components...
-		ComponentList<CalendarComponent> components = cal.getComponents();
-		for (int indexComponents=components.size()-1; indexComponents>=0; indexComponents--) {
-			
-    		// Ignore components that are not events.
-        	CalendarComponent component = components.get(indexComponents);
-        	if (! Component.VEVENT.equals(component.getName())) {
-        		continue;
-        	}
-        	CalendarEvent event = new CalendarEvent( (VEvent) component );
+		// Check all events for this pickup...
+		List<CalendarEvent> events = getEvents(pickupName);
+		for (int indexEvents=events.size()-1; indexEvents>=0; indexEvents--) {
+        	CalendarEvent event = events.get(indexEvents);
         	
         	// Ignore any events that don't match the pickupName or TimeOfDay.
         	if (! event.matchesNameTod(pickupName, tod)) {
@@ -696,7 +988,9 @@ public class Calendar {
         	if (! event.hasRrules()) {
         		// There are no more RRULES on the event 
         		// => delete this entire event (component)
-        		components.remove(indexComponents);
+        		removeEvent(event);
+        	} else {
+        		refreshEvent(event);
         	}
         }
         
@@ -714,20 +1008,15 @@ public class Calendar {
 	 */
 	public int pickupDeleteWeekdayOfMonth(String pickupName, Integer weekNum, DayOfWeek dow, java.time.LocalTime tod) {
 		log.trace("pickupDeleteWeekdayOfMonth(pickupName={}, weekNum={}, dow={}, tod={})", pickupName, weekNum, dow, tod);
+		ensureWritable();
 		
 		// Count how many removals get performed.
 		int removeCount = 0;
 		
-		// Check all calendar components...
-		ComponentList<CalendarComponent> components = cal.getComponents();
-		for (int indexComponents=components.size()-1; indexComponents>=0; indexComponents--) {
-			
-    		// Ignore components that are not events.
-        	CalendarComponent component = components.get(indexComponents);
-        	if (! Component.VEVENT.equals(component.getName())) {
-        		continue;
-        	}
-        	CalendarEvent event = new CalendarEvent( (VEvent) component );
+		// Check all events for this pickup...
+		List<CalendarEvent> events = getEvents(pickupName);
+		for (int indexEvents=events.size()-1; indexEvents>=0; indexEvents--) {
+        	CalendarEvent event = events.get(indexEvents);
         	
         	// Ignore any events that don't match the pickupName or TimeOfDay.
         	if (! event.matchesNameTod(pickupName, tod)) {
@@ -746,7 +1035,9 @@ public class Calendar {
         	if (! event.hasRrules()) {
         		// There are no more RRULES on the event 
         		// => delete this entire event (component)
-        		components.remove(indexComponents);
+        		removeEvent(event);
+        	} else {
+        		refreshEvent(event);
         	}
         }
         
@@ -763,13 +1054,17 @@ public class Calendar {
 	public java.time.LocalDateTime pickupGetNextOccurrence(java.time.LocalDateTime ldtStartingPoint, String pickupName) {
 		log.trace("pickupGetNextOccurrence(pickupName={}, ldtStartingPoint={})", pickupName, ldtStartingPoint);
 
-		// For all events in the pickup calendar...
+		if (horizon != null) {
+			long afterEpochMinute = CompiledRecurrence.toEpochMinute(CompiledRecurrence.resolveGap(ldtStartingPoint));
+			long next = horizon.nextEpochMinute(pickupName.trim().toLowerCase(), afterEpochMinute);
+			return (next == CompiledRecurrence.NO_OCCURRENCE) ? null : CompiledRecurrence.toOccurrenceLocalDateTime(next);
+		}
+		
+		// For all events for this pickup...
 		java.time.LocalDateTime ldtEarliestOccurrence = null;
-		for (CalendarEvent event: getEvents()) {
-			String eventName = event.getName();
-			if (! pickupName.trim().toLowerCase().equals(eventName)) {
-				continue;
-			}
+		List<CalendarEvent> events = getEvents(pickupName);
+		for (int indexEvents=0; indexEvents<events.size(); indexEvents++) {
+			CalendarEvent event = events.get(indexEvents);
 			java.time.LocalDateTime ldtOccurrence = event.getNextOccurrence(ldtStartingPoint);
 			if (ldtOccurrence == null) { continue; }
 			
@@ -807,6 +1102,69 @@ public class Calendar {
 		return nextPickupTimes;
 	}
 	
+	/**
+	 * Find the next pickup occurrence for every pickup in the {@link trashday.model.Calendar},
+	 * ordered by time.  Pickups with the same next occurrence keep the order in which they
+	 * first appear in the calendar.
+	 * <p>
+	 * All events are checked against the same starting point in a single pass over the pickup
+	 * index, reusing scratch buffers held by this calendar, so the only allocations are the
+	 * returned map and its entries.
+	 * 
+	 * @param ldtStartingPoint Find next pickup after this date/time.
+	 * @return {@link java.util.LinkedHashMap} of pickup name to the {@link java.time.LocalDateTime} of its next occurrence, earliest first.
+	 */
+	public LinkedHashMap<String,java.time.LocalDateTime> pickupGetNextOccurrencesInOrder(java.time.LocalDateTime ldtStartingPoint) {
+		log.debug("pickupGetNextOccurrencesInOrder(ldtStartingPoint={})", ldtStartingPoint);
+		long afterEpochMinute = CompiledRecurrence.toEpochMinute(CompiledRecurrence.resolveGap(ldtStartingPoint));
+		
+		Map<String, PickupEvents> index = getPickupIndex();
+		int pickupCount = index.size();
+		if (pickupCount >= (1 << PICKUP_ORDINAL_BITS)) {
+			throw new IllegalStateException("Too many pickups in calendar: "+pickupCount);
+		}
+		if (nextOccurrenceKeys.length < pickupCount) {
+			nextOccurrenceKeys = new long[pickupCount];
+			nextOccurrenceNames = new String[pickupCount];
+		}
+		
+		// One pass: earliest next occurrence of each pickup.
+		int ordinal = 0;
+		int keyCount = 0;
+		for (Map.Entry<String, PickupEvents> entry : index.entrySet()) {
+			long earliestEpochMinute = CompiledRecurrence.NO_OCCURRENCE;
+			if (horizon != null) {
+				earliestEpochMinute = horizon.nextEpochMinute(entry.getKey(), afterEpochMinute);
+			} else {
+				List<CalendarEvent> events = entry.getValue().events;
+				for (int indexEvents=0; indexEvents<events.size(); indexEvents++) {
+					long next = events.get(indexEvents).getNextEpochMinute(afterEpochMinute);
+					if (next == CompiledRecurrence.NO_OCCURRENCE) { continue; }
+					if ( (earliestEpochMinute == CompiledRecurrence.NO_OCCURRENCE) || (next < earliestEpochMinute) ) {
+						earliestEpochMinute = next;
+					}
+				}
+			}
+			nextOccurrenceNames[ordinal] = entry.getKey();
+			if (earliestEpochMinute != CompiledRecurrence.NO_OCCURRENCE) {
+				nextOccurrenceKeys[keyCount++] = (earliestEpochMinute << PICKUP_ORDINAL_BITS) | ordinal;
+			}
+			ordinal++;
+		}
+		
+		// Order by time, then by ordinal.
+		Arrays.sort(nextOccurrenceKeys, 0, keyCount);
+		LinkedHashMap<String,java.time.LocalDateTime> nextPickupTimes = new LinkedHashMap<String,java.time.LocalDateTime>();
+		long ordinalMask = (1L << PICKUP_ORDINAL_BITS) - 1;
+		for (int indexKeys=0; indexKeys<keyCount; indexKeys++) {
+			long key = nextOccurrenceKeys[indexKeys];
+			String pickupName = nextOccurrenceNames[(int) (key & ordinalMask)];
+			nextPickupTimes.put(pickupName, CompiledRecurrence.toOccurrenceLocalDateTime(key >> PICKUP_ORDINAL_BITS));
+		}
+		Arrays.fill(nextOccurrenceNames, 0, pickupCount, null);
+		return nextPickupTimes;
+	}
+	
 	/**
 	 * Generate a {@link java.lang.String} form of the {@link trashday.model.Calendar}
 	 * in a form suitable for printing.  Requires a {@link java.time.LocalDateTime}
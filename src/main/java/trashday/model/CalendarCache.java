@@ -0,0 +1,241 @@
+package trashday.model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fortuna.ical4j.data.ParserException;
+
+/**
+ * Bounded cache of parsed {@link Calendar} objects keyed by their iCalendar text or
+ * binary {@link CalendarData}.
+ * <p>
+ * Warm Lambda containers see the same user calendar text on request after request (from
+ * the Session and from Dynamo DB).  Parsing it with ical4j's CalendarBuilder every time is
+ * the most expensive part of loading a user's schedule.  This cache parses each distinct
+ * text once and hands out copy-on-write views of the result: reads use the cached iCal data
+ * directly and the first change to a view takes a private copy, so one request's changes
+ * never reach another request.
+ * <p>
+ * Each cached calendar keeps an {@link OccurrenceHorizon} of {@link #OCCURRENCE_HORIZON_WEEKS}
+ * weeks, shared by its views, so next pickup queries from request after request are a
+ * binary search.
+ * <p>
+ * Entries are evicted in least-recently-used order once the cache holds
+ * {@link #getCapacity()} calendars.
+ *
+ * @author J. Todd Baldwin
+ */
+public class CalendarCache {
+	/** Log object for this class */
+    private static final Logger log = LoggerFactory.getLogger(CalendarCache.class);
+
+    /** Number of calendars held by the {@link #getShared()} cache. */
+    public static final int DEFAULT_CAPACITY = 128;
+
+    /** Weeks of occurrences materialized for each cached calendar.  Covers monthly pickups. */
+    public static final int OCCURRENCE_HORIZON_WEEKS = 5;
+
+    /** Start of the cache key for binary calendar data */
+    private static final String BINARY_KEY_PREFIX = "\u0000cbor:";
+
+    /** Cache shared by all users of this class in this JVM. */
+    private static final CalendarCache sharedCache = new CalendarCache(DEFAULT_CAPACITY);
+
+    /** Maximum number of calendars held */
+    private final int capacity;
+
+    /** Parsed calendars keyed by iCalendar text, in least-recently-used order. */
+    private final LinkedHashMap<String, Calendar> entries;
+
+    /** Number of lookups answered from the cache */
+    private final AtomicLong hitCount = new AtomicLong();
+    /** Number of lookups that required parsing */
+    private final AtomicLong missCount = new AtomicLong();
+    /** Number of calendars evicted to stay within capacity */
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Create an empty cache.
+     *
+     * @param capacity maximum number of calendars held.  Must be positive.
+     */
+    public CalendarCache(int capacity) {
+    	log.trace("CalendarCache(capacity={})", capacity);
+    	if (capacity < 1) {
+    		throw new IllegalArgumentException("Cache capacity must be a positive number.");
+    	}
+    	this.capacity = capacity;
+    	this.entries = new LinkedHashMap<String, Calendar>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+    		protected boolean removeEldestEntry(Map.Entry<String, Calendar> eldest) {
+    			if (size() > CalendarCache.this.capacity) {
+    				evictionCount.incrementAndGet();
+    				return true;
+    			}
+    			return false;
+    		}
+    	};
+    }
+
+    /**
+     * Get the cache shared by all users of this class in this JVM.
+     *
+     * @return shared {@link CalendarCache}
+     */
+    public static CalendarCache getShared() {
+    	return sharedCache;
+    }
+
+    /**
+     * Get a {@link Calendar} for the given iCalendar text, parsing it only if it is not
+     * already cached.
+     *
+     * @param icalText String with an iCalendar text.
+     * @return copy-on-write view of the parsed {@link Calendar}.  Safe for the caller to change.
+     * @throws ParserException Failed to understand the provided ical source.
+     * @throws IOException Could not read the ical source string correctly.
+     */
+    public Calendar get(String icalText) throws IOException, ParserException {
+    	log.trace("get()");
+    	Calendar view = lookup(icalText);
+    	if (view != null) {
+    		return view;
+    	}
+    	return store(icalText, new Calendar(icalText));
+    }
+
+    /**
+     * Get a {@link Calendar} for the given binary calendar data (see {@link CalendarData}),
+     * decoding it only if it is not already cached.
+     *
+     * @param calendarData bytes from {@link CalendarData#encode(Calendar)}
+     * @return copy-on-write view of the decoded {@link Calendar}.  Safe for the caller to change.
+     * @throws ParserException Failed to understand the stored calendar.
+     * @throws IOException Could not read the stored calendar.
+     */
+    public Calendar get(byte[] calendarData) throws IOException, ParserException {
+    	log.trace("get(byte[])");
+    	// Each byte maps to one char, so distinct data gives distinct keys.  iCalendar text
+    	// never starts with the prefix, so the two kinds of key cannot collide.
+    	String key = BINARY_KEY_PREFIX + new String(calendarData, StandardCharsets.ISO_8859_1);
+    	Calendar view = lookup(key);
+    	if (view != null) {
+    		return view;
+    	}
+    	return store(key, CalendarData.decode(calendarData));
+    }
+
+    /**
+     * Look up a cached calendar.
+     *
+     * @param key cache key
+     * @return copy-on-write view of the cached {@link Calendar}, or {@code null} if not cached.
+     */
+    private Calendar lookup(String key) {
+    	Calendar master;
+    	synchronized (entries) {
+    		master = entries.get(key);
+    	}
+    	if (master == null) {
+    		missCount.incrementAndGet();
+    		return null;
+    	}
+    	hitCount.incrementAndGet();
+    	return new Calendar(master);
+    }
+
+    /**
+     * Cache a newly parsed calendar.
+     *
+     * @param key cache key
+     * @param master newly parsed {@link Calendar}
+     * @return copy-on-write view of the cached {@link Calendar}
+     */
+    private Calendar store(String key, Calendar master) {
+    	master.setOccurrenceHorizonWeeks(OCCURRENCE_HORIZON_WEEKS);
+    	master.prepareShared();
+    	synchronized (entries) {
+    		Calendar existing = entries.get(key);
+    		if (existing != null) {
+    			// Another thread parsed the same text first.  Keep a single copy.
+    			master = existing;
+    		} else {
+    			entries.put(key, master);
+    		}
+    	}
+    	return new Calendar(master);
+    }
+
+    /**
+     * Remove all cached calendars.  Counters are not reset.
+     */
+    public void clear() {
+    	synchronized (entries) {
+    		entries.clear();
+    	}
+    }
+
+    /**
+     * Get the maximum number of calendars held.
+     *
+     * @return cache capacity
+     */
+    public int getCapacity() {
+    	return capacity;
+    }
+
+    /**
+     * Get the number of calendars currently held.
+     *
+     * @return cache size
+     */
+    public int size() {
+    	synchronized (entries) {
+    		return entries.size();
+    	}
+    }
+
+    /**
+     * Get the number of lookups answered from the cache.
+     *
+     * @return cache hit count
+     */
+    public long getHitCount() {
+    	return hitCount.get();
+    }
+
+    /**
+     * Get the number of lookups that had to parse the calendar text.
+     *
+     * @return cache miss count
+     */
+    public long getMissCount() {
+    	return missCount.get();
+    }
+
+    /**
+     * Get the number of calendars evicted to stay within capacity.
+     *
+     * @return cache eviction count
+     */
+    public long getEvictionCount() {
+    	return evictionCount.get();
+    }
+
+    /**
+     * Cache statistics in printable form.
+     *
+     * @return String with size, hit, miss and eviction counts
+     */
+    @Override
+    public String toString() {
+    	return "CalendarCache[size="+size()+"/"+capacity+", hits="+getHitCount()+", misses="+getMissCount()+", evictions="+getEvictionCount()+"]";
+    }
+}
@@ -0,0 +1,343 @@
+package trashday.model;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.github.jonpeterson.jackson.module.versioning.JsonVersionedModel;
+import com.github.jonpeterson.jackson.module.versioning.VersioningModule;
+
+import net.fortuna.ical4j.data.ParserException;
+import net.fortuna.ical4j.model.ComponentList;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.Property;
+import net.fortuna.ical4j.model.PropertyList;
+import net.fortuna.ical4j.model.component.CalendarComponent;
+import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.model.property.CalScale;
+import net.fortuna.ical4j.model.property.DateProperty;
+import net.fortuna.ical4j.model.property.DtEnd;
+import net.fortuna.ical4j.model.property.DtStamp;
+import net.fortuna.ical4j.model.property.DtStart;
+import net.fortuna.ical4j.model.property.ProdId;
+import net.fortuna.ical4j.model.property.RRule;
+import net.fortuna.ical4j.model.property.Summary;
+import net.fortuna.ical4j.model.property.Uid;
+import net.fortuna.ical4j.model.property.Version;
+
+/**
+ * Compact binary (CBOR) encoding of a {@link Calendar} for storage.
+ * <p>
+ * The RFC 5545 text of a stored calendar repeats the same boilerplate (BEGIN/END lines,
+ * property names, DTEND equal to DTSTART, full date/time text) for every event.  This
+ * encoding keeps only each event's pickup name, start, UID, stamp and recurrence rules, with
+ * date/times as epoch seconds.  Calendars holding anything else (for example events read from
+ * other iCalendar sources) are stored as their RFC 5545 text inside the same envelope.
+ * <p>
+ * The class implements Jackson Model Versioning using the
+ * "@JsonVersionedModel" and {@link ToCurrentCalendarData} class.
+ *
+ * @author J. Todd Baldwin
+ * @see		<a href="https://github.com/FasterXML/jackson-dataformats-binary/tree/master/cbor">Jackson CBOR data format</a>
+ * @see		<a href="https://github.com/jonpeterson/jackson-module-model-versioning">Jackson Module: Model Versioning</a>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonVersionedModel(currentVersion = "1", toCurrentConverterClass = ToCurrentCalendarData.class, propertyName = "v")
+public class CalendarData {
+	/** Log object for this class */
+    private static final Logger log = LoggerFactory.getLogger(CalendarData.class);
+
+	/** A Jackson CBOR object mapper configured with Jon Peterson's object versioning module. */
+    private static final ObjectMapper CBOR_MAPPER = new ObjectMapper(new CBORFactory())
+ 		   .registerModule(new VersioningModule())
+ 		;
+
+    /** PRODID written by {@link Calendar#Calendar()}.  Not stored. */
+    private static final String DEFAULT_PROD_ID = "-//Ben Fortuna//iCal4j 2.0.0//EN";
+
+    /** Calendar PRODID, if not the default. */
+    @JsonProperty("p")
+    public String prodId;
+    /** Calendar events.  {@code null} when the calendar is stored as {@link #ical} text. */
+    @JsonProperty("e")
+    public List<Event> events;
+    /** RFC 5545 text of a calendar that does not fit the compact event form. */
+    @JsonProperty("i")
+    public String ical;
+
+    /**
+     * One stored calendar event.
+     *
+     * @author J. Todd Baldwin
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Event {
+    	/** Pickup name (SUMMARY) */
+    	@JsonProperty("n")
+    	public String name;
+    	/** Start (DTSTART) in epoch seconds */
+    	@JsonProperty("s")
+    	public long start;
+    	/** End (DTEND) in epoch seconds, if different from the start */
+    	@JsonProperty("x")
+    	public Long end;
+    	/** Set if DTSTART and DTEND are UTC rather than floating date/times */
+    	@JsonProperty("z")
+    	public Boolean utc;
+    	/** Time stamp (DTSTAMP) in epoch seconds */
+    	@JsonProperty("d")
+    	public Long stamp;
+    	/** Unique identifier (UID) */
+    	@JsonProperty("u")
+    	public String uid;
+    	/** Recurrence rules (RRULE values) */
+    	@JsonProperty("r")
+    	public List<String> rules;
+    }
+
+    /**
+     * Encode a calendar for storage.
+     *
+     * @param calendar {@link Calendar} to encode
+     * @return CBOR bytes
+     */
+    public static byte[] encode(Calendar calendar) {
+    	log.trace("encode()");
+    	CalendarData data = from(calendar.getIcalCalendar());
+    	if (data == null) {
+    		log.info("Calendar does not fit compact encoding.  Storing RFC 5545 text.");
+    		data = new CalendarData();
+    		data.ical = calendar.toStringRFC5545();
+    	}
+    	try {
+			return CBOR_MAPPER.writeValueAsBytes(data);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Unable to encode calendar.", e);
+		}
+    }
+
+    /**
+     * Decode a stored calendar.
+     *
+     * @param bytes CBOR bytes from {@link #encode(Calendar)}
+     * @return {@link Calendar}
+     * @throws ParserException Failed to understand the stored calendar.
+     * @throws IOException Could not read the stored calendar.
+     */
+    public static Calendar decode(byte[] bytes) throws IOException, ParserException {
+    	log.trace("decode()");
+    	CalendarData data = CBOR_MAPPER.readValue(bytes, CalendarData.class);
+    	if (data.ical != null) {
+    		return new Calendar(data.ical);
+    	}
+    	try {
+    		return new Calendar(data.toIcalCalendar());
+    	} catch (ParseException e) {
+    		throw new ParserException("Unable to decode calendar. "+e.getMessage(), e.getErrorOffset(), e);
+    	}
+    }
+
+    /**
+     * Collect the stored form of an ical4j calendar.
+     *
+     * @param cal ical4j calendar
+     * @return {@link CalendarData}, or {@code null} if the calendar holds anything beyond
+     * 			the events this skill creates.
+     */
+    static CalendarData from(net.fortuna.ical4j.model.Calendar cal) {
+    	CalendarData data = new CalendarData();
+    	boolean version = false;
+    	boolean calScale = false;
+    	for (Property property : cal.getProperties()) {
+    		if (! property.getParameters().isEmpty()) {
+    			return null;
+    		}
+    		switch (property.getName()) {
+    		case Property.PRODID:
+    			if (data.prodId != null) { return null; }
+    			data.prodId = property.getValue();
+    			break;
+    		case Property.VERSION:
+    			if ( version || (! Version.VERSION_2_0.getValue().equals(property.getValue())) ) { return null; }
+    			version = true;
+    			break;
+    		case Property.CALSCALE:
+    			if ( calScale || (! CalScale.GREGORIAN.getValue().equals(property.getValue())) ) { return null; }
+    			calScale = true;
+    			break;
+    		default:
+    			return null;
+    		}
+    	}
+    	if ( (data.prodId == null) || (! version) || (! calScale) ) {
+    		return null;
+    	}
+    	if (DEFAULT_PROD_ID.equals(data.prodId)) {
+    		data.prodId = null;
+    	}
+
+    	data.events = new ArrayList<Event>();
+    	for (CalendarComponent component : cal.getComponents()) {
+    		if (! (component instanceof VEvent)) {
+    			return null;
+    		}
+    		Event event = from((VEvent) component);
+    		if (event == null) {
+    			return null;
+    		}
+    		data.events.add(event);
+    	}
+    	return data;
+    }
+
+    /**
+     * Collect the stored form of one event.
+     *
+     * @param vevent ical4j event
+     * @return {@link Event}, or {@code null} if the event holds anything beyond
+     * 			the properties this skill creates.
+     */
+    private static Event from(VEvent vevent) {
+    	if (! vevent.getAlarms().isEmpty()) {
+    		return null;
+    	}
+    	Event event = new Event();
+    	DateTime start = null;
+    	DateTime end = null;
+    	event.rules = new ArrayList<String>();
+    	for (Property property : vevent.getProperties()) {
+    		if (! property.getParameters().isEmpty()) {
+    			return null;
+    		}
+    		switch (property.getName()) {
+    		case Property.SUMMARY:
+    			if (event.name != null) { return null; }
+    			event.name = property.getValue();
+    			break;
+    		case Property.DTSTART:
+    			if (start != null) { return null; }
+    			start = getDateTime((DateProperty) property);
+    			if (start == null) { return null; }
+    			break;
+    		case Property.DTEND:
+    			if (end != null) { return null; }
+    			end = getDateTime((DateProperty) property);
+    			if (end == null) { return null; }
+    			break;
+    		case Property.DTSTAMP:
+    			if (event.stamp != null) { return null; }
+    			event.stamp = epochSecond(((DateProperty) property).getDate().getTime());
+    			break;
+    		case Property.UID:
+    			if (event.uid != null) { return null; }
+    			event.uid = property.getValue();
+    			break;
+    		case Property.RRULE:
+    			event.rules.add(property.getValue());
+    			break;
+    		default:
+    			return null;
+    		}
+    	}
+    	// The skill always writes a name, start and end, with both date/times alike.
+    	if ( (event.name == null) || (start == null) || (end == null) || (start.isUtc() != end.isUtc()) ) {
+    		return null;
+    	}
+    	event.start = epochSecond(start.getTime());
+    	long endSecond = epochSecond(end.getTime());
+    	if (endSecond != event.start) {
+    		event.end = endSecond;
+    	}
+    	if (start.isUtc()) {
+    		event.utc = Boolean.TRUE;
+    	}
+    	return event;
+    }
+
+    /**
+     * Get the date/time of a DTSTART or DTEND property.
+     *
+     * @param property date property
+     * @return floating or UTC {@link net.fortuna.ical4j.model.DateTime}, or {@code null}
+     * 			for dates and date/times with a time zone.
+     */
+    private static DateTime getDateTime(DateProperty property) {
+    	if ( (! (property.getDate() instanceof DateTime)) || (property.getTimeZone() != null) ) {
+    		return null;
+    	}
+    	return (DateTime) property.getDate();
+    }
+
+    /**
+     * Convert epoch milliseconds to the epoch seconds stored.  RFC 5545 text keeps
+     * whole seconds, so this keeps the same precision.
+     *
+     * @param epochMilli milliseconds from the epoch
+     * @return seconds from the epoch
+     */
+    private static long epochSecond(long epochMilli) {
+    	return Math.floorDiv(epochMilli, 1000L);
+    }
+
+    /**
+     * Make a floating or UTC {@link net.fortuna.ical4j.model.DateTime} from stored epoch seconds.
+     *
+     * @param epochSecond seconds from the epoch
+     * @param utc {@code true} for a UTC date/time
+     * @return {@link net.fortuna.ical4j.model.DateTime}
+     */
+    private static DateTime dateTime(long epochSecond, boolean utc) {
+    	DateTime dateTime = new DateTime(epochSecond * 1000);
+    	if (utc) {
+    		dateTime.setUtc(true);
+    	}
+    	return dateTime;
+    }
+
+    /**
+     * Build the ical4j calendar for this stored form.  Event properties are added in the
+     * same order {@link CalendarEvent} creates them.
+     *
+     * @return ical4j calendar
+     * @throws ParseException if a recurrence rule is not understood
+     */
+    net.fortuna.ical4j.model.Calendar toIcalCalendar() throws ParseException {
+    	PropertyList properties = new PropertyList();
+    	properties.add(new ProdId( (prodId == null) ? DEFAULT_PROD_ID : prodId ));
+    	properties.add(Version.VERSION_2_0);
+    	properties.add(CalScale.GREGORIAN);
+
+    	ComponentList<CalendarComponent> components = new ComponentList<CalendarComponent>();
+    	if (events != null) {
+    		for (Event event : events) {
+    			boolean utc = Boolean.TRUE.equals(event.utc);
+    			PropertyList eventProperties = new PropertyList();
+    			if (event.stamp != null) {
+    				eventProperties.add(new DtStamp(dateTime(event.stamp, true)));
+    			}
+    			eventProperties.add(new DtStart(dateTime(event.start, utc)));
+    			eventProperties.add(new DtEnd(dateTime( (event.end == null) ? event.start : event.end, utc)));
+    			eventProperties.add(new Summary(event.name));
+    			if (event.uid != null) {
+    				eventProperties.add(new Uid(event.uid));
+    			}
+    			if (event.rules != null) {
+    				for (String rule : event.rules) {
+    					eventProperties.add(new RRule(rule));
+    				}
+    			}
+    			components.add(new VEvent(eventProperties));
+    		}
+    	}
+    	return new net.fortuna.ical4j.model.Calendar(properties, components);
+    }
+}
@@ -1,9 +1,14 @@
 package trashday.model;
 
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.text.ParseException;
 import java.time.DayOfWeek;
+import java.time.temporal.TemporalAdjusters;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Formatter;
 import java.util.List;
 import java.util.Map;
@@ -21,6 +26,7 @@ import net.fortuna.ical4j.model.Recur;
 import net.fortuna.ical4j.model.WeekDay;
 import net.fortuna.ical4j.model.WeekDayList;
 import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.model.property.DtEnd;
 import net.fortuna.ical4j.model.property.DtStart;
 import net.fortuna.ical4j.model.property.RRule;
 import net.fortuna.ical4j.model.property.Summary;
@@ -49,6 +55,22 @@ public class CalendarEvent {
     /** The iCal calendar event that forms the basis of this Calendar object. */
     private VEvent event = null;
     
+    /**
+     * Compiled form of this event's RRULEs, built on first use by {@link #getNextOccurrence(java.time.LocalDateTime)}.
+     * Cleared whenever this class changes the RRULEs or hands out the underlying mutable
+     * property list or {@link VEvent} of a writable event.
+     */
+    private CompiledRecurrence[] compiledRecurrences = null;
+    
+    /**
+     * Canonical signatures of this event's RRULEs, built on first use by {@link #getRuleSignatures()}.
+     * Cleared along with {@link #compiledRecurrences}.
+     */
+    private List<String> ruleSignatures = null;
+    
+    /** Set when this event belongs to a shared, cached calendar.  See {@link CalendarCache}. */
+    private boolean readOnly = false;
+    
     /** Used to create unique event UIDs */
 	private static UidGenerator ug = null;
 
@@ -79,7 +101,9 @@ public class CalendarEvent {
     	// Ensure event name is trimmed and lowercase.
 		Summary summary = event.getSummary();
 		String eventName = summary.getValue().trim().toLowerCase();
-		summary.setValue(eventName);
+		if (! eventName.equals(summary.getValue())) {
+			summary.setValue(eventName);
+		}
     }
     
     /**
@@ -90,12 +114,8 @@ public class CalendarEvent {
      */
     public CalendarEvent(String eventName, java.time.LocalDateTime ldt) {
 		log.trace("CalendarEvent(eventName={}, ldt={})", eventName, ldt);
-		java.time.ZonedDateTime zdt = java.time.ZonedDateTime
-				.of(ldt, java.time.ZoneId.systemDefault())
-				.truncatedTo(ChronoUnit.MINUTES);
-		java.util.Date eventDate = java.util.Date.from(zdt.toInstant());
-		DateTime start = new DateTime(eventDate);
-		DateTime end = new DateTime(eventDate);
+		DateTime start = IcalDateTimeConverter.toIcalDateTime(ldt);
+		DateTime end = IcalDateTimeConverter.toIcalDateTime(ldt);
 		
 		this.event = new VEvent(start, end, eventName.trim().toLowerCase());
 
@@ -116,6 +136,7 @@ public class CalendarEvent {
      */
     public void addRecurrenceWeekly(DayOfWeek dow, Integer interval) {
 		log.trace("addRecurrenceWeekly(dow={}, interval={})", dow, interval);
+		checkWritable();
 		if (interval<1) {
 			throw new IllegalArgumentException("Interval must be a positive number.");
 		}
@@ -127,6 +148,8 @@ public class CalendarEvent {
 
 		RRule rrule = new RRule(recur);
 		event.getProperties().add(rrule);
+		compiledRecurrences = null;
+		ruleSignatures = null;
     }
     	
 	/**
@@ -140,6 +163,7 @@ public class CalendarEvent {
 	 */
 	public void addRecurrenceDayOfMonth(Integer dom, Integer interval) {
 		log.trace("addRecurrenceMonthly()");
+		checkWritable();
 		if (dom>31) {
 			throw new IllegalArgumentException("Maximum day of month value (31) exceeded: "+dom);
 		}
@@ -161,6 +185,8 @@ public class CalendarEvent {
 
 		RRule rrule = new RRule(recur);
 		event.getProperties().add(rrule);
+		compiledRecurrences = null;
+		ruleSignatures = null;
 	}
 	
 	/**
@@ -174,6 +200,7 @@ public class CalendarEvent {
 	 */
 	public void addRecurrenceWeekdayOfMonth(DayOfWeek dow, Integer weekNum, Integer interval) {
 		log.trace("addRecurrenceWeekdayOfMonth(dow={}, weekNum={}, interval={})", dow, weekNum, interval);
+		checkWritable();
 		if (weekNum>5) {
 			throw new IllegalArgumentException("Maximum number of weeks-per-month value (5) exceeded: "+weekNum);
 		}
@@ -195,6 +222,8 @@ public class CalendarEvent {
         
 		RRule rrule = new RRule(recur);
 		event.getProperties().add(rrule);
+		compiledRecurrences = null;
+		ruleSignatures = null;
 	}
 	
 	/**
@@ -267,8 +296,11 @@ public class CalendarEvent {
 	 * @return Count of RRULES removed
 	 */
 	protected int deleteRecurrencesAll() {
+		checkWritable();
 		int countRemovedRrules = 0;
-    	PropertyList properties = getProperties();
+    	PropertyList properties = event.getProperties();
+    	// RRULEs may be changed below.
+    	invalidateCompiledRecurrences();
     	for (int indexProperties=properties.size()-1; indexProperties>=0; indexProperties--) {
     		Property property = properties.get(indexProperties);
     		
@@ -293,12 +325,15 @@ public class CalendarEvent {
 	 */
 	public int deleteRecurrenceWeekly(DayOfWeek dow, int interval) {
 		log.debug("deleteRecurrenceWeekly(dow={}, interval={})", interval);
+		checkWritable();
 		if (interval<1) {
 			throw new IllegalArgumentException("Interval must be a positive number.");
 		}
 		int countRemovedRecurrences = 0;
 		
-    	PropertyList properties = getProperties();
+    	PropertyList properties = event.getProperties();
+    	// RRULEs may be changed below.
+    	invalidateCompiledRecurrences();
     	for (int indexProperties=properties.size()-1; indexProperties>=0; indexProperties--) {
     		Property property = properties.get(indexProperties);
     		
@@ -349,6 +384,7 @@ public class CalendarEvent {
 	 */
 	public int deleteRecurrenceDayOfMonth(Integer dom, Integer interval) {
 		log.debug("deleteRecurrenceDayOfMonth(dom={}, interval={})", dom, interval);
+		checkWritable();
 		if (dom>31) {
 			throw new IllegalArgumentException("Maximum day of month value (31) exceeded: "+dom);
 		}
@@ -363,7 +399,9 @@ public class CalendarEvent {
 		}
 		int countRemovedRecurrences = 0;
 		
-    	PropertyList properties = getProperties();
+    	PropertyList properties = event.getProperties();
+    	// RRULEs may be changed below.
+    	invalidateCompiledRecurrences();
     	for (int indexProperties=properties.size()-1; indexProperties>=0; indexProperties--) {
     		Property property = properties.get(indexProperties);
     		
@@ -412,6 +450,7 @@ public class CalendarEvent {
 	 */
 	public int deleteRecurrenceWeekdayOfMonth(DayOfWeek dow, Integer weekNum, Integer interval) {
 		log.trace("deleteRecurrenceWeekdayOfMonth(dow={}, weekNum={}, interval={})", dow, weekNum, interval);
+		checkWritable();
 		if (weekNum>5) {
 			throw new IllegalArgumentException("Maximum number of weeks-per-month value (5) exceeded: "+weekNum);
 		}
@@ -426,7 +465,9 @@ public class CalendarEvent {
 		}
 		int countRemovedRecurrences = 0;
 		
-    	PropertyList properties = getProperties();
+    	PropertyList properties = event.getProperties();
+    	// RRULEs may be changed below.
+    	invalidateCompiledRecurrences();
     	for (int indexProperties=properties.size()-1; indexProperties>=0; indexProperties--) {
     		Property property = properties.get(indexProperties);
     		
@@ -479,24 +520,19 @@ public class CalendarEvent {
 	 * Generate a {@link net.fortuna.ical4j.model.DateTime} from a
 	 * {@link java.time.LocalDateTime}.
 	 * <p>
-	 * NOTE: Uses a ZonedDateTime as an interim step in the conversion.
+	 * NOTE: The host time zone is used as an interim step in the conversion.
 	 * This is necessary because early Java date/time model was bad, then
 	 * ical4j had to compensate, and then we're using the improved Java 8
 	 * date/time model.  Grrr.  The use of time zone as an interim step actually
 	 * "cancels-out" as the ical4j DateTime actually doesn't use the time
-	 * zone later.
+	 * zone later.  See {@link IcalDateTimeConverter#toIcalDateTime(java.time.LocalDateTime)}.
 	 * 
 	 * @param ldt {@link java.time.LocalDateTime} source
 	 * @return {@link net.fortuna.ical4j.model.DateTime}
 	 */
 	protected net.fortuna.ical4j.model.DateTime getIcalDateTime(java.time.LocalDateTime  ldt) {
 		log.trace("getIcalDateTime({})", ldt);
-		java.time.ZonedDateTime zdt = java.time.ZonedDateTime
-				.of(ldt, java.time.ZoneId.systemDefault())
-				.truncatedTo(ChronoUnit.MINUTES);
-		java.util.Date javaDate = java.util.Date.from(zdt.toInstant());
-		net.fortuna.ical4j.model.DateTime icalDateTime = new net.fortuna.ical4j.model.DateTime(javaDate);
-		return icalDateTime;
+		return IcalDateTimeConverter.toIcalDateTime(ldt);
 	}
 	
 	/**
@@ -508,25 +544,67 @@ public class CalendarEvent {
 	 * ical4j had to compensate, and then we're using the improved Java 8
 	 * date/time model.  Grrr.  The use of time zone as an interim step actually
 	 * "cancels-out" as the ical4j DateTime was actually not used anyway.
+	 * See {@link IcalDateTimeConverter#toLocalDateTime(net.fortuna.ical4j.model.Date)}.
 	 * 
 	 * @param icalDate {@link java.time.LocalDateTime} source
 	 * @return {@link net.fortuna.ical4j.model.DateTime}
 	 */
 	protected java.time.LocalDateTime getLocalDateTime(net.fortuna.ical4j.model.Date icalDate) {
 		log.trace("getLocalDateTime({})", icalDate);
-		return java.time.LocalDateTime.ofInstant(
-				icalDate.toInstant(), 
-				ZoneId.systemDefault());
+		return IcalDateTimeConverter.toLocalDateTime(icalDate);
 	}
 	
 	/**
 	 * Find the first time this pickup occurs after the given {@link java.time.LocalDateTime}.
+	 * <p>
+	 * Uses the {@link CompiledRecurrence} form of each RRULE, which answers the common
+	 * weekly and monthly rules with date arithmetic.  See {@link #getNextOccurrenceIcal4j(java.time.LocalDateTime)}
+	 * for the equivalent ical4j-only calculation.
 	 * 
 	 * @param ldtStartingPoint Find next pickup after this date/time.
 	 * @return {@link java.time.LocalDateTime} of the next pickup time.
 	 */
 	public java.time.LocalDateTime getNextOccurrence(java.time.LocalDateTime ldtStartingPoint) {
 		log.trace("getNextOccurrence({})", ldtStartingPoint);
+		long afterEpochMinute = CompiledRecurrence.toEpochMinute(CompiledRecurrence.resolveGap(ldtStartingPoint));
+		long earliestEpochMinute = getNextEpochMinute(afterEpochMinute);
+		if (earliestEpochMinute == CompiledRecurrence.NO_OCCURRENCE) {
+			return null;
+		}
+		return CompiledRecurrence.toOccurrenceLocalDateTime(earliestEpochMinute);
+	}
+	
+	/**
+	 * Find the first time this pickup occurs after the given local epoch minute.  Lets
+	 * callers checking many events against one starting point convert it only once.
+	 * 
+	 * @param afterEpochMinute Find next pickup after this local epoch minute.  See {@link CompiledRecurrence#toEpochMinute(java.time.LocalDateTime)}.
+	 * @return local epoch minute of the next pickup time, or {@link CompiledRecurrence#NO_OCCURRENCE}
+	 */
+	protected long getNextEpochMinute(long afterEpochMinute) {
+		long earliestEpochMinute = CompiledRecurrence.NO_OCCURRENCE;
+		for (CompiledRecurrence compiled : getCompiledRecurrences()) {
+			long next = compiled.nextEpochMinute(afterEpochMinute);
+			if (next == CompiledRecurrence.NO_OCCURRENCE) {
+				continue;
+			}
+			if ( (earliestEpochMinute == CompiledRecurrence.NO_OCCURRENCE) || (next < earliestEpochMinute) ) {
+				earliestEpochMinute = next;
+			}
+		}
+		return earliestEpochMinute;
+	}
+	
+	/**
+	 * Find the first time this pickup occurs after the given {@link java.time.LocalDateTime}
+	 * using only the ical4j recurrence engine.  Kept as the reference implementation for
+	 * {@link #getNextOccurrence(java.time.LocalDateTime)}.
+	 * 
+	 * @param ldtStartingPoint Find next pickup after this date/time.
+	 * @return {@link java.time.LocalDateTime} of the next pickup time.
+	 */
+	protected java.time.LocalDateTime getNextOccurrenceIcal4j(java.time.LocalDateTime ldtStartingPoint) {
+		log.trace("getNextOccurrenceIcal4j({})", ldtStartingPoint);
 		// Get event start time
         net.fortuna.ical4j.model.Date eventStartDate = getStartIcalDate();
         
@@ -540,6 +618,9 @@ public class CalendarEvent {
             Recur recur = rrule.getRecur();
             
             Date nextDate = recur.getNextDate(eventStartDate, recurrenceCheckStart);
+            if (nextDate==null) {
+            	continue;
+            }
             if ( (earliestOccurrenceDate==null) || (nextDate.before(earliestOccurrenceDate)) ) {
             	earliestOccurrenceDate = nextDate;
             }
@@ -550,49 +631,232 @@ public class CalendarEvent {
 		}
 		return getLocalDateTime(earliestOccurrenceDate);
 	}
+	
+	/**
+	 * Get the compiled form of this event's RRULEs, compiling them if needed.
+	 * 
+	 * @return Array of {@link CompiledRecurrence}, one per RRULE.  Never null.
+	 */
+	protected CompiledRecurrence[] getCompiledRecurrences() {
+		CompiledRecurrence[] compiled = compiledRecurrences;
+		if (compiled == null) {
+			net.fortuna.ical4j.model.Date eventStartDate = event.getStartDate().getDate();
+			PropertyList rrules = event.getProperties(Property.RRULE);
+			compiled = new CompiledRecurrence[rrules.size()];
+			for (int i=0; i<compiled.length; i++) {
+				compiled[i] = CompiledRecurrence.compile(((RRule) rrules.get(i)).getRecur(), eventStartDate);
+			}
+			compiledRecurrences = compiled;
+		}
+		return compiled;
+	}
+	
+	/**
+	 * Get the canonical signature of every WEEKLY and MONTHLY recurrence of this event: one
+	 * signature per BYDAY or BYMONTHDAY entry of each RRULE.  Two events that recur on the
+	 * same pickup, day and time, in the same week (or month) of their interval, share a
+	 * signature.  See {@link #ruleSignature(String, String, int, String, java.time.LocalDateTime)}.
+	 * <p>
+	 * Other recurrences (e.g. DAILY) have no signature.
+	 * 
+	 * @return List of signature Strings.  Never null.
+	 */
+	public List<String> getRuleSignatures() {
+		List<String> signatures = ruleSignatures;
+		if (signatures == null) {
+			String name = getName();
+			java.time.LocalDateTime ldtStart = getStartLocalDateTime();
+			List<String> newSignatures = new ArrayList<String>();
+			for (Property property : event.getProperties(Property.RRULE)) {
+				Recur recur = ((RRule) property).getRecur();
+				String frequency = recur.getFrequency();
+				if ( (! Recur.WEEKLY.equals(frequency)) && (! Recur.MONTHLY.equals(frequency)) ) {
+					continue;
+				}
+				int interval = recur.getInterval();
+				for (WeekDay weekDay : recur.getDayList()) {
+					newSignatures.add(ruleSignature(name, frequency, interval, "BYDAY="+weekDay, ldtStart));
+				}
+				if (Recur.MONTHLY.equals(frequency)) {
+					for (Integer monthDay : recur.getMonthDayList()) {
+						newSignatures.add(ruleSignature(name, frequency, interval, "BYMONTHDAY="+monthDay, ldtStart));
+					}
+				}
+			}
+			signatures = Collections.unmodifiableList(newSignatures);
+			ruleSignatures = signatures;
+		}
+		return signatures;
+	}
+	
+	/**
+	 * Build the canonical signature of a single-day recurrence.
+	 * <p>
+	 * The signature holds the pickup name, frequency, interval, the one BYDAY or BYMONTHDAY
+	 * entry, the time-of-day and the interval phase.  The phase is the number of the week
+	 * (weeks starting Monday, as ical4j does by default) or month of the event start, modulo
+	 * the interval.  Two recurrences with equal signatures have the same occurrences from
+	 * the later of their two start dates.
+	 * 
+	 * @param pickupName lowercase pickup name
+	 * @param frequency Recur.WEEKLY or Recur.MONTHLY
+	 * @param interval RRULE INTERVAL.  Values below one are treated as one.
+	 * @param byRule the BYDAY or BYMONTHDAY entry (e.g. "BYDAY=TU", "BYDAY=2SA", "BYMONTHDAY=-1")
+	 * @param ldtStart event start
+	 * @return signature String
+	 */
+	public static String ruleSignature(String pickupName, String frequency, int interval, String byRule, java.time.LocalDateTime ldtStart) {
+		if (interval < 1) { interval = 1; }
+		long period;
+		if (Recur.WEEKLY.equals(frequency)) {
+			period = Math.floorDiv(ldtStart.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).toEpochDay(), 7);
+		} else {
+			period = (ldtStart.getYear() * 12L) + ldtStart.getMonthValue() - 1;
+		}
+		return pickupName + "|" + frequency + "|" + interval + "|" + byRule
+				+ "|" + ldtStart.toLocalTime().toSecondOfDay()
+				+ "|" + Math.floorMod(period, (long) interval);
+	}
+	
+	/**
+	 * Throw away the compiled RRULEs and rule signatures.  They are rebuilt on the next
+	 * {@link #getNextOccurrence(java.time.LocalDateTime)} or {@link #getRuleSignatures()} call.
+	 * <p>
+	 * Read-only events keep their compiled RRULEs since their RRULEs never change.
+	 */
+	protected void invalidateCompiledRecurrences() {
+		if (readOnly) { return; }
+		compiledRecurrences = null;
+		ruleSignatures = null;
+	}
+	
+	/**
+	 * Mark this event as read-only.  Used for events in a calendar shared through
+	 * {@link CalendarCache}.  Methods that change the event then throw
+	 * {@link IllegalStateException}.
+	 */
+	protected void setReadOnly() {
+		readOnly = true;
+	}
+	
+	/**
+	 * Check if this event may be changed.
+	 * 
+	 * @return {@code true} if this event is read-only
+	 */
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+	
+	/**
+	 * Refuse changes to read-only events.
+	 * 
+	 * @throws IllegalStateException if this event is read-only
+	 */
+	private void checkWritable() {
+		if (readOnly) {
+			throw new IllegalStateException("Cannot change a read-only calendar event: "+getName());
+		}
+	}
+
+	/**
+	 * Move this event's start (DTSTART) forward to its most recent occurrence at or
+	 * before the given {@link java.time.LocalDateTime}, without changing when the event
+	 * occurs from then on.  Every-other-week and every-N-months pickups keep their phase.
+	 * DTEND, if present, moves by the same amount.
+	 * <p>
+	 * Recurrence calculations walk forward from the event start, so an old start date
+	 * makes every query a little slower.  Rebasing keeps that cost flat.
+	 * 
+	 * @param ldtLimit new start must be at or before this date/time
+	 * @return {@code true} if the event start was moved
+	 * @see CompiledRecurrence#rebaseEpochMinute(CompiledRecurrence[], long)
+	 */
+	public boolean rebaseStart(java.time.LocalDateTime ldtLimit) {
+		log.trace("rebaseStart({})", ldtLimit);
+		checkWritable();
+		long newStartEpochMinute = CompiledRecurrence.rebaseEpochMinute(
+				getCompiledRecurrences(), CompiledRecurrence.toEpochMinute(ldtLimit));
+		if (newStartEpochMinute == CompiledRecurrence.NO_OCCURRENCE) {
+			return false;
+		}
+		java.time.LocalDateTime ldtNewStart = CompiledRecurrence.fromEpochMinute(newStartEpochMinute);
+		if (! ldtNewStart.equals(CompiledRecurrence.resolveGap(ldtNewStart))) {
+			// Start time does not exist in this time zone on that date (daylight saving gap).
+			return false;
+		}
+		
+		final DtStart dtStart = (DtStart) event.getProperty(Property.DTSTART);
+		DateTime newStart = getIcalDateTime(ldtNewStart);
+		final DtEnd dtEnd = (DtEnd) event.getProperty(Property.DTEND);
+		if (dtEnd != null) {
+			long duration = dtEnd.getDate().getTime() - dtStart.getDate().getTime();
+			dtEnd.setDate(new DateTime(newStart.getTime() + duration));
+		}
+		log.debug("Rebase event {} start from {} to {}", getName(), dtStart.getDate(), newStart);
+		dtStart.setDate(newStart);
+		compiledRecurrences = null;
+		ruleSignatures = null;
+		return true;
+	}
 
 	/**
-	 * Get the iCal properties for this {@link CalendarEvent}.
+	 * Get the iCal properties for this {@link CalendarEvent}.  A read-only event returns
+	 * a copy, so the calendar it shares with other users cannot be changed.
 	 * 
 	 * @return {@link net.fortuna.ical4j.model.PropertyList}
 	 */
 	public PropertyList getProperties() {
 		log.trace("getProperties()");
+		if (readOnly) {
+			return copyProperties(event.getProperties());
+		}
+		// Caller may change the RRULEs through this list.
+		invalidateCompiledRecurrences();
 		return event.getProperties();
 	}
 	
 	/**
 	 * Get the iCal properties for this {@link CalendarEvent} that match
 	 * the given property name.  For example, getProperties("RRULE") gets
-	 * all the recurrence rules for this {@link CalendarEvent}.
+	 * all the recurrence rules for this {@link CalendarEvent}.  A read-only
+	 * event returns copies.
 	 * 
 	 * @param name property name (e.g. "RRULE")
 	 * @return {@link net.fortuna.ical4j.model.PropertyList}
 	 */
 	public PropertyList getProperties(String name) {
 		log.trace("getProperties({})", name);
+		if (readOnly) {
+			return copyProperties(event.getProperties(name));
+		}
+		invalidateCompiledRecurrences();
 		return event.getProperties(name);
 	}
 	
 	/**
 	 * Get all the {@link net.fortuna.ical4j.model.Recur} objects for
-	 * this {@link CalendarEvent}.
+	 * this {@link CalendarEvent}.  A read-only event returns copies.
+	 * <p>
+	 * Does not throw away the compiled RRULEs.  Use the addRecurrence and
+	 * deleteRecurrence methods to change this event's recurrences.
 	 * 
 	 * @return List of {@link net.fortuna.ical4j.model.Recur} objects
 	 */
 	public List<Recur> getRecurrences() {
 		List<Recur> recurrences = new ArrayList<Recur>();
-		for (Property property : event.getProperties(Property.RRULE)) {
-            final RRule rrule = (RRule) property;	
-	        Recur recur = rrule.getRecur();
-	        recurrences.add(recur);
+		for (RRule rrule : getRRules()) {
+	        recurrences.add(rrule.getRecur());
 		}
 		return recurrences;
 	}
 	
 	/**
 	 * Get all the {@link net.fortuna.ical4j.model.property.RRule} objects for
-	 * this {@link CalendarEvent}.
+	 * this {@link CalendarEvent}.  A read-only event returns copies.
+	 * <p>
+	 * Does not throw away the compiled RRULEs.  Use the addRecurrence and
+	 * deleteRecurrence methods to change this event's recurrences.
 	 * 
 	 * @return List of {@link net.fortuna.ical4j.model.property.RRule} objects
 	 */
@@ -600,11 +864,39 @@ public class CalendarEvent {
 		List<RRule> recurrences = new ArrayList<RRule>();
 		for (Property property : event.getProperties(Property.RRULE)) {
             final RRule rrule = (RRule) property;	
-	        recurrences.add(rrule);
+	        recurrences.add(readOnly ? (RRule) copyProperty(rrule) : rrule);
 		}
 		return recurrences;
 	}
 	
+	/**
+	 * Copy iCal properties, for handing out from a read-only event.
+	 * 
+	 * @param properties {@link net.fortuna.ical4j.model.PropertyList} to copy
+	 * @return new list of copied properties
+	 */
+	private static PropertyList copyProperties(PropertyList properties) {
+		try {
+			return new PropertyList(properties);
+		} catch (ParseException | IOException | URISyntaxException e) {
+			throw new IllegalStateException("Unable to copy calendar event properties.", e);
+		}
+	}
+	
+	/**
+	 * Copy one iCal property, for handing out from a read-only event.
+	 * 
+	 * @param property {@link net.fortuna.ical4j.model.Property} to copy
+	 * @return copied property
+	 */
+	private static Property copyProperty(Property property) {
+		try {
+			return property.copy();
+		} catch (ParseException | IOException | URISyntaxException e) {
+			throw new IllegalStateException("Unable to copy calendar event property.", e);
+		}
+	}
+	
 	/**
 	 * Get a printable form of all the ways this event recurs.  For example, 
 	 * "every Tuesday at 7:30 AM", "every other Friday at 7:30 AM (starting this Friday at 7:30 AM)",
@@ -919,18 +1211,27 @@ public class CalendarEvent {
 		// Get event start time
 		final DtStart eventStartProperty = (DtStart) event.getProperty(Property.DTSTART);
 		net.fortuna.ical4j.model.Date dateStart = eventStartProperty.getDate();
-		java.time.Instant instant = dateStart.toInstant();
-		return java.time.LocalDateTime.ofInstant(instant, java.time.ZoneId.systemDefault());
+		return IcalDateTimeConverter.toLocalDateTime(dateStart);
 	}
 		
 	/**
 	 * Get the iCal {@link net.fortuna.ical4j.model.component.VEvent} for this
-	 * {@link CalendarEvent}.
+	 * {@link CalendarEvent}.  A read-only event returns a copy, so the calendar it
+	 * shares with other users cannot be changed.
 	 * 
 	 * @return {@link net.fortuna.ical4j.model.component.VEvent}
 	 */
 	public VEvent getVEvent() {
 		log.trace("getVEvent()");
+		if (readOnly) {
+			try {
+				return (VEvent) event.copy();
+			} catch (ParseException | IOException | URISyntaxException e) {
+				throw new IllegalStateException("Unable to copy calendar event.", e);
+			}
+		}
+		// Caller may change the RRULEs through the event.
+		invalidateCompiledRecurrences();
 		return event;
 	}
 	
@@ -0,0 +1,519 @@
+package trashday.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRules;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.NumberList;
+import net.fortuna.ical4j.model.Recur;
+import net.fortuna.ical4j.model.WeekDay;
+import net.fortuna.ical4j.model.WeekDayList;
+
+/**
+ * A pre-computed form of one RRULE on a {@link CalendarEvent}, able to answer
+ * "next occurrence after" queries with simple arithmetic instead of walking the
+ * recurrence forward with {@link net.fortuna.ical4j.model.Recur#getNextDate}.
+ * <p>
+ * Only the recurrence shapes this application creates (see {@link Calendar#has(CalendarEvent)})
+ * are compiled:
+ * <ul>
+ * <li>RRULE:FREQ=WEEKLY;INTERVAL=n;BYDAY=TU</li>
+ * <li>RRULE:FREQ=MONTHLY;INTERVAL=n;BYMONTHDAY=15</li>
+ * <li>RRULE:FREQ=MONTHLY;INTERVAL=n;BYDAY=2SA</li>
+ * </ul>
+ * Any other rule (COUNT, UNTIL, BYSETPOS, other frequencies, zoned start dates, etc.) is
+ * kept as-is and answered by ical4j.
+ * <p>
+ * All date/time values are kept as "local epoch minutes": the number of minutes from
+ * 1970-01-01T00:00 to a wall-clock {@link java.time.LocalDateTime}, ignoring time zones.
+ * This matches the Calendar model, which does not keep time zone information.
+ *
+ * @author J. Todd Baldwin
+ * @see		<a href="https://tools.ietf.org/html/rfc5545#section-3.3.10">RFC 5545: Recurrence Rule</a>
+ */
+public class CompiledRecurrence {
+	/** Log object for this class */
+    private static final Logger log = LoggerFactory.getLogger(CompiledRecurrence.class);
+
+    /** Returned by {@link #nextEpochMinute(long)} when there is no further occurrence. */
+    public static final long NO_OCCURRENCE = Long.MIN_VALUE;
+
+    /** Minutes in one day. */
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    /** Give up looking for a monthly occurrence after this many intervals (same limit ical4j uses by default). */
+    private static final int MAX_INCREMENTS = 1000;
+
+    /** Rule shape: answered by ical4j. */
+    public static final int SHAPE_ICAL4J = 0;
+    /** Rule shape: FREQ=WEEKLY with plain BYDAY entries. */
+    public static final int SHAPE_WEEKLY = 1;
+    /** Rule shape: FREQ=MONTHLY with BYMONTHDAY entries. */
+    public static final int SHAPE_MONTHLY_DAY = 2;
+    /** Rule shape: FREQ=MONTHLY with BYDAY entries that all have an offset (e.g. 2SA, -1FR). */
+    public static final int SHAPE_MONTHLY_WEEKDAY = 3;
+
+    /** One of the SHAPE_* values. */
+    private final int shape;
+    /** Number of weeks or months between recurrences.  Always 1 or more. */
+    private final int interval;
+    /** Event start (DTSTART) as a local epoch minute. */
+    private final long startEpochMinute;
+    /** Event start date as a local epoch day. */
+    private final long startEpochDay;
+    /** Time-of-day of every occurrence, in minutes after midnight. */
+    private final int minuteOfDay;
+    /** Weekly: epoch day of the first day of the week that holds the event start. */
+    private final long startWeekEpochDay;
+    /** Weekly: days after the start of the week for each BYDAY entry, sorted. */
+    private final int[] weekDayOffsets;
+    /** Monthly: proleptic month number (year*12 + month-1) of the event start. */
+    private final long startEpochMonth;
+    /** Monthly: BYMONTHDAY entries, in [1,31] or [-31,-1]. */
+    private final int[] monthDays;
+    /** Monthly: BYDAY day-of-week values (1=Monday ... 7=Sunday). */
+    private final int[] weekDays;
+    /** Monthly: BYDAY offsets, in [1,5] or [-5,-1], matching {@link #weekDays} entries. */
+    private final int[] weekDayNums;
+    /** Rule answered by ical4j when the shape is not one we compile. */
+    private final Recur recur;
+    /** Event start given to ical4j when the shape is not one we compile. */
+    private final net.fortuna.ical4j.model.Date seed;
+
+    /**
+     * Create a compiled recurrence.  Use {@link #compile(Recur, net.fortuna.ical4j.model.Date)} instead.
+     */
+    private CompiledRecurrence(int shape, int interval, long startEpochMinute, int weekStart,
+    		int[] weekDayOffsets, int[] monthDays, int[] weekDays, int[] weekDayNums,
+    		Recur recur, net.fortuna.ical4j.model.Date seed) {
+    	this.shape = shape;
+    	this.interval = interval;
+    	this.startEpochMinute = startEpochMinute;
+    	this.startEpochDay = Math.floorDiv(startEpochMinute, MINUTES_PER_DAY);
+    	this.minuteOfDay = (int) Math.floorMod(startEpochMinute, MINUTES_PER_DAY);
+    	LocalDate startDate = LocalDate.ofEpochDay(startEpochDay);
+    	this.startWeekEpochDay = startEpochDay - Math.floorMod(startDate.getDayOfWeek().getValue() - weekStart, 7);
+    	this.startEpochMonth = (startDate.getYear() * 12L) + startDate.getMonthValue() - 1;
+    	this.weekDayOffsets = weekDayOffsets;
+    	this.monthDays = monthDays;
+    	this.weekDays = weekDays;
+    	this.weekDayNums = weekDayNums;
+    	this.recur = recur;
+    	this.seed = seed;
+    }
+
+    /**
+     * Compile an RRULE for an event starting at the given date/time.
+     *
+     * @param recur {@link net.fortuna.ical4j.model.Recur} from the event's RRULE
+     * @param seed event start (DTSTART) date
+     * @return {@link CompiledRecurrence} that answers occurrence queries for this rule.  Never null.
+     */
+    public static CompiledRecurrence compile(Recur recur, net.fortuna.ical4j.model.Date seed) {
+    	log.trace("compile(recur={}, seed={})", recur, seed);
+    	long startEpochMinute = toEpochMinute(IcalDateTimeConverter.toLocalDateTime(seed));
+    	CompiledRecurrence fallback = new CompiledRecurrence(SHAPE_ICAL4J, 1, startEpochMinute, DayOfWeek.MONDAY.getValue(),
+    			null, null, null, null, recur, seed);
+
+    	if (! isCompilable(recur, seed)) {
+    		return fallback;
+    	}
+    	int interval = recur.getInterval();
+    	if (interval < 1) { interval = 1; }
+    	WeekDayList dayList = recur.getDayList();
+    	NumberList monthDayList = recur.getMonthDayList();
+
+    	switch (recur.getFrequency()) {
+    	case Recur.WEEKLY:
+    		if ( (dayList.isEmpty()) || (! monthDayList.isEmpty()) ) {
+    			return fallback;
+    		}
+    		int weekStart = DayOfWeek.MONDAY.getValue();
+    		if (recur.getWeekStartDay() != null) {
+    			weekStart = DateTimeUtils.getDayOfWeek(WeekDay.getWeekDay(recur.getWeekStartDay())).getValue();
+    		}
+    		int mask = 0;
+    		for (WeekDay wd : dayList) {
+    			if ( (wd == null) || (wd.getOffset() != 0) ) {
+    				return fallback;
+    			}
+    			mask |= 1 << Math.floorMod(DateTimeUtils.getDayOfWeek(wd).getValue() - weekStart, 7);
+    		}
+    		int[] offsets = new int[Integer.bitCount(mask)];
+    		for (int day=0, i=0; day<7; day++) {
+    			if ((mask & (1 << day)) != 0) { offsets[i++] = day; }
+    		}
+    		return new CompiledRecurrence(SHAPE_WEEKLY, interval, startEpochMinute, weekStart,
+    				offsets, null, null, null, null, null);
+
+    	case Recur.MONTHLY:
+    		if ( (! dayList.isEmpty()) && (! monthDayList.isEmpty()) ) {
+    			return fallback;
+    		}
+    		if (! monthDayList.isEmpty()) {
+    			int[] days = new int[monthDayList.size()];
+    			for (int i=0; i<days.length; i++) {
+    				Integer dom = monthDayList.get(i);
+    				if ( (dom == null) || (dom == 0) || (dom > 31) || (dom < -31) ) {
+    					return fallback;
+    				}
+    				days[i] = dom;
+    			}
+        		return new CompiledRecurrence(SHAPE_MONTHLY_DAY, interval, startEpochMinute, DayOfWeek.MONDAY.getValue(),
+        				null, days, null, null, null, null);
+    		}
+    		if (! dayList.isEmpty()) {
+    			int[] dows = new int[dayList.size()];
+    			int[] nums = new int[dayList.size()];
+    			for (int i=0; i<dows.length; i++) {
+    				WeekDay wd = dayList.get(i);
+    				if ( (wd == null) || (wd.getOffset() == 0) || (wd.getOffset() > 5) || (wd.getOffset() < -5) ) {
+    					return fallback;
+    				}
+    				dows[i] = DateTimeUtils.getDayOfWeek(wd).getValue();
+    				nums[i] = wd.getOffset();
+    			}
+        		return new CompiledRecurrence(SHAPE_MONTHLY_WEEKDAY, interval, startEpochMinute, DayOfWeek.MONDAY.getValue(),
+        				null, null, dows, nums, null, null);
+    		}
+    		return fallback;
+
+    	default:
+    		return fallback;
+    	}
+    }
+
+    /**
+     * Check that nothing in the rule or event start needs the general ical4j recurrence engine.
+     *
+     * @param recur {@link net.fortuna.ical4j.model.Recur} from the event's RRULE
+     * @param seed event start (DTSTART) date
+     * @return {@code true} if this rule may be compiled
+     */
+    private static boolean isCompilable(Recur recur, net.fortuna.ical4j.model.Date seed) {
+    	if (! (seed instanceof DateTime)) {
+    		return false;
+    	}
+    	DateTime dtSeed = (DateTime) seed;
+    	if (dtSeed.getTimeZone() != null) {
+    		// Zoned events recur in their own zone, not in the host zone used here.
+    		return false;
+    	}
+    	if ( dtSeed.isUtc() && (! isSystemZoneUtc()) ) {
+    		return false;
+    	}
+    	if ( (seed.getTime() % 60000L) != 0 ) {
+    		return false;
+    	}
+    	if ( (recur.getCount() > 0) || (recur.getUntil() != null) ) {
+    		return false;
+    	}
+    	return recur.getSecondList().isEmpty() && recur.getMinuteList().isEmpty() && recur.getHourList().isEmpty() &&
+    			recur.getYearDayList().isEmpty() && recur.getWeekNoList().isEmpty() && recur.getMonthList().isEmpty() &&
+    			recur.getSetPosList().isEmpty();
+    }
+
+    /**
+     * Check if the host time zone is UTC (or another fixed, zero offset).
+     *
+     * @return {@code true} if the system default time zone never differs from UTC
+     */
+    private static boolean isSystemZoneUtc() {
+    	ZoneRules rules = ZoneId.systemDefault().getRules();
+    	return rules.isFixedOffset() && ZoneOffset.UTC.equals(rules.getOffset(java.time.Instant.EPOCH));
+    }
+
+    /**
+     * Get the rule shape.
+     *
+     * @return One of the SHAPE_* values.  {@link #SHAPE_ICAL4J} if this rule is answered by ical4j.
+     */
+    public int getShape() {
+    	return shape;
+    }
+
+    /**
+     * Check if this rule is answered with arithmetic rather than ical4j.
+     *
+     * @return {@code true} if this rule was compiled
+     */
+    public boolean isCompiled() {
+    	return (shape != SHAPE_ICAL4J);
+    }
+
+    /**
+     * Get the number of weeks or months between recurrences.
+     *
+     * @return interval, always 1 or more
+     */
+    public int getInterval() {
+    	return interval;
+    }
+
+    /**
+     * Find a later event start (DTSTART) for an event with the given rules that produces
+     * exactly the same occurrences from that start onwards.  The new start is the first
+     * occurrence in the latest "common period" (the least common multiple of the rule
+     * intervals, counted from the current start) that begins at or before the given limit.
+     * Starting there keeps the phase of every-other-week and every-N-months rules.
+     * <p>
+     * Only events whose rules are all compiled weekly rules (with the same week start) or
+     * all compiled monthly rules can be rebased.
+     *
+     * @param rules compiled RRULEs of one event, all sharing the same event start
+     * @param limitEpochMinute new start must be at or before this local epoch minute
+     * @return local epoch minute for the new event start or {@link #NO_OCCURRENCE} if the
+     * 			event start cannot or need not move.
+     */
+    public static long rebaseEpochMinute(CompiledRecurrence[] rules, long limitEpochMinute) {
+    	log.trace("rebaseEpochMinute(rules={}, limitEpochMinute={})", rules.length, limitEpochMinute);
+    	if (rules.length == 0) {
+    		return NO_OCCURRENCE;
+    	}
+    	CompiledRecurrence first = rules[0];
+    	boolean weekly = (first.shape == SHAPE_WEEKLY);
+    	long commonInterval = 1;
+    	for (CompiledRecurrence rule : rules) {
+    		if ( (! rule.isCompiled()) || ((rule.shape == SHAPE_WEEKLY) != weekly) ) {
+    			return NO_OCCURRENCE;
+    		}
+    		if ( weekly && (rule.startWeekEpochDay != first.startWeekEpochDay) ) {
+    			return NO_OCCURRENCE;
+    		}
+    		if (rule.startEpochMinute != first.startEpochMinute) {
+    			return NO_OCCURRENCE;
+    		}
+    		commonInterval = lcm(commonInterval, rule.interval);
+    	}
+    	if (limitEpochMinute <= first.startEpochMinute) {
+    		return NO_OCCURRENCE;
+    	}
+
+    	LocalDate limitDate = LocalDate.ofEpochDay(Math.floorDiv(limitEpochMinute, MINUTES_PER_DAY));
+    	long period;
+    	if (weekly) {
+    		period = Math.floorDiv(limitDate.toEpochDay() - first.startWeekEpochDay, 7 * commonInterval);
+    	} else {
+    		long limitMonth = (limitDate.getYear() * 12L) + limitDate.getMonthValue() - 1;
+    		period = Math.floorDiv(limitMonth - first.startEpochMonth, commonInterval);
+    	}
+
+    	// Walk back until a period starts with an occurrence that is not after the limit.
+    	for (; period > 0; period--) {
+    		long periodStartDay;
+    		long periodEndDay;
+    		if (weekly) {
+    			periodStartDay = first.startWeekEpochDay + (period * 7 * commonInterval);
+    			periodEndDay = periodStartDay + 7;
+    		} else {
+    			long epochMonth = first.startEpochMonth + (period * commonInterval);
+        		LocalDate firstOfMonth = LocalDate.of((int) Math.floorDiv(epochMonth, 12), (int) Math.floorMod(epochMonth, 12) + 1, 1);
+        		periodStartDay = firstOfMonth.toEpochDay();
+        		periodEndDay = periodStartDay + firstOfMonth.lengthOfMonth();
+    		}
+    		long earliest = NO_OCCURRENCE;
+    		for (CompiledRecurrence rule : rules) {
+    			long next = rule.nextEpochMinute((periodStartDay * MINUTES_PER_DAY) - 1);
+    			if ( (next != NO_OCCURRENCE) && ((earliest == NO_OCCURRENCE) || (next < earliest)) ) {
+    				earliest = next;
+    			}
+    		}
+    		// The new start must stay in the first week or month of the period to keep every rule's phase.
+    		if ( (earliest != NO_OCCURRENCE) && (earliest < (periodEndDay * MINUTES_PER_DAY)) && (earliest <= limitEpochMinute) ) {
+    			return earliest;
+    		}
+    	}
+    	return NO_OCCURRENCE;
+    }
+
+    /**
+     * Least common multiple.
+     *
+     * @param a positive number
+     * @param b positive number
+     * @return least common multiple of a and b
+     */
+    private static long lcm(long a, long b) {
+    	long x = a;
+    	long y = b;
+    	while (y != 0) {
+    		long t = x % y;
+    		x = y;
+    		y = t;
+    	}
+    	return (a / x) * b;
+    }
+
+    /**
+     * Find the first occurrence that happens strictly after the given local epoch minute.
+     *
+     * @param afterEpochMinute local epoch minute, see {@link #toEpochMinute(LocalDateTime)}
+     * @return local epoch minute of the next occurrence or {@link #NO_OCCURRENCE} if the rule
+     * 			has no further occurrences.
+     */
+    public long nextEpochMinute(long afterEpochMinute) {
+    	// Occurrences are never before the event start.
+    	long threshold = Math.max(afterEpochMinute + 1, startEpochMinute);
+    	switch (shape) {
+    	case SHAPE_WEEKLY:
+    		return nextWeekly(threshold);
+    	case SHAPE_MONTHLY_DAY:
+    	case SHAPE_MONTHLY_WEEKDAY:
+    		return nextMonthly(threshold);
+    	default:
+    		return nextIcal4j(afterEpochMinute);
+    	}
+    }
+
+    /**
+     * Weekly rules: occurrences are the BYDAY days of every Nth week, counted from the
+     * week that holds the event start.
+     *
+     * @param threshold earliest acceptable local epoch minute
+     * @return local epoch minute of the next occurrence
+     */
+    private long nextWeekly(long threshold) {
+    	long periodDays = 7L * interval;
+    	long thresholdDay = Math.floorDiv(threshold, MINUTES_PER_DAY);
+    	long period = Math.max(0, Math.floorDiv(thresholdDay - startWeekEpochDay, periodDays));
+    	// The answer is in this period or, at the latest, the next one.
+    	for (int p=0; p<2; p++, period++) {
+    		long periodStartDay = startWeekEpochDay + (period * periodDays);
+    		for (int offset : weekDayOffsets) {
+    			long candidate = ((periodStartDay + offset) * MINUTES_PER_DAY) + minuteOfDay;
+    			if (candidate >= threshold) {
+    				return candidate;
+    			}
+    		}
+    	}
+    	// Not reachable: every period has at least one candidate later than the previous period.
+    	return NO_OCCURRENCE;
+    }
+
+    /**
+     * Monthly rules: occurrences are the BYMONTHDAY or BYDAY days of every Nth month, counted
+     * from the month that holds the event start.  Days that do not exist in a given month
+     * (e.g. the 31st of April, the fifth Friday of most months) are skipped.
+     *
+     * @param threshold earliest acceptable local epoch minute
+     * @return local epoch minute of the next occurrence or {@link #NO_OCCURRENCE}
+     */
+    private long nextMonthly(long threshold) {
+    	LocalDate thresholdDate = LocalDate.ofEpochDay(Math.floorDiv(threshold, MINUTES_PER_DAY));
+    	long thresholdMonth = (thresholdDate.getYear() * 12L) + thresholdDate.getMonthValue() - 1;
+    	long period = Math.max(0, Math.floorDiv(thresholdMonth - startEpochMonth, interval));
+    	for (int i=0; i<MAX_INCREMENTS; i++, period++) {
+    		long epochMonth = startEpochMonth + (period * interval);
+    		LocalDate firstOfMonth = LocalDate.of((int) Math.floorDiv(epochMonth, 12), (int) Math.floorMod(epochMonth, 12) + 1, 1);
+    		int monthLength = firstOfMonth.lengthOfMonth();
+    		long firstEpochDay = firstOfMonth.toEpochDay();
+
+    		long best = NO_OCCURRENCE;
+    		if (shape == SHAPE_MONTHLY_DAY) {
+    			for (int dom : monthDays) {
+    				int day = (dom > 0) ? dom : (monthLength + dom + 1);
+    				if ( (day < 1) || (day > monthLength) ) { continue; }
+    				best = earliestAtOrAfter(best, ((firstEpochDay + day - 1) * MINUTES_PER_DAY) + minuteOfDay, threshold);
+    			}
+    		} else {
+    			int firstDow = firstOfMonth.getDayOfWeek().getValue();
+    			for (int i2=0; i2<weekDays.length; i2++) {
+    				int firstMatch = 1 + Math.floorMod(weekDays[i2] - firstDow, 7);
+    				int day;
+    				if (weekDayNums[i2] > 0) {
+    					day = firstMatch + (7 * (weekDayNums[i2] - 1));
+    				} else {
+    					int lastMatch = firstMatch + (7 * ((monthLength - firstMatch) / 7));
+    					day = lastMatch - (7 * (-weekDayNums[i2] - 1));
+    				}
+    				if ( (day < 1) || (day > monthLength) ) { continue; }
+    				best = earliestAtOrAfter(best, ((firstEpochDay + day - 1) * MINUTES_PER_DAY) + minuteOfDay, threshold);
+    			}
+    		}
+    		if (best != NO_OCCURRENCE) {
+    			return best;
+    		}
+    	}
+    	return NO_OCCURRENCE;
+    }
+
+    /**
+     * Keep the earlier of two candidates, ignoring any candidate before the threshold.
+     *
+     * @param best best candidate so far or {@link #NO_OCCURRENCE}
+     * @param candidate new candidate
+     * @param threshold earliest acceptable local epoch minute
+     * @return earliest acceptable candidate or {@link #NO_OCCURRENCE}
+     */
+    private static long earliestAtOrAfter(long best, long candidate, long threshold) {
+    	if (candidate < threshold) { return best; }
+    	if ( (best == NO_OCCURRENCE) || (candidate < best) ) { return candidate; }
+    	return best;
+    }
+
+    /**
+     * Rules we do not compile are answered by ical4j, exactly as
+     * {@link CalendarEvent#getNextOccurrence(LocalDateTime)} did before compilation existed.
+     *
+     * @param afterEpochMinute local epoch minute
+     * @return local epoch minute of the next occurrence or {@link #NO_OCCURRENCE}
+     */
+    private long nextIcal4j(long afterEpochMinute) {
+    	LocalDateTime ldtAfter = fromEpochMinute(afterEpochMinute);
+    	DateTime after = new DateTime(IcalDateTimeConverter.toEpochMilli(ldtAfter, ZoneId.systemDefault()));
+    	net.fortuna.ical4j.model.Date next = recur.getNextDate(seed, after);
+    	if (next == null) {
+    		return NO_OCCURRENCE;
+    	}
+    	return toEpochMinute(IcalDateTimeConverter.toLocalDateTime(next));
+    }
+
+    /**
+     * Convert a {@link java.time.LocalDateTime} to a local epoch minute.  Seconds are truncated.
+     *
+     * @param ldt {@link java.time.LocalDateTime} source
+     * @return minutes from 1970-01-01T00:00 to the given wall-clock time
+     */
+    public static long toEpochMinute(LocalDateTime ldt) {
+    	return Math.floorDiv(ldt.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * Convert a local epoch minute back to a {@link java.time.LocalDateTime}.
+     *
+     * @param epochMinute minutes from 1970-01-01T00:00
+     * @return {@link java.time.LocalDateTime} wall-clock time
+     */
+    public static LocalDateTime fromEpochMinute(long epochMinute) {
+    	return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Convert an occurrence to a {@link java.time.LocalDateTime} the same way ical4j would
+     * report it.  See {@link #resolveGap(LocalDateTime)}.
+     *
+     * @param epochMinute local epoch minute of an occurrence
+     * @return {@link java.time.LocalDateTime} of the occurrence
+     */
+    public static LocalDateTime toOccurrenceLocalDateTime(long epochMinute) {
+    	return resolveGap(fromEpochMinute(epochMinute));
+    }
+
+    /**
+     * A wall-clock time that falls in a daylight saving gap of the host time zone
+     * does not exist.  Move it forward by the length of the gap, as happens when ical4j
+     * converts it to a {@link java.util.Date}.
+     *
+     * @param ldt {@link java.time.LocalDateTime} wall-clock time
+     * @return the same wall-clock time, or the adjusted time if it falls in a gap
+     */
+    public static LocalDateTime resolveGap(LocalDateTime ldt) {
+    	return IcalDateTimeConverter.resolveGap(ldt, ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,225 @@
+package trashday.model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import trashday.CoberturaIgnore;
+
+/**
+ * Conversions between Java 8 {@link java.time.LocalDateTime} and the ical4j
+ * {@link net.fortuna.ical4j.model.DateTime} values held in our calendar events.
+ * <p>
+ * Our ical4j date/times are "floating": a {@link java.util.Date} instant that ical4j
+ * formats in the host default time zone.  So the conversion is just the host zone's
+ * UTC offset at that wall-clock time.  Rather than building a
+ * {@link java.time.ZonedDateTime} for every conversion, remember the offset over the
+ * span between two zone transitions and convert with plain epoch arithmetic while a
+ * value stays inside that span.  Values near a transition (daylight saving gaps and
+ * overlaps) take the {@link java.time.ZonedDateTime} path, so results always match it.
+ *
+ * @author J. Todd Baldwin
+ */
+public class IcalDateTimeConverter {
+	/** Log object for this class */
+    private static final Logger log = LoggerFactory.getLogger(IcalDateTimeConverter.class);
+
+    /**
+     * The UTC offset of one time zone between two of its transitions.
+     */
+    private static final class OffsetSpan {
+    	/** Time zone */
+    	private final ZoneId zoneId;
+    	/** Offset in this span, in seconds */
+    	private final int offsetSeconds;
+    	/** First UTC epoch second in this span */
+    	private final long utcStart;
+    	/** First UTC epoch second after this span */
+    	private final long utcEnd;
+    	/** First local epoch second in this span that has only this offset */
+    	private final long localStart;
+    	/** First local epoch second after localStart that does not have only this offset */
+    	private final long localEnd;
+
+    	/**
+    	 * Find the span holding the given instant.
+    	 *
+    	 * @param zoneId time zone
+    	 * @param epochSecond UTC epoch second
+    	 */
+    	private OffsetSpan(ZoneId zoneId, long epochSecond) {
+    		this.zoneId = zoneId;
+    		ZoneRules rules = zoneId.getRules();
+    		Instant instant = Instant.ofEpochSecond(epochSecond);
+    		this.offsetSeconds = rules.getOffset(instant).getTotalSeconds();
+    		// Transitions fall on whole seconds, so this finds one at exactly epochSecond too.
+    		ZoneOffsetTransition previous = rules.previousTransition(Instant.ofEpochSecond(epochSecond + 1));
+    		ZoneOffsetTransition next = rules.nextTransition(instant);
+    		if (previous == null) {
+    			utcStart = Long.MIN_VALUE;
+    			localStart = Long.MIN_VALUE;
+    		} else {
+    			utcStart = previous.toEpochSecond();
+    			// Skip past the gap or overlap the transition leaves in local time.
+    			localStart = Math.max(
+    					previous.getDateTimeBefore().toEpochSecond(ZoneOffset.UTC),
+    					previous.getDateTimeAfter().toEpochSecond(ZoneOffset.UTC));
+    		}
+    		if (next == null) {
+    			utcEnd = Long.MAX_VALUE;
+    			localEnd = Long.MAX_VALUE;
+    		} else {
+    			utcEnd = next.toEpochSecond();
+    			localEnd = Math.min(
+    					next.getDateTimeBefore().toEpochSecond(ZoneOffset.UTC),
+    					next.getDateTimeAfter().toEpochSecond(ZoneOffset.UTC));
+    		}
+    	}
+
+    	/**
+    	 * Check if a local time has exactly one valid offset, the offset of this span.
+    	 *
+    	 * @param zoneId time zone of the local time
+    	 * @param localSecond local epoch second
+    	 * @return {@code true} if the local time falls in this span
+    	 */
+    	private boolean holdsLocal(ZoneId zoneId, long localSecond) {
+    		return (localSecond >= localStart) && (localSecond < localEnd) && this.zoneId.equals(zoneId);
+    	}
+
+    	/**
+    	 * Check if an instant falls in this span.
+    	 *
+    	 * @param zoneId time zone for the instant
+    	 * @param epochSecond UTC epoch second
+    	 * @return {@code true} if the instant falls in this span
+    	 */
+    	private boolean holdsUtc(ZoneId zoneId, long epochSecond) {
+    		return (epochSecond >= utcStart) && (epochSecond < utcEnd) && this.zoneId.equals(zoneId);
+    	}
+    }
+
+    /**
+     * Most recently used offset span.  Conversions for one user's calendar stay within one
+     * span nearly all the time.  Replaced (never changed) so it can be shared between threads.
+     */
+    private static volatile OffsetSpan lastSpan = null;
+
+	/**
+	 * Private constructor given to this utility class.  Prevents instantiation since
+	 * this class is only meant to provide public, static utility methods.
+	 */
+	@CoberturaIgnore
+	private IcalDateTimeConverter() {
+    }
+
+	/**
+	 * Convert a wall-clock time in the given time zone to epoch milliseconds.  Matches
+	 * {@link java.time.ZonedDateTime#of(LocalDateTime, ZoneId)}: times in a gap move
+	 * forward by the length of the gap and times in an overlap use the earlier offset.
+	 *
+	 * @param ldt {@link java.time.LocalDateTime} wall-clock time
+	 * @param zoneId time zone
+	 * @return milliseconds from the epoch
+	 */
+	public static long toEpochMilli(LocalDateTime ldt, ZoneId zoneId) {
+		long localSecond = ldt.toEpochSecond(ZoneOffset.UTC);
+		int milliOfSecond = ldt.getNano() / 1000000;
+		OffsetSpan span = lastSpan;
+		if ( (span == null) || (! span.holdsLocal(zoneId, localSecond)) ) {
+			long epochSecond = ZonedDateTime.of(ldt, zoneId).toEpochSecond();
+			span = new OffsetSpan(zoneId, epochSecond);
+			lastSpan = span;
+			if (! span.holdsLocal(zoneId, localSecond)) {
+				// Gap or overlap.  Use the ZonedDateTime answer.
+				log.trace("toEpochMilli({}): near zone transition", ldt);
+				return (epochSecond * 1000) + milliOfSecond;
+			}
+		}
+		return ((localSecond - span.offsetSeconds) * 1000) + milliOfSecond;
+	}
+
+	/**
+	 * Convert epoch milliseconds to a wall-clock time in the given time zone.  Matches
+	 * {@link java.time.LocalDateTime#ofInstant(Instant, ZoneId)}.
+	 *
+	 * @param epochMilli milliseconds from the epoch
+	 * @param zoneId time zone
+	 * @return {@link java.time.LocalDateTime} wall-clock time
+	 */
+	public static LocalDateTime toLocalDateTime(long epochMilli, ZoneId zoneId) {
+		long epochSecond = Math.floorDiv(epochMilli, 1000L);
+		int milliOfSecond = (int) Math.floorMod(epochMilli, 1000L);
+		OffsetSpan span = lastSpan;
+		if ( (span == null) || (! span.holdsUtc(zoneId, epochSecond)) ) {
+			span = new OffsetSpan(zoneId, epochSecond);
+			lastSpan = span;
+		}
+		return LocalDateTime.ofEpochSecond(epochSecond + span.offsetSeconds, milliOfSecond * 1000000, ZoneOffset.UTC);
+	}
+
+	/**
+	 * Move a wall-clock time that does not exist in the given time zone (it falls in a
+	 * daylight saving gap) forward by the length of the gap.  Other times are returned as-is.
+	 *
+	 * @param ldt {@link java.time.LocalDateTime} wall-clock time
+	 * @param zoneId time zone
+	 * @return the same wall-clock time, or the adjusted time if it falls in a gap
+	 */
+	public static LocalDateTime resolveGap(LocalDateTime ldt, ZoneId zoneId) {
+		OffsetSpan span = lastSpan;
+		if ( (span != null) && span.holdsLocal(zoneId, ldt.toEpochSecond(ZoneOffset.UTC)) ) {
+			return ldt;
+		}
+		if (zoneId.getRules().getValidOffsets(ldt).isEmpty()) {
+			return ldt.atZone(zoneId).toLocalDateTime();
+		}
+		return ldt;
+	}
+
+	/**
+	 * Check if a wall-clock time has exactly one UTC offset in the given time zone, so it
+	 * falls in neither a daylight saving gap nor an overlap.
+	 *
+	 * @param ldt {@link java.time.LocalDateTime} wall-clock time
+	 * @param zoneId time zone
+	 * @return {@code true} if the wall-clock time names exactly one instant
+	 */
+	public static boolean hasSingleOffset(LocalDateTime ldt, ZoneId zoneId) {
+		OffsetSpan span = lastSpan;
+		if ( (span != null) && span.holdsLocal(zoneId, ldt.toEpochSecond(ZoneOffset.UTC)) ) {
+			return true;
+		}
+		return zoneId.getRules().getValidOffsets(ldt).size() == 1;
+	}
+
+	/**
+	 * Generate a floating {@link net.fortuna.ical4j.model.DateTime} from a
+	 * {@link java.time.LocalDateTime} in the host default time zone.  Seconds are truncated.
+	 *
+	 * @param ldt {@link java.time.LocalDateTime} source
+	 * @return {@link net.fortuna.ical4j.model.DateTime}
+	 */
+	public static net.fortuna.ical4j.model.DateTime toIcalDateTime(LocalDateTime ldt) {
+		long epochMilli = toEpochMilli(ldt.withSecond(0).withNano(0), ZoneId.systemDefault());
+		return new net.fortuna.ical4j.model.DateTime(epochMilli);
+	}
+
+	/**
+	 * Generate a {@link java.time.LocalDateTime} in the host default time zone from an
+	 * ical4j {@link net.fortuna.ical4j.model.Date}.
+	 *
+	 * @param icalDate {@link net.fortuna.ical4j.model.Date} source
+	 * @return {@link java.time.LocalDateTime}
+	 */
+	public static LocalDateTime toLocalDateTime(net.fortuna.ical4j.model.Date icalDate) {
+		return toLocalDateTime(icalDate.getTime(), ZoneId.systemDefault());
+	}
+}
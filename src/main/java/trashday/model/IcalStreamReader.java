@@ -0,0 +1,325 @@
+package trashday.model;
+
+import java.text.ParseException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fortuna.ical4j.model.ComponentList;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.PropertyList;
+import net.fortuna.ical4j.model.component.CalendarComponent;
+import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.model.property.CalScale;
+import net.fortuna.ical4j.model.property.DtEnd;
+import net.fortuna.ical4j.model.property.DtStamp;
+import net.fortuna.ical4j.model.property.DtStart;
+import net.fortuna.ical4j.model.property.ProdId;
+import net.fortuna.ical4j.model.property.RRule;
+import net.fortuna.ical4j.model.property.Summary;
+import net.fortuna.ical4j.model.property.Uid;
+import net.fortuna.ical4j.model.property.Version;
+import trashday.CoberturaIgnore;
+
+/**
+ * Fast reader for the iCalendar text this skill stores.
+ * <p>
+ * Stored calendars only ever hold a VCALENDAR (PRODID, VERSION, CALSCALE) with VEVENTs
+ * made of DTSTAMP, DTSTART, DTEND, SUMMARY, UID and RRULE properties (see the
+ * {@link CalendarEvent} constructors and {@link Calendar#eventAdd(CalendarEvent)}).  This
+ * class walks that text line by line and builds the ical4j objects directly, skipping the
+ * general purpose {@link net.fortuna.ical4j.data.CalendarBuilder} (content handlers, time
+ * zone registry, date format parsing).
+ * <p>
+ * Anything outside that subset (other components or properties, property parameters, folded
+ * lines, escaped text, date/times near a daylight saving change) makes {@link #read(String)}
+ * return {@code null} so the caller can use the CalendarBuilder instead.
+ *
+ * @author J. Todd Baldwin
+ */
+public class IcalStreamReader {
+	/** Log object for this class */
+    private static final Logger log = LoggerFactory.getLogger(IcalStreamReader.class);
+
+    /** Length of a floating date/time value: yyyyMMdd'T'HHmmss */
+    private static final int DATE_TIME_LENGTH = 15;
+
+	/**
+	 * Private constructor given to this utility class.  Prevents instantiation since
+	 * this class is only meant to provide public, static utility methods.
+	 */
+	@CoberturaIgnore
+	private IcalStreamReader() {
+    }
+
+	/**
+	 * Read an iCalendar text made only of the properties and components this skill stores.
+	 *
+	 * @param icalString String with an iCalendar text.
+	 * @return ical4j calendar, or {@code null} if the text uses anything this reader does not
+	 * 			recognize and should be read by {@link net.fortuna.ical4j.data.CalendarBuilder}.
+	 */
+	public static net.fortuna.ical4j.model.Calendar read(String icalString) {
+		log.trace("read()");
+		if (icalString == null) {
+			return null;
+		}
+		try {
+			return readSubset(icalString);
+		} catch (ParseException | DateTimeException | IllegalArgumentException e) {
+			log.debug("read: Use CalendarBuilder. {}", e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Walk the iCalendar text one content line at a time.
+	 *
+	 * @param icalString String with an iCalendar text.
+	 * @return ical4j calendar, or {@code null} if the text is not in the stored subset.
+	 * @throws ParseException if a property value is not understood
+	 */
+	private static net.fortuna.ical4j.model.Calendar readSubset(String icalString) throws ParseException {
+		PropertyList calendarProperties = new PropertyList();
+		ComponentList<CalendarComponent> components = new ComponentList<CalendarComponent>();
+		PropertyList eventProperties = null;
+		boolean inCalendar = false;
+		boolean finished = false;
+
+		int length = icalString.length();
+		int lineStart = 0;
+		while (lineStart < length) {
+			int lineEnd = icalString.indexOf('\n', lineStart);
+			if (lineEnd < 0) {
+				lineEnd = length;
+			}
+			int next = lineEnd + 1;
+			if ( (lineEnd > lineStart) && (icalString.charAt(lineEnd-1) == '\r') ) {
+				lineEnd--;
+			}
+			int lineLength = lineEnd - lineStart;
+			if (lineLength == 0) {
+				// Only allow trailing blank lines.
+				if (! finished) {
+					return unsupported("blank line");
+				}
+				lineStart = next;
+				continue;
+			}
+			if (finished) {
+				return unsupported("text after END:VCALENDAR");
+			}
+			char first = icalString.charAt(lineStart);
+			if ( (first == ' ') || (first == '\t') ) {
+				return unsupported("folded line");
+			}
+			int colon = icalString.indexOf(':', lineStart);
+			if ( (colon < 0) || (colon > lineEnd) ) {
+				return unsupported("no property value");
+			}
+			String name = icalString.substring(lineStart, colon);
+			String value = icalString.substring(colon+1, lineEnd);
+			lineStart = next;
+
+			if (! inCalendar) {
+				if (! ("BEGIN".equals(name) && "VCALENDAR".equals(value)) ) {
+					return unsupported(name);
+				}
+				inCalendar = true;
+				continue;
+			}
+
+			if (eventProperties == null) {
+				// VCALENDAR properties and components
+				switch (name) {
+				case "BEGIN":
+					if (! "VEVENT".equals(value)) {
+						return unsupported(value);
+					}
+					eventProperties = new PropertyList();
+					break;
+				case "END":
+					if (! "VCALENDAR".equals(value)) {
+						return unsupported(value);
+					}
+					finished = true;
+					break;
+				case "PRODID":
+					calendarProperties.add(new ProdId(value));
+					break;
+				case "VERSION":
+					if (! Version.VERSION_2_0.getValue().equals(value)) {
+						return unsupported(name);
+					}
+					calendarProperties.add(Version.VERSION_2_0);
+					break;
+				case "CALSCALE":
+					if (! CalScale.GREGORIAN.getValue().equals(value)) {
+						return unsupported(name);
+					}
+					calendarProperties.add(CalScale.GREGORIAN);
+					break;
+				default:
+					return unsupported(name);
+				}
+				continue;
+			}
+
+			// VEVENT properties
+			switch (name) {
+			case "END":
+				if (! "VEVENT".equals(value)) {
+					return unsupported(value);
+				}
+				components.add(new VEvent(eventProperties));
+				eventProperties = null;
+				break;
+			case "DTSTAMP":
+				eventProperties.add(new DtStamp(parseUtcDateTime(value)));
+				break;
+			case "DTSTART":
+				DateTime start = parseEventDateTime(value);
+				if (start == null) {
+					return unsupported(name);
+				}
+				eventProperties.add(new DtStart(start));
+				break;
+			case "DTEND":
+				DateTime end = parseEventDateTime(value);
+				if (end == null) {
+					return unsupported(name);
+				}
+				eventProperties.add(new DtEnd(end));
+				break;
+			case "SUMMARY":
+				if (value.indexOf('\\') >= 0) {
+					return unsupported("escaped text");
+				}
+				eventProperties.add(new Summary(value));
+				break;
+			case "UID":
+				if (value.indexOf('\\') >= 0) {
+					return unsupported("escaped text");
+				}
+				eventProperties.add(new Uid(value));
+				break;
+			case "RRULE":
+				eventProperties.add(new RRule(value));
+				break;
+			default:
+				return unsupported(name);
+			}
+		}
+
+		if (! finished) {
+			return unsupported("missing END:VCALENDAR");
+		}
+		return new net.fortuna.ical4j.model.Calendar(calendarProperties, components);
+	}
+
+	/**
+	 * Log why the text needs the CalendarBuilder.
+	 *
+	 * @param reason what this reader did not recognize
+	 * @return {@code null}
+	 */
+	private static net.fortuna.ical4j.model.Calendar unsupported(String reason) {
+		log.debug("read: Use CalendarBuilder for {}", reason);
+		return null;
+	}
+
+	/**
+	 * Parse the digits of a yyyyMMdd'T'HHmmss value.
+	 *
+	 * @param value date/time text, at least {@value #DATE_TIME_LENGTH} characters long
+	 * @return {@link java.time.LocalDateTime}
+	 * @throws ParseException if the value is not a date/time
+	 */
+	private static LocalDateTime parseLocalDateTime(String value) throws ParseException {
+		if ( (value.length() < DATE_TIME_LENGTH) || (value.charAt(8) != 'T') ) {
+			throw new ParseException("Not a date/time: "+value, 0);
+		}
+		return LocalDateTime.of(
+				digits(value, 0, 4), digits(value, 4, 6), digits(value, 6, 8),
+				digits(value, 9, 11), digits(value, 11, 13), digits(value, 13, 15));
+	}
+
+	/**
+	 * Parse a run of decimal digits.
+	 *
+	 * @param value text holding the digits
+	 * @param start index of the first digit
+	 * @param end index after the last digit
+	 * @return number
+	 * @throws ParseException if a character is not a digit
+	 */
+	private static int digits(String value, int start, int end) throws ParseException {
+		int number = 0;
+		for (int i=start; i<end; i++) {
+			int digit = value.charAt(i) - '0';
+			if ( (digit < 0) || (digit > 9) ) {
+				throw new ParseException("Not a date/time: "+value, i);
+			}
+			number = (number * 10) + digit;
+		}
+		return number;
+	}
+
+	/**
+	 * Parse a UTC date/time such as DTSTAMP:20170206T030400Z.
+	 *
+	 * @param value date/time text
+	 * @return UTC {@link net.fortuna.ical4j.model.DateTime}
+	 * @throws ParseException if the value is not a UTC date/time
+	 */
+	private static DateTime parseUtcDateTime(String value) throws ParseException {
+		if ( (value.length() != DATE_TIME_LENGTH+1) || (value.charAt(DATE_TIME_LENGTH) != 'Z') ) {
+			throw new ParseException("Not a UTC date/time: "+value, 0);
+		}
+		LocalDateTime ldt = parseLocalDateTime(value);
+		DateTime dateTime = new DateTime(ldt.toEpochSecond(ZoneOffset.UTC) * 1000);
+		dateTime.setUtc(true);
+		return dateTime;
+	}
+
+	/**
+	 * Parse an event start or end.  ical4j writes these as floating date/times, or as UTC
+	 * date/times when the host time zone is UTC (as on AWS Lambda).
+	 *
+	 * @param value date/time text
+	 * @return {@link net.fortuna.ical4j.model.DateTime}, or {@code null} if a floating value
+	 * 			should be left to ical4j
+	 * @throws ParseException if the value is not a date/time
+	 */
+	private static DateTime parseEventDateTime(String value) throws ParseException {
+		if (value.length() == DATE_TIME_LENGTH+1) {
+			return parseUtcDateTime(value);
+		}
+		return parseFloatingDateTime(value);
+	}
+
+	/**
+	 * Parse a floating date/time such as DTSTART:20170131T073000.
+	 *
+	 * @param value date/time text
+	 * @return floating {@link net.fortuna.ical4j.model.DateTime}, or {@code null} if the local time
+	 * 			does not have exactly one offset in the host time zone.  ical4j and java.time
+	 * 			resolve daylight saving overlaps differently, so leave those to ical4j.
+	 * @throws ParseException if the value is not a floating date/time
+	 */
+	private static DateTime parseFloatingDateTime(String value) throws ParseException {
+		if (value.length() != DATE_TIME_LENGTH) {
+			throw new ParseException("Not a floating date/time: "+value, 0);
+		}
+		LocalDateTime ldt = parseLocalDateTime(value);
+		ZoneId zoneId = ZoneId.systemDefault();
+		if (! IcalDateTimeConverter.hasSingleOffset(ldt, zoneId)) {
+			return null;
+		}
+		return new DateTime(IcalDateTimeConverter.toEpochMilli(ldt, zoneId));
+	}
+}
@@ -13,11 +13,7 @@ import org.slf4j.LoggerFactory;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
 import com.github.jonpeterson.jackson.module.versioning.JsonVersionedModel;
-import com.github.jonpeterson.jackson.module.versioning.VersioningModule;
 
 import trashday.CoberturaIgnore;
 
@@ -41,13 +37,8 @@ public class IntentLog {
 	/** Log object for this class */
     private static final Logger log = LoggerFactory.getLogger(IntentLog.class);
     
-	/** A Jackson object mapper configured to handle Java 8 LocalDateTime objects and Jon Peterson's object versioning module. */
-    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
- 		   .registerModule(new ParameterNamesModule())
- 		   .registerModule(new Jdk8Module())
- 		   .registerModule(new JavaTimeModule())
- 		   .registerModule(new VersioningModule())
- 		;
+	/** The shared Jackson object mapper (see {@link JsonUtils}). */
+    private static final ObjectMapper OBJECT_MAPPER = JsonUtils.OBJECT_MAPPER;
     
     /** Format to obtain LocalDateTime in terms of year--week-of-year. */
     private static DateTimeFormatter formatterYearWeek = DateTimeFormatter.ofPattern("YYYY-ww");
@@ -0,0 +1,38 @@
+package trashday.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import com.github.jonpeterson.jackson.module.versioning.VersioningModule;
+
+import trashday.CoberturaIgnore;
+
+/**
+ * The Jackson object mapper shared by every class that stores JSON in the Alexa
+ * session or in Dynamo DB.
+ * <p>
+ * A configured {@link ObjectMapper} is safe to share between threads, and each one
+ * builds and caches its own serializers on first use.  One shared mapper means that
+ * work is done once per container (see {@link trashday.ColdStartInitializer}) rather
+ * than once for each class.
+ *
+ * @author J. Todd Baldwin
+ */
+public class JsonUtils {
+	/** A Jackson object mapper configured to handle Java 8 LocalDateTime objects and Jon Peterson's object versioning module. */
+    public static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+ 		   .registerModule(new ParameterNamesModule())
+ 		   .registerModule(new Jdk8Module())
+ 		   .registerModule(new JavaTimeModule())
+ 		   .registerModule(new VersioningModule())
+ 		;
+
+	/**
+	 * Private constructor given to this utility class.  Prevents instantiation since
+	 * this class is only meant to provide public, static members.
+	 */
+	@CoberturaIgnore
+	private JsonUtils() {
+    }
+}
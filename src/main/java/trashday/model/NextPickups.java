@@ -93,14 +93,12 @@ public class NextPickups {
 		log.trace("new NextPickups({}, {})", ldtStartingPoint, calendar);
 		this.ldtStartingPoint = ldtStartingPoint;
 		this.calendar = calendar;
-		this.pickups = new LinkedHashMap<String,LocalDateTime>();
 		
 		if (pickupName == null) {
-			Map<String,LocalDateTime> nextPickupTimes = calendar.pickupGetNextOccurrences(ldtStartingPoint);
-			nextPickupTimes.entrySet().stream()
-				.sorted(Map.Entry.<String, LocalDateTime>comparingByValue())
-				.forEachOrdered(x -> pickups.put(x.getKey(), x.getValue()));
+			// Already ordered by time.
+			this.pickups = calendar.pickupGetNextOccurrencesInOrder(ldtStartingPoint);
 		} else {
+			this.pickups = new LinkedHashMap<String,LocalDateTime>();
 			LocalDateTime ldtEventRecurs = calendar.pickupGetNextOccurrence(ldtStartingPoint, pickupName);
 			if (ldtEventRecurs!=null) {
 				pickups.put(pickupName.trim().toLowerCase(), ldtEventRecurs);
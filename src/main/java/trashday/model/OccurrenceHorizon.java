@@ -0,0 +1,376 @@
+package trashday.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Every occurrence of a set of {@link CalendarEvent}s over the next few weeks, kept in
+ * sorted primitive arrays so "next pickup" queries are a binary search instead of a
+ * recurrence calculation per event.
+ * <p>
+ * The horizon covers local epoch minutes in [{@link #getStartEpochMinute()}, {@link #getEndEpochMinute()}).
+ * It is built on the first query, starting {@link #LOOKBACK_MINUTES} before it.  Once a
+ * query comes within a week of the end, the horizon slides forward: occurrences still
+ * ahead are kept and only the new span is calculated.  Queries before the start or past
+ * the end rebuild it.  Adding, removing or refreshing one event only touches that event's
+ * entries.  Queries for a pickup that has no occurrence inside the horizon fall back to
+ * its events' {@link CalendarEvent#getNextEpochMinute(long)}.
+ * <p>
+ * All date/time values are local epoch minutes.  See {@link CompiledRecurrence}.
+ * Thread-safe, since a {@link CalendarCache} entry's horizon answers queries from every
+ * view of it.
+ *
+ * @author J. Todd Baldwin
+ */
+public class OccurrenceHorizon {
+	/** Log object for this class */
+    private static final Logger log = LoggerFactory.getLogger(OccurrenceHorizon.class);
+
+    /** Minutes in one week. */
+    private static final long MINUTES_PER_WEEK = 7 * 24 * 60;
+    /**
+     * Minutes kept before the query a horizon is built or slid for, so a calendar shared
+     * by users in different time zones, whose local times differ by up to a day, is not
+     * rebuilt back and forth.
+     */
+    public static final long LOOKBACK_MINUTES = 2 * 24 * 60;
+    /** Bits of a sort key that hold the entry index.  See {@link #sortEntries(int, int)}. */
+    private static final int SORT_INDEX_BITS = 24;
+
+    /** Number of weeks of occurrences kept */
+    private final int weeks;
+    /** {@code true} once the occurrence arrays have been filled */
+    private boolean built = false;
+    /** First local epoch minute covered */
+    private long startEpochMinute;
+    /** First local epoch minute after the covered span */
+    private long endEpochMinute;
+
+    /** Occurrence times, sorted */
+    private long[] occurrenceMinutes = new long[16];
+    /** Pickup name ordinal of each occurrence */
+    private int[] occurrencePickups = new int[16];
+    /** Event slot of each occurrence */
+    private int[] occurrenceSlots = new int[16];
+    /** Number of occurrences held */
+    private int occurrenceCount = 0;
+
+    /** Events by slot.  Removed events leave a {@code null} slot for reuse. */
+    private final List<CalendarEvent> slotEvents = new ArrayList<CalendarEvent>();
+    /** Pickup name ordinal of each slot's event */
+    private final List<Integer> slotPickups = new ArrayList<Integer>();
+    /** Slot of each event, by identity */
+    private final Map<CalendarEvent, Integer> slotByEvent = new IdentityHashMap<CalendarEvent, Integer>();
+    /** Pickup name ordinals */
+    private final Map<String, Integer> pickupOrdinals = new HashMap<String, Integer>();
+
+    /**
+     * Create an empty horizon.
+     *
+     * @param weeks Number of weeks of occurrences to keep.  Must be positive.
+     */
+    public OccurrenceHorizon(int weeks) {
+    	log.trace("OccurrenceHorizon(weeks={})", weeks);
+    	if (weeks < 1) {
+    		throw new IllegalArgumentException("Occurrence horizon must be at least one week.");
+    	}
+    	this.weeks = weeks;
+    }
+
+    /**
+     * Get the number of weeks of occurrences kept.
+     *
+     * @return horizon length in weeks
+     */
+    public int getWeeks() {
+    	return weeks;
+    }
+
+    /**
+     * Get the first local epoch minute covered.  Only meaningful after the first query.
+     *
+     * @return start of the horizon
+     */
+    public synchronized long getStartEpochMinute() {
+    	return startEpochMinute;
+    }
+
+    /**
+     * Get the first local epoch minute after the covered span.  Only meaningful after the first query.
+     *
+     * @return end of the horizon
+     */
+    public synchronized long getEndEpochMinute() {
+    	return endEpochMinute;
+    }
+
+    /**
+     * Get the number of occurrences currently materialized.
+     *
+     * @return occurrence count
+     */
+    public synchronized int size() {
+    	return occurrenceCount;
+    }
+
+    /**
+     * Start tracking an event.  Its occurrences are added to the horizon if it has been built.
+     *
+     * @param event {@link CalendarEvent} to track.  Ignored if already tracked.
+     */
+    public synchronized void addEvent(CalendarEvent event) {
+    	log.trace("addEvent({})", event);
+    	if (slotByEvent.containsKey(event)) { return; }
+
+    	int slot = slotEvents.indexOf(null);
+    	if (slot < 0) {
+    		slot = slotEvents.size();
+    		slotEvents.add(event);
+    		slotPickups.add(getPickupOrdinal(event.getName()));
+    	} else {
+    		slotEvents.set(slot, event);
+    		slotPickups.set(slot, getPickupOrdinal(event.getName()));
+    	}
+    	slotByEvent.put(event, slot);
+
+    	if (built) {
+    		int first = occurrenceCount;
+    		appendOccurrences(slot, startEpochMinute, endEpochMinute);
+    		if (occurrenceCount > first) {
+    			sortEntries(0, occurrenceCount);
+    		}
+    	}
+    }
+
+    /**
+     * Stop tracking an event and drop its occurrences.
+     *
+     * @param event {@link CalendarEvent} to forget.  Ignored if not tracked.
+     */
+    public synchronized void removeEvent(CalendarEvent event) {
+    	log.trace("removeEvent({})", event);
+    	Integer slot = slotByEvent.remove(event);
+    	if (slot == null) { return; }
+    	slotEvents.set(slot, null);
+    	if (built) {
+    		removeOccurrences(slot);
+    	}
+    }
+
+    /**
+     * Recalculate the occurrences of an event whose recurrences have changed.
+     *
+     * @param event {@link CalendarEvent} to refresh.  Added if not already tracked.
+     */
+    public synchronized void refreshEvent(CalendarEvent event) {
+    	log.trace("refreshEvent({})", event);
+    	removeEvent(event);
+    	addEvent(event);
+    }
+
+    /**
+     * Stop tracking all events.
+     */
+    public synchronized void clear() {
+    	log.trace("clear()");
+    	slotEvents.clear();
+    	slotPickups.clear();
+    	slotByEvent.clear();
+    	occurrenceCount = 0;
+    	built = false;
+    }
+
+    /**
+     * Find the first occurrence of the given pickup after the given time.
+     *
+     * @param pickupName lowercase pickup name, as given by {@link CalendarEvent#getName()}
+     * @param afterEpochMinute Find next occurrence after this local epoch minute.
+     * @return local epoch minute of the next occurrence, or {@link CompiledRecurrence#NO_OCCURRENCE}
+     */
+    public synchronized long nextEpochMinute(String pickupName, long afterEpochMinute) {
+    	log.trace("nextEpochMinute(pickupName={}, afterEpochMinute={})", pickupName, afterEpochMinute);
+    	Integer pickup = pickupOrdinals.get(pickupName);
+    	if (pickup == null) {
+    		return CompiledRecurrence.NO_OCCURRENCE;
+    	}
+    	cover(afterEpochMinute + 1);
+
+    	for (int i = firstIndexAfter(afterEpochMinute); i < occurrenceCount; i++) {
+    		if (occurrencePickups[i] == pickup) {
+    			return occurrenceMinutes[i];
+    		}
+    	}
+
+    	// Nothing inside the horizon.  Ask the events directly.
+    	long earliest = CompiledRecurrence.NO_OCCURRENCE;
+    	for (int slot = 0; slot < slotEvents.size(); slot++) {
+    		CalendarEvent event = slotEvents.get(slot);
+    		if ( (event == null) || (slotPickups.get(slot) != pickup.intValue()) ) { continue; }
+    		long next = event.getNextEpochMinute(Math.max(afterEpochMinute, endEpochMinute - 1));
+    		if (next == CompiledRecurrence.NO_OCCURRENCE) { continue; }
+    		if ( (earliest == CompiledRecurrence.NO_OCCURRENCE) || (next < earliest) ) {
+    			earliest = next;
+    		}
+    	}
+    	return earliest;
+    }
+
+    /**
+     * Make sure the horizon starts at or before the given minute and ends after it.
+     * Builds the horizon on first use and for queries outside it, and slides it forward
+     * for queries within a week of its end.
+     *
+     * @param epochMinute local epoch minute to be covered
+     */
+    private void cover(long epochMinute) {
+    	long newEnd = epochMinute + (weeks * MINUTES_PER_WEEK);
+    	if ( (!built) || (epochMinute < startEpochMinute) || (epochMinute >= endEpochMinute) ) {
+    		log.debug("Build occurrence horizon from {} for {} weeks", epochMinute, weeks);
+    		occurrenceCount = 0;
+    		startEpochMinute = epochMinute - LOOKBACK_MINUTES;
+    		endEpochMinute = newEnd;
+    		for (int slot = 0; slot < slotEvents.size(); slot++) {
+    			appendOccurrences(slot, startEpochMinute, endEpochMinute);
+    		}
+    		sortEntries(0, occurrenceCount);
+    		built = true;
+    		return;
+    	}
+    	if (endEpochMinute - epochMinute < MINUTES_PER_WEEK) {
+    		// Keep the occurrences still ahead and calculate only the span past the old end.
+    		log.debug("Slide occurrence horizon end from {} to {}", endEpochMinute, newEnd);
+    		long newStart = Math.max(startEpochMinute, epochMinute - LOOKBACK_MINUTES);
+    		int first = firstIndexAfter(newStart - 1);
+    		int kept = occurrenceCount - first;
+    		System.arraycopy(occurrenceMinutes, first, occurrenceMinutes, 0, kept);
+    		System.arraycopy(occurrencePickups, first, occurrencePickups, 0, kept);
+    		System.arraycopy(occurrenceSlots, first, occurrenceSlots, 0, kept);
+    		occurrenceCount = kept;
+    		startEpochMinute = newStart;
+    		for (int slot = 0; slot < slotEvents.size(); slot++) {
+    			appendOccurrences(slot, endEpochMinute, newEnd);
+    		}
+    		// Everything appended is at or after the old end, so only the new tail needs sorting.
+    		sortEntries(kept, occurrenceCount);
+    		endEpochMinute = newEnd;
+    	}
+    }
+
+    /**
+     * Append one slot's occurrences in [from, to) to the end of the occurrence arrays.
+     * The caller sorts them into place.
+     *
+     * @param slot event slot.  Empty slots are ignored.
+     * @param from first local epoch minute included
+     * @param to first local epoch minute excluded
+     */
+    private void appendOccurrences(int slot, long from, long to) {
+    	CalendarEvent event = slotEvents.get(slot);
+    	if (event == null) { return; }
+    	int pickup = slotPickups.get(slot);
+    	long next = event.getNextEpochMinute(from - 1);
+    	while ( (next != CompiledRecurrence.NO_OCCURRENCE) && (next < to) ) {
+    		if (occurrenceCount == occurrenceMinutes.length) {
+    			int capacity = occurrenceMinutes.length * 2;
+    			occurrenceMinutes = Arrays.copyOf(occurrenceMinutes, capacity);
+    			occurrencePickups = Arrays.copyOf(occurrencePickups, capacity);
+    			occurrenceSlots = Arrays.copyOf(occurrenceSlots, capacity);
+    		}
+    		occurrenceMinutes[occurrenceCount] = next;
+    		occurrencePickups[occurrenceCount] = pickup;
+    		occurrenceSlots[occurrenceCount] = slot;
+    		occurrenceCount++;
+    		next = event.getNextEpochMinute(next);
+    	}
+    }
+
+    /**
+     * Remove one slot's occurrences, keeping the rest in order.
+     *
+     * @param slot event slot
+     */
+    private void removeOccurrences(int slot) {
+    	int kept = 0;
+    	for (int i = 0; i < occurrenceCount; i++) {
+    		if (occurrenceSlots[i] == slot) { continue; }
+    		occurrenceMinutes[kept] = occurrenceMinutes[i];
+    		occurrencePickups[kept] = occurrencePickups[i];
+    		occurrenceSlots[kept] = occurrenceSlots[i];
+    		kept++;
+    	}
+    	occurrenceCount = kept;
+    }
+
+    /**
+     * Sort entries [from, to) of the occurrence arrays by time.
+     *
+     * @param from first entry sorted
+     * @param to first entry not sorted
+     */
+    private void sortEntries(int from, int to) {
+    	int count = to - from;
+    	if (count < 2) { return; }
+    	if (count >= (1 << SORT_INDEX_BITS)) {
+    		throw new IllegalStateException("Too many occurrences in horizon: "+count);
+    	}
+
+    	// Sort (time, position) keys, then apply the resulting order to all three arrays.
+    	long[] keys = new long[count];
+    	for (int i = 0; i < count; i++) {
+    		keys[i] = ((occurrenceMinutes[from + i] - startEpochMinute) << SORT_INDEX_BITS) | i;
+    	}
+    	Arrays.sort(keys);
+    	long[] minutes = Arrays.copyOfRange(occurrenceMinutes, from, to);
+    	int[] pickups = Arrays.copyOfRange(occurrencePickups, from, to);
+    	int[] slots = Arrays.copyOfRange(occurrenceSlots, from, to);
+    	long indexMask = (1L << SORT_INDEX_BITS) - 1;
+    	for (int i = 0; i < count; i++) {
+    		int source = (int) (keys[i] & indexMask);
+    		occurrenceMinutes[from + i] = minutes[source];
+    		occurrencePickups[from + i] = pickups[source];
+    		occurrenceSlots[from + i] = slots[source];
+    	}
+    }
+
+    /**
+     * Binary search for the first occurrence after the given time.
+     *
+     * @param afterEpochMinute local epoch minute
+     * @return index of the first occurrence later than afterEpochMinute, or the occurrence count if none
+     */
+    private int firstIndexAfter(long afterEpochMinute) {
+    	int low = 0;
+    	int high = occurrenceCount;
+    	while (low < high) {
+    		int mid = (low + high) >>> 1;
+    		if (occurrenceMinutes[mid] <= afterEpochMinute) {
+    			low = mid + 1;
+    		} else {
+    			high = mid;
+    		}
+    	}
+    	return low;
+    }
+
+    /**
+     * Get the ordinal for a pickup name, assigning the next one if the name is new.
+     *
+     * @param pickupName lowercase pickup name
+     * @return pickup ordinal
+     */
+    private int getPickupOrdinal(String pickupName) {
+    	Integer ordinal = pickupOrdinals.get(pickupName);
+    	if (ordinal == null) {
+    		ordinal = pickupOrdinals.size();
+    		pickupOrdinals.put(pickupName, ordinal);
+    	}
+    	return ordinal;
+    }
+}
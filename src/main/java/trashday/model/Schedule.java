@@ -19,11 +19,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
 import com.github.jonpeterson.jackson.module.versioning.JsonVersionedModel;
-import com.github.jonpeterson.jackson.module.versioning.VersioningModule;
 
 /**
  * Data structure for the weekly pickup schedule.
@@ -51,13 +47,8 @@ public class Schedule {
 	public List<String> 						pickupNames;
 	/** The core schedule Map */
 	public Map<String,SortedSet<TimeOfWeek>>	pickupSchedule;
-	/** A Jackson object mapper configured to handle Java 8 LocalDateTime objects and Jon Peterson's object versioning module. */
-    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
- 		   .registerModule(new ParameterNamesModule())
- 		   .registerModule(new Jdk8Module())
- 		   .registerModule(new JavaTimeModule())
- 		   .registerModule(new VersioningModule())
- 		;
+	/** The shared Jackson object mapper (see {@link JsonUtils}). */
+    private static final ObjectMapper OBJECT_MAPPER = JsonUtils.OBJECT_MAPPER;
 
 	/**
 	 * Create an empty schedule.
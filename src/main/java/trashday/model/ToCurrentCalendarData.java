@@ -0,0 +1,37 @@
+package trashday.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.jonpeterson.jackson.module.versioning.VersionedModelConverter;
+
+/**
+ * Handles converting from old versions of the {@link CalendarData}
+ * class during deserialization.  Nothing useful in here for
+ * version 1 of the binary calendar encoding.  However, if later
+ * versions update the class, this class may need to
+ * perform actions when reading older version(s) of the
+ * {@link CalendarData} object from the database.
+ *
+ * @author	J. Todd Baldwin
+ * @see		<a href="https://github.com/jonpeterson/jackson-module-model-versioning">Jackson Module Model Versioning</a>
+ *
+ */
+public class ToCurrentCalendarData implements VersionedModelConverter {
+	/** Log object for this class */
+    private static final Logger log = LoggerFactory.getLogger(ToCurrentCalendarData.class);
+
+	@Override
+	public ObjectNode convert(ObjectNode modelData, String modelVersion,
+            String targetModelVersion, JsonNodeFactory nodeFactory) {
+
+		Integer version = new Integer(modelVersion);
+		log.trace("Deserializing CalendarData (from version={}, to version={})", version, targetModelVersion);
+
+		// No conversions necessary yet.  Still on version 1.
+
+		return null;
+	}
+}
@@ -1,7 +1,10 @@
 package trashday.storage;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
 import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,22 +24,33 @@ public class DynamoDao {
 	/** Log object for this class */
     private static final Logger log = LoggerFactory.getLogger(DynamoDao.class);
     
-    /** Object that loads specific users' data to/from Dynamo DB */
-    private final DynamoItemPersistence dynamoDbItemPersistence;
+    /** Object that loads specific users' data to/from Dynamo DB (or a local store for load tests) */
+    private final UserDataStore userDataStore;
+    
+    /**
+     * Calendar events are only rebased to a start this many hours before the request time.
+     * Keeps the new start before the user's local "now" whatever their time zone.
+     */
+    private static final long REBASE_MARGIN_HOURS = 24;
 
     /**
      * Create database access object
      * 
-     * @param dynamoItemPersistence TrashDayDynamoDbClient to use for 
-     * 			saving and loading user information.
+     * @param userDataStore {@link UserDataStore} to use for saving and loading user
+     * 			information.  The skill uses {@link DynamoItemPersistence}.
      */
-    public DynamoDao(DynamoItemPersistence dynamoItemPersistence) {
-    	log.trace("DynamoDao({})", dynamoItemPersistence);
-        this.dynamoDbItemPersistence = dynamoItemPersistence;
+    public DynamoDao(UserDataStore userDataStore) {
+    	log.trace("DynamoDao({})", userDataStore);
+        this.userDataStore = userDataStore;
     }
     
     /**
-     * Appends given user intent log data into this user's Dynamo DB entry log data.
+     * Appends given user intent log data into this user's Dynamo DB intent counts.
+     * <p>
+     * Counts are added on the server to the user's year-week items in the intent log table
+     * (see {@link IntentLogPersistence#addIntentCounts(String, IntentLog)}), so this is one
+     * small write per week with no read, and the user's schedule item is not touched.  Old 
+     * weeks expire through the table's Time To Live setting.
      * 
 	 * @param sessionDao {@link SessionDao} data access object for user data stored in 
 	 * 			current {@link com.amazon.speech.speechlet.Session}.
@@ -47,31 +61,32 @@ public class DynamoDao {
     	log.trace("appendIntentLogData(intentLog={})", intentLog);
     	if (intentLog == null) { return; }
     	
-    	// Load this user's Dynamo DB item.
-        DynamoItem item = new DynamoItem();
         String userId = sessionDao.getUserId();
-        item.setCustomerId(userId);
-        item = dynamoDbItemPersistence.loadCompleteItem(item);
-        if (item == null) {
-        	log.info("No TrashDayDynamoItem available in DynamoDB.  No intent log information saved for this user: {}", userId);
-            return;
-        }
-        log.info("Read user data from Dynamo DB: userId={}", userId);
-        
-		IntentLog storedIntentLog = item.getIntentLog();
-		if (storedIntentLog == null) {
-			storedIntentLog = intentLog;
-			log.info("Empty intent log from DynamoDB. Storing current intent log: {}", storedIntentLog.toStringPrintable());
-		} else {
-			log.info("Appending intent log items: {}",intentLog.toStringPrintable());
-	    	storedIntentLog.join(intentLog);
-		}
-		storedIntentLog.prune(12);
-		item.setIntentLog(storedIntentLog);
-        dynamoDbItemPersistence.saveOnlyIntentLog(item);
-        
+        userDataStore.addIntentCounts(userId, intentLog);
         log.info("Wrote intent log data to Dynamo DB: userId={} intentLog={}", userId, intentLog.toStringPrintable());
     }
+    
+    /**
+     * Starts appending given user intent log data into this user's Dynamo DB intent counts
+     * and returns without waiting for the write (see 
+     * {@link UserDataStore#addIntentCountsAsync(String, IntentLog)}).
+     * 
+	 * @param sessionDao {@link SessionDao} data access object for user data stored in 
+	 * 			current {@link com.amazon.speech.speechlet.Session}.
+     * @param intentLog {@link trashday.model.IntentLog}
+     * 			Log information to be appended into the user's database entry
+     * @return CompletableFuture completed when the counts are written, or completed
+     * 			exceptionally if they could not be
+     */
+    public CompletableFuture<Void> appendIntentLogDataAsync(SessionDao sessionDao, IntentLog intentLog) {
+    	log.trace("appendIntentLogDataAsync(intentLog={})", intentLog);
+    	if (intentLog == null) { return CompletableFuture.completedFuture(null); }
+    	
+        String userId = sessionDao.getUserId();
+        String printableLog = intentLog.toStringPrintable();
+        return userDataStore.addIntentCountsAsync(userId, intentLog).thenRun(
+        		() -> log.info("Wrote intent log data to Dynamo DB: userId={} intentLog={}", userId, printableLog));
+    }
         
     /**
      * Reads user data from Dynamo DB and stores in the {@link SessionDao}.
@@ -92,7 +107,7 @@ public class DynamoDao {
         DynamoItem item = new DynamoItem();
         String userId = sessionDao.getUserId();
         item.setCustomerId(userId);
-        item = dynamoDbItemPersistence.loadCompleteItem(item);
+        item = userDataStore.loadUserDataItem(item);
         if (item == null) {
         	log.info("No TrashDayDynamoItem available in DynamoDB for this user: {}", userId);
             return false;
@@ -100,6 +115,7 @@ public class DynamoDao {
         log.info("Read user data from Dynamo DB: userId={}", userId);
         
         // Load Calendar data from item into Session.
+        boolean upgraded = false;
 		Schedule schedule = item.getSchedule();
         Calendar calendar = item.getCalendar();
         if ( (schedule!=null) && (calendar==null) ) {
@@ -110,7 +126,19 @@ public class DynamoDao {
     		log.info("New calendar from Schedule={}", FormatUtils.printableCalendar(calendar, LocalDateTime.now()));
     		item.clearSchedule();
     		item.setCalendar(calendar);
-    		dynamoDbItemPersistence.saveCompleteItem(item);
+    		upgraded = true;
+        }
+        Calendar calendarText = item.getCalendarText();
+        if ( (calendarText != null) && (calendar == null) ) {
+        	// Copy from RFC 5545 text to binary calendar data.  The text is kept, so the
+        	// previous release still reads the calendar after a rollback.
+        	log.info("Copying calendar from text to binary data.");
+        	calendar = calendarText;
+        	item.setCalendar(calendar);
+        	upgraded = true;
+        }
+        if (upgraded) {
+        	saveUpgradedItem(item);
         }
 		if (calendar != null) {
     		log.info("Loaded calendar.");
@@ -130,10 +158,34 @@ public class DynamoDao {
         return true;
     }
 
+    /**
+     * Save the calendar of an item upgraded from the older Schedule or calendar text
+     * attributes.  The upgraded item was loaded with only the user data attributes, so
+     * the complete item is loaded again and saved with the Schedule removed.  This keeps
+     * the attributes the user data load skipped, such as the intent log.
+     * {@link DynamoItemPersistence} writes the calendar text along with the binary data.
+     * 
+     * @param upgradedItem {@link DynamoItem} from {@link UserDataStore#loadUserDataItem(DynamoItem)}
+     * 			with its calendar set and Schedule cleared
+     */
+    private void saveUpgradedItem(DynamoItem upgradedItem) {
+    	log.trace("saveUpgradedItem()");
+    	DynamoItem item = userDataStore.loadCompleteItem(upgradedItem);
+    	if (item == null) {
+    		log.info("saveUpgradedItem: Item removed before upgrade saved for userId={}", upgradedItem.getCustomerId());
+    		return;
+    	}
+    	item.setCalendar(upgradedItem.getCalendar());
+    	item.clearSchedule();
+    	userDataStore.saveCompleteItem(item);
+    }
+
     /**
      * Saves user data from the {@link SessionDao} into the Dynamo DB.  Does NOT write
      * intent log information.  Does NOT write Schedule information as that is deprecated and
      * Calendar is used instead.
+     * <p>
+     * Calendar event starts are rebased before saving.  See {@link #rebaseCalendar(SessionDao, Calendar)}.
      * 
 	 * @param sessionDao {@link SessionDao} data access object for user data stored in 
 	 * 			current {@link com.amazon.speech.speechlet.Session}.
@@ -143,6 +195,10 @@ public class DynamoDao {
     	
     	Calendar calendar = sessionDao.getCalendar();
     	TimeZone timeZone = sessionDao.getTimeZone();
+    	if (calendar != null) {
+    		// Stored calendar gets the rebased event starts.  Session keeps its copy as-is.
+    		rebaseCalendar(sessionDao, calendar);
+    	}
     	
         String userId = sessionDao.getUserId();
         DynamoItem item = new DynamoItem();
@@ -150,11 +206,37 @@ public class DynamoDao {
         item.setCalendar(calendar);
         item.setIntentLog(null);
         item.setTimeZone(timeZone);
-        dynamoDbItemPersistence.saveItem(item);
+        userDataStore.saveItem(item);
 
         log.info("Wrote user data to Dynamo DB: userId={}", userId);
     }
     
+    /**
+     * Move calendar event starts forward to their most recent occurrence before the
+     * current request, so next pickup calculations do not get slower as the calendar ages.
+     * Does nothing if the {@link SessionDao} does not know the request time.
+     * 
+	 * @param sessionDao {@link SessionDao} data access object for user data stored in 
+	 * 			current {@link com.amazon.speech.speechlet.Session}.
+     * @param calendar {@link trashday.model.Calendar} to be rebased
+     * @return Number of calendar events rebased
+     * @see trashday.model.Calendar#rebase(LocalDateTime)
+     */
+    protected int rebaseCalendar(SessionDao sessionDao, Calendar calendar) {
+    	log.trace("rebaseCalendar()");
+    	Date requestTimestamp = sessionDao.getRequestTimestamp();
+    	if (requestTimestamp == null) {
+    		return 0;
+    	}
+    	LocalDateTime ldtLimit = LocalDateTime.ofInstant(requestTimestamp.toInstant(), ZoneOffset.UTC)
+    			.minusHours(REBASE_MARGIN_HOURS);
+    	int rebaseCount = calendar.rebase(ldtLimit);
+    	if (rebaseCount > 0) {
+    		log.info("Rebased {} calendar events to start before {}", rebaseCount, ldtLimit);
+    	}
+    	return rebaseCount;
+    }
+    
     /**
      * Delete all user data when the clear their entire schedule.
      * 
@@ -167,8 +249,18 @@ public class DynamoDao {
         String userId = sessionDao.getUserId();
         DynamoItem item = new DynamoItem();
         item.setCustomerId(userId);
-        dynamoDbItemPersistence.eraseItem(item);
+        userDataStore.eraseItem(item);
+        userDataStore.eraseIntentLog(userId);
         log.info("Erased user data from Dynamo DB: userId={}", userId);
     }
+    
+    /**
+     * Prepare the {@link UserDataStore} for the first user's request
+     * (see {@link UserDataStore#warmUp()}).
+     */
+    public void warmUp() {
+    	log.trace("warmUp()");
+    	userDataStore.warmUp();
+    }
 
 }
@@ -14,20 +14,20 @@ import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTypeConverter;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
-import com.github.jonpeterson.jackson.module.versioning.VersioningModule;
 
 import net.fortuna.ical4j.data.ParserException;
 import trashday.model.Calendar;
+import trashday.model.CalendarCache;
+import trashday.model.CalendarData;
 import trashday.model.IntentLog;
+import trashday.model.JsonUtils;
 import trashday.model.Schedule;
 
 /**
  * Class for storing a table item for each application user
- * in a Dynamo DB table.  Each item contains the user {@link trashday.model.Schedule}
- * and {@link java.util.TimeZone} data.
+ * in a Dynamo DB table.  Each item contains the user {@link trashday.model.Calendar}
+ * and {@link java.util.TimeZone} data.  Older items may still hold a {@link trashday.model.Schedule}
+ * or a text form calendar; {@link DynamoDao#readUserData} upgrades those.
  * 
  * @author	J. Todd Baldwin
  */
@@ -37,24 +37,51 @@ public class DynamoItem {
 	/** Log object for this class */
     private static final Logger log = LoggerFactory.getLogger(DynamoItem.class);
     
+    /** Dynamo DB attribute name of the user's customer id (the table hash key). */
+    public static final String ATTR_CUSTOMER_ID = "CustomerId";
+    /** Dynamo DB attribute name of the user's binary calendar data. */
+    public static final String ATTR_CALENDAR_DATA = "CalendarData";
+    /** Dynamo DB attribute name of the user's older RFC 5545 text calendar. */
+    public static final String ATTR_CALENDAR_TEXT = "Calendar";
+    /** Dynamo DB attribute name of the older Json {@link trashday.model.IntentLog}. */
+    public static final String ATTR_INTENT_LOG = "IntentLog";
+    /** Dynamo DB attribute name of the user's older Json {@link trashday.model.Schedule}. */
+    public static final String ATTR_SCHEDULE = "Schedule";
+    /** Dynamo DB attribute name of the user's time zone. */
+    public static final String ATTR_TIME_ZONE = "TimeZone";
+    /** Dynamo DB attribute name of the item's update counter.  See {@link #getVersion()}. */
+    public static final String ATTR_VERSION = "Version";
+    /**
+     * Prefix of the Dynamo DB map attributes holding one year-week of intent counts,
+     * eg. "IntentCounts-2017-05" = { "tellSchedule": 2, "open": 1 }.  Counts are now kept in
+     * their own table (see {@link IntentLogPersistence}) and moved out of these attributes by
+     * {@link DynamoItemPersistence#moveIntentLogs()}.
+     */
+    public static final String ATTR_INTENT_COUNTS_PREFIX = "IntentCounts-";
+    /**
+     * Dynamo DB attribute name of a move of the item's intent counts still in progress,
+     * eg. { "Id": "...", "Log": "{...}" }.  Written by {@link DynamoItemPersistence#moveIntentLogs()}
+     * in place of the counts, and removed once they are in the intent log table.
+     */
+    public static final String ATTR_INTENT_LOG_MOVE = "IntentLogMove";
+    
     /** The user's customer id from {@link com.amazon.speech.speechlet.Session#getUser} */
     private String customerId;
     /** This user's Trash Day calendar. */
     private Calendar calendar;
+    /** This user's Trash Day calendar in the older RFC 5545 text attribute. */
+    private Calendar calendarText;
     /** The user's intent log. */
     private IntentLog intentLog;
     /** This user's Trash Day schedule. */
     private Schedule schedule;
     /** This user's TimeZone information. */
     private TimeZone timeZone;
+    /** Update counter of the stored item. */
+    private Long version;
     
-	/** A Jackson object mapper configured to handle Java 8 LocalDateTime objects and Jon Peterson's object versioning module. */
-    protected static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
- 		   .registerModule(new ParameterNamesModule())
- 		   .registerModule(new Jdk8Module())
- 		   .registerModule(new JavaTimeModule())
- 		   .registerModule(new VersioningModule())
- 		;
+	/** The shared Jackson object mapper (see {@link JsonUtils}). */
+    protected static final ObjectMapper OBJECT_MAPPER = JsonUtils.OBJECT_MAPPER;
 
 	/**
 	 * Make a new, empty {@link DynamoItem}.
@@ -62,9 +89,11 @@ public class DynamoItem {
 	public DynamoItem() {
 		this.customerId = null;
 		this.calendar = null;
+		this.calendarText = null;
 		this.intentLog = null;
 		this.schedule = null;
 		this.timeZone = null;
+		this.version = null;
 	}
 
 	/**
@@ -75,9 +104,11 @@ public class DynamoItem {
 	public DynamoItem(DynamoItem source) {
 		this.customerId = source.customerId;
 		this.calendar = source.calendar;
+		this.calendarText = source.calendarText;
 		this.intentLog = source.intentLog;
 		this.schedule = source.schedule;
 		this.timeZone = source.timeZone;
+		this.version = source.version;
 	}
 
     /**
@@ -89,30 +120,49 @@ public class DynamoItem {
      * 
      * @return User's id
      */
-    @DynamoDBHashKey(attributeName = "CustomerId")
+    @DynamoDBHashKey(attributeName = ATTR_CUSTOMER_ID)
     public String getCustomerId() {
     	log.trace("getCustomerId()={}", customerId);
         return customerId;
     }
 
     /**
-     * Get the schedule attribute.  After {@link DynamoDao#readUserData}
+     * Get the calendar attribute.  After {@link DynamoDao#readUserData}
      * has loaded the correct table item for this user into this
-     * object, use this getter to retrieve the {@link trashday.model.Schedule}
+     * object, use this getter to retrieve the {@link trashday.model.Calendar}
      * object for this user.
      * <p>
      * The DynamoDB directives specify how to serialize the
-     * {@link trashday.model.Schedule} object into the table's "Data" field.
+     * {@link trashday.model.Calendar} object into the table's binary "CalendarData" field.
      * 
-     * @return User's {@link trashday.model.Schedule}
+     * @return User's {@link trashday.model.Calendar}
      */
-    @DynamoDBAttribute(attributeName = "Calendar")
-    @DynamoDBTypeConverted(converter = CalendarConverter.class)
+    @DynamoDBAttribute(attributeName = ATTR_CALENDAR_DATA)
+    @DynamoDBTypeConverted(converter = CalendarDataConverter.class)
     public Calendar getCalendar() {
     	log.trace("getCalendar()={}", calendar);
         return calendar;
     }
     
+    /**
+     * Get the older, RFC 5545 text form of the calendar attribute.  Items written before
+     * the binary "CalendarData" field was introduced keep their calendar here.
+     * {@link DynamoDao#readUserData} copies it to {@link #getCalendar()}.  Saves still
+     * write it so the previous release can read it after a rollback.
+     * <p>
+     * The DynamoDB directives specify how to serialize the
+     * {@link trashday.model.Calendar} object into the table's "Calendar" field.
+     * 
+     * @return User's {@link trashday.model.Calendar} from the text field
+     */
+    @DynamoDBAttribute(attributeName = ATTR_CALENDAR_TEXT)
+    @DynamoDBTypeConverted(converter = CalendarConverter.class)
+    @Deprecated
+    public Calendar getCalendarText() {
+    	log.trace("getCalendarText()={}", calendarText);
+        return calendarText;
+    }
+    
     /**
      * Get the schedule attribute.  After {@link DynamoDao#readUserData}
      * has loaded the correct table item for this user into this
@@ -124,7 +174,7 @@ public class DynamoItem {
      * 
      * @return User's {@link trashday.model.IntentLog}
      */
-    @DynamoDBAttribute(attributeName = "IntentLog")
+    @DynamoDBAttribute(attributeName = ATTR_INTENT_LOG)
     @DynamoDBTypeConverted(converter = IntentLogConverter.class)
     public IntentLog getIntentLog() {
     	log.trace("getIntentLog()={}", intentLog);
@@ -142,7 +192,7 @@ public class DynamoItem {
      * 
      * @return User's {@link trashday.model.Schedule}
      */
-    @DynamoDBAttribute(attributeName = "Schedule")
+    @DynamoDBAttribute(attributeName = ATTR_SCHEDULE)
     @DynamoDBTypeConverted(converter = ScheduleConverter.class)
     @Deprecated
     public Schedule getSchedule() {
@@ -158,12 +208,34 @@ public class DynamoItem {
      * 
      * @return User's {@link java.util.TimeZone}
      */
-    @DynamoDBAttribute(attributeName = "TimeZone")
+    @DynamoDBAttribute(attributeName = ATTR_TIME_ZONE)
     public TimeZone getTimeZone() {
     	log.trace("getTimeZone()={}", timeZone);
     	return timeZone;
     }
     
+    /**
+     * Get the update counter of the stored item.  Every save through
+     * {@link DynamoItemPersistence} adds one to it on the server, so an unchanged
+     * counter means an unchanged item.  Items saved before the counter was added have none.
+     * 
+     * @return item version, or null if the item has never been saved with one
+     */
+    @DynamoDBAttribute(attributeName = ATTR_VERSION)
+    public Long getVersion() {
+    	log.trace("getVersion()={}", version);
+    	return version;
+    }
+    
+    /**
+     * Clear the older, RFC 5545 text form of the calendar attribute.
+     */
+    @Deprecated
+    public void clearCalendarText() {
+    	log.trace("clearCalendarText()");
+    	this.calendarText = null;
+    }
+    
     /**
      * Clear the intentLog attribute.
      */
@@ -203,6 +275,18 @@ public class DynamoItem {
         this.calendar = calendar;
     }
     
+    /**
+     * Set the older, RFC 5545 text form of the calendar attribute.  Only used by
+     * the database mapper when loading items.  Write calendars with {@link #setCalendar(Calendar)}.
+     * 
+     * @param calendarText Calendar data from the text field
+     */
+    @Deprecated
+    public void setCalendarText(Calendar calendarText) {
+    	log.trace("setCalendarText({})", calendarText);
+        this.calendarText = calendarText;
+    }
+    
     /**
      * Set the intentLog attribute.  Used to set the correct
      * information before a database save request ({@link DynamoDao#writeUserData}).
@@ -238,7 +322,50 @@ public class DynamoItem {
     }
     
     /**
-     * Class to handle serialization for {@link trashday.model.Calendar} objects.
+     * Set the update counter.  Only loads set this; saves replace it with the
+     * counter stored on the server.
+     * 
+     * @param version item version
+     */
+    public void setVersion(Long version) {
+    	log.trace("setVersion({})", version);
+    	this.version = version;
+    }
+    
+    /**
+     * Class to handle binary serialization for {@link trashday.model.Calendar} objects.
+     * Relies on {@link trashday.model.CalendarData} for the versioned CBOR encoding.
+     * 
+     * @author J. Todd Baldwin
+     */
+    public static class CalendarDataConverter implements DynamoDBTypeConverter<byte[], Calendar> {
+    	/**
+    	 * Actually serialize a {@link trashday.model.Calendar} object.
+    	 */
+    	@Override
+    	public byte[] convert(Calendar calendar) {
+			log.trace("convert: {}", calendar);
+			return CalendarData.encode(calendar);
+    	}
+
+    	/**
+    	 * Actually de-serialize a {@link trashday.model.Calendar} object.
+    	 */
+    	@Override
+    	public Calendar unconvert(byte[] value) {
+			log.trace("unconvert: {} bytes", value.length);
+			try {
+				return CalendarCache.getShared().get(value);
+			} catch (IOException ex) {
+    			throw new IllegalStateException("Unable to convert calendar value from storage data."+ex.getMessage());
+			} catch (ParserException ex) {
+    			throw new IllegalStateException("Unable to convert calendar value from storage data."+ex.getMessage());
+			}
+    	}
+   	}    
+
+    /**
+     * Class to handle RFC 5545 text serialization for {@link trashday.model.Calendar} objects.
      * 
      * @author J. Todd Baldwin
      */
@@ -265,7 +392,7 @@ public class DynamoItem {
 				if ("(empty)".equals(value.trim())) {
 					return new Calendar();
 				}
-				return new Calendar(value);
+				return CalendarCache.getShared().get(value);
 			} catch (IOException ex) {
     			throw new IllegalStateException("Unable to convert calendar value from storage string."+ex.getMessage());
 			} catch (ParserException ex) {
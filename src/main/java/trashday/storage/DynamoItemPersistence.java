@@ -1,5 +1,15 @@
 package trashday.storage;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -9,15 +19,27 @@ import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.Builder;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.SaveBehavior;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.TableNameOverride;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperTableModel;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.ReturnValue;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+
+import trashday.model.Calendar;
+import trashday.model.IntentLog;
 
 /**
  * Client for DynamoDB persistence layer for the Trash Day 
  * skill.  Handles save/load of specific users' {@link trashday.model.Schedule}
- * data in Amazon's Dynamo DB.
+ * data in Amazon's Dynamo DB.  This is the {@link UserDataStore} the skill uses.
  * 
  * @author	J. Todd Baldwin
  */
-public class DynamoItemPersistence {
+public class DynamoItemPersistence implements UserDataStore {
 	/** Log object for this class */
     private static final Logger log = LoggerFactory.getLogger(DynamoItemPersistence.class);
     
@@ -25,6 +47,28 @@ public class DynamoItemPersistence {
     private final AmazonDynamoDBClient dynamoDbLowLevel;
     /** Override the Dynamo DB Table Name, if defined.  Used for JUnit testing. */
     private String tableNameOverride = null;
+    /**
+     * Mapper for all load and erase calls, and to convert items for saves.  {@link DynamoDBMapper}
+     * is thread-safe and caches its reflection model of {@link DynamoItem}, so one is built with
+     * this object (at container start, see {@link trashday.TrashDaySpeechletRequestStreamHandler})
+     * and shared.
+     */
+    private final DynamoDBMapper mapper;
+    /** Per-call configuration for saves that skip null attributes. */
+    private static final DynamoDBMapperConfig SAVE_SKIP_NULL_ATTRIBUTES = SaveBehavior.UPDATE_SKIP_NULL_ATTRIBUTES.config();
+    /** Attributes written by {@link #saveItem(DynamoItem)} and {@link #saveCompleteItem(DynamoItem)}. */
+    private static final String[] SAVED_ATTRIBUTES = { DynamoItem.ATTR_CALENDAR_DATA, DynamoItem.ATTR_CALENDAR_TEXT, 
+    		DynamoItem.ATTR_INTENT_LOG, DynamoItem.ATTR_SCHEDULE, DynamoItem.ATTR_TIME_ZONE };
+    /** Users' calendar and time zone kept across requests.  See {@link UserItemCache}. */
+    private final UserItemCache userItemCache = new UserItemCache(UserItemCache.DEFAULT_CAPACITY, UserItemCache.DEFAULT_TIME_TO_LIVE_MILLIS);
+    /** Suffix added to a table name override to name the intent log table used with it. */
+    public static final String INTENT_LOG_TABLE_SUFFIX = "-IntentLog";
+    /** Intent counts, kept in their own table.  See {@link IntentLogPersistence}. */
+    private final IntentLogPersistence intentLogPersistence;
+    /** Field of a {@link DynamoItem#ATTR_INTENT_LOG_MOVE} holding the move id. */
+    private static final String MOVE_ID = "Id";
+    /** Field of a {@link DynamoItem#ATTR_INTENT_LOG_MOVE} holding the moved counts as Json. */
+    private static final String MOVE_LOG = "Log";
 
     /**
      * Create a new DB client to save/load user Schedules in
@@ -37,6 +81,8 @@ public class DynamoItemPersistence {
     	log.trace("TrashDayDynamoDbClient()");
         this.dynamoDbLowLevel = dynamoDBClient;
         this.tableNameOverride = null;
+        this.mapper = createDynamoDBMapper();
+        this.intentLogPersistence = new IntentLogPersistence(dynamoDBClient, null);
     }
 
     /**
@@ -48,18 +94,22 @@ public class DynamoItemPersistence {
      * @param tableNameOverride String table name used by JUnit tests to ensure they do not
      * 				write to the Production table name (which is hard-coded using {@literal @}DynamoDBTable in
      * 				{@link trashday.storage.DynamoItem}).  A null value indicates no override.
-     * 				Any other value is the Dynamo table name to be used.
+     * 				Any other value is the Dynamo table name to be used, and its intent log
+     * 				table is named with {@link #INTENT_LOG_TABLE_SUFFIX} added.
      */
     public DynamoItemPersistence(final AmazonDynamoDBClient dynamoDBClient, final String tableNameOverride) {
     	log.trace("TrashDayDynamoDbClient()");
         this.dynamoDbLowLevel = dynamoDBClient;
         this.tableNameOverride = tableNameOverride;
+        this.mapper = createDynamoDBMapper();
+        this.intentLogPersistence = new IntentLogPersistence(dynamoDBClient, 
+        		(tableNameOverride == null) ? null : tableNameOverride + INTENT_LOG_TABLE_SUFFIX);
     }
 
     /**
      * Creates a {@link DynamoDBMapper} using the default
      * configurations and, optionally, overriding the table
-     * used to store items.
+     * used to store items.  Called once, by the constructor.
      * 
      * @return Mapper to allow persisting
      * 			{@link DynamoItem} objects to a Dynamo DB
@@ -97,7 +147,6 @@ public class DynamoItemPersistence {
     		log.error("loadCompleteItem failed due to null tableItem");
     		return null;
     	}
-    	DynamoDBMapper mapper = createDynamoDBMapper();
     	DynamoItem item = mapper.load(tableItem);
     	if (item==null) {
     		log.info("loadCompleteItem failed for userId={}", tableItem.getCustomerId());
@@ -105,6 +154,100 @@ public class DynamoItemPersistence {
         return item;
     }
 
+    /**
+     * Loads only the attributes request handling uses: calendar (current and older forms),
+     * time zone and older schedule.  Intent log data is not read.
+     * <p>
+     * Reads through the {@link UserItemCache}.  When this container has the user's data
+     * cached, the cached data is used without reading Dynamo DB.  A save made by another
+     * container is seen once the entry expires, at most
+     * {@link UserItemCache#DEFAULT_TIME_TO_LIVE_MILLIS} later.
+     * 
+     * @param tableItem DynamoItem
+     * 			Item with customer id already set based on
+     * 			user's {@link com.amazon.speech.speechlet.Session} data.
+     * @return
+     * 			{@link DynamoItem} with the user data attributes populated from the Dynamo DB entry for 
+     * 			the given customer id.  Or null if no item exists for this customer id.
+     */
+    public DynamoItem loadUserDataItem(final DynamoItem tableItem) {
+    	log.trace("loadUserDataItem()");
+    	if (tableItem==null) {
+    		log.error("loadUserDataItem failed due to null tableItem");
+    		return null;
+    	}
+    	String customerId = tableItem.getCustomerId();
+    	String cacheKey = cacheKey(customerId);
+    	UserItemCache.Entry cached = userItemCache.lookup(cacheKey);
+    	if (cached != null) {
+    		log.debug("loadUserDataItem: Using cached data at version={}. {}", cached.getVersion(), userItemCache);
+    		return cached.toItem(customerId);
+    	}
+    	
+    	Map<String, AttributeValue> attributes = loadProjectedAttributes(customerId, DynamoItem.ATTR_CALENDAR_DATA, 
+    			DynamoItem.ATTR_CALENDAR_TEXT, DynamoItem.ATTR_SCHEDULE, DynamoItem.ATTR_TIME_ZONE, DynamoItem.ATTR_VERSION);
+    	if (attributes==null) {
+    		return null;
+    	}
+    	if (attributes.containsKey(DynamoItem.ATTR_CALENDAR_DATA)) {
+    		// The text copy is only kept for the previous release.  Skip parsing it.
+    		attributes.remove(DynamoItem.ATTR_CALENDAR_TEXT);
+    	}
+    	cacheUserData(cacheKey, getVersion(attributes), attributes);
+    	log.debug("loadUserDataItem: {}", userItemCache);
+    	return mapper.marshallIntoObject(DynamoItem.class, attributes);
+    }
+    
+    /**
+     * Loads only the older Json intent log attribute, for analytics.  The year-week
+     * intent counts are read with {@link #loadIntentLog(String)}.
+     * 
+     * @param tableItem DynamoItem
+     * 			Item with customer id already set.
+     * @return
+     * 			{@link DynamoItem} with only the intent log populated from the Dynamo DB entry for 
+     * 			the given customer id.  Or null if no item exists for this customer id.
+     */
+    public DynamoItem loadIntentLogItem(final DynamoItem tableItem) {
+    	log.trace("loadIntentLogItem()");
+    	if (tableItem==null) {
+    		log.error("loadIntentLogItem failed due to null tableItem");
+    		return null;
+    	}
+    	Map<String, AttributeValue> attributes = loadProjectedAttributes(tableItem.getCustomerId(), DynamoItem.ATTR_INTENT_LOG);
+    	if (attributes==null) {
+    		return null;
+    	}
+    	return mapper.marshallIntoObject(DynamoItem.class, attributes);
+    }
+    
+    /**
+     * Loads the named attributes of an item with a projected GetItem.
+     * 
+     * @param customerId String user id
+     * @param attributeNames Dynamo DB attribute names to read.  The customer id is always read.
+     * @return Map of the item's attributes, or null if no item exists for this customer id.
+     */
+    private Map<String, AttributeValue> loadProjectedAttributes(String customerId, String... attributeNames) {
+    	StringBuilder projection = new StringBuilder("#id");
+    	Map<String, String> names = new HashMap<String, String>();
+    	names.put("#id", DynamoItem.ATTR_CUSTOMER_ID);
+    	for (int i=0; i<attributeNames.length; i++) {
+    		projection.append(", #a").append(i);
+    		names.put("#a"+i, attributeNames[i]);
+    	}
+    	GetItemRequest request = new GetItemRequest()
+    			.withTableName(getTableName())
+    			.withKey(itemKey(customerId))
+    			.withProjectionExpression(projection.toString())
+    			.withExpressionAttributeNames(names);
+    	Map<String, AttributeValue> attributes = dynamoDbLowLevel.getItem(request).getItem();
+    	if (attributes==null) {
+    		log.info("loadProjectedAttributes: No item for userId={}", customerId);
+    	}
+    	return attributes;
+    }
+
     /**
      * Stores an item (skipping null item attributes) to DynamoDB.  Used to update database item when
      * caller does not care about certain fields.  Always skips setting the IntentLog attribute.
@@ -118,11 +261,10 @@ public class DynamoItemPersistence {
     @SuppressWarnings("deprecation")
 	public void saveItem(final DynamoItem tableItem) {
     	log.trace("saveItem()");
-    	DynamoDBMapper mapper = createDynamoDBMapper();
     	DynamoItem item = new DynamoItem(tableItem);
     	item.clearSchedule();  // Ensure we never write Schedule entries again.
     	item.clearIntentLog(); // Never save intent log information as part of normal save process.
-		mapper.save(item, SaveBehavior.UPDATE_SKIP_NULL_ATTRIBUTES.config() );
+    	saveVersioned(item, false);
     }
     
     /**
@@ -139,13 +281,163 @@ public class DynamoItemPersistence {
      */
     public void saveCompleteItem(final DynamoItem tableItem) {
     	log.trace("saveCompleteItem()");
-    	DynamoDBMapper mapper = createDynamoDBMapper();
-    	DynamoItem item = new DynamoItem(tableItem);
-		mapper.save(item);
+    	saveVersioned(new DynamoItem(tableItem), true);
+    }
+    
+    /**
+     * Build the {@link DynamoDBMapper} table model for {@link DynamoItem} and its attribute
+     * converters by converting an example item to attributes and back.  Makes no calls to
+     * Dynamo DB.
+     */
+    @Override
+    public void warmUp() {
+    	log.trace("warmUp()");
+    	Calendar calendar = new Calendar();
+    	calendar.initBasicExampleCalendar();
+    	IntentLog intentLog = new IntentLog();
+    	intentLog.incrementIntent("2017-01", "TellNextPickupIntent", 1);
+    	DynamoItem item = new DynamoItem();
+    	item.setCustomerId("cold-start-example");
+    	item.setCalendar(calendar);
+    	item.setTimeZone(TimeZone.getTimeZone("US/Eastern"));
+    	item.setIntentLog(intentLog);
+    	DynamoDBMapperTableModel<DynamoItem> model = mapper.getTableModel(DynamoItem.class);
+    	model.unconvert(model.convert(item));
+    }
+
+    /**
+     * Save an item's attributes and add one to its version (see {@link DynamoItem#getVersion()})
+     * in a single UpdateItem.  The attributes are converted by the {@link DynamoDBMapper}, so
+     * they are stored as a mapper save would store them.  The {@link UserItemCache} is
+     * updated with the saved data when the new version shows what the whole item holds.
+     * <p>
+     * The calendar is also written to the older text attribute, so the previous release,
+     * which reads only the text, still finds the current calendar after a rollback.  The
+     * text copy is to be dropped in a later release once rolling back past this one is
+     * no longer needed.
+     * 
+     * @param item DynamoItem to save.  Its calendar text is replaced.
+     * @param removeNullAttributes true to remove attributes that are null in the item,
+     * 			as {@link SaveBehavior#UPDATE} does.  false to leave them, as
+     * 			{@link SaveBehavior#UPDATE_SKIP_NULL_ATTRIBUTES} does.
+     * @return new item version
+     */
+    @SuppressWarnings("deprecation")
+    private long saveVersioned(DynamoItem item, boolean removeNullAttributes) {
+    	String customerId = item.getCustomerId();
+    	item.setCalendarText(item.getCalendar());
+    	Map<String, AttributeValue> attributes = mapper.getTableModel(DynamoItem.class).convert(item);
+    	StringBuilder setExpression = new StringBuilder();
+    	StringBuilder removeExpression = new StringBuilder();
+    	Map<String, String> names = new HashMap<String, String>();
+    	Map<String, AttributeValue> values = new HashMap<String, AttributeValue>();
+    	for (int i=0; i<SAVED_ATTRIBUTES.length; i++) {
+    		AttributeValue value = attributes.get(SAVED_ATTRIBUTES[i]);
+    		if (value != null) {
+    			setExpression.append( (setExpression.length()==0) ? " SET " : ", " ).append("#a").append(i).append(" = :a").append(i);
+    			values.put(":a"+i, value);
+    		} else if (removeNullAttributes) {
+    			removeExpression.append( (removeExpression.length()==0) ? " REMOVE " : ", " ).append("#a").append(i);
+    		} else {
+    			continue;
+    		}
+    		names.put("#a"+i, SAVED_ATTRIBUTES[i]);
+    	}
+    	names.put("#ver", DynamoItem.ATTR_VERSION);
+    	values.put(":one", new AttributeValue().withN("1"));
+    	UpdateItemRequest request = new UpdateItemRequest()
+    			.withTableName(getTableName())
+    			.withKey(itemKey(customerId))
+    			.withUpdateExpression("ADD #ver :one" + setExpression + removeExpression)
+    			.withExpressionAttributeNames(names)
+    			.withExpressionAttributeValues(values)
+    			.withReturnValues(ReturnValue.UPDATED_NEW);
+    	long version = getVersion(dynamoDbLowLevel.updateItem(request).getAttributes());
+    	log.debug("saveVersioned: userId={} version={}", customerId, version);
+    	
+    	String cacheKey = cacheKey(customerId);
+    	if (removeNullAttributes) {
+    		cacheUserData(cacheKey, version, attributes);
+    	} else {
+    		// Only the attributes saved are known.  The rest are known if this container
+    		// has the version just before this save.
+    		UserItemCache.Entry previous = userItemCache.peek(cacheKey);
+    		if (previous == null) {
+    			userItemCache.invalidate(cacheKey);
+    		} else if (previous.getVersion() != version - 1) {
+    			// Another container saved since this entry was stored.
+    			userItemCache.invalidateStale(cacheKey);
+    		} else {
+    			Map<String, AttributeValue> merged = new HashMap<String, AttributeValue>();
+    			if (previous.getCalendarData() != null) {
+    				merged.put(DynamoItem.ATTR_CALENDAR_DATA, new AttributeValue().withB(ByteBuffer.wrap(previous.getCalendarData())));
+    			}
+    			if (previous.getTimeZoneId() != null) {
+    				merged.put(DynamoItem.ATTR_TIME_ZONE, new AttributeValue(previous.getTimeZoneId()));
+    			}
+    			merged.putAll(attributes);
+    			cacheUserData(cacheKey, version, merged);
+    		}
+    	}
+    	return version;
+    }
+    
+    /**
+     * Get the version from an item's attributes.
+     * 
+     * @param attributes Map of item attributes
+     * @return item version, or null if the item has none
+     */
+    private static Long getVersion(Map<String, AttributeValue> attributes) {
+    	AttributeValue version = attributes.get(DynamoItem.ATTR_VERSION);
+    	if ( (version == null) || (version.getN() == null) ) {
+    		return null;
+    	}
+    	return Long.valueOf(version.getN());
+    }
+    
+    /**
+     * Get the {@link UserItemCache} key of a user's item in this table.
+     * 
+     * @param customerId String user id
+     * @return cache key
+     */
+    private String cacheKey(String customerId) {
+    	return getTableName() + "/" + customerId;
+    }
+    
+    /**
+     * Cache a user's calendar and time zone from an item's attributes.  Items without a
+     * version, or still holding the older Schedule or only the calendar text that
+     * {@link DynamoDao#readUserData(SessionDao)} upgrades, are not cached.
+     * 
+     * @param cacheKey String cache key
+     * @param version item version the attributes were read or saved at
+     * @param attributes Map of item attributes
+     */
+    private void cacheUserData(String cacheKey, Long version, Map<String, AttributeValue> attributes) {
+    	if ( (version == null) || attributes.containsKey(DynamoItem.ATTR_SCHEDULE) || 
+    			( attributes.containsKey(DynamoItem.ATTR_CALENDAR_TEXT) && !attributes.containsKey(DynamoItem.ATTR_CALENDAR_DATA) ) ) {
+    		userItemCache.invalidate(cacheKey);
+    		return;
+    	}
+    	byte[] calendarData = null;
+    	AttributeValue calendarValue = attributes.get(DynamoItem.ATTR_CALENDAR_DATA);
+    	if (calendarValue != null) {
+    		ByteBuffer buffer = calendarValue.getB().duplicate();
+    		calendarData = new byte[buffer.remaining()];
+    		buffer.get(calendarData);
+    	}
+    	AttributeValue timeZoneValue = attributes.get(DynamoItem.ATTR_TIME_ZONE);
+    	String timeZoneId = (timeZoneValue == null) ? null : timeZoneValue.getS();
+    	userItemCache.put(cacheKey, version, calendarData, timeZoneId);
     }
     
     /**
      * Stores the *only* intent log component of an item to DynamoDB.
+     * <p>
+     * Writes the older, Json "IntentLog" attribute.  Sessions now use 
+     * {@link #addIntentCounts(String, IntentLog)}.
      * 
      * @param tableItem DynamoItem
      * 			Item with customer id already set based on
@@ -153,13 +445,299 @@ public class DynamoItemPersistence {
      * 			already set based on a previous load or user
      * 			updates.
      */
+    @Deprecated
 	public void saveOnlyIntentLog(final DynamoItem tableItem) {
     	log.trace("saveItem()");
     	DynamoItem item = new DynamoItem();
     	item.setCustomerId(tableItem.getCustomerId());
     	item.setIntentLog(tableItem.getIntentLog());
-    	DynamoDBMapper mapper = createDynamoDBMapper();
-		mapper.save(item, SaveBehavior.UPDATE_SKIP_NULL_ATTRIBUTES.config() );
+		mapper.save(item, SAVE_SKIP_NULL_ATTRIBUTES);
+    }
+    
+    /**
+     * Get the Dynamo DB connection used by this object.
+     * 
+     * @return AmazonDynamoDBClient connection
+     */
+    protected AmazonDynamoDBClient getDynamoDbClient() {
+    	return dynamoDbLowLevel;
+    }
+    
+    /**
+     * Get the name of the Dynamo DB table holding the {@link DynamoItem} entries.
+     * 
+     * @return the table name override, if defined.  Otherwise, the {@literal @}{@link DynamoDBTable}
+     * 			name of {@link DynamoItem}.
+     */
+    protected String getTableName() {
+    	if (tableNameOverride != null) {
+    		return tableNameOverride;
+    	}
+    	return DynamoItem.class.getAnnotation(DynamoDBTable.class).tableName();
+    }
+    
+    /**
+     * Get the cache of users' calendar and time zone, for its statistics.
+     * 
+     * @return {@link UserItemCache} for this table
+     */
+    public UserItemCache getUserItemCache() {
+    	return userItemCache;
+    }
+    
+    /**
+     * Get the object holding users' intent counts in their own table.
+     * 
+     * @return {@link IntentLogPersistence} for the intent log table
+     */
+    public IntentLogPersistence getIntentLogPersistence() {
+    	return intentLogPersistence;
+    }
+    
+    /**
+     * Create the primary key of a user's item for low-level requests.
+     * 
+     * @param customerId String user id
+     * @return Map holding the item key
+     */
+    private static Map<String, AttributeValue> itemKey(String customerId) {
+    	return Collections.singletonMap(DynamoItem.ATTR_CUSTOMER_ID, new AttributeValue(customerId));
+    }
+    
+    /**
+     * Add the counts in an {@link trashday.model.IntentLog} to the user's year-week items
+     * in the intent log table.  See {@link IntentLogPersistence#addIntentCounts(String, IntentLog)}.
+     * 
+     * @param customerId String user id
+     * @param intentLog {@link trashday.model.IntentLog} counts to add
+     */
+    public void addIntentCounts(String customerId, IntentLog intentLog) {
+    	log.trace("addIntentCounts(customerId={})", customerId);
+    	intentLogPersistence.addIntentCounts(customerId, intentLog);
+    }
+    
+    /**
+     * Start adding the counts in an {@link trashday.model.IntentLog} to the user's year-week items.
+     * See {@link IntentLogPersistence#addIntentCountsAsync(String, IntentLog)}.
+     * 
+     * @param customerId String user id
+     * @param intentLog {@link trashday.model.IntentLog} counts to add
+     * @return CompletableFuture completed when the counts are written
+     */
+    public CompletableFuture<Void> addIntentCountsAsync(String customerId, IntentLog intentLog) {
+    	log.trace("addIntentCountsAsync(customerId={})", customerId);
+    	return intentLogPersistence.addIntentCountsAsync(customerId, intentLog);
+    }
+    
+    /**
+     * Load all intent counts stored for a user: the year-week items in the intent log table
+     * and any counts not yet moved out of the user's item (see {@link #moveIntentLogs()}).
+     * 
+     * @param customerId String user id
+     * @return {@link trashday.model.IntentLog} with all stored counts.  Empty if none stored.
+     */
+    public IntentLog loadIntentLog(String customerId) {
+    	log.trace("loadIntentLog(customerId={})", customerId);
+    	IntentLog intentLog = intentLogPersistence.loadIntentLog(customerId);
+    	GetItemRequest request = new GetItemRequest()
+    			.withTableName(getTableName())
+    			.withKey(itemKey(customerId))
+    			.withConsistentRead(true);
+    	Map<String, AttributeValue> item = dynamoDbLowLevel.getItem(request).getItem();
+    	if (item != null) {
+    		intentLog.join(toIntentLog(item));
+    	}
+    	return intentLog;
+    }
+    
+    /**
+     * Collect the intent counts held in a low-level user item: the older Json "IntentLog"
+     * attribute and year-week map attributes.
+     * 
+     * @param item Map of item attributes
+     * @return {@link trashday.model.IntentLog} with all counts in the item
+     */
+    private static IntentLog toIntentLog(Map<String, AttributeValue> item) {
+    	IntentLog intentLog = new IntentLog();
+    	AttributeValue legacy = item.get(DynamoItem.ATTR_INTENT_LOG);
+    	if ( (legacy != null) && (legacy.getS() != null) ) {
+    		intentLog.join(new DynamoItem.IntentLogConverter().unconvert(legacy.getS()));
+    	}
+    	for (Map.Entry<String, AttributeValue> attribute : item.entrySet()) {
+    		String name = attribute.getKey();
+    		Map<String, AttributeValue> counts = attribute.getValue().getM();
+    		if ( (! name.startsWith(DynamoItem.ATTR_INTENT_COUNTS_PREFIX)) || (counts == null) ) {
+    			continue;
+    		}
+    		String yearWeek = name.substring(DynamoItem.ATTR_INTENT_COUNTS_PREFIX.length());
+    		for (Map.Entry<String, AttributeValue> count : counts.entrySet()) {
+    			intentLog.incrementIntent(yearWeek, count.getKey(), Integer.valueOf(count.getValue().getN()));
+    		}
+    	}
+    	return intentLog;
+    }
+    
+    /**
+     * Move every user's intent counts out of their item and into year-week items in
+     * the intent log table.  The older Json "IntentLog" and year-week map attributes
+     * are removed.  Only each user's {@link IntentLogPersistence#WEEKS_TO_KEEP} most 
+     * recent year-weeks are moved.
+     * <p>
+     * Each user's counts are moved in three steps, any of which may be retried by a
+     * later run:
+     * <ol>
+     * <li>One conditional write replaces the counts in the item with a
+     * 		{@link DynamoItem#ATTR_INTENT_LOG_MOVE} attribute holding them and a new move id.
+     * 		Nothing is written if the counts changed since the scan.
+     * <li>The counts are added to the intent log table with
+     * 		{@link IntentLogPersistence#addMovedIntentCounts(String, IntentLog, String)}, which
+     * 		skips year-weeks that already hold the move id.
+     * <li>The move attribute is removed, only if it is still the same move.
+     * </ol>
+     * So counts are never lost or added twice.  If the item was erased during the move, the
+     * year-week items it added to are deleted again so an erased user's counts stay erased.
+     * Counts of a move still in progress are not included in {@link #loadIntentLog(String)}.
+     * <p>
+     * Scans the whole table, so this runs as a separate job (see {@link IntentLogMigration})
+     * rather than during user sessions.
+     * 
+     * @return number of items changed
+     */
+    public int moveIntentLogs() {
+    	log.trace("moveIntentLogs()");
+    	int moved = 0;
+    	Map<String, AttributeValue> startKey = null;
+    	do {
+    		ScanRequest request = new ScanRequest()
+    				.withTableName(getTableName())
+    				.withExclusiveStartKey(startKey);
+    		ScanResult result = dynamoDbLowLevel.scan(request);
+    		for (Map<String, AttributeValue> item : result.getItems()) {
+    			if (moveIntentLog(item)) {
+    				moved++;
+    			}
+    		}
+    		startKey = result.getLastEvaluatedKey();
+    	} while ( (startKey != null) && (! startKey.isEmpty()) );
+    	log.info("moveIntentLogs: Moved {} items.", moved);
+    	return moved;
+    }
+    
+    /**
+     * Move one user's intent counts to the intent log table, or finish a move an
+     * earlier run started.
+     * 
+     * @param item Map of item attributes, as scanned
+     * @return true if the counts were moved
+     */
+    private boolean moveIntentLog(Map<String, AttributeValue> item) {
+    	String customerId = item.get(DynamoItem.ATTR_CUSTOMER_ID).getS();
+    	AttributeValue move = item.get(DynamoItem.ATTR_INTENT_LOG_MOVE);
+    	if (move == null) {
+    		move = startIntentLogMove(customerId, item);
+    		if (move == null) {
+    			return false;
+    		}
+    	}
+    	return finishIntentLogMove(customerId, move);
+    }
+    
+    /**
+     * Replace the intent counts in a user's item with a {@link DynamoItem#ATTR_INTENT_LOG_MOVE}
+     * attribute holding them, in one write, only if the counts are still the ones scanned.
+     * 
+     * @param customerId String user id
+     * @param item Map of item attributes, as scanned
+     * @return the move attribute written, or null if there was nothing to move or the item changed
+     */
+    private AttributeValue startIntentLogMove(String customerId, Map<String, AttributeValue> item) {
+    	List<String> removeNames = new ArrayList<String>();
+    	for (String name : item.keySet()) {
+    		if (name.startsWith(DynamoItem.ATTR_INTENT_COUNTS_PREFIX)) {
+    			removeNames.add(name);
+    		}
+    	}
+    	AttributeValue legacy = item.get(DynamoItem.ATTR_INTENT_LOG);
+    	if (legacy != null) {
+    		removeNames.add(DynamoItem.ATTR_INTENT_LOG);
+    	}
+    	if (removeNames.isEmpty()) {
+    		return null;
+    	}
+    	
+    	IntentLog intentLog = toIntentLog(item);
+    	intentLog.prune(IntentLogPersistence.WEEKS_TO_KEEP);
+    	Map<String, AttributeValue> moveFields = new HashMap<String, AttributeValue>();
+    	moveFields.put(MOVE_ID, new AttributeValue(UUID.randomUUID().toString()));
+    	moveFields.put(MOVE_LOG, new AttributeValue(new DynamoItem.IntentLogConverter().convert(intentLog)));
+    	AttributeValue move = new AttributeValue().withM(moveFields);
+    	
+    	StringBuilder expression = new StringBuilder();
+    	Map<String, String> names = new HashMap<String, String>();
+    	Map<String, AttributeValue> values = new HashMap<String, AttributeValue>();
+    	StringBuilder condition = new StringBuilder("attribute_not_exists(#mv)");
+    	for (int i=0; i<removeNames.size(); i++) {
+    		String name = removeNames.get(i);
+    		expression.append( (i==0) ? "REMOVE " : ", " ).append("#r").append(i);
+    		condition.append(" AND #r").append(i).append(" = :r").append(i);
+    		names.put("#r"+i, name);
+    		values.put(":r"+i, item.get(name));
+    	}
+    	expression.append(" SET #mv = :mv");
+    	names.put("#mv", DynamoItem.ATTR_INTENT_LOG_MOVE);
+    	values.put(":mv", move);
+    	UpdateItemRequest request = new UpdateItemRequest()
+    			.withTableName(getTableName())
+    			.withKey(itemKey(customerId))
+    			.withUpdateExpression(expression.toString())
+    			.withConditionExpression(condition.toString())
+    			.withExpressionAttributeNames(names)
+    			.withExpressionAttributeValues(values);
+    	try {
+    		dynamoDbLowLevel.updateItem(request);
+    	} catch (ConditionalCheckFailedException e) {
+    		log.warn("startIntentLogMove: Item changed after it was scanned, counts kept in item userId={}", customerId);
+    		return null;
+    	}
+    	log.info("startIntentLogMove: userId={} removed={}", customerId, removeNames);
+    	return move;
+    }
+    
+    /**
+     * Add the counts of a move to the intent log table and then remove the move from the
+     * user's item.  If the item was erased meanwhile, the counts added are deleted again.
+     * 
+     * @param customerId String user id
+     * @param move {@link DynamoItem#ATTR_INTENT_LOG_MOVE} attribute value
+     * @return true if the move was finished by this call
+     */
+    private boolean finishIntentLogMove(String customerId, AttributeValue move) {
+    	String moveId = move.getM().get(MOVE_ID).getS();
+    	IntentLog intentLog = new DynamoItem.IntentLogConverter().unconvert(move.getM().get(MOVE_LOG).getS());
+    	intentLogPersistence.addMovedIntentCounts(customerId, intentLog, moveId);
+    	
+    	Map<String, AttributeValue> values = new HashMap<String, AttributeValue>();
+    	values.put(":mv", move);
+    	UpdateItemRequest request = new UpdateItemRequest()
+    			.withTableName(getTableName())
+    			.withKey(itemKey(customerId))
+    			.withUpdateExpression("REMOVE #mv")
+    			.withConditionExpression("#mv = :mv")
+    			.withExpressionAttributeNames(Collections.singletonMap("#mv", DynamoItem.ATTR_INTENT_LOG_MOVE))
+    			.withExpressionAttributeValues(values);
+    	try {
+    		dynamoDbLowLevel.updateItem(request);
+    	} catch (ConditionalCheckFailedException e) {
+    		if (loadProjectedAttributes(customerId) == null) {
+    			log.warn("finishIntentLogMove: Item erased during move, counts erased again userId={}", customerId);
+    			intentLogPersistence.eraseMovedIntentCounts(customerId, intentLog, moveId);
+    		} else {
+    			log.warn("finishIntentLogMove: Move already finished by another run userId={}", customerId);
+    		}
+    		return false;
+    	}
+    	log.info("finishIntentLogMove: userId={} moveId={}", customerId, moveId);
+    	return true;
     }
     
     /**
@@ -173,8 +751,18 @@ public class DynamoItemPersistence {
      */
     public void eraseItem(final DynamoItem tableItem) {
     	log.info("eraseItem(): userId={}", tableItem.getCustomerId());
-    	DynamoDBMapper mapper = createDynamoDBMapper();
         mapper.delete(tableItem);
+        userItemCache.invalidate(cacheKey(tableItem.getCustomerId()));
+    }
+
+    /**
+     * Erase all of a user's year-week items in the intent log table.
+     * See {@link IntentLogPersistence#eraseIntentLog(String)}.
+     * 
+     * @param customerId String user id
+     */
+    public void eraseIntentLog(String customerId) {
+    	intentLogPersistence.eraseIntentLog(customerId);
     }
 
 }
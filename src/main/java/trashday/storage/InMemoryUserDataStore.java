@@ -0,0 +1,309 @@
+package trashday.storage;
+
+import java.io.IOException;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fortuna.ical4j.data.ParserException;
+import trashday.model.Calendar;
+import trashday.model.CalendarCache;
+import trashday.model.CalendarData;
+import trashday.model.IntentLog;
+
+/**
+ * {@link UserDataStore} holding users' data in this JVM's memory.  Used to load test
+ * the request handler without a Dynamo DB, so results measure the handler alone.
+ * <p>
+ * Each user's calendar is kept as binary calendar data (see {@link trashday.model.CalendarData})
+ * and decoded through {@link trashday.model.CalendarCache} on load, as Dynamo DB items are.
+ * Each save adds one to the user's {@link DynamoItem#getVersion()}, as
+ * {@link DynamoItemPersistence} does.  Only the current item attributes are kept: calendar,
+ * time zone and version.
+ * <p>
+ * Intent counts are kept per user and pruned to {@link IntentLogPersistence#WEEKS_TO_KEEP}
+ * weeks in place of the intent log table's Time To Live.
+ * <p>
+ * Subclasses keep user records elsewhere by overriding {@link #readRecord(String)},
+ * {@link #updateRecord(String, UnaryOperator)} and {@link #removeRecord(String)}.
+ *
+ * @author J. Todd Baldwin
+ */
+public class InMemoryUserDataStore implements UserDataStore {
+	/** Log object for this class */
+    private static final Logger log = LoggerFactory.getLogger(InMemoryUserDataStore.class);
+
+    /** User records keyed by customer id */
+    private final ConcurrentHashMap<String, UserRecord> records = new ConcurrentHashMap<String, UserRecord>();
+    /** Intent counts keyed by customer id.  Each log is only read or changed inside the map's compute methods. */
+    private final ConcurrentHashMap<String, IntentLog> intentLogs = new ConcurrentHashMap<String, IntentLog>();
+
+    /**
+     * One user's stored data.  Immutable.
+     */
+    public static final class UserRecord {
+    	/** Item version, starting at 1 for the first save */
+    	private final long version;
+    	/** Binary calendar data, or null if none stored */
+    	private final byte[] calendarData;
+    	/** Time zone id, or null if none stored */
+    	private final String timeZoneId;
+
+    	/**
+    	 * Create a user record.
+    	 *
+    	 * @param version item version
+    	 * @param calendarData binary calendar data (see {@link trashday.model.CalendarData}), or null
+    	 * @param timeZoneId time zone id, or null
+    	 */
+    	public UserRecord(long version, byte[] calendarData, String timeZoneId) {
+    		this.version = version;
+    		this.calendarData = calendarData;
+    		this.timeZoneId = timeZoneId;
+    	}
+
+    	/**
+    	 * Get the item version.
+    	 *
+    	 * @return item version
+    	 */
+    	public long getVersion() {
+    		return version;
+    	}
+
+    	/**
+    	 * Get the binary calendar data.
+    	 *
+    	 * @return binary calendar data, or null if none stored
+    	 */
+    	public byte[] getCalendarData() {
+    		return calendarData;
+    	}
+
+    	/**
+    	 * Get the time zone id.
+    	 *
+    	 * @return time zone id, or null if none stored
+    	 */
+    	public String getTimeZoneId() {
+    		return timeZoneId;
+    	}
+
+    	/**
+    	 * Build a {@link DynamoItem} holding this record's data.  The calendar comes
+    	 * from {@link trashday.model.CalendarCache}, so it is a private copy-on-write view.
+    	 *
+    	 * @param customerId String user id
+    	 * @return new {@link DynamoItem}
+    	 */
+    	public DynamoItem toItem(String customerId) {
+    		DynamoItem item = new DynamoItem();
+    		item.setCustomerId(customerId);
+    		item.setVersion(version);
+    		if (calendarData != null) {
+    			try {
+    				item.setCalendar(CalendarCache.getShared().get(calendarData));
+    			} catch (IOException | ParserException ex) {
+    				throw new IllegalStateException("Unable to convert stored calendar data. "+ex.getMessage());
+    			}
+    		}
+    		if (timeZoneId != null) {
+    			item.setTimeZone(TimeZone.getTimeZone(timeZoneId));
+    		}
+    		return item;
+    	}
+    }
+
+    /**
+     * Create an empty store.
+     */
+    public InMemoryUserDataStore() {
+    	log.trace("InMemoryUserDataStore()");
+    }
+
+    /**
+     * Get a user's record.
+     *
+     * @param customerId String user id
+     * @return {@link UserRecord}, or null if none stored
+     */
+    protected UserRecord readRecord(String customerId) {
+    	return records.get(customerId);
+    }
+
+    /**
+     * Replace a user's record with one computed from the current record.  No other
+     * update or removal of the same user's record may happen in between.
+     *
+     * @param customerId String user id
+     * @param update Function given the current {@link UserRecord} (or null if none stored)
+     * 			that returns the new record
+     * @return the new {@link UserRecord}
+     */
+    protected UserRecord updateRecord(String customerId, UnaryOperator<UserRecord> update) {
+    	return records.compute(customerId, (id, current) -> update.apply(current));
+    }
+
+    /**
+     * Remove a user's record.
+     *
+     * @param customerId String user id
+     * @return true if a record was removed
+     */
+    protected boolean removeRecord(String customerId) {
+    	return records.remove(customerId) != null;
+    }
+
+    /**
+     * Get the number of users with a stored record.
+     *
+     * @return number of user records
+     */
+    public int size() {
+    	return records.size();
+    }
+
+    /**
+     * Load a user's calendar, time zone and version.
+     *
+     * @param tableItem DynamoItem
+     * 			Item with customer id already set.
+     * @return {@link DynamoItem} with the user data populated, or null if nothing is
+     * 			stored for this customer id.
+     */
+    public DynamoItem loadUserDataItem(final DynamoItem tableItem) {
+    	log.trace("loadUserDataItem()");
+    	if (tableItem==null) {
+    		log.error("loadUserDataItem failed due to null tableItem");
+    		return null;
+    	}
+    	String customerId = tableItem.getCustomerId();
+    	UserRecord record = readRecord(customerId);
+    	if (record==null) {
+    		log.info("loadUserDataItem: No record for userId={}", customerId);
+    		return null;
+    	}
+    	return record.toItem(customerId);
+    }
+
+    /**
+     * Load a user's item.  This store keeps only the user data attributes, so this is
+     * the same as {@link #loadUserDataItem(DynamoItem)}.
+     *
+     * @param tableItem DynamoItem
+     * 			Item with customer id already set.
+     * @return {@link DynamoItem} completely populated, or null if nothing is
+     * 			stored for this customer id.
+     */
+    public DynamoItem loadCompleteItem(final DynamoItem tableItem) {
+    	log.trace("loadCompleteItem()");
+    	return loadUserDataItem(tableItem);
+    }
+
+    /**
+     * Store a user's calendar and time zone, leaving the stored value of either one
+     * unchanged if it is null in the item.
+     *
+     * @param tableItem DynamoItem with customer id set
+     */
+    public void saveItem(final DynamoItem tableItem) {
+    	log.trace("saveItem()");
+    	final byte[] calendarData = encodeCalendar(tableItem.getCalendar());
+    	final String timeZoneId = encodeTimeZone(tableItem.getTimeZone());
+    	updateRecord(tableItem.getCustomerId(), current -> (current == null) ?
+    			new UserRecord(1, calendarData, timeZoneId) :
+    			new UserRecord(current.getVersion() + 1,
+    					(calendarData != null) ? calendarData : current.getCalendarData(),
+    					(timeZoneId != null) ? timeZoneId : current.getTimeZoneId()) );
+    }
+
+    /**
+     * Store a user's calendar and time zone, removing the stored value of either one
+     * if it is null in the item.
+     *
+     * @param tableItem DynamoItem with customer id set
+     */
+    public void saveCompleteItem(final DynamoItem tableItem) {
+    	log.trace("saveCompleteItem()");
+    	final byte[] calendarData = encodeCalendar(tableItem.getCalendar());
+    	final String timeZoneId = encodeTimeZone(tableItem.getTimeZone());
+    	updateRecord(tableItem.getCustomerId(), current ->
+    			new UserRecord((current == null) ? 1 : current.getVersion() + 1, calendarData, timeZoneId) );
+    }
+
+    /**
+     * Encode a calendar for storage.
+     *
+     * @param calendar {@link trashday.model.Calendar}, or null
+     * @return binary calendar data, or null if no calendar
+     */
+    private static byte[] encodeCalendar(Calendar calendar) {
+    	return (calendar == null) ? null : CalendarData.encode(calendar);
+    }
+
+    /**
+     * Encode a time zone for storage.
+     *
+     * @param timeZone {@link java.util.TimeZone}, or null
+     * @return time zone id, or null if no time zone
+     */
+    private static String encodeTimeZone(TimeZone timeZone) {
+    	return (timeZone == null) ? null : timeZone.getID();
+    }
+
+    /**
+     * Erase a user's record.
+     *
+     * @param tableItem DynamoItem with customer id set
+     */
+    public void eraseItem(final DynamoItem tableItem) {
+    	log.info("eraseItem(): userId={}", tableItem.getCustomerId());
+    	removeRecord(tableItem.getCustomerId());
+    }
+
+    /**
+     * Add the counts in an {@link trashday.model.IntentLog} to the user's stored counts
+     * and drop weeks beyond {@link IntentLogPersistence#WEEKS_TO_KEEP}.
+     *
+     * @param customerId String user id
+     * @param intentLog {@link trashday.model.IntentLog} counts to add
+     */
+    public void addIntentCounts(String customerId, IntentLog intentLog) {
+    	log.trace("addIntentCounts(customerId={})", customerId);
+    	intentLogs.compute(customerId, (id, stored) -> {
+    		IntentLog updated = (stored == null) ? new IntentLog() : stored;
+    		updated.join(intentLog);
+    		updated.prune(IntentLogPersistence.WEEKS_TO_KEEP);
+    		return updated;
+    	});
+    }
+
+    /**
+     * Load all intent counts stored for a user.
+     *
+     * @param customerId String user id
+     * @return copy of the user's {@link trashday.model.IntentLog}.  Empty if none stored.
+     */
+    public IntentLog loadIntentLog(String customerId) {
+    	log.trace("loadIntentLog(customerId={})", customerId);
+    	IntentLog intentLog = new IntentLog();
+    	intentLogs.computeIfPresent(customerId, (id, stored) -> {
+    		intentLog.join(stored);
+    		return stored;
+    	});
+    	return intentLog;
+    }
+
+    /**
+     * Erase all intent counts stored for a user.
+     *
+     * @param customerId String user id
+     */
+    public void eraseIntentLog(String customerId) {
+    	log.info("eraseIntentLog(): userId={}", customerId);
+    	intentLogs.remove(customerId);
+    }
+}
@@ -0,0 +1,63 @@
+package trashday.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+
+import trashday.CoberturaIgnore;
+
+/**
+ * Job that moves intent counts still held in users' schedule items into
+ * the intent log table (see {@link IntentLogPersistence}).
+ * <p>
+ * User sessions only add counts to the intent log table.  Moving the older
+ * counts needs to read each schedule item, so it runs from here once, after
+ * the intent log table is created, instead of during sessions.
+ *
+ * @author J. Todd Baldwin
+ */
+public class IntentLogMigration {
+	/** Log object for this class */
+    private static final Logger log = LoggerFactory.getLogger(IntentLogMigration.class);
+
+    /** Object that accesses the users' items in Dynamo DB */
+    private final DynamoItemPersistence dynamoItemPersistence;
+
+    /**
+     * Create the migration job for a given table.
+     *
+     * @param dynamoItemPersistence {@link DynamoItemPersistence} for the table to be migrated
+     */
+    public IntentLogMigration(DynamoItemPersistence dynamoItemPersistence) {
+    	log.trace("IntentLogMigration()");
+    	this.dynamoItemPersistence = dynamoItemPersistence;
+    }
+
+    /**
+     * Move every user's intent counts to the intent log table.
+     *
+     * @return number of items changed
+     */
+    public int migrate() {
+    	log.info("migrate: Move intent counts to {}", dynamoItemPersistence.getIntentLogPersistence().getTableName());
+    	return dynamoItemPersistence.moveIntentLogs();
+    }
+
+    /**
+     * Run the migration job against the Amazon Dynamo DB cloud.
+     * <p>
+     * {@literal @}{@link trashday.CoberturaIgnore} used because we don't want to use JUnit
+     * tests that involve the Amazon Dynamo DB cloud that
+     * may contain user data.
+     *
+     * @param args optional table name to migrate instead of the production table
+     */
+    @CoberturaIgnore
+    public static void main(String[] args) {
+    	String tableNameOverride = (args.length > 0) ? args[0] : null;
+    	DynamoItemPersistence dynamoItemPersistence = new DynamoItemPersistence(new AmazonDynamoDBClient(), tableNameOverride);
+    	int moved = new IntentLogMigration(dynamoItemPersistence).migrate();
+    	log.info("main: Moved {} items.", moved);
+    }
+}
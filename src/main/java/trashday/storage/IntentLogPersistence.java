@@ -0,0 +1,389 @@
+package trashday.storage;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
+import com.amazonaws.services.dynamodbv2.model.CreateTableResult;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
+import com.amazonaws.services.dynamodbv2.model.KeyType;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughput;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+
+import trashday.model.IntentLog;
+
+/**
+ * Client for the Dynamo DB table holding users' intent counts.  Each user has one
+ * item per year-week, keyed by {@link #ATTR_CUSTOMER_ID} (hash) and {@link #ATTR_YEAR_WEEK}
+ * (range), with one number attribute per intent (see {@link #ATTR_COUNT_PREFIX}).
+ * <p>
+ * Counts are added on the server with UpdateItem ADD actions, so a session's counts
+ * are one small write to its current week and never touch the user's schedule item.
+ * Every write also sets {@link #ATTR_EXPIRES_AT} to {@link #WEEKS_TO_KEEP} weeks
+ * later.  The table's Time To Live setting must name that attribute so Dynamo DB
+ * deletes old weeks, in place of pruning them with {@link trashday.model.IntentLog#prune(int)}.
+ * <p>
+ * {@link #addIntentCountsAsync(String, IntentLog)} lets request handling go on while the
+ * counts are written, when the Dynamo DB connection is an
+ * {@link com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsyncClient}.
+ *
+ * @author	J. Todd Baldwin
+ */
+public class IntentLogPersistence {
+	/** Log object for this class */
+    private static final Logger log = LoggerFactory.getLogger(IntentLogPersistence.class);
+
+    /** Production Dynamo DB table name. */
+    public static final String TABLE_NAME = "TrashDayIntentLog";
+    /** Dynamo DB attribute name of the user id (hash key). */
+    public static final String ATTR_CUSTOMER_ID = DynamoItem.ATTR_CUSTOMER_ID;
+    /** Dynamo DB attribute name of the year-week, eg. 2017-05 (range key). */
+    public static final String ATTR_YEAR_WEEK = "YearWeek";
+    /** Dynamo DB attribute name of the Time To Live expiry, in epoch seconds. */
+    public static final String ATTR_EXPIRES_AT = "ExpiresAt";
+    /** Prefix of the Dynamo DB attribute name holding each intent's count. */
+    public static final String ATTR_COUNT_PREFIX = "Count-";
+    /**
+     * Dynamo DB attribute name of the string set of move ids whose counts were added to
+     * the item.  See {@link #addMovedIntentCounts(String, IntentLog, String)}.
+     */
+    public static final String ATTR_MOVE_IDS = "MoveIds";
+    /** Number of weeks a year-week item is kept after its last write. */
+    public static final int WEEKS_TO_KEEP = 12;
+
+    /** Dynamo DB connection */
+    private final AmazonDynamoDBClient dynamoDbLowLevel;
+    /** Dynamo DB table name */
+    private final String tableName;
+
+    /**
+     * Create a new DB client to add and load user intent counts.
+     *
+     * @param dynamoDBClient AmazonDynamoDBClient
+     * 			The Dynamo DB connection
+     * @param tableNameOverride String table name used by JUnit tests to ensure they do not
+     * 				write to the Production table name ({@link #TABLE_NAME}).  A null value indicates
+     * 				no override.  Any other value is the Dynamo table name to be used.
+     */
+    public IntentLogPersistence(final AmazonDynamoDBClient dynamoDBClient, final String tableNameOverride) {
+    	log.trace("IntentLogPersistence()");
+    	this.dynamoDbLowLevel = dynamoDBClient;
+    	this.tableName = (tableNameOverride != null) ? tableNameOverride : TABLE_NAME;
+    }
+
+    /**
+     * Get the name of the Dynamo DB table holding the year-week items.
+     *
+     * @return table name
+     */
+    public String getTableName() {
+    	return tableName;
+    }
+
+    /**
+     * Create the primary key of a user's year-week item.
+     *
+     * @param customerId String user id
+     * @param yearWeek String year-week (eg. 2017-05)
+     * @return Map holding the item key
+     */
+    private static Map<String, AttributeValue> itemKey(String customerId, String yearWeek) {
+    	Map<String, AttributeValue> key = new HashMap<String, AttributeValue>();
+    	key.put(ATTR_CUSTOMER_ID, new AttributeValue(customerId));
+    	key.put(ATTR_YEAR_WEEK, new AttributeValue(yearWeek));
+    	return key;
+    }
+
+    /**
+     * Add the counts in an {@link trashday.model.IntentLog} to the user's year-week items.
+     * One UpdateItem per year-week in the log, which for a session is usually just the
+     * current week.  Items are created by their first counts.
+     *
+     * @param customerId String user id
+     * @param intentLog {@link trashday.model.IntentLog} counts to add
+     */
+    public void addIntentCounts(String customerId, IntentLog intentLog) {
+    	addIntentCounts(customerId, intentLog, Instant.now());
+    }
+
+    /**
+     * Add the counts in an {@link trashday.model.IntentLog} to the user's year-week items.
+     *
+     * @param customerId String user id
+     * @param intentLog {@link trashday.model.IntentLog} counts to add
+     * @param now Time of this write.  Items expire {@link #WEEKS_TO_KEEP} weeks later.
+     */
+    protected void addIntentCounts(String customerId, IntentLog intentLog, Instant now) {
+    	log.trace("addIntentCounts(customerId={})", customerId);
+    	for (UpdateItemRequest request : buildUpdateRequests(customerId, intentLog, now, null)) {
+        	dynamoDbLowLevel.updateItem(request);
+    	}
+    }
+
+    /**
+     * Add counts moved out of a user's schedule item to the user's year-week items.  Each
+     * year-week item records the move id in {@link #ATTR_MOVE_IDS} in the same write, and a
+     * year-week already holding it is skipped, so a move that is retried never adds its
+     * counts twice.
+     *
+     * @param customerId String user id
+     * @param intentLog {@link trashday.model.IntentLog} counts being moved
+     * @param moveId String id of the move, the same on every retry
+     * @return number of year-weeks added by this call
+     */
+    public int addMovedIntentCounts(String customerId, IntentLog intentLog, String moveId) {
+    	log.trace("addMovedIntentCounts(customerId={}, moveId={})", customerId, moveId);
+    	int added = 0;
+    	for (UpdateItemRequest request : buildUpdateRequests(customerId, intentLog, Instant.now(), moveId)) {
+    		try {
+    			dynamoDbLowLevel.updateItem(request);
+    			added++;
+    		} catch (ConditionalCheckFailedException e) {
+    			log.info("addMovedIntentCounts: Already added userId={} yearWeek={} moveId={}", 
+    					customerId, request.getKey().get(ATTR_YEAR_WEEK).getS(), moveId);
+    		}
+    	}
+    	return added;
+    }
+
+    /**
+     * Delete the year-week items a move added counts to.  Used when the user's schedule
+     * item was erased while its counts were being moved, so the counts are not brought
+     * back.  Only items holding the move id in {@link #ATTR_MOVE_IDS} are deleted.
+     *
+     * @param customerId String user id
+     * @param intentLog {@link trashday.model.IntentLog} counts that were being moved
+     * @param moveId String id of the move
+     * @return number of items deleted
+     */
+    public int eraseMovedIntentCounts(String customerId, IntentLog intentLog, String moveId) {
+    	log.info("eraseMovedIntentCounts(): userId={} moveId={}", customerId, moveId);
+    	int deleted = 0;
+    	for (String yearWeek : intentLog.getLog().keySet()) {
+    		DeleteItemRequest request = new DeleteItemRequest()
+    				.withTableName(tableName)
+    				.withKey(itemKey(customerId, yearWeek))
+    				.withConditionExpression("contains(#ids, :id)")
+    				.withExpressionAttributeNames(Collections.singletonMap("#ids", ATTR_MOVE_IDS))
+    				.withExpressionAttributeValues(Collections.singletonMap(":id", new AttributeValue(moveId)));
+    		try {
+    			dynamoDbLowLevel.deleteItem(request);
+    			deleted++;
+    		} catch (ConditionalCheckFailedException e) {
+    			log.debug("eraseMovedIntentCounts: Nothing to delete for yearWeek={}", yearWeek);
+    		}
+    	}
+    	return deleted;
+    }
+
+    /**
+     * Start adding the counts in an {@link trashday.model.IntentLog} to the user's year-week items
+     * without waiting for Dynamo DB.  The UpdateItems are sent with
+     * {@link com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync} when the Dynamo DB connection
+     * is an asynchronous client.  Otherwise they are sent before this returns.
+     *
+     * @param customerId String user id
+     * @param intentLog {@link trashday.model.IntentLog} counts to add
+     * @return CompletableFuture completed when every year-week item is written, or completed
+     * 			exceptionally with the first failure
+     */
+    public CompletableFuture<Void> addIntentCountsAsync(String customerId, IntentLog intentLog) {
+    	log.trace("addIntentCountsAsync(customerId={})", customerId);
+    	if (! (dynamoDbLowLevel instanceof AmazonDynamoDBAsync)) {
+    		CompletableFuture<Void> done = new CompletableFuture<Void>();
+    		try {
+    			addIntentCounts(customerId, intentLog);
+    			done.complete(null);
+    		} catch (RuntimeException ex) {
+    			done.completeExceptionally(ex);
+    		}
+    		return done;
+    	}
+    	AmazonDynamoDBAsync dynamoDbAsync = (AmazonDynamoDBAsync) dynamoDbLowLevel;
+    	List<UpdateItemRequest> requests = buildUpdateRequests(customerId, intentLog, Instant.now(), null);
+    	CompletableFuture<?>[] writes = new CompletableFuture<?>[requests.size()];
+    	for (int i=0; i<writes.length; i++) {
+    		CompletableFuture<UpdateItemResult> write = new CompletableFuture<UpdateItemResult>();
+    		dynamoDbAsync.updateItemAsync(requests.get(i), new AsyncHandler<UpdateItemRequest, UpdateItemResult>() {
+    			@Override
+    			public void onError(Exception exception) {
+    				write.completeExceptionally(exception);
+    			}
+    			@Override
+    			public void onSuccess(UpdateItemRequest request, UpdateItemResult result) {
+    				write.complete(result);
+    			}
+    		});
+    		writes[i] = write;
+    	}
+    	return CompletableFuture.allOf(writes);
+    }
+
+    /**
+     * Build one UpdateItem per year-week in an {@link trashday.model.IntentLog}, adding each
+     * intent's count and setting the week's expiry.
+     *
+     * @param customerId String user id
+     * @param intentLog {@link trashday.model.IntentLog} counts to add
+     * @param now Time of this write.  Items expire {@link #WEEKS_TO_KEEP} weeks later.
+     * @param moveId String move id to record in {@link #ATTR_MOVE_IDS}, with each write
+     * 			conditional on the item not holding it yet.  null for plain session counts.
+     * @return List of requests, empty if the log has no counts
+     */
+    private List<UpdateItemRequest> buildUpdateRequests(String customerId, IntentLog intentLog, Instant now, String moveId) {
+    	List<UpdateItemRequest> requests = new ArrayList<UpdateItemRequest>();
+    	String expiresAt = Long.toString(now.plus(WEEKS_TO_KEEP * 7, ChronoUnit.DAYS).getEpochSecond());
+    	for (Map.Entry<String, Map<String,Integer>> week : intentLog.getLog().entrySet()) {
+    		Map<String,Integer> counts = week.getValue();
+    		if (counts.isEmpty()) {
+    			continue;
+    		}
+    		StringBuilder expression = new StringBuilder();
+        	Map<String, String> names = new HashMap<String, String>();
+        	Map<String, AttributeValue> values = new HashMap<String, AttributeValue>();
+        	int i = 0;
+    		for (Map.Entry<String, Integer> count : counts.entrySet()) {
+    			expression.append( (i==0) ? "ADD " : ", " ).append("#i").append(i).append(" :n").append(i);
+    			names.put("#i"+i, ATTR_COUNT_PREFIX + count.getKey());
+    			values.put(":n"+i, new AttributeValue().withN(count.getValue().toString()));
+    			i++;
+    		}
+    		if (moveId != null) {
+    			expression.append(", #ids :ids");
+    			names.put("#ids", ATTR_MOVE_IDS);
+    			values.put(":ids", new AttributeValue().withSS(moveId));
+    			values.put(":id", new AttributeValue(moveId));
+    		}
+    		expression.append(" SET #exp = :exp");
+    		names.put("#exp", ATTR_EXPIRES_AT);
+    		values.put(":exp", new AttributeValue().withN(expiresAt));
+    		UpdateItemRequest request = new UpdateItemRequest()
+        			.withTableName(tableName)
+        			.withKey(itemKey(customerId, week.getKey()))
+        			.withUpdateExpression(expression.toString())
+        			.withExpressionAttributeNames(names)
+        			.withExpressionAttributeValues(values);
+    		if (moveId != null) {
+    			request.withConditionExpression("attribute_not_exists(#ids) OR NOT contains(#ids, :id)");
+    		}
+        	requests.add(request);
+    	}
+    	return requests;
+    }
+
+    /**
+     * Load the counts from all of a user's year-week items that have not expired.
+     * Dynamo DB deletes expired items some time after they expire, so they are skipped here.
+     *
+     * @param customerId String user id
+     * @return {@link trashday.model.IntentLog} with the user's counts.  Empty if none stored.
+     */
+    public IntentLog loadIntentLog(String customerId) {
+    	log.trace("loadIntentLog(customerId={})", customerId);
+    	long now = Instant.now().getEpochSecond();
+    	IntentLog intentLog = new IntentLog();
+    	for (Map<String, AttributeValue> item : queryWeeks(customerId, false)) {
+    		AttributeValue expiresAt = item.get(ATTR_EXPIRES_AT);
+    		if ( (expiresAt != null) && (Long.parseLong(expiresAt.getN()) < now) ) {
+    			continue;
+    		}
+    		String yearWeek = item.get(ATTR_YEAR_WEEK).getS();
+    		for (Map.Entry<String, AttributeValue> attribute : item.entrySet()) {
+    			String name = attribute.getKey();
+    			if (name.startsWith(ATTR_COUNT_PREFIX)) {
+    				intentLog.incrementIntent(yearWeek, name.substring(ATTR_COUNT_PREFIX.length()),
+    						Integer.valueOf(attribute.getValue().getN()));
+    			}
+    		}
+    	}
+    	return intentLog;
+    }
+
+    /**
+     * Delete all of a user's year-week items.
+     *
+     * @param customerId String user id
+     * @return number of items deleted
+     */
+    public int eraseIntentLog(String customerId) {
+    	log.info("eraseIntentLog(): userId={}", customerId);
+    	List<Map<String, AttributeValue>> keys = queryWeeks(customerId, true);
+    	for (Map<String, AttributeValue> key : keys) {
+    		dynamoDbLowLevel.deleteItem(tableName, key);
+    	}
+    	return keys.size();
+    }
+
+    /**
+     * Query all of a user's year-week items.
+     *
+     * @param customerId String user id
+     * @param keysOnly true to read only the item keys
+     * @return List of items, in year-week order
+     */
+    private List<Map<String, AttributeValue>> queryWeeks(String customerId, boolean keysOnly) {
+    	List<Map<String, AttributeValue>> items = new ArrayList<Map<String, AttributeValue>>();
+    	Map<String, String> names = new HashMap<String, String>();
+    	names.put("#id", ATTR_CUSTOMER_ID);
+    	Map<String, AttributeValue> startKey = null;
+    	do {
+    		QueryRequest request = new QueryRequest()
+    				.withTableName(tableName)
+    				.withKeyConditionExpression("#id = :id")
+    				.withExpressionAttributeValues(Collections.singletonMap(":id", new AttributeValue(customerId)))
+    				.withConsistentRead(true)
+    				.withExclusiveStartKey(startKey);
+    		if (keysOnly) {
+    			names.put("#w", ATTR_YEAR_WEEK);
+    			request.withProjectionExpression("#id, #w");
+    		}
+    		request.withExpressionAttributeNames(names);
+    		QueryResult result = dynamoDbLowLevel.query(request);
+    		items.addAll(result.getItems());
+    		startKey = result.getLastEvaluatedKey();
+    	} while ( (startKey != null) && (! startKey.isEmpty()) );
+    	return items;
+    }
+
+    /**
+     * Create the year-week table.  Time To Live on {@link #ATTR_EXPIRES_AT} is enabled
+     * separately, from the console or CLI, after the table is active.
+     *
+     * @param readCapacityUnits provisioned read capacity
+     * @param writeCapacityUnits provisioned write capacity
+     * @return CreateTableResult describing the new table
+     */
+    public CreateTableResult createTable(long readCapacityUnits, long writeCapacityUnits) {
+    	log.info("createTable: {}", tableName);
+    	CreateTableRequest request = new CreateTableRequest()
+    			.withTableName(tableName)
+    			.withAttributeDefinitions(
+    					new AttributeDefinition(ATTR_CUSTOMER_ID, ScalarAttributeType.S),
+    					new AttributeDefinition(ATTR_YEAR_WEEK, ScalarAttributeType.S))
+    			.withKeySchema(
+    					new KeySchemaElement(ATTR_CUSTOMER_ID, KeyType.HASH),
+    					new KeySchemaElement(ATTR_YEAR_WEEK, KeyType.RANGE))
+    			.withProvisionedThroughput(new ProvisionedThroughput(readCapacityUnits, writeCapacityUnits));
+    	return dynamoDbLowLevel.createTable(request);
+    }
+}
@@ -0,0 +1,337 @@
+package trashday.storage;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link UserDataStore} holding users' records in a memory-mapped file, so load tests
+ * can keep a large set of users between runs without a Dynamo DB.
+ * <p>
+ * The file is a fixed number of fixed-size slots, one user per slot.  Each slot starts with
+ * the length of its record (zero when the slot is free) followed by the customer id, version,
+ * time zone id and binary calendar data.  An in-memory index of customer id to slot is
+ * rebuilt by scanning the slots when the file is opened.  Each user's reads and writes hold
+ * one of {@link #LOCK_STRIPES} locks chosen by customer id, so different users do not wait
+ * on each other.
+ * <p>
+ * Intent counts are kept in memory only (see {@link InMemoryUserDataStore}) and are lost
+ * when the store is closed.
+ * <p>
+ * Writes reach the file through the operating system's page cache.  {@link #close()} forces
+ * them to the storage device.
+ *
+ * @author J. Todd Baldwin
+ */
+public class MappedFileUserDataStore extends InMemoryUserDataStore implements Closeable {
+	/** Log object for this class */
+    private static final Logger log = LoggerFactory.getLogger(MappedFileUserDataStore.class);
+
+    /** Default number of users the file holds. */
+    public static final int DEFAULT_SLOT_COUNT = 16384;
+    /** Default bytes per user slot, including the record length. */
+    public static final int DEFAULT_SLOT_SIZE = 8192;
+    /** Number of locks users' slot access is spread over. */
+    public static final int LOCK_STRIPES = 64;
+
+    /** Bytes at the start of each slot holding the record length */
+    private static final int SLOT_HEADER_SIZE = 4;
+
+    /** Open file holding the slots */
+    private final RandomAccessFile file;
+    /** Mapping of the whole file.  Only read and written through {@link ByteBuffer#duplicate()} views. */
+    private final MappedByteBuffer buffer;
+    /** Number of slots in the file */
+    private final int slotCount;
+    /** Bytes per slot */
+    private final int slotSize;
+    /** Slot number of each stored user */
+    private final ConcurrentHashMap<String, Integer> slotIndex = new ConcurrentHashMap<String, Integer>();
+    /** Slot numbers not holding a user.  Guarded by itself. */
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<Integer>();
+    /** Locks guarding each user's slot and index entry */
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /**
+     * Open a store file with the default slot count and size, creating it if needed.
+     *
+     * @param storeFile file to hold the users' records
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public MappedFileUserDataStore(File storeFile) throws IOException {
+    	this(storeFile, DEFAULT_SLOT_COUNT, DEFAULT_SLOT_SIZE);
+    }
+
+    /**
+     * Open a store file, creating it if needed.  An existing file must have been
+     * created with the same slot count and size.
+     *
+     * @param storeFile file to hold the users' records
+     * @param slotCount number of users the file holds.  Must be positive.
+     * @param slotSize bytes per user slot.  Must hold at least the record length and a short record.
+     * @throws IOException if the file cannot be opened or mapped
+     * @throws IllegalArgumentException if the sizes are not usable or do not match an existing file
+     */
+    public MappedFileUserDataStore(File storeFile, int slotCount, int slotSize) throws IOException {
+    	log.trace("MappedFileUserDataStore(storeFile={}, slotCount={}, slotSize={})", storeFile, slotCount, slotSize);
+    	if (slotCount < 1) {
+    		throw new IllegalArgumentException("Slot count must be a positive number.");
+    	}
+    	if (slotSize < 64) {
+    		throw new IllegalArgumentException("Slot size must be at least 64 bytes.");
+    	}
+    	long fileSize = (long) slotCount * slotSize;
+    	if (fileSize > Integer.MAX_VALUE) {
+    		throw new IllegalArgumentException("Store file may not be larger than "+Integer.MAX_VALUE+" bytes.");
+    	}
+    	this.slotCount = slotCount;
+    	this.slotSize = slotSize;
+    	for (int i=0; i<LOCK_STRIPES; i++) {
+    		locks[i] = new Object();
+    	}
+
+    	file = new RandomAccessFile(storeFile, "rw");
+    	try {
+    		long existingSize = file.length();
+    		if ( (existingSize != 0) && (existingSize != fileSize) ) {
+    			throw new IllegalArgumentException("Store file "+storeFile+" has "+existingSize+
+    					" bytes, not the "+fileSize+" bytes of "+slotCount+" slots of "+slotSize+" bytes.");
+    		}
+    		file.setLength(fileSize);
+    		buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+    	} catch (IOException | RuntimeException ex) {
+    		file.close();
+    		throw ex;
+    	}
+    	rebuildIndex();
+    }
+
+    /**
+     * Scan every slot, indexing the users stored and collecting the free slots.
+     */
+    private void rebuildIndex() {
+    	for (int slot=0; slot<slotCount; slot++) {
+    		ByteBuffer view = slotView(slot);
+    		if (view.getInt() == 0) {
+    			freeSlots.add(slot);
+    		} else {
+    			slotIndex.put(readString(view), slot);
+    		}
+    	}
+    	log.info("rebuildIndex: {} users, {} free slots", slotIndex.size(), freeSlots.size());
+    }
+
+    /**
+     * Get a view of one slot, positioned at its start.
+     *
+     * @param slot slot number
+     * @return ByteBuffer covering only this slot
+     */
+    private ByteBuffer slotView(int slot) {
+    	ByteBuffer view = buffer.duplicate();
+    	int offset = slot * slotSize;
+    	view.limit(offset + slotSize);
+    	view.position(offset);
+    	return view.slice();
+    }
+
+    /**
+     * Get the lock guarding a user's slot.
+     *
+     * @param customerId String user id
+     * @return lock object
+     */
+    private Object lockFor(String customerId) {
+    	return locks[(customerId.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+    }
+
+    /**
+     * Get a user's record from their slot.
+     *
+     * @param customerId String user id
+     * @return {@link InMemoryUserDataStore.UserRecord}, or null if none stored
+     */
+    @Override
+    protected UserRecord readRecord(String customerId) {
+    	synchronized (lockFor(customerId)) {
+    		Integer slot = slotIndex.get(customerId);
+    		return (slot == null) ? null : readSlot(slot);
+    	}
+    }
+
+    /**
+     * Replace a user's record, taking a free slot for a new user.
+     *
+     * @param customerId String user id
+     * @param update Function given the current record (or null if none stored)
+     * 			that returns the new record
+     * @return the new {@link InMemoryUserDataStore.UserRecord}
+     * @throws IllegalArgumentException if the record does not fit in a slot
+     * @throws IllegalStateException if a new user is stored when no slots are free
+     */
+    @Override
+    protected UserRecord updateRecord(String customerId, UnaryOperator<UserRecord> update) {
+    	synchronized (lockFor(customerId)) {
+    		Integer slot = slotIndex.get(customerId);
+    		UserRecord record = update.apply( (slot == null) ? null : readSlot(slot) );
+    		byte[] bytes = encodeRecord(customerId, record);
+    		if (slot == null) {
+    			synchronized (freeSlots) {
+    				slot = freeSlots.poll();
+    			}
+    			if (slot == null) {
+    				throw new IllegalStateException("No free slots for another user.  All "+slotCount+" slots are used.");
+    			}
+    		}
+    		ByteBuffer view = slotView(slot);
+    		view.position(SLOT_HEADER_SIZE);
+    		view.put(bytes);
+    		view.putInt(0, bytes.length);  // Record length last, after the record is in place.
+    		slotIndex.put(customerId, slot);
+    		return record;
+    	}
+    }
+
+    /**
+     * Remove a user's record and free their slot.
+     *
+     * @param customerId String user id
+     * @return true if a record was removed
+     */
+    @Override
+    protected boolean removeRecord(String customerId) {
+    	synchronized (lockFor(customerId)) {
+    		Integer slot = slotIndex.remove(customerId);
+    		if (slot == null) {
+    			return false;
+    		}
+    		slotView(slot).putInt(0, 0);
+    		synchronized (freeSlots) {
+    			freeSlots.add(slot);
+    		}
+    		return true;
+    	}
+    }
+
+    /**
+     * Get the number of users with a stored record.
+     *
+     * @return number of user records
+     */
+    @Override
+    public int size() {
+    	return slotIndex.size();
+    }
+
+    /**
+     * Get the number of slots not holding a user.
+     *
+     * @return free slot count
+     */
+    public int getFreeSlotCount() {
+    	synchronized (freeSlots) {
+    		return freeSlots.size();
+    	}
+    }
+
+    /**
+     * Read the record held in a slot.
+     *
+     * @param slot slot number
+     * @return {@link InMemoryUserDataStore.UserRecord}
+     */
+    private UserRecord readSlot(int slot) {
+    	ByteBuffer view = slotView(slot);
+    	view.getInt();
+    	readString(view);
+    	long version = view.getLong();
+    	String timeZoneId = readString(view);
+    	byte[] calendarData = null;
+    	int calendarLength = view.getInt();
+    	if (calendarLength >= 0) {
+    		calendarData = new byte[calendarLength];
+    		view.get(calendarData);
+    	}
+    	return new UserRecord(version, calendarData, timeZoneId);
+    }
+
+    /**
+     * Encode a record as it is stored after the slot's record length.
+     *
+     * @param customerId String user id
+     * @param record {@link InMemoryUserDataStore.UserRecord} to encode
+     * @return encoded record
+     * @throws IllegalArgumentException if the record does not fit in a slot
+     */
+    private byte[] encodeRecord(String customerId, UserRecord record) {
+    	byte[] id = customerId.getBytes(StandardCharsets.UTF_8);
+    	byte[] timeZoneId = (record.getTimeZoneId() == null) ? null : record.getTimeZoneId().getBytes(StandardCharsets.UTF_8);
+    	byte[] calendarData = record.getCalendarData();
+    	int length = 4 + id.length + 8 + 4 + ((timeZoneId == null) ? 0 : timeZoneId.length) +
+    			4 + ((calendarData == null) ? 0 : calendarData.length);
+    	if (length > slotSize - SLOT_HEADER_SIZE) {
+    		throw new IllegalArgumentException("Record for userId="+customerId+" needs "+length+
+    				" bytes.  Slots hold "+(slotSize - SLOT_HEADER_SIZE)+".");
+    	}
+    	ByteBuffer bytes = ByteBuffer.allocate(length);
+    	bytes.putInt(id.length).put(id);
+    	bytes.putLong(record.getVersion());
+    	putBytes(bytes, timeZoneId);
+    	putBytes(bytes, calendarData);
+    	return bytes.array();
+    }
+
+    /**
+     * Write a length (-1 for null) and the given bytes.
+     *
+     * @param target ByteBuffer to write into
+     * @param value bytes to write, or null
+     */
+    private static void putBytes(ByteBuffer target, byte[] value) {
+    	if (value == null) {
+    		target.putInt(-1);
+    	} else {
+    		target.putInt(value.length).put(value);
+    	}
+    }
+
+    /**
+     * Read a String written as a length (-1 for null) and UTF-8 bytes.
+     *
+     * @param source ByteBuffer positioned at the length
+     * @return String read, or null
+     */
+    private static String readString(ByteBuffer source) {
+    	int length = source.getInt();
+    	if (length < 0) {
+    		return null;
+    	}
+    	byte[] value = new byte[length];
+    	source.get(value);
+    	return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Force all writes to the storage device and close the file.  The store must not
+     * be used afterwards.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+    	log.info("close: {} users stored", slotIndex.size());
+    	buffer.force();
+    	file.close();
+    }
+}
@@ -0,0 +1,641 @@
+package trashday.storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import trashday.CoberturaIgnore;
+
+/**
+ * Command-line tool that exports the users' schedule table (see {@link DynamoItemPersistence})
+ * to a file and imports it again.  Used for disaster recovery, to seed load tests and to
+ * copy user data for analytics.
+ * <p>
+ * Export runs a parallel Scan, one thread per table segment, and streams each item to
+ * one line of the file as it arrives.  Each line is the CRC-32 of the item (8 hex digits),
+ * a tab, and the item in Dynamo DB Json form ({"S":...}, {"N":...}, {"B":...} and so on for
+ * each attribute).  Items are kept exactly as stored, including older attributes and
+ * {@link DynamoItem#getVersion()}.  The last line is {@link #TRAILER_PREFIX} and the item
+ * count, so a cut-short file is refused.
+ * <p>
+ * Import reads the whole file once to check every line's checksum and the trailer count,
+ * copying the checked lines to a temporary file.  Nothing is written to the table unless
+ * the whole file passes.  It then reads the temporary copy and puts the items back with
+ * BatchWriteItem, {@link #BATCH_SIZE} at a time, from a pool of writer threads.  Batches
+ * wait in a short queue, so reading stops while the writers are behind.  Items Dynamo DB
+ * leaves unprocessed are sent again after a growing delay, up to {@link #MAX_BATCH_ATTEMPTS}
+ * times.  Imported items replace stored items with the same customer id.  Other items are kept.
+ * <p>
+ * A restored item's {@link DynamoItem#ATTR_VERSION} is raised to at least the time the import
+ * started, in milliseconds.  Versions count up from 1 by saves, so a restored item never has a
+ * version a {@link UserItemCache} in a running container already holds for the item's older
+ * data.  Those containers read the restored data once their entries expire, and a save they
+ * make before then drops the entry instead of merging into the older data.
+ *
+ * @author J. Todd Baldwin
+ */
+public class ScheduleTableBackup {
+	/** Log object for this class */
+    private static final Logger log = LoggerFactory.getLogger(ScheduleTableBackup.class);
+
+    /** Start of the last line of an export file, followed by the item count. */
+    public static final String TRAILER_PREFIX = "#END ";
+    /** Most items Dynamo DB accepts in one BatchWriteItem. */
+    public static final int BATCH_SIZE = 25;
+    /** Number of times a batch is sent before its unprocessed items fail the import. */
+    public static final int MAX_BATCH_ATTEMPTS = 10;
+    /** Delay, in milliseconds, before unprocessed items are first sent again.  Doubles on each retry. */
+    public static final long RETRY_DELAY_MILLIS = 50;
+    /** Longest delay, in milliseconds, before unprocessed items are sent again. */
+    public static final long RETRY_DELAY_MAX_MILLIS = 5000;
+
+    /** Converts items to and from Json */
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /** Object holding the table connection, name and user item cache */
+    private final DynamoItemPersistence dynamoItemPersistence;
+    /** Dynamo DB connection */
+    private final AmazonDynamoDBClient dynamoDbLowLevel;
+    /** Dynamo DB table name */
+    private final String tableName;
+    /** Number of unprocessed items sent again */
+    private final AtomicLong unprocessedRetryCount = new AtomicLong();
+
+    /**
+     * Create the tool for a schedule table.
+     *
+     * @param dynamoItemPersistence {@link DynamoItemPersistence} for the table to export or import
+     */
+    public ScheduleTableBackup(DynamoItemPersistence dynamoItemPersistence) {
+    	log.trace("ScheduleTableBackup()");
+    	this.dynamoItemPersistence = dynamoItemPersistence;
+    	this.dynamoDbLowLevel = dynamoItemPersistence.getDynamoDbClient();
+    	this.tableName = dynamoItemPersistence.getTableName();
+    }
+
+    /**
+     * Get the number of items Dynamo DB left unprocessed and that were sent again.
+     *
+     * @return unprocessed item retries
+     */
+    public long getUnprocessedRetryCount() {
+    	return unprocessedRetryCount.get();
+    }
+
+    /**
+     * Write every item in the table to an export file.
+     *
+     * @param out Writer for the export file.  Flushed, but not closed.
+     * @param segments number of table segments scanned in parallel.  Must be positive.
+     * @return number of items written
+     * @throws IOException if the file cannot be written
+     */
+    public long exportTable(Writer out, int segments) throws IOException {
+    	log.info("exportTable: {} with {} segments", tableName, segments);
+    	if (segments < 1) {
+    		throw new IllegalArgumentException("Number of segments must be a positive number.");
+    	}
+    	ExecutorService executor = Executors.newFixedThreadPool(segments);
+    	long count = 0;
+    	try {
+    		List<Future<Long>> scans = new ArrayList<Future<Long>>();
+    		for (int segment=0; segment<segments; segment++) {
+    			final int scanSegment = segment;
+    			scans.add(executor.submit(() -> scanSegment(scanSegment, segments, out)));
+    		}
+    		for (Future<Long> scan : scans) {
+    			count += waitFor(scan);
+    		}
+    	} finally {
+    		executor.shutdownNow();
+    	}
+    	out.write(TRAILER_PREFIX + count + "\n");
+    	out.flush();
+    	log.info("exportTable: Wrote {} items", count);
+    	return count;
+    }
+
+    /**
+     * Scan one table segment and write its items.
+     *
+     * @param segment segment number
+     * @param totalSegments number of segments
+     * @param out Writer for the export file, shared by all segments
+     * @return number of items written
+     * @throws IOException if the file cannot be written
+     */
+    private long scanSegment(int segment, int totalSegments, Writer out) throws IOException {
+    	long count = 0;
+    	Map<String, AttributeValue> startKey = null;
+    	do {
+    		ScanRequest request = new ScanRequest()
+    				.withTableName(tableName)
+    				.withSegment(segment)
+    				.withTotalSegments(totalSegments)
+    				.withConsistentRead(true)
+    				.withExclusiveStartKey(startKey);
+    		ScanResult result = dynamoDbLowLevel.scan(request);
+    		StringBuilder lines = new StringBuilder();
+    		for (Map<String, AttributeValue> item : result.getItems()) {
+    			lines.append(toLine(item));
+    			count++;
+    		}
+    		synchronized (out) {
+    			out.write(lines.toString());
+    		}
+    		startKey = result.getLastEvaluatedKey();
+    	} while ( (startKey != null) && (! startKey.isEmpty()) );
+    	log.debug("scanSegment: Segment {} wrote {} items", segment, count);
+    	return count;
+    }
+
+    /**
+     * Put every item in an export file into the table.  The whole file is checked first,
+     * so nothing is written from a damaged or cut-short file.
+     *
+     * @param in BufferedReader for the export file.  Not closed.
+     * @param writerThreads number of threads sending BatchWriteItem requests.  Must be positive.
+     * @return number of items written
+     * @throws IOException if the file cannot be read
+     * @throws IllegalStateException if a line fails its checksum, the file is cut short,
+     * 			or items are still unprocessed after {@link #MAX_BATCH_ATTEMPTS} tries
+     */
+    public long importTable(BufferedReader in, int writerThreads) throws IOException {
+    	log.info("importTable: {} with {} writer threads", tableName, writerThreads);
+    	if (writerThreads < 1) {
+    		throw new IllegalArgumentException("Number of writer threads must be a positive number.");
+    	}
+    	Path staged = Files.createTempFile("ScheduleTableBackup", ".import");
+    	try {
+    		long count;
+    		try (BufferedWriter out = Files.newBufferedWriter(staged, StandardCharsets.UTF_8)) {
+    			count = checkExport(in, out);
+    		}
+    		log.info("importTable: Checked {} items", count);
+    		try (BufferedReader checked = Files.newBufferedReader(staged, StandardCharsets.UTF_8)) {
+    			return writeItems(checked, writerThreads, System.currentTimeMillis());
+    		}
+    	} finally {
+    		Files.deleteIfExists(staged);
+    	}
+    }
+
+    /**
+     * Read a whole export file, checking every line's checksum and the trailer count, and
+     * copy the item lines to a staging file.
+     *
+     * @param in BufferedReader for the export file
+     * @param out Writer for the staging file
+     * @return number of items in the file
+     * @throws IOException if a file cannot be read or written
+     * @throws IllegalStateException if a line fails its checksum or the file is cut short
+     */
+    private static long checkExport(BufferedReader in, Writer out) throws IOException {
+    	long count = 0;
+    	Long trailerCount = null;
+    	int lineNumber = 0;
+    	String line;
+    	while ( (line = in.readLine()) != null ) {
+    		lineNumber++;
+    		if (trailerCount != null) {
+    			throw new IllegalStateException("Line "+lineNumber+": Data after the end of the export.");
+    		}
+    		if (line.startsWith(TRAILER_PREFIX)) {
+    			try {
+    				trailerCount = Long.valueOf(line.substring(TRAILER_PREFIX.length()).trim());
+    			} catch (NumberFormatException ex) {
+    				throw new IllegalStateException("Line "+lineNumber+": Bad item count "+line.substring(TRAILER_PREFIX.length()));
+    			}
+    			continue;
+    		}
+    		fromLine(line, lineNumber);
+    		out.write(line);
+    		out.write('\n');
+    		count++;
+    	}
+    	if (trailerCount == null) {
+    		throw new IllegalStateException("Export file ends without its "+TRAILER_PREFIX.trim()+" line.  It may be cut short.");
+    	}
+    	if (trailerCount.longValue() != count) {
+    		throw new IllegalStateException("Export file has "+count+" items but its last line says "+trailerCount+".");
+    	}
+    	return count;
+    }
+
+    /**
+     * Put every item from checked export lines into the table.
+     *
+     * @param in BufferedReader for lines already passed by {@link #checkExport(BufferedReader, Writer)}
+     * @param writerThreads number of threads sending BatchWriteItem requests
+     * @param minimumVersion lowest {@link DynamoItem#ATTR_VERSION} a restored item is given
+     * @return number of items written
+     * @throws IOException if the lines cannot be read
+     * @throws IllegalStateException if items are still unprocessed after {@link #MAX_BATCH_ATTEMPTS} tries
+     */
+    private long writeItems(BufferedReader in, int writerThreads, long minimumVersion) throws IOException {
+    	BlockingQueue<List<WriteRequest>> batches = new ArrayBlockingQueue<List<WriteRequest>>(writerThreads * 2);
+    	ExecutorService executor = Executors.newFixedThreadPool(writerThreads);
+    	List<Future<Long>> writers = new ArrayList<Future<Long>>();
+    	for (int i=0; i<writerThreads; i++) {
+    		writers.add(executor.submit(() -> writeBatches(batches)));
+    	}
+    	try {
+    		List<WriteRequest> batch = new ArrayList<WriteRequest>(BATCH_SIZE);
+    		int lineNumber = 0;
+    		String line;
+    		while ( (line = in.readLine()) != null ) {
+    			lineNumber++;
+    			batch.add(new WriteRequest(new PutRequest(bumpVersion(fromLine(line, lineNumber), minimumVersion))));
+    			if (batch.size() == BATCH_SIZE) {
+    				queueBatch(batches, batch, writers);
+    				batch = new ArrayList<WriteRequest>(BATCH_SIZE);
+    			}
+    		}
+    		if (! batch.isEmpty()) {
+    			queueBatch(batches, batch, writers);
+    		}
+    		for (int i=0; i<writerThreads; i++) {
+    			queueBatch(batches, Collections.<WriteRequest>emptyList(), writers);
+    		}
+    		long written = 0;
+    		for (Future<Long> writer : writers) {
+    			written += waitFor(writer);
+    		}
+    		log.info("importTable: Wrote {} items, {} unprocessed item retries", written, unprocessedRetryCount.get());
+    		return written;
+    	} finally {
+    		executor.shutdownNow();
+    		dynamoItemPersistence.getUserItemCache().clear();
+    	}
+    }
+
+    /**
+     * Raise a restored item's version so it differs from any version cached before the
+     * restore.  Items saved without a version are left without one.
+     *
+     * @param item Map of item attributes
+     * @param minimumVersion lowest version the item is given
+     * @return the same item
+     */
+    protected static Map<String, AttributeValue> bumpVersion(Map<String, AttributeValue> item, long minimumVersion) {
+    	AttributeValue version = item.get(DynamoItem.ATTR_VERSION);
+    	if ( (version != null) && (version.getN() != null) ) {
+    		long restored = Math.max(Long.parseLong(version.getN()) + 1, minimumVersion);
+    		item.put(DynamoItem.ATTR_VERSION, new AttributeValue().withN(Long.toString(restored)));
+    	}
+    	return item;
+    }
+
+    /**
+     * Queue a batch for the writer threads, waiting while the queue is full.  An empty
+     * batch tells one writer thread to finish.
+     *
+     * @param batches queue of batches
+     * @param batch batch to queue
+     * @param writers writer thread results, checked while waiting so a failed writer ends the import
+     * @throws IOException if a writer failed with an IOException
+     */
+    private static void queueBatch(BlockingQueue<List<WriteRequest>> batches, List<WriteRequest> batch,
+    		List<Future<Long>> writers) throws IOException {
+    	try {
+    		while (! batches.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+    			for (Future<Long> writer : writers) {
+    				if (writer.isDone()) {
+    					waitFor(writer);
+    					throw new IllegalStateException("Writer thread finished before the import was done.");
+    				}
+    			}
+    		}
+    	} catch (InterruptedException ex) {
+    		Thread.currentThread().interrupt();
+    		throw new IllegalStateException("Interrupted while queueing items to write.");
+    	}
+    }
+
+    /**
+     * Writer thread loop: write queued batches until an empty batch arrives.
+     *
+     * @param batches queue of batches
+     * @return number of items written by this thread
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private long writeBatches(BlockingQueue<List<WriteRequest>> batches) throws InterruptedException {
+    	long count = 0;
+    	while (true) {
+    		List<WriteRequest> batch = batches.take();
+    		if (batch.isEmpty()) {
+    			return count;
+    		}
+    		writeBatch(batch);
+    		count += batch.size();
+    	}
+    }
+
+    /**
+     * Write one batch, sending any unprocessed items again after a growing delay.
+     *
+     * @param batch up to {@link #BATCH_SIZE} put requests
+     * @throws InterruptedException if interrupted during a retry delay
+     * @throws IllegalStateException if items are still unprocessed after {@link #MAX_BATCH_ATTEMPTS} tries
+     */
+    private void writeBatch(List<WriteRequest> batch) throws InterruptedException {
+    	Map<String, List<WriteRequest>> pending = Collections.singletonMap(tableName, batch);
+    	long delay = RETRY_DELAY_MILLIS;
+    	for (int attempt=1; attempt<=MAX_BATCH_ATTEMPTS; attempt++) {
+    		BatchWriteItemResult result = batchWriteItem(new BatchWriteItemRequest().withRequestItems(pending));
+    		Map<String, List<WriteRequest>> unprocessed = result.getUnprocessedItems();
+    		if ( (unprocessed == null) || (unprocessed.isEmpty()) ) {
+    			return;
+    		}
+    		int unprocessedCount = 0;
+    		for (List<WriteRequest> requests : unprocessed.values()) {
+    			unprocessedCount += requests.size();
+    		}
+    		unprocessedRetryCount.addAndGet(unprocessedCount);
+    		log.info("writeBatch: {} unprocessed items after attempt {}.  Retry in {} ms.", unprocessedCount, attempt, delay);
+    		Thread.sleep(delay);
+    		delay = Math.min(delay * 2, RETRY_DELAY_MAX_MILLIS);
+    		pending = unprocessed;
+    	}
+    	throw new IllegalStateException("Items still unprocessed after "+MAX_BATCH_ATTEMPTS+" attempts.");
+    }
+
+    /**
+     * Send one BatchWriteItem request.
+     *
+     * @param request BatchWriteItemRequest to send
+     * @return BatchWriteItemResult, including any unprocessed items
+     */
+    protected BatchWriteItemResult batchWriteItem(BatchWriteItemRequest request) {
+    	return dynamoDbLowLevel.batchWriteItem(request);
+    }
+
+    /**
+     * Wait for a scan or writer thread and pass on its failure.
+     *
+     * @param future result of the thread
+     * @return the thread's item count
+     * @throws IOException if the thread failed with an IOException
+     */
+    private static long waitFor(Future<Long> future) throws IOException {
+    	try {
+    		return future.get();
+    	} catch (InterruptedException ex) {
+    		Thread.currentThread().interrupt();
+    		throw new IllegalStateException("Interrupted while waiting for table access.");
+    	} catch (ExecutionException ex) {
+    		Throwable cause = ex.getCause();
+    		if (cause instanceof IOException) {
+    			throw (IOException) cause;
+    		}
+    		if (cause instanceof RuntimeException) {
+    			throw (RuntimeException) cause;
+    		}
+    		throw new IllegalStateException("Table access failed. "+cause.getMessage(), cause);
+    	}
+    }
+
+    /**
+     * Make an export file line for an item.
+     *
+     * @param item Map of item attributes
+     * @return line with checksum, tab, item Json and newline
+     */
+    protected static String toLine(Map<String, AttributeValue> item) {
+    	ObjectNode node = OBJECT_MAPPER.createObjectNode();
+    	for (Map.Entry<String, AttributeValue> attribute : item.entrySet()) {
+    		node.set(attribute.getKey(), toJson(attribute.getValue()));
+    	}
+    	String json = node.toString();
+    	return String.format("%08x\t%s\n", checksum(json), json);
+    }
+
+    /**
+     * Read an item from an export file line, checking its checksum.
+     *
+     * @param line export file line, without the newline
+     * @param lineNumber line number, for error messages
+     * @return Map of item attributes
+     * @throws IllegalStateException if the line is damaged
+     */
+    protected static Map<String, AttributeValue> fromLine(String line, int lineNumber) {
+    	int tab = line.indexOf('\t');
+    	if (tab < 0) {
+    		throw new IllegalStateException("Line "+lineNumber+": No checksum.");
+    	}
+    	String json = line.substring(tab + 1);
+    	long expected;
+    	try {
+    		expected = Long.parseLong(line.substring(0, tab), 16);
+    	} catch (NumberFormatException ex) {
+    		throw new IllegalStateException("Line "+lineNumber+": Bad checksum "+line.substring(0, tab));
+    	}
+    	if (checksum(json) != expected) {
+    		throw new IllegalStateException("Line "+lineNumber+": Checksum does not match the item.");
+    	}
+    	try {
+    		JsonNode node = OBJECT_MAPPER.readTree(json);
+    		Map<String, AttributeValue> item = new HashMap<String, AttributeValue>();
+    		Iterator<Map.Entry<String, JsonNode>> attributes = node.fields();
+    		while (attributes.hasNext()) {
+    			Map.Entry<String, JsonNode> attribute = attributes.next();
+    			item.put(attribute.getKey(), fromJson(attribute.getValue()));
+    		}
+    		if (! item.containsKey(DynamoItem.ATTR_CUSTOMER_ID)) {
+    			throw new IllegalStateException("Line "+lineNumber+": Item has no "+DynamoItem.ATTR_CUSTOMER_ID+".");
+    		}
+    		return item;
+    	} catch (IOException | IllegalArgumentException ex) {
+    		throw new IllegalStateException("Line "+lineNumber+": Unreadable item. "+ex.getMessage());
+    	}
+    }
+
+    /**
+     * Calculate the CRC-32 of an item's Json.
+     *
+     * @param json item Json
+     * @return CRC-32 of the UTF-8 bytes
+     */
+    private static long checksum(String json) {
+    	CRC32 crc = new CRC32();
+    	crc.update(json.getBytes(StandardCharsets.UTF_8));
+    	return crc.getValue();
+    }
+
+    /**
+     * Convert an attribute value to Dynamo DB Json, eg. {"S":"US/Eastern"}.
+     *
+     * @param value AttributeValue
+     * @return ObjectNode with one field named by the value's type
+     */
+    private static ObjectNode toJson(AttributeValue value) {
+    	ObjectNode node = OBJECT_MAPPER.createObjectNode();
+    	if (value.getS() != null) {
+    		node.put("S", value.getS());
+    	} else if (value.getN() != null) {
+    		node.put("N", value.getN());
+    	} else if (value.getB() != null) {
+    		node.put("B", toBase64(value.getB()));
+    	} else if (value.getSS() != null) {
+    		ArrayNode values = node.putArray("SS");
+    		value.getSS().forEach(values::add);
+    	} else if (value.getNS() != null) {
+    		ArrayNode values = node.putArray("NS");
+    		value.getNS().forEach(values::add);
+    	} else if (value.getBS() != null) {
+    		ArrayNode values = node.putArray("BS");
+    		value.getBS().forEach(b -> values.add(toBase64(b)));
+    	} else if (value.getM() != null) {
+    		ObjectNode values = node.putObject("M");
+    		value.getM().forEach((name, v) -> values.set(name, toJson(v)));
+    	} else if (value.getL() != null) {
+    		ArrayNode values = node.putArray("L");
+    		value.getL().forEach(v -> values.add(toJson(v)));
+    	} else if (value.getBOOL() != null) {
+    		node.put("BOOL", value.getBOOL());
+    	} else if (value.getNULL() != null) {
+    		node.put("NULL", true);
+    	} else {
+    		throw new IllegalArgumentException("Attribute value has no type: "+value);
+    	}
+    	return node;
+    }
+
+    /**
+     * Convert Dynamo DB Json back to an attribute value.
+     *
+     * @param node ObjectNode with one field named by the value's type
+     * @return AttributeValue
+     */
+    private static AttributeValue fromJson(JsonNode node) {
+    	if (node.size() != 1) {
+    		throw new IllegalArgumentException("Attribute value must have one type: "+node);
+    	}
+    	String type = node.fieldNames().next();
+    	JsonNode value = node.get(type);
+    	switch (type) {
+    	case "S":
+    		return new AttributeValue().withS(value.asText());
+    	case "N":
+    		return new AttributeValue().withN(value.asText());
+    	case "B":
+    		return new AttributeValue().withB(ByteBuffer.wrap(Base64.getDecoder().decode(value.asText())));
+    	case "SS": {
+    		List<String> values = new ArrayList<String>();
+    		value.forEach(v -> values.add(v.asText()));
+    		return new AttributeValue().withSS(values);
+    	}
+    	case "NS": {
+    		List<String> values = new ArrayList<String>();
+    		value.forEach(v -> values.add(v.asText()));
+    		return new AttributeValue().withNS(values);
+    	}
+    	case "BS": {
+    		List<ByteBuffer> values = new ArrayList<ByteBuffer>();
+    		value.forEach(v -> values.add(ByteBuffer.wrap(Base64.getDecoder().decode(v.asText()))));
+    		return new AttributeValue().withBS(values);
+    	}
+    	case "M": {
+    		Map<String, AttributeValue> values = new HashMap<String, AttributeValue>();
+    		value.fields().forEachRemaining(field -> values.put(field.getKey(), fromJson(field.getValue())));
+    		return new AttributeValue().withM(values);
+    	}
+    	case "L": {
+    		List<AttributeValue> values = new ArrayList<AttributeValue>();
+    		value.forEach(v -> values.add(fromJson(v)));
+    		return new AttributeValue().withL(values);
+    	}
+    	case "BOOL":
+    		return new AttributeValue().withBOOL(value.asBoolean());
+    	case "NULL":
+    		return new AttributeValue().withNULL(true);
+    	default:
+    		throw new IllegalArgumentException("Unknown attribute value type: "+type);
+    	}
+    }
+
+    /**
+     * Base64-encode binary data without changing the buffer's position.
+     *
+     * @param buffer ByteBuffer holding the data
+     * @return Base64 text
+     */
+    private static String toBase64(ByteBuffer buffer) {
+    	ByteBuffer data = buffer.duplicate();
+    	byte[] bytes = new byte[data.remaining()];
+    	data.get(bytes);
+    	return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    /**
+     * Export or import the schedule table in the Amazon Dynamo DB cloud.
+     * <pre>
+     * ScheduleTableBackup export FILE [SEGMENTS [TABLE]]
+     * ScheduleTableBackup import FILE [WRITER-THREADS [TABLE]]
+     * </pre>
+     * {@literal @}{@link trashday.CoberturaIgnore} used because we don't want to use JUnit
+     * tests that involve the Amazon Dynamo DB cloud that
+     * may contain user data.
+     *
+     * @param args command, file, optional thread count (default 4) and optional table name
+     * 			instead of the production table
+     * @throws IOException if the file cannot be read or written
+     */
+    @CoberturaIgnore
+    public static void main(String[] args) throws IOException {
+    	if ( (args.length < 2) || (! ("export".equals(args[0]) || "import".equals(args[0]))) ) {
+    		throw new IllegalArgumentException("Usage: ScheduleTableBackup export|import FILE [THREADS [TABLE]]");
+    	}
+    	Path file = Paths.get(args[1]);
+    	int threads = (args.length > 2) ? Integer.parseInt(args[2]) : 4;
+    	String tableNameOverride = (args.length > 3) ? args[3] : null;
+    	ScheduleTableBackup backup = new ScheduleTableBackup(new DynamoItemPersistence(new AmazonDynamoDBClient(), tableNameOverride));
+    	if ("export".equals(args[0])) {
+    		try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+    			log.info("main: Exported {} items to {}", backup.exportTable(out, threads), file);
+    		}
+    	} else {
+    		try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+    			log.info("main: Imported {} items from {}", backup.importTable(in, threads), file);
+    		}
+    	}
+    }
+}
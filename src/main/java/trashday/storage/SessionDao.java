@@ -13,14 +13,12 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
-import com.github.jonpeterson.jackson.module.versioning.VersioningModule;
 
 import net.fortuna.ical4j.data.ParserException;
 import trashday.model.Calendar;
+import trashday.model.CalendarCache;
 import trashday.model.IntentLog;
+import trashday.model.JsonUtils;
 import trashday.ui.FormatUtils;
 
 /**
@@ -35,12 +33,11 @@ public class SessionDao {
     /** Object that loads specific users' Schedules in Dynamo DB */
     private Session session;
     
-	/** A Jackson object mapper configured to handle Java 8 LocalDateTime objects and Jon Peterson's object versioning module. */
-    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
- 		   .registerModule(new ParameterNamesModule())
- 		   .registerModule(new Jdk8Module())
- 		   .registerModule(new JavaTimeModule())
- 		   .registerModule(new VersioningModule());
+    /** Timestamp of the Alexa request being handled, if known.  Not stored in the {@link Session}. */
+    private final java.util.Date requestTimestamp;
+    
+	/** The shared Jackson object mapper (see {@link JsonUtils}). */
+    private static final ObjectMapper OBJECT_MAPPER = JsonUtils.OBJECT_MAPPER;
 
     /** {@link Session} attribute key to store user is currently configuring their {@link trashday.model.Schedule}. */
     public static final String SESSION_ATTR_SCHEDULE_IN_PROGRESS = "trashDayScheduleConfigInProgress";
@@ -63,6 +60,8 @@ public class SessionDao {
 	public static final String SESSION_ATTR_INTENT_LOG = "trashDayIntentLog";
 	/** {@link com.amazon.speech.speechlet.Session} attribute key to store a flag when intent log is updated so we know to store it later to Dynamo DB */
 	public static final String SESSION_ATTR_INTENT_LOG_UPDATED = "trashDayIntentLogUpdated";
+	/** {@link com.amazon.speech.speechlet.Session} attribute key to store when calendar or time zone changes were first left unsaved, so we know to store them later to Dynamo DB */
+	public static final String SESSION_ATTR_USER_DATA_DIRTY_SINCE = "trashDayUserDataDirtySince";
 	
     /**
      * Create data access object for a given {@link Session}
@@ -73,6 +72,30 @@ public class SessionDao {
     public SessionDao(Session session) {
     	log.trace("SessionDao()");
         this.session = session;
+        this.requestTimestamp = null;
+    }
+    
+    /**
+     * Create data access object for a given {@link Session} and the request
+     * currently being handled.
+     * 
+     * @param session Session
+     * 			The Alexa {@link Session} that we will be using to store Trash Day information.
+     * @param requestTimestamp {@link java.util.Date} timestamp of the Alexa request being handled
+     */
+    public SessionDao(Session session, java.util.Date requestTimestamp) {
+    	log.trace("SessionDao(requestTimestamp={})", requestTimestamp);
+        this.session = session;
+        this.requestTimestamp = requestTimestamp;
+    }
+    
+    /**
+     * Get the timestamp of the Alexa request being handled.
+     * 
+     * @return {@link java.util.Date} request timestamp or null if not known
+     */
+    public java.util.Date getRequestTimestamp() {
+    	return requestTimestamp;
     }
     
 	/**
@@ -126,7 +149,7 @@ public class SessionDao {
     			if ("(empty)".equals(s.trim())) {
     				calendar = new Calendar();
     			} else {
-    				calendar = new Calendar(s);
+    				calendar = CalendarCache.getShared().get(s);
     			}
 			} catch (IOException e) {
 				log.error("IOException: {}",e.getMessage());
@@ -220,6 +243,34 @@ public class SessionDao {
     	return false;
     }
     
+    /**
+     * Load the session attribute that tracks when calendar or time zone changes
+     * were first made in this session without being written to Dynamo DB.
+     * 
+     * @return epoch milliseconds of the first unsaved change, or null if there
+     * 			are no unsaved changes
+     */
+    public Long getUserDataDirtySince() {
+    	Object o = session.getAttribute(SESSION_ATTR_USER_DATA_DIRTY_SINCE);
+    	if ( o == null) { return null; };
+    	// Session attributes read back from the request Json are Integer or Long.
+    	if (o instanceof Number) {
+    		return ((Number) o).longValue();
+    	}
+    	log.warn("Cannot parse dirty timestamp from current session (class={}, string={})", o.getClass().getName(), o.toString());
+    	return null;
+    }
+    
+    /**
+     * Check if this session has calendar or time zone changes that are not 
+     * yet written to Dynamo DB.
+     * 
+     * @return true if there are unsaved changes
+     */
+    public boolean isUserDataDirty() {
+    	return getUserDataDirtySince() != null;
+    }
+    
     /**
      * Load the session attribute that tracks if the overall help card has
      * been sent to the user during this session.
@@ -312,6 +363,20 @@ public class SessionDao {
     	}
     }
     
+    /**
+     * Record that the calendar or time zone in this session has changed and
+     * still needs writing to Dynamo DB.  Keeps the time of the first unsaved
+     * change: the time of this request, if known, or now.
+     */
+    public void markUserDataDirty() {
+    	log.trace("markUserDataDirty");
+    	if (isUserDataDirty()) {
+    		return;
+    	}
+    	long dirtySince = (requestTimestamp==null) ? System.currentTimeMillis() : requestTimestamp.getTime();
+    	session.setAttribute(SESSION_ATTR_USER_DATA_DIRTY_SINCE, dirtySince);
+    }
+    
     /**
      * Save a given {@link trashday.model.Calendar} to the {@link Session}.
      * 
@@ -454,6 +519,14 @@ public class SessionDao {
     	session.removeAttribute(SESSION_ATTR_INTENT_LOG_UPDATED);
     }
     
+    /**
+     * Remove the session attribute that tracks unsaved calendar or time zone
+     * changes.  Used once they are written to (or erased from) Dynamo DB.
+     */
+    public void clearUserDataDirty() {
+    	session.removeAttribute(SESSION_ATTR_USER_DATA_DIRTY_SINCE);
+    }
+    
     /**
      * Clear {@link java.util.TimeZone} from the {@link Session}.
      */
@@ -0,0 +1,116 @@
+package trashday.storage;
+
+import java.util.concurrent.CompletableFuture;
+
+import trashday.model.IntentLog;
+
+/**
+ * Storage used by {@link DynamoDao} for users' data between Alexa sessions: each user's
+ * {@link DynamoItem} (calendar and time zone) and their intent counts.
+ * <p>
+ * {@link DynamoItemPersistence} stores to Dynamo DB and is what the skill uses.
+ * {@link InMemoryUserDataStore} and {@link MappedFileUserDataStore} keep the data on
+ * the local machine, so the request handler can be load tested without a Dynamo DB.
+ * <p>
+ * Implementations must allow calls from many request threads at once.
+ *
+ * @author J. Todd Baldwin
+ */
+public interface UserDataStore {
+
+    /**
+     * Load the attributes request handling uses: calendar (current and any older forms)
+     * and time zone.  Intent log data is not read.
+     *
+     * @param tableItem DynamoItem
+     * 			Item with customer id already set based on
+     * 			user's {@link com.amazon.speech.speechlet.Session} data.
+     * @return {@link DynamoItem} with the user data populated, or null if nothing is
+     * 			stored for this customer id.
+     */
+    DynamoItem loadUserDataItem(DynamoItem tableItem);
+
+    /**
+     * Load every stored attribute of a user's item.
+     *
+     * @param tableItem DynamoItem
+     * 			Item with customer id already set.
+     * @return {@link DynamoItem} completely populated, or null if nothing is
+     * 			stored for this customer id.
+     */
+    DynamoItem loadCompleteItem(DynamoItem tableItem);
+
+    /**
+     * Store an item, leaving stored attributes that are null in the item unchanged.
+     * Never stores intent log or Schedule data.
+     *
+     * @param tableItem DynamoItem with customer id set
+     */
+    void saveItem(DynamoItem tableItem);
+
+    /**
+     * Store an item, removing stored attributes that are null in the item.
+     *
+     * @param tableItem DynamoItem with customer id set
+     */
+    void saveCompleteItem(DynamoItem tableItem);
+
+    /**
+     * Erase a user's item.  Intent counts are erased separately with {@link #eraseIntentLog(String)}.
+     *
+     * @param tableItem DynamoItem with customer id set
+     */
+    void eraseItem(DynamoItem tableItem);
+
+    /**
+     * Add the counts in an {@link trashday.model.IntentLog} to the user's stored counts.
+     *
+     * @param customerId String user id
+     * @param intentLog {@link trashday.model.IntentLog} counts to add
+     */
+    void addIntentCounts(String customerId, IntentLog intentLog);
+
+    /**
+     * Start adding the counts in an {@link trashday.model.IntentLog} to the user's stored
+     * counts, so the caller can go on while they are written.  Stores that cannot write in
+     * the background add the counts before returning, which is what this default does.
+     *
+     * @param customerId String user id
+     * @param intentLog {@link trashday.model.IntentLog} counts to add
+     * @return CompletableFuture completed when the counts are stored, or completed
+     * 			exceptionally if they could not be
+     */
+    default CompletableFuture<Void> addIntentCountsAsync(String customerId, IntentLog intentLog) {
+    	CompletableFuture<Void> done = new CompletableFuture<Void>();
+    	try {
+    		addIntentCounts(customerId, intentLog);
+    		done.complete(null);
+    	} catch (RuntimeException ex) {
+    		done.completeExceptionally(ex);
+    	}
+    	return done;
+    }
+
+    /**
+     * Load all intent counts stored for a user.
+     *
+     * @param customerId String user id
+     * @return {@link trashday.model.IntentLog} with the stored counts.  Empty if none stored.
+     */
+    IntentLog loadIntentLog(String customerId);
+
+    /**
+     * Erase all intent counts stored for a user.
+     *
+     * @param customerId String user id
+     */
+    void eraseIntentLog(String customerId);
+
+    /**
+     * Prepare anything the store builds on first use, without reading or writing user
+     * data, so the first user's request after a cold start does not wait for it.
+     * Stores with nothing to prepare do nothing, which is what this default does.
+     */
+    default void warmUp() {
+    }
+}
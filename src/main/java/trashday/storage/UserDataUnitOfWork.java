@@ -0,0 +1,151 @@
+package trashday.storage;
+
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import trashday.model.Calendar;
+
+/**
+ * Request-scoped access to a user's stored data.  Reads come from the
+ * {@link com.amazon.speech.speechlet.Session} when it has them.  Otherwise the user's
+ * Dynamo DB item is read through {@link DynamoDao#readUserData(SessionDao)}, at most once
+ * per request, and later reads are answered from the Session data that read filled in.
+ * <p>
+ * Without this, a request needing both the calendar and time zone of a user who only has
+ * one of them stored (or a new user with neither) read the same item twice.
+ *
+ * @author J. Todd Baldwin
+ */
+public class UserDataUnitOfWork {
+	/** Log object for this class */
+    private static final Logger log = LoggerFactory.getLogger(UserDataUnitOfWork.class);
+
+    /** Number of Dynamo DB item reads made by all units of work in this JVM. */
+    private static final AtomicLong totalReadCount = new AtomicLong();
+    /** Number of Dynamo DB item reads avoided by all units of work in this JVM. */
+    private static final AtomicLong totalReadsAvoided = new AtomicLong();
+
+    /** Session data for this request */
+    private final SessionDao sessionDao;
+    /** Dynamo DB data access object */
+    private final DynamoDao dynamoDao;
+    /** Set once this request has read the user's Dynamo DB item. */
+    private boolean itemRead = false;
+    /** Whether the Dynamo DB read found an item for this user. */
+    private boolean itemFound = false;
+    /** Number of Dynamo DB item reads avoided in this request. */
+    private int readsAvoided = 0;
+
+    /**
+     * Create the unit of work for one request.
+     *
+	 * @param sessionDao {@link SessionDao} data access object for user data stored in
+	 * 			current {@link com.amazon.speech.speechlet.Session}.
+	 * @param dynamoDao {@link DynamoDao} data access object for storing user data between
+	 * 			Alexa sessions.
+     */
+    public UserDataUnitOfWork(SessionDao sessionDao, DynamoDao dynamoDao) {
+    	log.trace("UserDataUnitOfWork()");
+    	this.sessionDao = sessionDao;
+    	this.dynamoDao = dynamoDao;
+    }
+
+    /**
+     * Get the session data access object this unit of work belongs to.
+     *
+     * @return {@link SessionDao} for this request
+     */
+    public SessionDao getSessionDao() {
+    	return sessionDao;
+    }
+
+    /**
+     * Get the user's {@link trashday.model.Calendar} from the Session if available.  Otherwise
+     * read the user's Dynamo DB item, unless this request already has.
+     *
+     * @return {@link trashday.model.Calendar} containing user's pickup schedule, or null if none stored
+     */
+    public Calendar getCalendar() {
+    	log.trace("getCalendar()");
+    	Calendar calendar = sessionDao.getCalendar();
+    	if (calendar == null) {
+    		readItem();
+    		calendar = sessionDao.getCalendar();
+    	}
+    	return calendar;
+    }
+
+    /**
+     * Get the user's {@link java.util.TimeZone} from the Session if available.  Otherwise
+     * read the user's Dynamo DB item, unless this request already has.
+     *
+     * @return {@link java.util.TimeZone} for this user, or null if none stored
+     */
+    public TimeZone getTimeZone() {
+    	log.trace("getTimeZone()");
+    	TimeZone timeZone = sessionDao.getTimeZone();
+    	if (timeZone == null) {
+    		readItem();
+    		timeZone = sessionDao.getTimeZone();
+    	}
+    	return timeZone;
+    }
+
+    /**
+     * Read the user's Dynamo DB item into the Session the first time this is called.
+     * Later calls only count the read avoided.
+     *
+     * @return true if a database item was found for this user
+     */
+    public boolean readItem() {
+    	if (itemRead) {
+    		readsAvoided++;
+    		long total = totalReadsAvoided.incrementAndGet();
+    		log.debug("readItem: Already read this request.  Reads avoided: request={} total={}", readsAvoided, total);
+    		return itemFound;
+    	}
+    	itemRead = true;
+    	totalReadCount.incrementAndGet();
+    	itemFound = dynamoDao.readUserData(sessionDao);
+    	return itemFound;
+    }
+
+    /**
+     * Check if this request has read the user's Dynamo DB item.
+     *
+     * @return true if the item has been read
+     */
+    public boolean isItemRead() {
+    	return itemRead;
+    }
+
+    /**
+     * Get the number of Dynamo DB item reads avoided in this request.
+     *
+     * @return reads avoided
+     */
+    public int getReadsAvoided() {
+    	return readsAvoided;
+    }
+
+    /**
+     * Get the number of Dynamo DB item reads made by all units of work in this JVM.
+     *
+     * @return reads made
+     */
+    public static long getTotalReadCount() {
+    	return totalReadCount.get();
+    }
+
+    /**
+     * Get the number of Dynamo DB item reads avoided by all units of work in this JVM.
+     *
+     * @return reads avoided
+     */
+    public static long getTotalReadsAvoided() {
+    	return totalReadsAvoided.get();
+    }
+}
@@ -0,0 +1,377 @@
+package trashday.storage;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fortuna.ical4j.data.ParserException;
+import trashday.model.CalendarCache;
+
+/**
+ * Bounded, time-limited cache of users' stored calendar and time zone, kept across
+ * requests and sessions in a warm container.  Each {@link DynamoItemPersistence} has
+ * one for its table, and lives as long as the container's request handler.
+ * <p>
+ * {@link DynamoItemPersistence#loadUserDataItem(DynamoItem)} uses an entry without reading
+ * Dynamo DB at all, which saves the read and decoding the calendar.  Saves made by this
+ * container refresh the entry.  A save made by another container is not seen until the
+ * entry is dropped, {@link #getTimeToLiveMillis()} after it was stored, so the time to
+ * live is kept short.  Each entry holds the item's {@link DynamoItem#getVersion()}, so a
+ * save on top of a version another container wrote drops the entry instead of merging.
+ * <p>
+ * Entries are evicted in least-recently-used order once the cache holds
+ * {@link #getCapacity()} users.
+ *
+ * @author J. Todd Baldwin
+ */
+public class UserItemCache {
+	/** Log object for this class */
+    private static final Logger log = LoggerFactory.getLogger(UserItemCache.class);
+
+    /** Number of users held by a {@link DynamoItemPersistence} cache. */
+    public static final int DEFAULT_CAPACITY = 1024;
+    /** 
+     * How long a {@link DynamoItemPersistence} cache keeps an entry, in milliseconds.  Also
+     * the longest a save from another container can go unseen by this one.
+     */
+    public static final long DEFAULT_TIME_TO_LIVE_MILLIS = 60 * 1000L;
+
+    /** Maximum number of users held */
+    private final int capacity;
+    /** How long an entry is kept, in milliseconds */
+    private final long timeToLiveMillis;
+
+    /** Cached user data keyed by table and customer id, in least-recently-used order. */
+    private final LinkedHashMap<String, Entry> entries;
+
+    /** Number of lookups answered from the cache */
+    private final AtomicLong hitCount = new AtomicLong();
+    /** Number of lookups with no entry to use */
+    private final AtomicLong missCount = new AtomicLong();
+    /** Number of entries found out of date by a save */
+    private final AtomicLong staleCount = new AtomicLong();
+    /** Number of entries dropped for being older than the time to live */
+    private final AtomicLong expiredCount = new AtomicLong();
+    /** Number of entries evicted to stay within capacity */
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * One user's cached data.  Immutable.
+     */
+    public static final class Entry {
+    	/** Item version the data was stored or read at */
+    	private final long version;
+    	/** Binary calendar data, or null if none stored */
+    	private final byte[] calendarData;
+    	/** Time zone id, or null if none stored */
+    	private final String timeZoneId;
+    	/** When the entry was stored, in milliseconds */
+    	private final long storedAtMillis;
+
+    	/**
+    	 * Create an entry.
+    	 *
+    	 * @param version item version
+    	 * @param calendarData binary calendar data (see {@link trashday.model.CalendarData}), or null
+    	 * @param timeZoneId time zone id, or null
+    	 * @param storedAtMillis when the entry was stored
+    	 */
+    	private Entry(long version, byte[] calendarData, String timeZoneId, long storedAtMillis) {
+    		this.version = version;
+    		this.calendarData = calendarData;
+    		this.timeZoneId = timeZoneId;
+    		this.storedAtMillis = storedAtMillis;
+    	}
+
+    	/**
+    	 * Get the item version this entry was stored at.
+    	 *
+    	 * @return item version
+    	 */
+    	public long getVersion() {
+    		return version;
+    	}
+
+    	/**
+    	 * Get the binary calendar data.
+    	 *
+    	 * @return binary calendar data, or null if none stored
+    	 */
+    	public byte[] getCalendarData() {
+    		return calendarData;
+    	}
+
+    	/**
+    	 * Get the time zone id.
+    	 *
+    	 * @return time zone id, or null if none stored
+    	 */
+    	public String getTimeZoneId() {
+    		return timeZoneId;
+    	}
+
+    	/**
+    	 * Build a {@link DynamoItem} holding this entry's data.  The calendar comes
+    	 * from {@link trashday.model.CalendarCache}, so it is a private copy-on-write view.
+    	 *
+    	 * @param customerId String user id
+    	 * @return new {@link DynamoItem}
+    	 */
+    	public DynamoItem toItem(String customerId) {
+    		DynamoItem item = new DynamoItem();
+    		item.setCustomerId(customerId);
+    		item.setVersion(version);
+    		if (calendarData != null) {
+    			try {
+    				item.setCalendar(CalendarCache.getShared().get(calendarData));
+    			} catch (IOException | ParserException ex) {
+    				throw new IllegalStateException("Unable to convert cached calendar data. "+ex.getMessage());
+    			}
+    		}
+    		if (timeZoneId != null) {
+    			item.setTimeZone(TimeZone.getTimeZone(timeZoneId));
+    		}
+    		return item;
+    	}
+    }
+
+    /**
+     * Create an empty cache.
+     *
+     * @param capacity maximum number of users held.  Must be positive.
+     * @param timeToLiveMillis how long an entry is kept, in milliseconds.  Must be positive.
+     */
+    public UserItemCache(int capacity, long timeToLiveMillis) {
+    	log.trace("UserItemCache(capacity={}, timeToLiveMillis={})", capacity, timeToLiveMillis);
+    	if (capacity < 1) {
+    		throw new IllegalArgumentException("Cache capacity must be a positive number.");
+    	}
+    	if (timeToLiveMillis < 1) {
+    		throw new IllegalArgumentException("Cache time to live must be a positive number.");
+    	}
+    	this.capacity = capacity;
+    	this.timeToLiveMillis = timeToLiveMillis;
+    	this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+    		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+    			if (size() > UserItemCache.this.capacity) {
+    				evictionCount.incrementAndGet();
+    				return true;
+    			}
+    			return false;
+    		}
+    	};
+    }
+
+    /**
+     * Find a user's entry.  Counts a hit, or a miss if there is none.
+     *
+     * @param key String table and customer id
+     * @return cached {@link Entry}, or null if none or it has expired
+     */
+    public Entry lookup(String key) {
+    	return lookup(key, System.currentTimeMillis());
+    }
+
+    /**
+     * Find a user's entry at a given time.
+     *
+     * @param key String table and customer id
+     * @param nowMillis current time, in milliseconds
+     * @return cached {@link Entry}, or null if none or it has expired
+     */
+    protected Entry lookup(String key, long nowMillis) {
+    	Entry entry;
+    	synchronized (entries) {
+    		entry = entries.get(key);
+    		if ( (entry != null) && (nowMillis - entry.storedAtMillis >= timeToLiveMillis) ) {
+    			entries.remove(key);
+    			expiredCount.incrementAndGet();
+    			entry = null;
+    		}
+    	}
+    	if (entry == null) {
+    		missCount.incrementAndGet();
+    	} else {
+    		hitCount.incrementAndGet();
+    	}
+    	return entry;
+    }
+
+    /**
+     * Drop an entry found to be older than the stored item, because another container
+     * saved the item since the entry was stored.
+     *
+     * @param key String table and customer id
+     */
+    public void invalidateStale(String key) {
+    	log.debug("invalidateStale: {}", key);
+    	staleCount.incrementAndGet();
+    	invalidate(key);
+    }
+
+    /**
+     * Store a user's data.
+     *
+     * @param key String table and customer id
+     * @param version item version the data was read or saved at
+     * @param calendarData binary calendar data, or null if none stored
+     * @param timeZoneId time zone id, or null if none stored
+     */
+    public void put(String key, long version, byte[] calendarData, String timeZoneId) {
+    	put(key, version, calendarData, timeZoneId, System.currentTimeMillis());
+    }
+
+    /**
+     * Store a user's data at a given time.
+     *
+     * @param key String table and customer id
+     * @param version item version the data was read or saved at
+     * @param calendarData binary calendar data, or null if none stored
+     * @param timeZoneId time zone id, or null if none stored
+     * @param nowMillis current time, in milliseconds
+     */
+    protected void put(String key, long version, byte[] calendarData, String timeZoneId, long nowMillis) {
+    	Entry entry = new Entry(version, calendarData, timeZoneId, nowMillis);
+    	synchronized (entries) {
+    		Entry existing = entries.get(key);
+    		if ( (existing == null) || (existing.version <= version) ) {
+    			entries.put(key, entry);
+    		}
+    	}
+    }
+
+    /**
+     * Get a user's entry without counting a hit or miss.  Used when a save updates the entry.
+     *
+     * @param key String table and customer id
+     * @return cached {@link Entry}, or null if none
+     */
+    public Entry peek(String key) {
+    	synchronized (entries) {
+    		return entries.get(key);
+    	}
+    }
+
+    /**
+     * Remove a user's entry.
+     *
+     * @param key String table and customer id
+     */
+    public void invalidate(String key) {
+    	synchronized (entries) {
+    		entries.remove(key);
+    	}
+    }
+
+    /**
+     * Remove all entries.  Counters are not reset.
+     */
+    public void clear() {
+    	synchronized (entries) {
+    		entries.clear();
+    	}
+    }
+
+    /**
+     * Get the maximum number of users held.
+     *
+     * @return cache capacity
+     */
+    public int getCapacity() {
+    	return capacity;
+    }
+
+    /**
+     * Get how long an entry is kept.
+     *
+     * @return time to live, in milliseconds
+     */
+    public long getTimeToLiveMillis() {
+    	return timeToLiveMillis;
+    }
+
+    /**
+     * Get the number of users currently held.
+     *
+     * @return cache size
+     */
+    public int size() {
+    	synchronized (entries) {
+    		return entries.size();
+    	}
+    }
+
+    /**
+     * Get the number of lookups answered from the cache.
+     *
+     * @return cache hit count
+     */
+    public long getHitCount() {
+    	return hitCount.get();
+    }
+
+    /**
+     * Get the number of lookups with no entry to use.
+     *
+     * @return cache miss count
+     */
+    public long getMissCount() {
+    	return missCount.get();
+    }
+
+    /**
+     * Get the number of entries found out of date by a save.
+     *
+     * @return stale entry count
+     */
+    public long getStaleCount() {
+    	return staleCount.get();
+    }
+
+    /**
+     * Get the number of entries dropped for being older than the time to live.
+     *
+     * @return expired entry count
+     */
+    public long getExpiredCount() {
+    	return expiredCount.get();
+    }
+
+    /**
+     * Get the number of entries evicted to stay within capacity.
+     *
+     * @return cache eviction count
+     */
+    public long getEvictionCount() {
+    	return evictionCount.get();
+    }
+
+    /**
+     * Get the fraction of lookups answered from the cache.
+     *
+     * @return hit rate from 0.0 to 1.0, or 0.0 before any lookups
+     */
+    public double getHitRate() {
+    	long hits = getHitCount();
+    	long lookups = hits + getMissCount();
+    	return (lookups == 0) ? 0.0 : ((double) hits) / lookups;
+    }
+
+    /**
+     * Cache statistics in printable form.
+     *
+     * @return String with size and counters
+     */
+    @Override
+    public String toString() {
+    	return "UserItemCache[size="+size()+"/"+capacity+", hits="+getHitCount()+", misses="+getMissCount()+
+    			", stale="+getStaleCount()+", expired="+getExpiredCount()+", evictions="+getEvictionCount()+"]";
+    }
+}
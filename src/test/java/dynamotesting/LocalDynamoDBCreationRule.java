@@ -1,6 +1,7 @@
 package dynamotesting;
 
 import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsyncClient;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
 import com.amazonaws.services.dynamodbv2.local.main.ServerRunner;
 import com.amazonaws.services.dynamodbv2.local.server.DynamoDBProxyServer;
@@ -65,7 +66,8 @@ public class LocalDynamoDBCreationRule extends ExternalResource {
         	log.info("LocalDynamoDBCreationRule server created");
             server.start();
         	log.info("LocalDynamoDBCreationRule server started");
-            amazonDynamoDbClient = new AmazonDynamoDBClient(new BasicAWSCredentials("access", "secret"));
+            // Asynchronous client, as the skill uses, so intent log writes take the async path.
+            amazonDynamoDbClient = new AmazonDynamoDBAsyncClient(new BasicAWSCredentials("access", "secret"));
         	log.info("LocalDynamoDBCreationRule made new DynamoDB client");
             amazonDynamoDbClient.setEndpoint("http://localhost:" + port);
         	log.info("LocalDynamoDBCreationRule set endpoint");
@@ -86,6 +88,7 @@ public class LocalDynamoDBCreationRule extends ExternalResource {
         if (server == null) {
             return;
         }
+        amazonDynamoDbClient.shutdown();
 
         try {
             server.stop();
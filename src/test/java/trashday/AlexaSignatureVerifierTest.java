@@ -0,0 +1,359 @@
+package trashday;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * JUnit tests for the {@link trashday.AlexaSignatureVerifier} class, using a
+ * {@link TestCertificateAuthority} in place of Amazon's.
+ *
+ * @author J. Todd Baldwin
+ */
+@RunWith(JUnit4.class)
+public class AlexaSignatureVerifierTest {
+    @Rule
+    public ExpectedException thrown= ExpectedException.none();
+
+    /** Certificate chain URL Alexa would send */
+    private static final String CERT_URL = "https://s3.amazonaws.com/echo.api/echo-api-cert-4.pem";
+    /** One hour, in milliseconds */
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    /** Stand-in for Amazon's certificate authority */
+    private static TestCertificateAuthority authority;
+    /** Signing key pair */
+    private static KeyPair signingKeys;
+    /** PEM chain for a valid signing certificate */
+    private static byte[] validChain;
+    /** Request body used by the tests */
+    private static final byte[] body = "{\"version\":\"1.0\",\"request\":{\"type\":\"LaunchRequest\"}}".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Verifier that reads a test chain instead of downloading one.
+     */
+    private static class LocalVerifier extends AlexaSignatureVerifier {
+    	/** PEM chain returned for every URL */
+    	private final byte[] chain;
+
+    	/**
+    	 * Create a verifier trusting only the test root.
+    	 *
+    	 * @param chain PEM chain returned for every URL
+    	 * @param cacheTimeToLiveMillis time a checked chain is used
+    	 * @throws GeneralSecurityException if the trust store cannot be created
+    	 */
+    	LocalVerifier(byte[] chain, long cacheTimeToLiveMillis) throws GeneralSecurityException {
+    		super(authority.getTrustStore(), cacheTimeToLiveMillis);
+    		this.chain = chain;
+    	}
+
+    	/**
+    	 * Return the test chain.
+    	 *
+    	 * @param url ignored
+    	 * @return test chain
+    	 */
+		@Override
+		protected InputStream openCertificateChain(URL url) {
+			return new ByteArrayInputStream(chain);
+		}
+    }
+
+	/**
+	 * Create the test certificate authority and a valid signing certificate.
+	 *
+	 * @throws GeneralSecurityException if certificates cannot be created
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws GeneralSecurityException {
+		authority = new TestCertificateAuthority("Test Root CA");
+		signingKeys = TestCertificateAuthority.newKeyPair();
+		validChain = TestCertificateAuthority.toPem(issue(AlexaSignatureVerifier.SIGNING_CERT_SAN, 0, 2 * HOUR),
+				authority.getRootCertificate());
+	}
+
+	/**
+	 * Issue a signing certificate for {@link #signingKeys}.
+	 *
+	 * @param dnsName subject alternative name
+	 * @param fromNow start of validity relative to now, in milliseconds
+	 * @param untilNow end of validity relative to now, in milliseconds
+	 * @return issued certificate
+	 * @throws GeneralSecurityException if the certificate cannot be created
+	 */
+	private static X509Certificate issue(String dnsName, long fromNow, long untilNow) throws GeneralSecurityException {
+		long now = System.currentTimeMillis();
+		return authority.issue("Test Signing", dnsName, signingKeys, new Date(now + fromNow - 60000), new Date(now + untilNow));
+	}
+
+	/**
+	 * Sign bytes.
+	 *
+	 * @param algorithm signature algorithm
+	 * @param key signing key
+	 * @param data bytes to sign
+	 * @return base64 signature
+	 * @throws GeneralSecurityException if the bytes cannot be signed
+	 */
+	private static String sign(String algorithm, PrivateKey key, byte[] data) throws GeneralSecurityException {
+		Signature signer = Signature.getInstance(algorithm);
+		signer.initSign(key);
+		signer.update(data);
+		return Base64.getEncoder().encodeToString(signer.sign());
+	}
+
+	/**
+	 * Requests signed with either algorithm are accepted, and the chain is only loaded once.
+	 *
+	 * @throws GeneralSecurityException if the test data cannot be created
+	 */
+	@Test
+	public void testValidSignatures() throws GeneralSecurityException {
+		AlexaSignatureVerifier verifier = new LocalVerifier(validChain, HOUR);
+		verifier.verify(body, CERT_URL, sign("SHA256withRSA", signingKeys.getPrivate(), body), null);
+		verifier.verify(body, CERT_URL, null, sign("SHA1withRSA", signingKeys.getPrivate(), body));
+		verifier.verify(body, "HTTPS://s3.AmazonAWS.com:443/echo.api/../echo.api/echo-api-cert-4.pem", null, sign("SHA1withRSA", signingKeys.getPrivate(), body));
+		assertEquals(1, verifier.getChainLoadCount());
+	}
+
+	/**
+	 * The chain is loaded again after the cache time to live, and not used past the
+	 * signing certificate's expiry.
+	 *
+	 * @throws GeneralSecurityException if the test data cannot be created
+	 */
+	@Test
+	public void testCacheExpiry() throws GeneralSecurityException {
+		String signature = sign("SHA256withRSA", signingKeys.getPrivate(), body);
+		long now = System.currentTimeMillis();
+		AlexaSignatureVerifier verifier = new LocalVerifier(validChain, HOUR / 2);
+		verifier.verify(body, CERT_URL, signature, null, now);
+		verifier.verify(body, CERT_URL, signature, null, now + HOUR / 4);
+		assertEquals(1, verifier.getChainLoadCount());
+		verifier.verify(body, CERT_URL, signature, null, now + HOUR);
+		assertEquals(2, verifier.getChainLoadCount());
+
+		// Cache time to live longer than the certificate: the expired certificate is refused.
+		verifier = new LocalVerifier(validChain, 24 * HOUR);
+		verifier.verify(body, CERT_URL, signature, null, now);
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("not valid");
+		verifier.verify(body, CERT_URL, signature, null, now + 3 * HOUR);
+	}
+
+	/**
+	 * A changed body is refused.
+	 *
+	 * @throws GeneralSecurityException if the test data cannot be created
+	 */
+	@Test
+	public void testChangedBody() throws GeneralSecurityException {
+		String signature = sign("SHA256withRSA", signingKeys.getPrivate(), body);
+		byte[] changed = body.clone();
+		changed[changed.length - 2] = 'X';
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("does not match");
+		new LocalVerifier(validChain, HOUR).verify(changed, CERT_URL, signature, null);
+	}
+
+	/**
+	 * A body signed by a key other than the certificate's is refused.
+	 *
+	 * @throws GeneralSecurityException if the test data cannot be created
+	 */
+	@Test
+	public void testWrongKey() throws GeneralSecurityException {
+		String signature = sign("SHA256withRSA", TestCertificateAuthority.newKeyPair().getPrivate(), body);
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("does not match");
+		new LocalVerifier(validChain, HOUR).verify(body, CERT_URL, signature, null);
+	}
+
+	/**
+	 * A certificate not issued by a trusted root is refused.
+	 *
+	 * @throws GeneralSecurityException if the test data cannot be created
+	 */
+	@Test
+	public void testUntrustedChain() throws GeneralSecurityException {
+		TestCertificateAuthority other = new TestCertificateAuthority("Other Root CA");
+		byte[] chain = TestCertificateAuthority.toPem(
+				other.issue("Test Signing", AlexaSignatureVerifier.SIGNING_CERT_SAN, signingKeys, new Date(), new Date(System.currentTimeMillis() + HOUR)),
+				other.getRootCertificate());
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("not valid");
+		new LocalVerifier(chain, HOUR).verify(body, CERT_URL, sign("SHA256withRSA", signingKeys.getPrivate(), body), null);
+	}
+
+	/**
+	 * A certificate for another name is refused.
+	 *
+	 * @throws GeneralSecurityException if the test data cannot be created
+	 */
+	@Test
+	public void testWrongName() throws GeneralSecurityException {
+		byte[] chain = TestCertificateAuthority.toPem(issue("example.com", 0, HOUR));
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage(AlexaSignatureVerifier.SIGNING_CERT_SAN);
+		new LocalVerifier(chain, HOUR).verify(body, CERT_URL, sign("SHA256withRSA", signingKeys.getPrivate(), body), null);
+	}
+
+	/**
+	 * Certificate chain URLs outside Amazon's location are refused.
+	 */
+	@Test
+	public void testCertChainUrls() {
+		String[] refused = {
+				"http://s3.amazonaws.com/echo.api/echo-api-cert.pem",
+				"https://notamazon.com/echo.api/echo-api-cert.pem",
+				"https://s3.amazonaws.com/EcHo.aPi/echo-api-cert.pem",
+				"https://s3.amazonaws.com/invalid.path/echo-api-cert.pem",
+				"https://s3.amazonaws.com:563/echo.api/echo-api-cert.pem",
+				"https://s3.amazonaws.com/echo.api/../invalid.path/echo-api-cert.pem",
+				"not a url",
+		};
+		for (String url : refused) {
+			try {
+				AlexaSignatureVerifier.normalizeCertChainUrl(url);
+				throw new AssertionError("Accepted "+url);
+			} catch (IllegalArgumentException ex) {
+				// Expected
+			}
+		}
+		assertEquals(CERT_URL, AlexaSignatureVerifier.normalizeCertChainUrl("https://s3.amazonaws.com:443/echo.api/echo-api-cert-4.pem"));
+	}
+
+	/**
+	 * A request timestamp within {@link AlexaSignatureVerifier#TIMESTAMP_TOLERANCE_MILLIS}
+	 * of now is accepted, in either direction.
+	 *
+	 * @throws GeneralSecurityException if the test data cannot be created
+	 */
+	@Test
+	public void testCurrentTimestamp() throws GeneralSecurityException {
+		AlexaSignatureVerifier verifier = new LocalVerifier(validChain, HOUR);
+		long now = System.currentTimeMillis();
+		verifier.verifyTimestamp(timestampedBody(now), now);
+		verifier.verifyTimestamp(timestampedBody(now - 149000), now);
+		verifier.verifyTimestamp(timestampedBody(now + 149000), now);
+		verifier.verifyTimestamp("{\"request\":{\"timestamp\":1000000}}".getBytes(StandardCharsets.UTF_8), 1000000 + 149000);
+	}
+
+	/**
+	 * A validly signed request replayed after the tolerance has passed is refused.
+	 *
+	 * @throws GeneralSecurityException if the test data cannot be created
+	 */
+	@Test
+	public void testStaleTimestamp() throws GeneralSecurityException {
+		AlexaSignatureVerifier verifier = new LocalVerifier(validChain, HOUR);
+		long now = System.currentTimeMillis();
+		byte[] stale = timestampedBody(now - 151000);
+		verifier.verify(stale, CERT_URL, sign("SHA256withRSA", signingKeys.getPrivate(), stale), null, now);
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("too far");
+		verifier.verifyTimestamp(stale, now);
+	}
+
+	/**
+	 * A request without a timestamp is refused.
+	 *
+	 * @throws GeneralSecurityException if the test data cannot be created
+	 */
+	@Test
+	public void testMissingTimestamp() throws GeneralSecurityException {
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("Missing request timestamp");
+		new LocalVerifier(validChain, HOUR).verifyTimestamp(body);
+	}
+
+	/**
+	 * Create a request body with a given timestamp.
+	 *
+	 * @param timestampMillis request timestamp, in milliseconds
+	 * @return request body bytes
+	 */
+	private static byte[] timestampedBody(long timestampMillis) {
+		return ("{\"version\":\"1.0\",\"request\":{\"type\":\"LaunchRequest\",\"timestamp\":\""
+				+Instant.ofEpochMilli(timestampMillis)+"\"}}").getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Expired chains are removed from memory when another chain is loaded.
+	 *
+	 * @throws GeneralSecurityException if the test data cannot be created
+	 */
+	@Test
+	public void testExpiredEntriesRemoved() throws GeneralSecurityException {
+		String signature = sign("SHA256withRSA", signingKeys.getPrivate(), body);
+		long now = System.currentTimeMillis();
+		AlexaSignatureVerifier verifier = new LocalVerifier(validChain, HOUR / 2);
+		verifier.verify(body, CERT_URL, signature, null, now);
+		verifier.verify(body, "https://s3.amazonaws.com/echo.api/other.pem", signature, null, now);
+		assertEquals(2, verifier.getCachedChainCount());
+		verifier.verify(body, "https://s3.amazonaws.com/echo.api/third.pem", signature, null, now + HOUR);
+		assertEquals(1, verifier.getCachedChainCount());
+	}
+
+	/**
+	 * A request without signature headers is refused.
+	 *
+	 * @throws GeneralSecurityException if the test data cannot be created
+	 */
+	@Test
+	public void testMissingSignature() throws GeneralSecurityException {
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("Missing");
+		new LocalVerifier(validChain, HOUR).verify(body, CERT_URL, null, null);
+	}
+
+	/**
+	 * Many threads verify at once with their own signature objects, sharing one
+	 * chain load.
+	 *
+	 * @throws Exception if a thread fails
+	 */
+	@Test
+	public void testConcurrentVerify() throws Exception {
+		AlexaSignatureVerifier verifier = new LocalVerifier(validChain, HOUR);
+		String signature = sign("SHA256withRSA", signingKeys.getPrivate(), body);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<?>> results = new ArrayList<Future<?>>();
+		for (int t=0; t<8; t++) {
+			results.add(executor.submit(() -> {
+				for (int i=0; i<200; i++) {
+					verifier.verify(body, CERT_URL, signature, null);
+				}
+			}));
+		}
+		executor.shutdown();
+		for (Future<?> result : results) {
+			result.get();
+		}
+		assertEquals(1, verifier.getChainLoadCount());
+	}
+}
@@ -0,0 +1,89 @@
+package trashday;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import trashday.storage.InMemoryUserDataStore;
+
+/**
+ * JUnit tests for the {@link trashday.ColdStartInitializer} class and the startup
+ * phase of {@link trashday.TrashDaySpeechletRequestStreamHandler}.
+ *
+ * @author J. Todd Baldwin
+ */
+@RunWith(JUnit4.class)
+public class ColdStartInitializerTest {
+    @Rule
+    public ExpectedException thrown= ExpectedException.none();
+
+	/**
+	 * Every shared component warms up without error and is timed.
+	 */
+	@Test
+	public void testWarmUpSharedComponents() {
+		ColdStartInitializer initializer = new ColdStartInitializer();
+		initializer.warmUpSharedComponents();
+		ColdStartInitializer.Report report = initializer.finish();
+		assertEquals(Arrays.asList("timeZones", "ical4j", "jackson", "alexaSdk"), report.getStepNames());
+		assertEquals(Collections.emptyList(), report.getFailedSteps());
+		long stepTotal = 0;
+		for (String stepName : report.getStepNames()) {
+			stepTotal += report.getStepMicros(stepName);
+		}
+		assertTrue(report.toString(), report.getTotalMicros() >= stepTotal);
+		assertTrue(report.toString(), report.toString().startsWith("Startup totalUs="));
+		assertTrue(report.toString(), report.toString().contains(" ical4jUs="));
+	}
+
+	/**
+	 * A failed warm-up is recorded and startup carries on.  A failed create is
+	 * recorded and passed on.
+	 */
+	@Test
+	public void testFailedSteps() {
+		ColdStartInitializer initializer = new ColdStartInitializer();
+		initializer.warmUp("broken", () -> { throw new IllegalStateException("test failure"); });
+		assertEquals("created", initializer.create("working", () -> "created"));
+		try {
+			initializer.create("required", () -> { throw new IllegalStateException("test failure"); });
+			throw new AssertionError("Create failure not passed on");
+		} catch (IllegalStateException ex) {
+			assertEquals("test failure", ex.getMessage());
+		}
+		ColdStartInitializer.Report report = initializer.finish();
+		assertEquals(Arrays.asList("broken", "working", "required"), report.getStepNames());
+		assertEquals(Arrays.asList("broken", "required"), report.getFailedSteps());
+		assertTrue(report.toString(), report.toString().endsWith(" failed=[broken, required]"));
+
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("No startup step named missing");
+		report.getStepMicros("missing");
+	}
+
+	/**
+	 * The first handler created runs the startup phase, including the speechlet and
+	 * its user data store.  Later handlers reuse the warmed-up components.
+	 */
+	@Test
+	public void testHandlerStartupOnce() {
+		new TrashDaySpeechletRequestStreamHandler(new InMemoryUserDataStore());
+		ColdStartInitializer.Report report = TrashDaySpeechletRequestStreamHandler.getStartupReport();
+		assertNotNull(report);
+		assertTrue(report.toString(), report.getStepNames().containsAll(Arrays.asList("timeZones", "ical4j", "jackson", "alexaSdk", "speechlet", "userDataStore")));
+		assertEquals(Collections.emptyList(), report.getFailedSteps());
+
+		new TrashDaySpeechletRequestStreamHandler(new InMemoryUserDataStore());
+		assertSame(report, TrashDaySpeechletRequestStreamHandler.getStartupReport());
+	}
+}
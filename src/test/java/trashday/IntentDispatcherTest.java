@@ -0,0 +1,153 @@
+package trashday;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.amazon.speech.slu.Intent;
+import com.amazon.speech.speechlet.IntentRequest;
+import com.amazon.speech.speechlet.Session;
+import com.amazon.speech.speechlet.SpeechletResponse;
+
+/**
+ * JUnit tests for the {@link trashday.IntentDispatcher} and
+ * {@link trashday.IntentMetrics} classes.
+ *
+ * @author J. Todd Baldwin
+ */
+@RunWith(JUnit4.class)
+public class IntentDispatcherTest {
+    @Rule
+    public ExpectedException thrown= ExpectedException.none();
+
+    /** Session used by the tests */
+    private final Session session = Session.builder().withSessionId("test-session").build();
+
+	/**
+	 * Create an intent request.
+	 *
+	 * @param intentName Alexa intent name
+	 * @return request for the intent
+	 */
+	private static IntentRequest request(String intentName) {
+		return IntentRequest.builder()
+				.withRequestId("test-request")
+				.withIntent(Intent.builder().withName(intentName).build())
+				.build();
+	}
+
+	/**
+	 * Requests go to the handler registered for their intent, and each call is counted.
+	 */
+	@Test
+	public void testDispatch() {
+		IntentDispatcher dispatcher = new IntentDispatcher();
+		SpeechletResponse helpResponse = new SpeechletResponse();
+		SpeechletResponse stopResponse = new SpeechletResponse();
+		dispatcher.register("AMAZON.HelpIntent", (request, session) -> helpResponse);
+		dispatcher.register("AMAZON.StopIntent", (request, session) -> stopResponse);
+		assertTrue(dispatcher.isRegistered("AMAZON.HelpIntent"));
+		assertFalse(dispatcher.isRegistered("AMAZON.NoIntent"));
+
+		assertSame(helpResponse, dispatcher.dispatch(request("AMAZON.HelpIntent"), session));
+		assertSame(helpResponse, dispatcher.dispatch(request("AMAZON.HelpIntent"), session));
+		assertSame(stopResponse, dispatcher.dispatch(request("AMAZON.StopIntent"), session));
+
+		Map<String, IntentMetrics.Snapshot> metrics = dispatcher.getMetricsSnapshot();
+		assertEquals(2, metrics.size());
+		assertEquals(2, metrics.get("AMAZON.HelpIntent").getCount());
+		assertEquals(2, metrics.get("AMAZON.HelpIntent").getSuccessCount());
+		assertEquals(1, metrics.get("AMAZON.StopIntent").getCount());
+		assertEquals("AMAZON.StopIntent", metrics.get("AMAZON.StopIntent").getIntentName());
+	}
+
+	/**
+	 * A handler that throws is counted as a failure and its exception passed on.
+	 */
+	@Test
+	public void testHandlerFailure() {
+		IntentDispatcher dispatcher = new IntentDispatcher();
+		dispatcher.register("AddPickupIntent", (request, session) -> { throw new IllegalStateException("test failure"); });
+		try {
+			dispatcher.dispatch(request("AddPickupIntent"), session);
+			throw new AssertionError("Handler exception not passed on");
+		} catch (IllegalStateException ex) {
+			assertEquals("test failure", ex.getMessage());
+		}
+		IntentMetrics.Snapshot metrics = dispatcher.getMetricsSnapshot().get("AddPickupIntent");
+		assertEquals(1, metrics.getCount());
+		assertEquals(1, metrics.getFailureCount());
+		assertEquals(0, metrics.getSuccessCount());
+	}
+
+	/**
+	 * An intent without a handler is refused and counted.
+	 */
+	@Test
+	public void testUnrecognizedIntent() {
+		IntentDispatcher dispatcher = new IntentDispatcher();
+		try {
+			dispatcher.dispatch(request("NewUnknownIntent"), session);
+			throw new AssertionError("Unknown intent dispatched");
+		} catch (IllegalArgumentException ex) {
+			assertEquals("Unrecognized intent: NewUnknownIntent", ex.getMessage());
+		}
+		assertEquals(1, dispatcher.getUnrecognizedCount());
+		assertTrue(dispatcher.getMetricsSnapshot().isEmpty());
+	}
+
+	/**
+	 * An intent can only be registered once.
+	 */
+	@Test
+	public void testRegisterTwice() {
+		IntentDispatcher dispatcher = new IntentDispatcher();
+		dispatcher.register("AMAZON.HelpIntent", (request, session) -> null);
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("Intent already registered: AMAZON.HelpIntent");
+		dispatcher.register("AMAZON.HelpIntent", (request, session) -> null);
+	}
+
+	/**
+	 * Times are counted in power-of-two microsecond buckets and percentiles
+	 * reported as bucket upper bounds.
+	 */
+	@Test
+	public void testPercentiles() {
+		assertEquals(0, IntentMetrics.bucketOf(999));
+		assertEquals(1, IntentMetrics.bucketOf(1000));
+		assertEquals(10, IntentMetrics.bucketOf(1000000));
+		assertEquals(IntentMetrics.BUCKET_COUNT - 1, IntentMetrics.bucketOf(Long.MAX_VALUE));
+
+		IntentMetrics metrics = new IntentMetrics("TellNextPickupIntent");
+		assertEquals(0, metrics.snapshot().getPercentileMicros(99));
+		for (int i=0; i<98; i++) {
+			metrics.record(100000, true);	// 100us: bucket up to 128us
+		}
+		metrics.record(5000000, true);		// 5ms: bucket up to 8192us
+		metrics.record(20000000, false);	// 20ms: largest
+		IntentMetrics.Snapshot snapshot = metrics.snapshot();
+		assertEquals(100, snapshot.getCount());
+		assertEquals(1, snapshot.getFailureCount());
+		assertEquals(128, snapshot.getPercentileMicros(50));
+		assertEquals(128, snapshot.getPercentileMicros(98));
+		assertEquals(8192, snapshot.getPercentileMicros(99));
+		assertEquals(20000, snapshot.getPercentileMicros(100));
+		assertEquals(20000, snapshot.getMaxMicros());
+		assertEquals(98 * 100 + 5000 + 20000, snapshot.getTotalMicros());
+		assertEquals(348, snapshot.getMeanMicros());
+		assertTrue(snapshot.toString(), snapshot.toString().startsWith("TellNextPickupIntent: count=100 failed=1"));
+
+		thrown.expect(IllegalArgumentException.class);
+		snapshot.getPercentileMicros(101);
+	}
+}
@@ -0,0 +1,257 @@
+package trashday;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.text.SimpleDateFormat;
+import java.util.Base64;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Locally generated certificate authority standing in for Amazon's in tests of
+ * {@link AlexaSignatureVerifier}.  Issues RSA signing certificates and writes
+ * PEM chains like the one Alexa's {@code SignatureCertChainUrl} points at.
+ * <p>
+ * The JDK has no public API for creating certificates, so the few DER structures
+ * needed are encoded here.
+ *
+ * @author J. Todd Baldwin
+ */
+public class TestCertificateAuthority {
+	/** sha256WithRSAEncryption algorithm OID */
+	private static final String OID_SHA256_WITH_RSA = "1.2.840.113549.1.1.11";
+	/** Common name attribute OID */
+	private static final String OID_COMMON_NAME = "2.5.4.3";
+	/** Basic constraints extension OID */
+	private static final String OID_BASIC_CONSTRAINTS = "2.5.29.19";
+	/** Subject alternative name extension OID */
+	private static final String OID_SUBJECT_ALT_NAME = "2.5.29.17";
+
+	/** Key pair of the root certificate */
+	private final KeyPair rootKeys;
+	/** Self-signed root certificate */
+	private final X509Certificate rootCert;
+	/** Name of the root certificate */
+	private final String rootName;
+	/** Serial number of the next certificate issued */
+	private long nextSerial = 1;
+
+	/**
+	 * Create a certificate authority with a new self-signed root certificate valid for
+	 * a day either side of now.
+	 *
+	 * @param rootName common name of the root certificate
+	 * @throws GeneralSecurityException if keys cannot be generated
+	 */
+	public TestCertificateAuthority(String rootName) throws GeneralSecurityException {
+		this.rootName = rootName;
+		rootKeys = newKeyPair();
+		long now = System.currentTimeMillis();
+		rootCert = sign(rootName, rootName, rootKeys.getPublic().getEncoded(), true, null,
+				new Date(now - 86400000L), new Date(now + 86400000L), rootKeys.getPrivate());
+	}
+
+	/**
+	 * Generate an RSA key pair.
+	 *
+	 * @return new 2048 bit key pair
+	 * @throws GeneralSecurityException if keys cannot be generated
+	 */
+	public static KeyPair newKeyPair() throws GeneralSecurityException {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		return generator.generateKeyPair();
+	}
+
+	/**
+	 * Get the root certificate.
+	 *
+	 * @return self-signed root certificate
+	 */
+	public X509Certificate getRootCertificate() {
+		return rootCert;
+	}
+
+	/**
+	 * Get a trust store holding only the root certificate.
+	 *
+	 * @return {@link KeyStore} of trusted certificates
+	 * @throws GeneralSecurityException if the store cannot be created
+	 */
+	public KeyStore getTrustStore() throws GeneralSecurityException {
+		try {
+			KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+			trustStore.load(null, null);
+			trustStore.setCertificateEntry("root", rootCert);
+			return trustStore;
+		} catch (java.io.IOException ex) {
+			throw new GeneralSecurityException(ex);
+		}
+	}
+
+	/**
+	 * Issue a certificate signed by the root.
+	 *
+	 * @param subjectName common name of the certificate
+	 * @param dnsName subject alternative DNS name, or null for none
+	 * @param keys key pair the certificate is for
+	 * @param notBefore start of validity
+	 * @param notAfter end of validity
+	 * @return issued certificate
+	 * @throws GeneralSecurityException if the certificate cannot be signed
+	 */
+	public X509Certificate issue(String subjectName, String dnsName, KeyPair keys, Date notBefore, Date notAfter) throws GeneralSecurityException {
+		return sign(subjectName, rootName, keys.getPublic().getEncoded(), false, dnsName, notBefore, notAfter, rootKeys.getPrivate());
+	}
+
+	/**
+	 * Write certificates in PEM form, as a certificate chain URL returns them.
+	 *
+	 * @param chain certificates, signing certificate first
+	 * @return PEM text bytes
+	 * @throws GeneralSecurityException if a certificate cannot be encoded
+	 */
+	public static byte[] toPem(X509Certificate... chain) throws GeneralSecurityException {
+		StringBuilder pem = new StringBuilder();
+		for (X509Certificate certificate : chain) {
+			pem.append("-----BEGIN CERTIFICATE-----\n");
+			pem.append(Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(certificate.getEncoded()));
+			pem.append("\n-----END CERTIFICATE-----\n");
+		}
+		return pem.toString().getBytes(StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Encode and sign a certificate.
+	 *
+	 * @param subjectName subject common name
+	 * @param issuerName issuer common name
+	 * @param publicKeyInfo DER SubjectPublicKeyInfo of the certified key
+	 * @param ca true for a certificate authority certificate
+	 * @param dnsName subject alternative DNS name, or null for none
+	 * @param notBefore start of validity
+	 * @param notAfter end of validity
+	 * @param issuerKey key signing the certificate
+	 * @return signed certificate
+	 * @throws GeneralSecurityException if the certificate cannot be signed
+	 */
+	private X509Certificate sign(String subjectName, String issuerName, byte[] publicKeyInfo, boolean ca, String dnsName,
+			Date notBefore, Date notAfter, PrivateKey issuerKey) throws GeneralSecurityException {
+		byte[] algorithm = der(0x30, oid(OID_SHA256_WITH_RSA), der(0x05, new byte[0]));
+		byte[] extensions = ca
+				? der(0x30, oid(OID_BASIC_CONSTRAINTS), der(0x01, new byte[] { (byte) 0xff }), der(0x04, der(0x30, der(0x01, new byte[] { (byte) 0xff }))))
+				: der(0x30, oid(OID_BASIC_CONSTRAINTS), der(0x04, der(0x30)));
+		if (dnsName != null) {
+			byte[] altName = der(0x30, oid(OID_SUBJECT_ALT_NAME), der(0x04, der(0x30, der(0x82, dnsName.getBytes(StandardCharsets.US_ASCII)))));
+			extensions = concat(extensions, altName);
+		}
+		byte[] tbs = der(0x30,
+				der(0xa0, der(0x02, new byte[] { 2 })),
+				der(0x02, BigInteger.valueOf(nextSerial++).toByteArray()),
+				algorithm,
+				name(issuerName),
+				der(0x30, time(notBefore), time(notAfter)),
+				name(subjectName),
+				publicKeyInfo,
+				der(0xa3, der(0x30, extensions)));
+		Signature signer = Signature.getInstance("SHA256withRSA");
+		signer.initSign(issuerKey);
+		signer.update(tbs);
+		byte[] signature = concat(new byte[] { 0 }, signer.sign());
+		byte[] encoded = der(0x30, tbs, algorithm, der(0x03, signature));
+		return (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(new ByteArrayInputStream(encoded));
+	}
+
+	/**
+	 * Encode a name with only a common name.
+	 *
+	 * @param commonName common name
+	 * @return DER Name
+	 */
+	private static byte[] name(String commonName) {
+		return der(0x30, der(0x31, der(0x30, oid(OID_COMMON_NAME), der(0x0c, commonName.getBytes(StandardCharsets.UTF_8)))));
+	}
+
+	/**
+	 * Encode a time as UTCTime.
+	 *
+	 * @param date time to encode
+	 * @return DER UTCTime
+	 */
+	private static byte[] time(Date date) {
+		SimpleDateFormat format = new SimpleDateFormat("yyMMddHHmmss'Z'");
+		format.setTimeZone(TimeZone.getTimeZone("UTC"));
+		return der(0x17, format.format(date).getBytes(StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * Encode an object identifier.
+	 *
+	 * @param dotted OID in dotted form
+	 * @return DER OBJECT IDENTIFIER
+	 */
+	private static byte[] oid(String dotted) {
+		String[] parts = dotted.split("\\.");
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		body.write(Integer.parseInt(parts[0]) * 40 + Integer.parseInt(parts[1]));
+		for (int i=2; i<parts.length; i++) {
+			long value = Long.parseLong(parts[i]);
+			int groups = 1;
+			while ((value >> (7 * groups)) != 0) {
+				groups++;
+			}
+			for (int g=groups-1; g>=0; g--) {
+				int b = (int) ((value >> (7 * g)) & 0x7f);
+				body.write((g > 0) ? (b | 0x80) : b);
+			}
+		}
+		return der(0x06, body.toByteArray());
+	}
+
+	/**
+	 * Encode a DER tag, length and contents.
+	 *
+	 * @param tag DER tag byte
+	 * @param contents encoded contents, joined in order
+	 * @return DER encoding
+	 */
+	private static byte[] der(int tag, byte[]... contents) {
+		byte[] body = concat(contents);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(tag);
+		if (body.length < 0x80) {
+			out.write(body.length);
+		} else {
+			byte[] length = BigInteger.valueOf(body.length).toByteArray();
+			int start = (length[0] == 0) ? 1 : 0;
+			out.write(0x80 | (length.length - start));
+			out.write(length, start, length.length - start);
+		}
+		out.write(body, 0, body.length);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Join byte arrays.
+	 *
+	 * @param parts arrays to join, in order
+	 * @return joined bytes
+	 */
+	private static byte[] concat(byte[]... parts) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (byte[] part : parts) {
+			out.write(part, 0, part.length);
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,233 @@
+package trashday;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import alexatesting.TestDataRequest;
+import alexatesting.TestDataUtterance;
+import trashday.model.Calendar;
+import trashday.storage.DynamoItem;
+import trashday.storage.InMemoryUserDataStore;
+
+/**
+ * Local load test of {@link TrashDayHttpServer}.  Client threads POST "when is my next
+ * pickup" requests for {@link #USER_COUNT} users as fast as they are answered, then
+ * the throughput, latency percentiles and refused (HTTP 503) requests are printed,
+ * followed by the skill's own per-intent times for a local server.
+ * <p>
+ * Without a URL, starts a server on a free local port with user data held in an
+ * {@link InMemoryUserDataStore}, so the results measure the server without database
+ * latency.  With a URL, sends to that server instead.  Its users must already
+ * have schedules (customer ids {@code load-user-0} onward) for the responses to be
+ * realistic.
+ * <p>
+ * Not a JUnit test.  Needs the {@code ApplicationId} environment variable set to the
+ * application id in {@link alexatesting.TestDataRequest}.  Run from the command line
+ * after {@code mvn test-compile}:
+ * <pre>
+ * ApplicationId=TEST-AMAZON-APPLICATION-ID mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=trashday.TrashDayHttpServerLoadRunner -Dexec.args="CLIENTS SECONDS [WORKERS QUEUE_LIMIT | URL]"
+ * </pre>
+ *
+ * @author	J. Todd Baldwin
+ */
+public class TrashDayHttpServerLoadRunner {
+	/** Number of users requests rotate over */
+	public static final int USER_COUNT = 1000;
+
+	/**
+	 * One client thread's results.
+	 */
+	private static class ClientResult {
+		/** Latency in microseconds of each answered request */
+		final List<Long> latencies = new ArrayList<Long>();
+		/** Number of requests refused with HTTP 503 */
+		int shed = 0;
+		/** Number of requests failed with any other status or error */
+		int failed = 0;
+	}
+
+	/**
+	 * Encode the request each user sends.
+	 *
+	 * @return encoded "when is my next pickup" request for each user
+	 */
+	private static byte[][] encodeRequests() {
+		byte[][] requests = new byte[USER_COUNT][];
+		for (int i=0; i<USER_COUNT; i++) {
+			TestDataRequest request = new TestDataRequest("load-user-"+i, new TestDataUtterance("TellNextPickupIntent when is my next pickup"));
+			requests[i] = request.toString().getBytes(StandardCharsets.UTF_8);
+		}
+		return requests;
+	}
+
+	/**
+	 * Create a store holding a calendar and time zone for each user.
+	 *
+	 * @return seeded {@link InMemoryUserDataStore}
+	 */
+	private static InMemoryUserDataStore seedStore() {
+		InMemoryUserDataStore store = new InMemoryUserDataStore();
+		Calendar calendar = new Calendar();
+		calendar.initBasicExampleCalendar();
+		for (int i=0; i<USER_COUNT; i++) {
+			DynamoItem item = new DynamoItem();
+			item.setCustomerId("load-user-"+i);
+			item.setCalendar(calendar);
+			item.setTimeZone(TimeZone.getTimeZone("US/Eastern"));
+			store.saveItem(item);
+		}
+		return store;
+	}
+
+	/**
+	 * POST one request.
+	 *
+	 * @param url server URL
+	 * @param request encoded request
+	 * @return HTTP status code
+	 * @throws IOException if the server cannot be reached
+	 */
+	private static int post(URL url, byte[] request) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		connection.setRequestProperty("Content-Type", "application/json");
+		try (OutputStream output = connection.getOutputStream()) {
+			output.write(request);
+		}
+		int status = connection.getResponseCode();
+		InputStream input = (status < 400) ? connection.getInputStream() : connection.getErrorStream();
+		if (input != null) {
+			try {
+				byte[] buffer = new byte[4096];
+				while (input.read(buffer) != -1) { }
+			} finally {
+				input.close();
+			}
+		}
+		return status;
+	}
+
+	/**
+	 * Send requests from one client thread until the end time.
+	 *
+	 * @param url server URL
+	 * @param requests encoded requests to rotate over
+	 * @param firstUser user this client starts with
+	 * @param endNanos {@link System#nanoTime()} to stop at
+	 * @return this client's results
+	 */
+	private static ClientResult runClient(URL url, byte[][] requests, int firstUser, long endNanos) {
+		ClientResult result = new ClientResult();
+		int user = firstUser;
+		while (System.nanoTime() < endNanos) {
+			long start = System.nanoTime();
+			try {
+				int status = post(url, requests[user]);
+				if (status == 200) {
+					result.latencies.add((System.nanoTime() - start) / 1000);
+				} else if (status == 503) {
+					result.shed++;
+				} else {
+					result.failed++;
+				}
+			} catch (IOException ex) {
+				result.failed++;
+			}
+			user = (user + 1) % requests.length;
+		}
+		return result;
+	}
+
+	/**
+	 * Get a latency percentile.
+	 *
+	 * @param sorted latencies in ascending order
+	 * @param percent percentile wanted
+	 * @return latency in microseconds
+	 */
+	private static long percentile(long[] sorted, double percent) {
+		if (sorted.length == 0) { return 0; };
+		int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+	}
+
+	/**
+	 * Run the load test.
+	 *
+	 * @param args client threads, seconds, then either server worker threads and queue
+	 * 			limit for a local server or the URL of a running server
+	 * @throws Exception if the local server cannot start or a client thread fails
+	 */
+	public static void main(String[] args) throws Exception {
+		int clients = (args.length > 0) ? Integer.parseInt(args[0]) : 16;
+		int seconds = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+		TrashDayHttpServer server = null;
+		TrashDaySpeechletRequestStreamHandler handler = null;
+		URL url;
+		if ( (args.length > 2) && args[2].startsWith("http") ) {
+			url = new URL(args[2]);
+		} else {
+			int workers = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors() * 2;
+			int queueLimit = (args.length > 3) ? Integer.parseInt(args[3]) : TrashDayHttpServer.DEFAULT_QUEUE_LIMIT;
+			handler = new TrashDaySpeechletRequestStreamHandler(seedStore());
+			server = new TrashDayHttpServer(handler,
+					new InetSocketAddress("localhost", 0), workers, queueLimit);
+			server.start();
+			url = new URL("http://localhost:"+server.getPort()+"/");
+		}
+		System.out.println("Load test: url="+url+" clients="+clients+" seconds="+seconds);
+
+		byte[][] requests = encodeRequests();
+		ExecutorService executor = Executors.newFixedThreadPool(clients);
+		long endNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		List<Future<ClientResult>> futures = new ArrayList<Future<ClientResult>>();
+		for (int c=0; c<clients; c++) {
+			final int firstUser = c * (USER_COUNT / clients);
+			futures.add(executor.submit(() -> runClient(url, requests, firstUser, endNanos)));
+		}
+		List<Long> latencies = new ArrayList<Long>();
+		int shed = 0;
+		int failed = 0;
+		for (Future<ClientResult> future : futures) {
+			ClientResult result = future.get();
+			latencies.addAll(result.latencies);
+			shed += result.shed;
+			failed += result.failed;
+		}
+		executor.shutdown();
+		if (server != null) {
+			server.stop(TrashDayHttpServer.DEFAULT_DRAIN_MILLIS);
+		}
+
+		long[] sorted = new long[latencies.size()];
+		for (int i=0; i<sorted.length; i++) {
+			sorted[i] = latencies.get(i);
+		}
+		Arrays.sort(sorted);
+		System.out.println(String.format("answered=%d (%.1f/s) shed=%d failed=%d",
+				sorted.length, sorted.length / (double) seconds, shed, failed));
+		System.out.println(String.format("latency us: p50=%d p90=%d p99=%d max=%d",
+				percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99), percentile(sorted, 100)));
+		if (handler != null) {
+			for (IntentMetrics.Snapshot intent : handler.getIntentMetrics().values()) {
+				if (intent.getCount() > 0) {
+					System.out.println(intent);
+				}
+			}
+		}
+	}
+}
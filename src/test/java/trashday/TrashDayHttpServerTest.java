@@ -0,0 +1,272 @@
+package trashday;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+
+import alexatesting.TestDataRequest;
+import alexatesting.TestDataUtterance;
+import trashday.model.Calendar;
+import trashday.storage.DynamoItem;
+import trashday.storage.InMemoryUserDataStore;
+
+/**
+ * JUnit tests for the {@link trashday.TrashDayHttpServer} class.
+ *
+ * @author J. Todd Baldwin
+ */
+@RunWith(JUnit4.class)
+public class TrashDayHttpServerTest {
+    @Rule
+    public ExpectedException thrown= ExpectedException.none();
+
+    /** Server started by a test, stopped after it */
+    private TrashDayHttpServer server;
+    /** Threads making requests for a test */
+    private final ExecutorService clients = Executors.newCachedThreadPool();
+
+	/**
+	 * Stop the test's server and client threads.
+	 */
+	@After
+	public void tearDown() {
+		if (server != null) {
+			server.stop(0);
+		}
+		clients.shutdownNow();
+	}
+
+	/**
+	 * Start a server on a free local port.
+	 *
+	 * @param requestHandler handler for requests
+	 * @param workerThreads number of workers
+	 * @param queueLimit number of requests allowed to wait
+	 * @throws IOException if the port cannot be opened
+	 */
+	private void startServer(RequestStreamHandler requestHandler, int workerThreads, int queueLimit) throws IOException {
+		server = new TrashDayHttpServer(requestHandler, new InetSocketAddress("localhost", 0), workerThreads, queueLimit);
+		server.start();
+	}
+
+	/**
+	 * Send a request to the test's server.
+	 *
+	 * @param method HTTP method
+	 * @param body request body
+	 * @param response filled with the response body
+	 * @return HTTP status code
+	 * @throws IOException if the server cannot be reached
+	 */
+	private int send(String method, byte[] body, ByteArrayOutputStream response) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:"+server.getPort()+"/").openConnection();
+		connection.setRequestMethod(method);
+		if (body != null) {
+			connection.setDoOutput(true);
+			try (OutputStream output = connection.getOutputStream()) {
+				output.write(body);
+			}
+		}
+		int status = connection.getResponseCode();
+		if (status == 200) {
+			try (InputStream input = connection.getInputStream()) {
+				byte[] buffer = new byte[4096];
+				int read;
+				while ((read = input.read(buffer)) != -1) {
+					response.write(buffer, 0, read);
+				}
+			}
+		}
+		connection.disconnect();
+		return status;
+	}
+
+	/**
+	 * Handler that waits until released, so tests can keep workers busy.
+	 */
+	private static class BlockingHandler implements RequestStreamHandler {
+		/** Counted down as each request starts */
+		final CountDownLatch started;
+		/** Requests wait until this is counted down */
+		final CountDownLatch release = new CountDownLatch(1);
+
+		/**
+		 * Create the handler.
+		 *
+		 * @param expectedRequests number of requests the test will wait to see started
+		 */
+		BlockingHandler(int expectedRequests) {
+			started = new CountDownLatch(expectedRequests);
+		}
+
+		/**
+		 * Wait for release, then answer with the request body.
+		 *
+		 * @param input request
+		 * @param output response
+		 * @param context unused
+		 * @throws IOException if the response cannot be written
+		 */
+		@Override
+		public void handleRequest(InputStream input, OutputStream output, com.amazonaws.services.lambda.runtime.Context context) throws IOException {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			output.write("{}".getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * An Alexa request is answered by the skill the same as the Lambda function answers it.
+	 *
+	 * @throws IOException if the server cannot be reached
+	 */
+	@Test
+	public void testAlexaRequest() throws IOException {
+		InMemoryUserDataStore store = new InMemoryUserDataStore();
+		Calendar calendar = new Calendar();
+		calendar.initBasicExampleCalendar();
+		DynamoItem item = new DynamoItem();
+		item.setCustomerId("http-user");
+		item.setCalendar(calendar);
+		item.setTimeZone(TimeZone.getTimeZone("US/Eastern"));
+		store.saveItem(item);
+		TrashDaySpeechletRequestStreamHandler handler = new TrashDaySpeechletRequestStreamHandler(store);
+		startServer(handler, 2, 4);
+
+		TestDataRequest request = new TestDataRequest("http-user", new TestDataUtterance("TellNextPickupIntent when is my next pickup"));
+		byte[] requestBytes = request.toString().getBytes(StandardCharsets.UTF_8);
+		ByteArrayOutputStream response = new ByteArrayOutputStream();
+		assertEquals(200, send("POST", requestBytes, response));
+		String responseText = response.toString("UTF-8");
+		assertTrue(responseText, responseText.contains("Next trash pickup"));
+		assertEquals(1, server.getHandledCount());
+
+		assertEquals(405, send("GET", null, new ByteArrayOutputStream()));
+		assertEquals(1, server.getHandledCount());
+	}
+
+	/**
+	 * Requests beyond the busy workers and full queue are refused, and the rest are answered.
+	 *
+	 * @throws Exception if a request fails
+	 */
+	@Test
+	public void testLoadShedding() throws Exception {
+		BlockingHandler handler = new BlockingHandler(1);
+		startServer(handler, 1, 1);
+
+		// One request on the worker, one in the queue.
+		Future<Integer> running = clients.submit(() -> send("POST", "{}".getBytes(), new ByteArrayOutputStream()));
+		assertTrue(handler.started.await(5, TimeUnit.SECONDS));
+		Future<Integer> queued = clients.submit(() -> send("POST", "{}".getBytes(), new ByteArrayOutputStream()));
+		long deadline = System.currentTimeMillis() + 5000;
+		while ( (server.getQueuedCount() < 1) && (System.currentTimeMillis() < deadline) ) {
+			Thread.sleep(10);
+		}
+		assertEquals(1, server.getQueuedCount());
+		assertEquals(503, send("POST", "{}".getBytes(), new ByteArrayOutputStream()));
+		assertEquals(1, server.getShedCount());
+
+		handler.release.countDown();
+		assertEquals(Integer.valueOf(200), running.get(5, TimeUnit.SECONDS));
+		assertEquals(Integer.valueOf(200), queued.get(5, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * Stopping lets accepted requests finish and refuses new ones.
+	 *
+	 * @throws Exception if a request fails
+	 */
+	@Test
+	public void testGracefulStop() throws Exception {
+		BlockingHandler handler = new BlockingHandler(1);
+		startServer(handler, 1, 4);
+		Future<Integer> running = clients.submit(() -> send("POST", "{}".getBytes(), new ByteArrayOutputStream()));
+		assertTrue(handler.started.await(5, TimeUnit.SECONDS));
+
+		Future<Boolean> stopped = clients.submit(() -> server.stop(5000));
+		long deadline = System.currentTimeMillis() + 5000;
+		while ( (! server.isStopping()) && (System.currentTimeMillis() < deadline) ) {
+			Thread.sleep(10);
+		}
+		assertEquals(503, send("POST", "{}".getBytes(), new ByteArrayOutputStream()));
+		handler.release.countDown();
+		assertTrue(stopped.get(10, TimeUnit.SECONDS));
+		assertEquals(Integer.valueOf(200), running.get(5, TimeUnit.SECONDS));
+		assertEquals(1, server.getHandledCount());
+		server = null;
+	}
+
+	/**
+	 * Stopping gives up on requests that run past the wait.
+	 *
+	 * @throws Exception if a request fails
+	 */
+	@Test
+	public void testStopTimesOut() throws Exception {
+		BlockingHandler handler = new BlockingHandler(1);
+		startServer(handler, 1, 0);
+		clients.submit(() -> send("POST", "{}".getBytes(), new ByteArrayOutputStream()));
+		assertTrue(handler.started.await(5, TimeUnit.SECONDS));
+		assertFalse(server.stop(100));
+		server = null;
+	}
+
+	/**
+	 * With signature checking on, a request without Alexa's signature headers is refused
+	 * before it reaches the skill.
+	 *
+	 * @throws Exception if the server cannot be started
+	 */
+	@Test
+	public void testUnsignedRequest() throws Exception {
+		BlockingHandler handler = new BlockingHandler(1);
+		handler.release.countDown();
+		server = new TrashDayHttpServer(handler, new InetSocketAddress("localhost", 0), 1, 1,
+				new AlexaSignatureVerifier(null, AlexaSignatureVerifier.DEFAULT_CACHE_TIME_TO_LIVE_MILLIS));
+		server.start();
+		assertEquals(400, send("POST", "{}".getBytes(), new ByteArrayOutputStream()));
+		assertEquals(1, server.getUnsignedCount());
+		assertEquals(0, server.getHandledCount());
+		assertEquals(1, handler.started.getCount());
+	}
+
+	/**
+	 * A server needs at least one worker.
+	 *
+	 * @throws IOException if the port cannot be opened
+	 */
+	@Test
+	public void testNoWorkers() throws IOException {
+		thrown.expect(IllegalArgumentException.class);
+		new TrashDayHttpServer(new BlockingHandler(0), new InetSocketAddress("localhost", 0), 0, 1);
+	}
+}
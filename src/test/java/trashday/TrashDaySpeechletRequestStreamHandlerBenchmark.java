@@ -0,0 +1,164 @@
+package trashday;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import alexatesting.TestDataRequest;
+import alexatesting.TestDataUtterance;
+import trashday.model.Calendar;
+import trashday.storage.DynamoItem;
+import trashday.storage.InMemoryUserDataStore;
+
+/**
+ * JMH throughput benchmarks of {@link TrashDaySpeechletRequestStreamHandler} handling
+ * Alexa requests, with user data held in an {@link InMemoryUserDataStore}
+ * so the results measure the handler without database latency.  Requests rotate over
+ * {@link #USER_COUNT} users who each have a stored calendar and time zone.
+ * <p>
+ * Runs four benchmark threads sharing one handler, as a warm process serving requests
+ * in parallel would.  Each thread rotates over the users on its own.
+ * <p>
+ * Not a JUnit test.  The handler needs the {@code ApplicationId} environment variable
+ * set to the application id in {@link alexatesting.TestDataRequest}.  Run from the command
+ * line after {@code mvn test-compile}:
+ * <pre>
+ * ApplicationId=TEST-AMAZON-APPLICATION-ID mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=trashday.TrashDaySpeechletRequestStreamHandlerBenchmark
+ * </pre>
+ *
+ * @author	J. Todd Baldwin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class TrashDaySpeechletRequestStreamHandlerBenchmark {
+	/** Number of users requests rotate over */
+	public static final int USER_COUNT = 1000;
+
+	/** Handler under test */
+	private TrashDaySpeechletRequestStreamHandler handler;
+	/** Encoded "when is my next pickup" request for each user */
+	private byte[][] tellNextPickupRequests;
+	/** Encoded "set time zone" request for each user */
+	private byte[][] setTimeZoneRequests;
+
+	/**
+	 * Each benchmark thread's position in the user rotation.
+	 */
+	@State(Scope.Thread)
+	public static class UserRotation {
+		/** Next user index for this thread */
+		private int next = 0;
+
+		/**
+		 * Get the next user index.
+		 *
+		 * @return index from 0 to {@link TrashDaySpeechletRequestStreamHandlerBenchmark#USER_COUNT}-1
+		 */
+		int nextUser() {
+			int user = next;
+			next = (next + 1) % USER_COUNT;
+			return user;
+		}
+	}
+
+	/**
+	 * Store every user's calendar and time zone and encode their requests.
+	 */
+	@Setup
+	public void setUp() {
+		InMemoryUserDataStore store = new InMemoryUserDataStore();
+		Calendar calendar = new Calendar();
+		calendar.initBasicExampleCalendar();
+		tellNextPickupRequests = new byte[USER_COUNT][];
+		setTimeZoneRequests = new byte[USER_COUNT][];
+		for (int i=0; i<USER_COUNT; i++) {
+			String customerId = "benchmark-user-"+i;
+			DynamoItem item = new DynamoItem();
+			item.setCustomerId(customerId);
+			item.setCalendar(calendar);
+			item.setTimeZone(TimeZone.getTimeZone("US/Eastern"));
+			store.saveItem(item);
+
+			TestDataRequest request = new TestDataRequest(customerId, new TestDataUtterance("TellNextPickupIntent when is my next pickup"));
+			tellNextPickupRequests[i] = request.toString().getBytes(StandardCharsets.UTF_8);
+			request = new TestDataRequest(customerId, new TestDataUtterance("SetTimeZoneIntent set time zone to {TimeZone}"));
+			request.addRequestIntentSlot("TimeZone", "eastern");
+			setTimeZoneRequests[i] = request.toString().getBytes(StandardCharsets.UTF_8);
+		}
+		handler = new TrashDaySpeechletRequestStreamHandler(store);
+	}
+
+	/**
+	 * Handle one encoded request.
+	 *
+	 * @param request encoded Alexa request
+	 * @return encoded response
+	 * @throws IOException if the handler has IO problems
+	 */
+	private byte[] handle(byte[] request) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream(2048);
+		handler.handleRequest(new ByteArrayInputStream(request), output, null);
+		return output.toByteArray();
+	}
+
+	/**
+	 * Ask for the next pickup.  Reads the user's stored data.
+	 *
+	 * @param rotation this thread's user rotation
+	 * @return encoded response
+	 * @throws IOException if the handler has IO problems
+	 */
+	@Benchmark
+	public byte[] tellNextPickup(UserRotation rotation) throws IOException {
+		return handle(tellNextPickupRequests[rotation.nextUser()]);
+	}
+
+	/**
+	 * Set the time zone.  Saves the user's data.
+	 *
+	 * @param rotation this thread's user rotation
+	 * @return encoded response
+	 * @throws IOException if the handler has IO problems
+	 */
+	@Benchmark
+	public byte[] setTimeZone(UserRotation rotation) throws IOException {
+		return handle(setTimeZoneRequests[rotation.nextUser()]);
+	}
+
+	/**
+	 * Run the benchmarks.
+	 *
+	 * @param args unused
+	 * @throws RunnerException if the benchmarks fail
+	 */
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+				.include(TrashDaySpeechletRequestStreamHandlerBenchmark.class.getSimpleName())
+				.build();
+		new Runner(opt).run();
+	}
+}
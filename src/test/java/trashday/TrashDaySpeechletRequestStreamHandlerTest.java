@@ -1,6 +1,10 @@
 package trashday;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static net.javacrumbs.jsonunit.JsonAssert.assertJsonEquals;
 import java.io.ByteArrayInputStream;
@@ -8,7 +12,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.time.DayOfWeek;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
@@ -17,7 +23,12 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.LongStream;
@@ -43,6 +54,7 @@ import trashday.model.Calendar;
 import trashday.model.IntentLog;
 import trashday.storage.DynamoAccessTestHelpers;
 import trashday.storage.DynamoItem;
+import trashday.storage.InMemoryUserDataStore;
 import trashday.storage.SessionDao;
 import trashday.ui.FormatUtils;
 import trashday.ui.requests.SlotDayOfMonth;
@@ -108,7 +120,12 @@ public class TrashDaySpeechletRequestStreamHandlerTest extends DynamoAccessTestH
 	
 	/** For read-only Test functions, a shared test with no matching database item. */
 	private static String testNoCustomerId;
-	
+
+	/** Threads sharing one handler in {@link #testConcurrentRequestsNoCrossTalk()}. */
+	private static final int STRESS_THREADS = 8;
+	/** Requests each thread makes in {@link #testConcurrentRequestsNoCrossTalk()}. */
+	private static final int STRESS_REQUESTS_PER_THREAD = 250;
+
     /** Our skill's stream handler that accepts JSON-formatted
      * Alexa service requests, hands to our {@link trashday.TrashDaySpeechlet},
      * and produces JSON-formatted Alexa service responses. */
@@ -652,6 +669,7 @@ public class TrashDaySpeechletRequestStreamHandlerTest extends DynamoAccessTestH
 			expectedResponse.setSessionAttribute(SessionDao.SESSION_ATTR_CALENDAR, testFullCalendar.toStringRFC5545());			
 			expectedResponse.setSessionAttribute(SessionDao.SESSION_ATTR_SCHEDULE_IN_PROGRESS, true);			
 			expectedResponse.setSessionAttribute(SessionDao.SESSION_ATTR_TIMEZONE, "US/Pacific");
+			expectedResponse.setSessionAttribute(SessionDao.SESSION_ATTR_USER_DATA_DIRTY_SINCE, "${json-unit.ignore}");
 	
 			executeAndCheckJsonIgnoreCalTimestamps(testRequest, expectedResponse);		
         } finally {
@@ -685,6 +703,7 @@ public class TrashDaySpeechletRequestStreamHandlerTest extends DynamoAccessTestH
 			expectedResponse.setSessionAttribute(SessionDao.SESSION_ATTR_SCHEDULE_IN_PROGRESS, true);
 			expectedResponse.setSessionAttribute(SessionDao.SESSION_ATTR_SCHEDULE_HELP_CARD_SENT, true);
 			expectedResponse.setSessionAttribute(SessionDao.SESSION_ATTR_TIMEZONE, expectedTimeZone);
+			expectedResponse.setSessionAttribute(SessionDao.SESSION_ATTR_USER_DATA_DIRTY_SINCE, "${json-unit.ignore}");
 	
 			executeAndCheckJson(testRequest, expectedResponse);		
         } finally {
@@ -990,6 +1009,203 @@ public class TrashDaySpeechletRequestStreamHandlerTest extends DynamoAccessTestH
 		executeAndCheckJson(testRequest, expectedResponse);
 	}
 
+	/**
+	 * JUnit test to ensure a failed intent log write is counted
+	 * and the user still hears the normal response.
+	 * <p>
+	 * Tested Intent: TellNextPickupIntent
+	 */
+	@Test
+	public void testTellNextPickupsIntentLogWriteFails() {
+		InMemoryUserDataStore failingStore = new InMemoryUserDataStore() {
+			@Override
+			public void addIntentCounts(String customerId, IntentLog intentLog) {
+				throw new IllegalStateException("Intent log write failed for test.");
+			}
+		};
+		failingStore.saveItem(testFullItem);
+		TestDataRequest testRequest = new TestDataRequest(testFullCustomerId);
+		testRequest.setRequestIntentName("TellNextPickupIntent");
+		testRequest.setRequestTimestamp("2017-02-08T10:27:15Z"); // Wednesday morning
+
+		TestDataTellResponse expectedResponse = new TestDataTellResponse();
+		expectedResponse.setResponseOutputSpeechText("Next trash pickup is Friday at 7 30 AM. Next lawn waste pickup is Wednesday, February 15 at noon. Next recycling pickup is Friday, February 17 at 7 30 AM. Next hockey team pickup is Saturday, February 18 at 9 AM. Next mortgage pickup is Friday, February 24 at noon. Next scrap metal pickup is Tuesday, February 28 at noon. Next dry cleaning pickup is Saturday, March 11 at noon. ");
+		expectedResponse.setResponseCardTitle("Trash Day Pickups");
+		expectedResponse.setResponseCardContent("As of Wednesday, February 8 at 5:27 AM:\n" + 
+				"Next trash pickup is Friday at 7:30 AM.\n" + 
+				"Next lawn waste pickup is Wednesday, February 15 at noon.\n" + 
+				"Next recycling pickup is Friday, February 17 at 7:30 AM.\n" +
+				"Next hockey team pickup is Saturday, February 18 at 9 AM.\n" +
+				"Next mortgage pickup is Friday, February 24 at noon.\n" +
+				"Next scrap metal pickup is Tuesday, February 28 at noon.\n" +
+				"Next dry cleaning pickup is Saturday, March 11 at noon.\n");
+
+		long failuresBefore = TrashDayManager.getIntentLogFlushFailures();
+		TrashDaySpeechletRequestStreamHandler dynamoHandler = handler;
+		handler = new TrashDaySpeechletRequestStreamHandler(failingStore);
+		try {
+			executeAndCheckJson(testRequest, expectedResponse);
+		} finally {
+			handler = dynamoHandler;
+		}
+		assertEquals(failuresBefore + 1, TrashDayManager.getIntentLogFlushFailures());
+	}
+
+	/**
+	 * JUnit test to ensure an intent log write that fails after the handler
+	 * stopped waiting for it is still counted as a failure.
+	 * <p>
+	 * Tested Intent: TellNextPickupIntent
+	 */
+	@Test
+	public void testTellNextPickupsIntentLogWriteFailsLate() {
+		CompletableFuture<Void> pendingWrite = new CompletableFuture<Void>();
+		InMemoryUserDataStore slowStore = new InMemoryUserDataStore() {
+			@Override
+			public CompletableFuture<Void> addIntentCountsAsync(String customerId, IntentLog intentLog) {
+				return pendingWrite;
+			}
+		};
+		slowStore.saveItem(testFullItem);
+		TestDataRequest testRequest = new TestDataRequest(testFullCustomerId);
+		testRequest.setRequestIntentName("TellNextPickupIntent");
+		testRequest.setRequestTimestamp("2017-02-08T10:27:15Z"); // Wednesday morning
+
+		TestDataTellResponse expectedResponse = new TestDataTellResponse();
+		expectedResponse.setResponseOutputSpeechText("Next trash pickup is Friday at 7 30 AM. Next lawn waste pickup is Wednesday, February 15 at noon. Next recycling pickup is Friday, February 17 at 7 30 AM. Next hockey team pickup is Saturday, February 18 at 9 AM. Next mortgage pickup is Friday, February 24 at noon. Next scrap metal pickup is Tuesday, February 28 at noon. Next dry cleaning pickup is Saturday, March 11 at noon. ");
+		expectedResponse.setResponseCardTitle("Trash Day Pickups");
+		expectedResponse.setResponseCardContent("As of Wednesday, February 8 at 5:27 AM:\n" + 
+				"Next trash pickup is Friday at 7:30 AM.\n" + 
+				"Next lawn waste pickup is Wednesday, February 15 at noon.\n" + 
+				"Next recycling pickup is Friday, February 17 at 7:30 AM.\n" +
+				"Next hockey team pickup is Saturday, February 18 at 9 AM.\n" +
+				"Next mortgage pickup is Friday, February 24 at noon.\n" +
+				"Next scrap metal pickup is Tuesday, February 28 at noon.\n" +
+				"Next dry cleaning pickup is Saturday, March 11 at noon.\n");
+
+		long failuresBefore = TrashDayManager.getIntentLogFlushFailures();
+		long timeoutsBefore = TrashDayManager.getIntentLogFlushTimeouts();
+		TrashDaySpeechletRequestStreamHandler dynamoHandler = handler;
+		handler = new TrashDaySpeechletRequestStreamHandler(slowStore);
+		try {
+			executeAndCheckJson(testRequest, expectedResponse);
+		} finally {
+			handler = dynamoHandler;
+		}
+		assertEquals(timeoutsBefore + 1, TrashDayManager.getIntentLogFlushTimeouts());
+		assertEquals(failuresBefore, TrashDayManager.getIntentLogFlushFailures());
+
+		pendingWrite.completeExceptionally(new IllegalStateException("Intent log write failed late for test."));
+		assertEquals(failuresBefore + 1, TrashDayManager.getIntentLogFlushFailures());
+	}
+
+	/**
+	 * JUnit stress test to ensure one handler answers requests from many
+	 * threads at once without mixing up users.  Each user has their own
+	 * time zone and a pickup named for them.  Every response given while
+	 * {@link #STRESS_THREADS} threads share the handler must match the
+	 * response to the same request handled alone, and every request must be
+	 * counted in the intent log of the user who made it.
+	 * <p>
+	 * Tested Intents: TellNextPickupIntent, TellScheduleIntent
+	 * 
+	 * @throws Exception if a request thread fails
+	 */
+	@Test
+	public void testConcurrentRequestsNoCrossTalk() throws Exception {
+		final String[] zones = { "US/Eastern", "US/Central", "US/Mountain", "US/Pacific", "US/Alaska", "US/Hawaii", "Europe/London", "Asia/Tokyo" };
+		final String[] intents = { "TellNextPickupIntent", "TellScheduleIntent" };
+		final int userCount = 24;
+		InMemoryUserDataStore store = new InMemoryUserDataStore();
+		final TrashDaySpeechletRequestStreamHandler concurrentHandler = new TrashDaySpeechletRequestStreamHandler(store);
+		
+		final byte[][] requests = new byte[userCount * intents.length][];
+		final String[] expected = new String[requests.length];
+		for (int user=0; user<userCount; user++) {
+			String customerId = "stress-user-"+user;
+			Calendar calendar = new Calendar();
+			calendar.pickupAddWeekly(LocalDateTime.of(2017, 2, 1, 0, 0), String.format("route %02d", user), DayOfWeek.of(1 + user % 7), LocalTime.of(6 + user % 12, 0));
+			DynamoItem item = new DynamoItem();
+			item.setCustomerId(customerId);
+			item.setCalendar(calendar);
+			item.setTimeZone(TimeZone.getTimeZone(zones[user % zones.length]));
+			store.saveItem(item);
+			
+			for (int i=0; i<intents.length; i++) {
+				TestDataRequest testRequest = new TestDataRequest(customerId);
+				testRequest.setRequestIntentName(intents[i]);
+				testRequest.setRequestTimestamp("2017-02-08T10:27:15Z");
+				requests[user * intents.length + i] = testRequest.toString().getBytes();
+			}
+		}
+		
+		// Responses from one thread at a time.
+		for (int r=0; r<requests.length; r++) {
+			expected[r] = handle(concurrentHandler, requests[r]);
+			assertTrue(expected[r].contains(String.format("route %02d", r / intents.length)));
+		}
+		
+		// Same requests from many threads, each in its own order.
+		ExecutorService executor = Executors.newFixedThreadPool(STRESS_THREADS);
+		List<Future<int[]>> results = new ArrayList<Future<int[]>>();
+		for (int t=0; t<STRESS_THREADS; t++) {
+			final long seed = t;
+			results.add(executor.submit(() -> {
+				Random random = new Random(seed);
+				int[] handled = new int[userCount];
+				for (int n=0; n<STRESS_REQUESTS_PER_THREAD; n++) {
+					int r = random.nextInt(requests.length);
+					assertEquals(expected[r], handle(concurrentHandler, requests[r]));
+					handled[r / intents.length]++;
+				}
+				return handled;
+			}));
+		}
+		executor.shutdown();
+		int[] handled = new int[userCount];
+		for (Future<int[]> result : results) {
+			int[] threadHandled = result.get();
+			for (int user=0; user<userCount; user++) {
+				handled[user] += threadHandled[user];
+			}
+		}
+		
+		// Every request was counted for its own user.
+		for (int user=0; user<userCount; user++) {
+			int counted = 0;
+			for (Map<String, Integer> week : store.loadIntentLog("stress-user-"+user).getLog().values()) {
+				for (Integer count : week.values()) {
+					counted += count;
+				}
+			}
+			assertEquals("stress-user-"+user, handled[user] + intents.length, counted);
+		}
+		
+		// Every request was timed under its own intent.
+		Map<String, IntentMetrics.Snapshot> metrics = concurrentHandler.getIntentMetrics();
+		long timed = 0;
+		for (String intent : intents) {
+			assertEquals(0, metrics.get(intent).getFailureCount());
+			timed += metrics.get(intent).getCount();
+		}
+		assertEquals(requests.length + STRESS_THREADS * STRESS_REQUESTS_PER_THREAD, timed);
+		assertEquals(0, metrics.get("AMAZON.HelpIntent").getCount());
+	}
+	
+	/**
+	 * Run one encoded request through a handler.
+	 * 
+	 * @param requestHandler handler to use
+	 * @param request encoded Alexa request
+	 * @return formatted response
+	 * @throws IOException if the handler has IO problems
+	 */
+	private static String handle(TrashDaySpeechletRequestStreamHandler requestHandler, byte[] request) throws IOException {
+	    ByteArrayOutputStream output = new ByteArrayOutputStream();
+	    requestHandler.handleRequest(new ByteArrayInputStream(request), output, null);
+	    return new TestDataGeneralResponse(output.toString()).toString();
+	}
+
 	/**
 	 * JUnit test to ensure application responds correctly
 	 * to the user asking to "when is the next pickup" for an
@@ -2186,6 +2402,7 @@ public class TrashDaySpeechletRequestStreamHandlerTest extends DynamoAccessTestH
 			expectedResponse.setSessionAttribute(SessionDao.SESSION_ATTR_CALENDAR, "${json-unit.ignore}");			
 			expectedResponse.setSessionAttribute(SessionDao.SESSION_ATTR_SCHEDULE_IN_PROGRESS, true);			
 			expectedResponse.setSessionAttribute(SessionDao.SESSION_ATTR_TIMEZONE, testFullTimeZone);
+			expectedResponse.setSessionAttribute(SessionDao.SESSION_ATTR_USER_DATA_DIRTY_SINCE, "${json-unit.ignore}");
 			String expectedResponseFormatted = expectedResponse.toString();
 			log.debug("testDeletePickupTimeExisting expectedResponse={}", expectedResponseFormatted);
 	
@@ -2265,6 +2482,7 @@ public class TrashDaySpeechletRequestStreamHandlerTest extends DynamoAccessTestH
 			expectedResponse.setSessionAttribute(SessionDao.SESSION_ATTR_INTENT_LOG_UPDATED, true);
 			expectedResponse.setSessionAttribute(SessionDao.SESSION_ATTR_SCHEDULE_IN_PROGRESS, true);			
 			expectedResponse.setSessionAttribute(SessionDao.SESSION_ATTR_TIMEZONE, testFullTimeZone);
+			expectedResponse.setSessionAttribute(SessionDao.SESSION_ATTR_USER_DATA_DIRTY_SINCE, "${json-unit.ignore}");
 			String expectedResponseFormatted = expectedResponse.toString();
 			log.debug("testDeletePickupExisting expectedResponse={}", expectedResponseFormatted);
 	
@@ -2557,8 +2775,7 @@ public class TrashDaySpeechletRequestStreamHandlerTest extends DynamoAccessTestH
     		
     		// Confirm the saved intent log from database.
     		log.info("Customer ID: {}", testFullItem.getCustomerId());
-    		DynamoItem checkItem = localDynamoDB.getTrashDayDbClient().loadCompleteItem(testFullItem);
-    		IntentLog intentLog = checkItem.getIntentLog();
+    		IntentLog intentLog = localDynamoDB.getTrashDayDbClient().loadIntentLog(testFullItem.getCustomerId());
     		
     		String expectedIntentLogJson = "{\"log\":{\"2016-48\":{\"respondTimeZoneUpdatedScheduleMissing\":1,\"respondPickupAddSingle\":4,\"respondGeneralPickupNotAdded\":1,\"respondPickupAddMonthlyLastDaySingle\":1,\"tellSchedule\":1}},\"modelVersion\":\"1\"}";
     		String actualIntentLogJson = intentLog.toJson();
@@ -2572,6 +2789,110 @@ public class TrashDaySpeechletRequestStreamHandlerTest extends DynamoAccessTestH
         }
 	}
 
+	/**
+	 * JUnit test to ensure schedule changes made during a session
+	 * are written to Dynamo DB once, when the session ends, instead of
+	 * after each change.
+	 * <p>
+	 * Tested Intent: AddPickupIntent and SessionEndedRequest
+	 * <ul>
+	 * <li>AddPickupIntent add {PickupName} pickup on {DayOfWeek} at {TimeOfDay}
+	 * <li>AddPickupIntent add {PickupName} pickup at {TimeOfDay} on {DayOfWeek}
+	 * <li>exit
+	 * </ul>
+	 */
+	@Test
+	public void testDialogWriteBehindUntilSessionEnded() {
+		List<TestDataUtterance> dialog = createDialogNewSchedule();
+		
+		// Remove the existing schedule in database.
+        itemDelete(testFullCustomerId);
+        
+        try {
+        	TestDataGeneralResponse actualResponse = runDialog(dialog, null);
+        	
+        	// Changes are still waiting in the session.
+        	assertTrue(actualResponse.sessionAttributeExists(SessionDao.SESSION_ATTR_USER_DATA_DIRTY_SINCE));
+        	assertNull(localDynamoDB.getTrashDayDbClient().loadCompleteItem(testFullItem));
+    		
+    		// End the session to write the changes.
+    		TestDataRequest testRequest = new TestDataRequest(testFullCustomerId);
+    		testRequest.setRequestType("SessionEndedRequest");
+    		testRequest.setRequestReason("EXCEEDED_MAX_REPROMPTS");
+    		testRequest.setSessionAttributes(actualResponse);
+    		testRequest.removeRequestIntent();
+
+    		TestDataTellResponse expectedTellResponse = new TestDataTellResponse();
+    		expectedTellResponse.removeResponse();
+
+			executeAndCheckJson(testRequest, expectedTellResponse);
+    		
+    		// Confirm the saved schedule from database.
+    		DynamoItem checkItem = localDynamoDB.getTrashDayDbClient().loadCompleteItem(testFullItem);
+    		assertNotNull(checkItem);
+    		assertEquals(TimeZone.getTimeZone("US/Eastern"), checkItem.getTimeZone());
+    		assertNotNull(checkItem.getCalendar());
+    		assertEquals(5, checkItem.getCalendar().getEvents().size());
+        } catch (IOException ex) {
+        	fail("IOException: "+ex.getMessage());
+        } finally {
+        	// Re-save the item.
+        	localDynamoDB.getTrashDayDbClient().saveItem(testFullItem);
+        }
+	}
+
+	/**
+	 * JUnit test to ensure schedule changes waiting in a session that
+	 * stays open are written to Dynamo DB once they have waited longer
+	 * than {@link TrashDayManager#USER_DATA_WRITE_DELAY_MAX}.
+	 * <p>
+	 * Tested Intent: SetTimeZoneIntent and AddPickupIntent
+	 * <ul>
+	 * <li>SetTimeZoneIntent set time zone to {TimeZone}
+	 * <li>AddPickupIntent add {PickupName} pickup on {DayOfWeek} at {TimeOfDay}
+	 * </ul>
+	 */
+	@Test
+	public void testDialogWriteBehindSafetyFlush() {
+		List<TestDataUtterance> dialog = createDialogNewSchedule().subList(0, 2);
+		
+		// Remove the existing schedule in database.
+        itemDelete(testFullCustomerId);
+        
+        try {
+        	TestDataGeneralResponse actualResponse = runDialog(dialog, null);
+        	assertTrue(actualResponse.sessionAttributeExists(SessionDao.SESSION_ATTR_USER_DATA_DIRTY_SINCE));
+        	assertNull(localDynamoDB.getTrashDayDbClient().loadCompleteItem(testFullItem));
+        	
+        	// User comes back to the open session two minutes later.
+    		TestDataRequest testRequest = new TestDataRequest(testFullCustomerId);
+    		testRequest.setRequestTimestamp("2016-11-24T15:29:15Z");
+    		testRequest.setRequestIntentName("AddPickupIntent");
+    		testRequest.addRequestIntentSlot("PickupName", "trash");
+    		testRequest.addRequestIntentSlot("DayOfWeek", "tuesday");
+    		testRequest.addRequestIntentSlot("TimeOfDay", "06:30");
+    		testRequest.setSessionAttributes(actualResponse);
+    		
+		    InputStream input = new ByteArrayInputStream(testRequest.toString().getBytes());
+		    OutputStream output = new ByteArrayOutputStream();
+		    handler.handleRequest(input, output, null);
+		    actualResponse = new TestDataGeneralResponse(output.toString());
+		    
+		    // Session stays open, but the changes are already saved.
+        	assertFalse(actualResponse.sessionAttributeExists(SessionDao.SESSION_ATTR_USER_DATA_DIRTY_SINCE));
+    		DynamoItem checkItem = localDynamoDB.getTrashDayDbClient().loadCompleteItem(testFullItem);
+    		assertNotNull(checkItem);
+    		assertEquals(TimeZone.getTimeZone("US/Eastern"), checkItem.getTimeZone());
+    		assertNotNull(checkItem.getCalendar());
+    		assertEquals(1, checkItem.getCalendar().getEvents().size());
+        } catch (IOException ex) {
+        	fail("IOException: "+ex.getMessage());
+        } finally {
+        	// Re-save the item.
+        	localDynamoDB.getTrashDayDbClient().saveItem(testFullItem);
+        }
+	}
+
 	/**
 	 * JUnit test to ensure application responds correctly
 	 * to the user when they build a new schedule with a 
@@ -2608,8 +2929,7 @@ public class TrashDaySpeechletRequestStreamHandlerTest extends DynamoAccessTestH
 			executeAndCheckJson(testRequest, expectedResponse);
     		
     		// Confirm the saved intent log from database.
-    		DynamoItem checkItem = localDynamoDB.getTrashDayDbClient().loadCompleteItem(testFullItem);
-    		IntentLog intentLog = checkItem.getIntentLog();
+    		IntentLog intentLog = localDynamoDB.getTrashDayDbClient().loadIntentLog(testFullItem.getCustomerId());
     		
     		String expectedIntentLogJson = "{\"log\":{\"2016-48\":{\"respondTimeZoneUpdatedScheduleMissing\":1,\"respondPickupAddSingle\":4,\"respondGeneralPickupNotAdded\":1,\"respondPickupAddMonthlyLastDaySingle\":1}},\"modelVersion\":\"1\"}";
     		String actualIntentLogJson = intentLog.toJson();
@@ -0,0 +1,209 @@
+package trashday.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import net.fortuna.ical4j.data.ParserException;
+import net.fortuna.ical4j.model.Property;
+
+/**
+ * JUnit tests for the {@link trashday.model.CalendarCache} class.
+ *
+ * @author J. Todd Baldwin
+ */
+@RunWith(JUnit4.class)
+public class CalendarCacheTest {
+    @Rule
+    public ExpectedException thrown= ExpectedException.none();
+
+    /** iCalendar text of the basic example calendar */
+    private static String basicIcal;
+    /** iCalendar text of the complex example calendar */
+    private static String complexIcal;
+
+	/**
+	 * Before starting tests in this class, create the iCalendar
+	 * text of the example calendars.
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() {
+		Calendar calendar = new Calendar();
+		calendar.initBasicExampleCalendar();
+		basicIcal = calendar.toStringRFC5545();
+		calendar = new Calendar();
+		calendar.initComplexExampleCalendar();
+		complexIcal = calendar.toStringRFC5545();
+	}
+
+	/**
+	 * Test cache hits and misses.
+	 *
+	 * @throws ParserException Failed to understand the provided ical source.
+	 * @throws IOException Could not read the ical source string correctly.
+	 */
+	@Test
+	public void testHitsAndMisses() throws IOException, ParserException {
+		CalendarCache cache = new CalendarCache(4);
+		Calendar first = cache.get(basicIcal);
+		assertEquals(0, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+
+		Calendar second = cache.get(new String(basicIcal));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.size());
+		assertTrue(first.isShared());
+		assertTrue(second.isShared());
+		assertEquals(first.toStringRFC5545(), second.toStringRFC5545());
+		assertEquals(basicIcal, second.toStringRFC5545());
+
+		cache.get(complexIcal);
+		assertEquals(2, cache.getMissCount());
+		assertEquals(2, cache.size());
+
+		cache.clear();
+		assertEquals(0, cache.size());
+		cache.get(basicIcal);
+		assertEquals(3, cache.getMissCount());
+	}
+
+	/**
+	 * Test least-recently-used eviction.
+	 *
+	 * @throws ParserException Failed to understand the provided ical source.
+	 * @throws IOException Could not read the ical source string correctly.
+	 */
+	@Test
+	public void testEviction() throws IOException, ParserException {
+		CalendarCache cache = new CalendarCache(1);
+		cache.get(basicIcal);
+		cache.get(complexIcal);
+		assertEquals(1, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+
+		// Basic calendar was evicted, so it must be parsed again.
+		cache.get(complexIcal);
+		assertEquals(1, cache.getHitCount());
+		cache.get(basicIcal);
+		assertEquals(3, cache.getMissCount());
+		assertEquals(2, cache.getEvictionCount());
+	}
+
+	/**
+	 * Test cache capacity must be positive.
+	 */
+	@Test
+	public void testBadCapacity() {
+		thrown.expect(IllegalArgumentException.class);
+		new CalendarCache(0);
+	}
+
+	/**
+	 * Test changes to one cached calendar view do not reach the cache or other views.
+	 *
+	 * @throws ParserException Failed to understand the provided ical source.
+	 * @throws IOException Could not read the ical source string correctly.
+	 */
+	@Test
+	public void testCopyOnWrite() throws IOException, ParserException {
+		CalendarCache cache = new CalendarCache(4);
+		Calendar changed = cache.get(basicIcal);
+		Calendar unchanged = cache.get(basicIcal);
+
+		assertTrue(changed.pickupDelete("trash"));
+		assertFalse(changed.isShared());
+		assertTrue(unchanged.isShared());
+		assertEquals(basicIcal, unchanged.toStringRFC5545());
+		assertEquals(basicIcal, cache.get(basicIcal).toStringRFC5545());
+
+		LocalDateTime ldtRequest = LocalDateTime.of(2017, 2, 8, 10, 1);
+		Calendar added = cache.get(basicIcal);
+		assertTrue(added.pickupAddWeekly(ldtRequest, "compost", DayOfWeek.FRIDAY, LocalTime.of(7, 0)));
+		assertFalse(added.isShared());
+		assertEquals(basicIcal, cache.get(basicIcal).toStringRFC5545());
+
+		// Duplicates are rejected without copying.
+		Calendar duplicate = cache.get(basicIcal);
+		CalendarEvent existing = duplicate.getEvents().get(0);
+		assertFalse(duplicate.eventAdd(existing));
+		assertTrue(duplicate.isShared());
+
+		// Removing everything copies too.
+		Calendar emptied = cache.get(basicIcal);
+		emptied.deleteEntireSchedule();
+		assertTrue(emptied.isEmpty());
+		assertFalse(cache.get(basicIcal).isEmpty());
+	}
+
+	/**
+	 * Test events taken from a shared calendar cannot be changed directly.
+	 *
+	 * @throws ParserException Failed to understand the provided ical source.
+	 * @throws IOException Could not read the ical source string correctly.
+	 */
+	@Test
+	public void testReadOnlyEvents() throws IOException, ParserException {
+		CalendarCache cache = new CalendarCache(4);
+		Calendar calendar = cache.get(basicIcal);
+		CalendarEvent event = calendar.getEvents().get(0);
+		assertTrue(event.isReadOnly());
+
+		thrown.expect(IllegalStateException.class);
+		event.addRecurrenceWeekly(DayOfWeek.MONDAY, 1);
+	}
+
+	/**
+	 * Test the iCal objects handed out by a shared event are copies, so changing them
+	 * does not change the calendar other users share.
+	 *
+	 * @throws ParserException Failed to understand the provided ical source.
+	 * @throws IOException Could not read the ical source string correctly.
+	 */
+	@Test
+	public void testReadOnlyAccessorsReturnCopies() throws IOException, ParserException {
+		CalendarCache cache = new CalendarCache(4);
+		Calendar calendar = cache.get(basicIcal);
+		CalendarEvent event = calendar.getEvents().get(0);
+		assertTrue(event.isReadOnly());
+		String before = calendar.toStringRFC5545();
+
+		event.getVEvent().getSummary().setValue("changed");
+		event.getProperties().clear();
+		event.getProperties(Property.RRULE).clear();
+		event.getRRules().get(0).getRecur().setInterval(5);
+		event.getRecurrences().get(0).getDayList().clear();
+
+		assertEquals(before, calendar.toStringRFC5545());
+		assertEquals(before, cache.get(basicIcal).toStringRFC5545());
+		assertFalse("changed".equals(event.getName()));
+	}
+
+	/**
+	 * Test events of a changed calendar view are writable.
+	 *
+	 * @throws ParserException Failed to understand the provided ical source.
+	 * @throws IOException Could not read the ical source string correctly.
+	 */
+	@Test
+	public void testWritableAfterCopy() throws IOException, ParserException {
+		CalendarCache cache = new CalendarCache(4);
+		Calendar calendar = cache.get(complexIcal);
+		calendar.pickupDelete("trash");
+		for (CalendarEvent event : calendar.getEvents()) {
+			assertFalse(event.isReadOnly());
+		}
+	}
+}
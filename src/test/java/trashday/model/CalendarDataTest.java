@@ -0,0 +1,122 @@
+package trashday.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import net.fortuna.ical4j.data.ParserException;
+
+/**
+ * JUnit tests for the {@link trashday.model.CalendarData} class.
+ *
+ * @author J. Todd Baldwin
+ */
+@RunWith(JUnit4.class)
+public class CalendarDataTest {
+    /** Request time used by the tests */
+    private static final LocalDateTime ldtRequest = LocalDateTime.of(2017, 2, 8, 10, 1);
+
+	/**
+	 * Check a calendar survives an encode and decode unchanged.
+	 *
+	 * @param calendar {@link Calendar} to check
+	 * @return encoded bytes
+	 * @throws ParserException Failed to understand the stored calendar.
+	 * @throws IOException Could not read the stored calendar.
+	 */
+	private byte[] assertRoundTrip(Calendar calendar) throws IOException, ParserException {
+		byte[] bytes = CalendarData.encode(calendar);
+		Calendar decoded = CalendarData.decode(bytes);
+		assertEquals(calendar.toStringRFC5545(), decoded.toStringRFC5545());
+		assertEquals(calendar.pickupGetNextOccurrencesInOrder(ldtRequest), decoded.pickupGetNextOccurrencesInOrder(ldtRequest));
+		return bytes;
+	}
+
+	/**
+	 * Test example calendars encode in the compact form, round trip and take far fewer
+	 * bytes than their RFC 5545 text.
+	 *
+	 * @throws ParserException Failed to understand the stored calendar.
+	 * @throws IOException Could not read the stored calendar.
+	 */
+	@Test
+	public void testCompactRoundTrip() throws IOException, ParserException {
+		Calendar calendar = new Calendar();
+		calendar.initComplexExampleCalendar();
+		calendar.pickupAddWeekdayOfMonth(ldtRequest, "hazardous waste", -1, DayOfWeek.SATURDAY, LocalTime.of(9, 0));
+		assertNotNull(CalendarData.from(calendar.getIcalCalendar()));
+		byte[] bytes = assertRoundTrip(calendar);
+		String text = calendar.toStringRFC5545();
+		assertTrue(bytes.length+" vs "+text.length(), bytes.length < text.length() / 2);
+
+		calendar = new Calendar();
+		calendar.initBasicExampleCalendar();
+		assertRoundTrip(calendar);
+	}
+
+	/**
+	 * Test an empty calendar round trips.
+	 *
+	 * @throws ParserException Failed to understand the stored calendar.
+	 * @throws IOException Could not read the stored calendar.
+	 */
+	@Test
+	public void testEmpty() throws IOException, ParserException {
+		Calendar decoded = CalendarData.decode(CalendarData.encode(new Calendar()));
+		assertTrue(decoded.isEmpty());
+	}
+
+	/**
+	 * Test calendars read from other iCalendar sources are stored as text.
+	 *
+	 * @throws ParserException Failed to understand the stored calendar.
+	 * @throws IOException Could not read the stored calendar.
+	 */
+	@Test
+	public void testTextFallback() throws IOException, ParserException {
+		Calendar basic = new Calendar();
+		basic.initBasicExampleCalendar();
+		String icalText = basic.toStringRFC5545()
+				.replaceFirst("SUMMARY:trash", "SUMMARY:trash\r\nLOCATION:curb");
+		Calendar calendar = new Calendar(icalText);
+		assertNull(CalendarData.from(calendar.getIcalCalendar()));
+		byte[] bytes = assertRoundTrip(calendar);
+		assertTrue(new String(bytes, StandardCharsets.UTF_8).contains("LOCATION:curb"));
+	}
+
+	/**
+	 * Test the shared cache returns decoded binary calendars.
+	 *
+	 * @throws ParserException Failed to understand the stored calendar.
+	 * @throws IOException Could not read the stored calendar.
+	 */
+	@Test
+	public void testCache() throws IOException, ParserException {
+		Calendar calendar = new Calendar();
+		calendar.initComplexExampleCalendar();
+		byte[] bytes = CalendarData.encode(calendar);
+		CalendarCache cache = new CalendarCache(4);
+		Calendar first = cache.get(bytes);
+		Calendar second = cache.get(bytes.clone());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertTrue(second.isShared());
+		assertEquals(first.toStringRFC5545(), second.toStringRFC5545());
+		assertEquals(calendar.toStringRFC5545(), second.toStringRFC5545());
+
+		// Text and binary keys do not collide.
+		cache.get(calendar.toStringRFC5545());
+		assertEquals(2, cache.size());
+	}
+}
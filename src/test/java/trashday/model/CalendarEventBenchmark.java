@@ -0,0 +1,98 @@
+package trashday.model;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH microbenchmarks comparing the {@link CompiledRecurrence} next occurrence
+ * calculation against the ical4j reference calculation, using the events in
+ * {@link Calendar#initComplexExampleCalendar()}.
+ * <p>
+ * Not a JUnit test.  Run from the command line after {@code mvn test-compile}:
+ * <pre>
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=trashday.model.CalendarEventBenchmark
+ * </pre>
+ *
+ * @author	J. Todd Baldwin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalendarEventBenchmark {
+	/** Events from the complex example calendar */
+	private CalendarEvent[] events;
+	/** Query time: one year after the example calendar starts */
+	private LocalDateTime ldtQuery;
+
+	/**
+	 * Build the example events.
+	 */
+	@Setup
+	public void setUp() {
+		Calendar calendar = new Calendar();
+		calendar.initComplexExampleCalendar();
+		events = calendar.getEvents().toArray(new CalendarEvent[0]);
+		ldtQuery = LocalDateTime.of(2018, 2, 8, 10, 1);
+	}
+
+	/**
+	 * Next occurrence of every example event using compiled recurrence rules.
+	 *
+	 * @return earliest next occurrence (returned so the JIT cannot discard the work)
+	 */
+	@Benchmark
+	public LocalDateTime nextOccurrenceCompiled() {
+		LocalDateTime earliest = null;
+		for (CalendarEvent event : events) {
+			LocalDateTime next = event.getNextOccurrence(ldtQuery);
+			if ( (earliest==null) || next.isBefore(earliest) ) { earliest = next; }
+		}
+		return earliest;
+	}
+
+	/**
+	 * Next occurrence of every example event using ical4j.
+	 *
+	 * @return earliest next occurrence (returned so the JIT cannot discard the work)
+	 */
+	@Benchmark
+	public LocalDateTime nextOccurrenceIcal4j() {
+		LocalDateTime earliest = null;
+		for (CalendarEvent event : events) {
+			LocalDateTime next = event.getNextOccurrenceIcal4j(ldtQuery);
+			if ( (earliest==null) || next.isBefore(earliest) ) { earliest = next; }
+		}
+		return earliest;
+	}
+
+	/**
+	 * Run the benchmarks.
+	 *
+	 * @param args unused
+	 * @throws RunnerException if JMH fails to run
+	 */
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+				.include(CalendarEventBenchmark.class.getSimpleName())
+				.build();
+		new Runner(opt).run();
+	}
+}
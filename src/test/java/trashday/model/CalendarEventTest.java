@@ -594,4 +594,24 @@ public class CalendarEventTest {
 		assertTrue(match);
 	}
 
+
+	@Test
+	public void testReadAccessorsKeepCompiledRecurrences() {
+		log.info("testReadAccessorsKeepCompiledRecurrences");
+		CalendarEvent event = new CalendarEvent("Trash", LocalDateTime.of(2017, 2, 1, 8, 30));
+		event.addRecurrenceWeekly(DayOfWeek.WEDNESDAY, 1);
+		CompiledRecurrence[] compiled = event.getCompiledRecurrences();
+		
+		assertEquals(1, event.getRecurrences().size());
+		assertEquals(1, event.getRRules().size());
+		assertSame(compiled, event.getCompiledRecurrences());
+		
+		// Changing the recurrences rebuilds them.
+		event.addRecurrenceWeekly(DayOfWeek.FRIDAY, 1);
+		assertNotSame(compiled, event.getCompiledRecurrences());
+		compiled = event.getCompiledRecurrences();
+		assertEquals(1, event.deleteRecurrenceWeekly(DayOfWeek.FRIDAY, 1));
+		assertNotSame(compiled, event.getCompiledRecurrences());
+		assertEquals(LocalDateTime.of(2017, 2, 8, 8, 30), event.getNextOccurrence(LocalDateTime.of(2017, 2, 2, 0, 0)));
+	}
 }
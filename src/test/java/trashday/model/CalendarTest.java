@@ -14,6 +14,7 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.BeforeClass;
 import org.junit.Rule;
@@ -821,4 +822,151 @@ public class CalendarTest {
 				actualCalendarString);
 	}
 
+	@Test
+	public void testRebase() {
+		LocalDateTime ldtLimit = LocalDateTime.of(2018, 2, 8, 10, 0);
+		LocalDateTime ldtRequest = LocalDateTime.of(2018, 2, 9, 10, 0);
+		Calendar original = new Calendar();
+		original.initComplexExampleCalendar();
+		Calendar calendar = new Calendar();
+		calendar.initComplexExampleCalendar();
+		
+		int eventCount = calendar.getEvents().size();
+		assertEquals(eventCount, calendar.rebase(ldtLimit));
+		for (CalendarEvent event : calendar.getEvents()) {
+			assertTrue(event.getStartLocalDateTime().isAfter(LocalDateTime.of(2017, 12, 1, 0, 0)));
+			assertFalse(event.getStartLocalDateTime().isAfter(ldtLimit));
+		}
+		assertEquals(0, calendar.rebase(ldtLimit));
+		
+		for (int week=0; week<60; week++) {
+			LocalDateTime ldtQuery = ldtRequest.plusWeeks(week);
+			assertEquals(original.pickupGetNextOccurrences(ldtQuery), calendar.pickupGetNextOccurrences(ldtQuery));
+		}
+		assertEquals(FormatUtils.printableCalendar(original, ldtRequest), FormatUtils.printableCalendar(calendar, ldtRequest));
+		assertEquals(FormatUtils.verbalCalendar(original, ldtRequest), FormatUtils.verbalCalendar(calendar, ldtRequest));
+	}
+
+	@Test
+	public void testPickupIndex() throws IOException, ParserException {
+		LocalDateTime ldtRequest = LocalDateTime.of(2017, 2, 8, 10, 0);
+		Calendar calendar = new Calendar();
+		calendar.initBasicExampleCalendar();
+		
+		assertEquals(3, calendar.getEvents().size());
+		assertEquals(2, calendar.getEvents("Trash").size());
+		assertEquals(2, calendar.getEvents(" TRASH ").size());
+		assertEquals(1, calendar.getEvents("recycling").size());
+		assertEquals(0, calendar.getEvents("lawn waste").size());
+		
+		// Index kept up to date as events are added and deleted.
+		assertTrue(calendar.pickupAddWeekly(ldtRequest, "Lawn Waste", DayOfWeek.MONDAY, LocalTime.of(6, 0)));
+		assertEquals(1, calendar.getEvents("lawn waste").size());
+		assertEquals(4, calendar.getEvents().size());
+		assertEquals(1, calendar.pickupDeleteWeekly("trash", DayOfWeek.TUESDAY, LocalTime.of(7, 30)));
+		assertEquals(1, calendar.getEvents("trash").size());
+		assertEquals(3, calendar.getEvents().size());
+		assertTrue(calendar.pickupDelete("recycling"));
+		assertFalse(calendar.pickupDelete("recycling"));
+		assertEquals(0, calendar.getEvents("recycling").size());
+		assertEquals(2, calendar.getEvents().size());
+		assertNotNull(calendar.pickupGetNextOccurrence(ldtRequest, "Trash"));
+		
+		// Index matches the calendar components after a round trip.
+		Calendar parsed = new Calendar(calendar.toStringRFC5545());
+		assertEquals(1, parsed.getEvents("trash").size());
+		assertEquals(1, parsed.getEvents("lawn waste").size());
+		assertEquals(2, parsed.getEvents().size());
+		
+		assertTrue(calendar.deleteEntireSchedule());
+		assertEquals(0, calendar.getEvents().size());
+		assertEquals(0, calendar.getEvents("trash").size());
+		assertTrue(calendar.isEmpty());
+		
+		// Lists handed out are read-only.
+		calendar.initBasicExampleCalendar();
+		thrown.expect(UnsupportedOperationException.class);
+		calendar.getEvents("trash").clear();
+	}
+
+	@Test
+	public void testNextOccurrencesInOrder() {
+		Calendar calendar = new Calendar();
+		calendar.initComplexExampleCalendar();
+		
+		LocalDateTime ldtRequest = LocalDateTime.of(2017, 2, 8, 10, 1);
+		for (int day=0; day<400; day+=3) {
+			LocalDateTime ldtQuery = ldtRequest.plusDays(day).plusHours(day % 24);
+			Map<String, LocalDateTime> expected = calendar.pickupGetNextOccurrences(ldtQuery);
+			Map<String, LocalDateTime> actual = calendar.pickupGetNextOccurrencesInOrder(ldtQuery);
+			assertEquals(expected, actual);
+			
+			LocalDateTime ldtPrevious = null;
+			for (LocalDateTime ldtNext : actual.values()) {
+				if (ldtPrevious != null) {
+					assertFalse(ldtNext.isBefore(ldtPrevious));
+				}
+				ldtPrevious = ldtNext;
+			}
+		}
+		
+		// Ties keep calendar order.
+		Calendar ties = new Calendar();
+		ties.pickupAddWeekly(ldtRequest, "recycling", DayOfWeek.FRIDAY, LocalTime.of(7, 30));
+		ties.pickupAddWeekly(ldtRequest, "trash", DayOfWeek.FRIDAY, LocalTime.of(7, 30));
+		ties.pickupAddWeekly(ldtRequest, "lawn waste", DayOfWeek.THURSDAY, LocalTime.of(7, 30));
+		assertEquals("[lawn waste, recycling, trash]", ties.pickupGetNextOccurrencesInOrder(ldtRequest).keySet().toString());
+		assertTrue(new Calendar().pickupGetNextOccurrencesInOrder(ldtRequest).isEmpty());
+	}
+
+	@Test
+	public void testRuleSignatureDuplicates() throws IOException, ParserException {
+		LocalDateTime ldtRequest = LocalDateTime.of(2017, 2, 8, 10, 0);
+		LocalTime tod = LocalTime.of(7, 30);
+		Calendar calendar = new Calendar();
+		
+		// Biweekly pickups in alternate weeks are not duplicates of each other.
+		assertTrue(calendar.pickupAddBiWeekly(ldtRequest, "recycling", false, DayOfWeek.FRIDAY, tod));
+		assertTrue(calendar.pickupAddBiWeekly(ldtRequest, "recycling", true, DayOfWeek.FRIDAY, tod));
+		assertFalse(calendar.pickupAddBiWeekly(ldtRequest.plusWeeks(2), "Recycling", false, DayOfWeek.FRIDAY, tod));
+		assertFalse(calendar.pickupAddBiWeekly(ldtRequest.plusWeeks(4), "recycling", true, DayOfWeek.FRIDAY, tod));
+		
+		// Different time-of-day, interval or day are not duplicates.
+		assertTrue(calendar.pickupAddWeekly(ldtRequest, "trash", DayOfWeek.FRIDAY, tod));
+		assertFalse(calendar.pickupAddWeekly(ldtRequest.plusWeeks(3), "trash", DayOfWeek.FRIDAY, tod));
+		assertTrue(calendar.pickupAddWeekly(ldtRequest, "trash", DayOfWeek.FRIDAY, LocalTime.of(8, 0)));
+		assertTrue(calendar.pickupAddDayOfMonth(ldtRequest, "trash", -1, tod));
+		assertFalse(calendar.pickupAddDayOfMonth(ldtRequest.plusMonths(1), "trash", -1, tod));
+		assertTrue(calendar.pickupAddWeekdayOfMonth(ldtRequest, "trash", 2, DayOfWeek.SATURDAY, tod));
+		assertFalse(calendar.pickupAddWeekdayOfMonth(ldtRequest, "trash", 2, DayOfWeek.SATURDAY, tod));
+		
+		// Deleted pickups may be added again.
+		assertEquals(1, calendar.pickupDeleteWeekly("trash", DayOfWeek.FRIDAY, tod));
+		assertTrue(calendar.pickupAddWeekly(ldtRequest, "trash", DayOfWeek.FRIDAY, tod));
+		assertEquals(1, calendar.pickupDeleteDayOfMonth("trash", -1, tod));
+		assertTrue(calendar.pickupAddDayOfMonth(ldtRequest, "trash", -1, tod));
+		assertTrue(calendar.pickupDelete("recycling"));
+		assertTrue(calendar.pickupAddBiWeekly(ldtRequest, "recycling", false, DayOfWeek.FRIDAY, tod));
+		
+		// Events with several BYDAY entries get one signature per day.
+		calendar = new Calendar("BEGIN:VCALENDAR\n" + 
+				"PRODID:-//Ben Fortuna//iCal4j 2.0.0//EN\n" + 
+				"VERSION:2.0\n" + 
+				"CALSCALE:GREGORIAN\n" + 
+				"BEGIN:VEVENT\n" + 
+				"DTSTAMP:20170206T030400Z\n" + 
+				"DTSTART:20170130T073000\n" + 
+				"DTEND:20170130T073000\n" + 
+				"SUMMARY:yard waste\n" + 
+				"UID:20170206T030400Z-TrashDaySkill@AWS\n" + 
+				"RRULE:FREQ=WEEKLY;BYDAY=MO,TH\n" + 
+				"END:VEVENT\n" + 
+				"END:VCALENDAR\n");
+		assertEquals(2, calendar.getEvents().get(0).getRuleSignatures().size());
+		assertFalse(calendar.pickupAddWeekly(ldtRequest, "yard waste", DayOfWeek.THURSDAY, tod));
+		assertEquals(1, calendar.pickupDeleteWeekly("yard waste", DayOfWeek.THURSDAY, tod));
+		assertTrue(calendar.pickupAddWeekly(ldtRequest, "yard waste", DayOfWeek.THURSDAY, tod));
+		assertFalse(calendar.pickupAddWeekly(ldtRequest, "yard waste", DayOfWeek.MONDAY, tod));
+	}
+
 }
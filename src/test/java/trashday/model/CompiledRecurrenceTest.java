@@ -0,0 +1,302 @@
+package trashday.model;
+
+import static org.junit.Assert.*;
+
+import java.text.ParseException;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fortuna.ical4j.model.Recur;
+import net.fortuna.ical4j.model.property.RRule;
+
+/**
+ * JUnit tests for the {@link trashday.model.CompiledRecurrence} class.
+ * <p>
+ * Most tests compare {@link CalendarEvent#getNextOccurrence(LocalDateTime)} against
+ * the ical4j reference calculation in {@link CalendarEvent#getNextOccurrenceIcal4j(LocalDateTime)}
+ * over many generated events and query times.
+ *
+ * @author	J. Todd Baldwin
+ */
+@RunWith(JUnit4.class)
+public class CompiledRecurrenceTest {
+	/** Log object for this class */
+    private static final Logger log = LoggerFactory.getLogger(CompiledRecurrenceTest.class);
+
+    /** Number of generated events in each comparison test */
+    private static final int EVENT_COUNT = 300;
+    /** Number of query times checked for each generated event */
+    private static final int QUERY_COUNT = 25;
+
+    /**
+     * Generate a random event start time.  Hours are kept between 6am and 8pm so
+     * occurrences never land in a daylight saving gap.
+     *
+     * @param random source of random values
+     * @return {@link LocalDateTime} event start
+     */
+    private LocalDateTime randomStart(Random random) {
+    	return LocalDateTime.of(2015, 1, 1, 6, 0)
+    			.plusDays(random.nextInt(5*365))
+    			.plusHours(random.nextInt(15))
+    			.plusMinutes(random.nextInt(60));
+    }
+
+    /**
+     * Check the compiled and ical4j next occurrence calculations agree for many
+     * query times around and after the event start.
+     *
+     * @param random source of random values
+     * @param event {@link CalendarEvent} under test
+     */
+    private void assertMatchesIcal4j(Random random, CalendarEvent event) {
+    	LocalDateTime ldtStart = event.getStartLocalDateTime();
+    	for (int i=0; i<QUERY_COUNT; i++) {
+    		LocalDateTime ldtQuery = ldtStart
+    				.minusDays(60)
+    				.plusMinutes(random.nextInt(3*366*24*60));
+    		if (i==0) { ldtQuery = ldtStart; }
+    		if (i==1) { ldtQuery = ldtStart.minusMinutes(1); }
+    		LocalDateTime expected = event.getNextOccurrenceIcal4j(ldtQuery);
+    		LocalDateTime actual = event.getNextOccurrence(ldtQuery);
+    		assertEquals("event="+event.getVEvent()+" query="+ldtQuery, expected, actual);
+    	}
+    }
+
+    /**
+     * Generate a random DayOfWeek.
+     *
+     * @param random source of random values
+     * @return {@link DayOfWeek}
+     */
+    private DayOfWeek randomDow(Random random) {
+    	return DayOfWeek.of(1+random.nextInt(7));
+    }
+
+	@Test
+	public void testWeeklyMatchesIcal4j() {
+		log.info("testWeeklyMatchesIcal4j");
+		Random random = new Random(20170201L);
+		for (int i=0; i<EVENT_COUNT; i++) {
+			CalendarEvent event = new CalendarEvent("trash", randomStart(random));
+			int interval = 1+random.nextInt(4);
+			event.addRecurrenceWeekly(randomDow(random), interval);
+			if (random.nextBoolean()) {
+				event.addRecurrenceWeekly(randomDow(random), interval);
+			}
+			assertMatchesIcal4j(random, event);
+		}
+	}
+
+	@Test
+	public void testDayOfMonthMatchesIcal4j() {
+		log.info("testDayOfMonthMatchesIcal4j");
+		Random random = new Random(20170202L);
+		for (int i=0; i<EVENT_COUNT; i++) {
+			CalendarEvent event = new CalendarEvent("recycling", randomStart(random));
+			// ical4j throws IndexOutOfBoundsException for BYMONTHDAY=-29 through -31 in
+			// shorter months, so only compare negative values it can handle.
+			int dom = random.nextBoolean() ? 1+random.nextInt(31) : -1-random.nextInt(28);
+			event.addRecurrenceDayOfMonth(dom, 1+random.nextInt(3));
+			assertMatchesIcal4j(random, event);
+		}
+	}
+
+	@Test
+	public void testWeekdayOfMonthMatchesIcal4j() {
+		log.info("testWeekdayOfMonthMatchesIcal4j");
+		Random random = new Random(20170203L);
+		for (int i=0; i<EVENT_COUNT; i++) {
+			CalendarEvent event = new CalendarEvent("lawn waste", randomStart(random));
+			int weekNum = 1+random.nextInt(5);
+			if (random.nextBoolean()) { weekNum = -weekNum; }
+			event.addRecurrenceWeekdayOfMonth(randomDow(random), weekNum, 1+random.nextInt(3));
+			assertMatchesIcal4j(random, event);
+		}
+	}
+
+	@Test
+	public void testMultiValueRulesMatchIcal4j() throws ParseException {
+		log.info("testMultiValueRulesMatchIcal4j");
+		Random random = new Random(20170204L);
+		String[] rules = {
+				"FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,WE,FR",
+				"FREQ=WEEKLY;INTERVAL=3;WKST=SU;BYDAY=SU,SA",
+				"FREQ=WEEKLY;WKST=TH;BYDAY=TU,FR",
+				"FREQ=MONTHLY;BYMONTHDAY=1,15,-1",
+				"FREQ=MONTHLY;INTERVAL=2;BYMONTHDAY=28,-2",
+				"FREQ=MONTHLY;BYDAY=2SA,4SA",
+				"FREQ=MONTHLY;INTERVAL=4;BYDAY=5FR,-5MO"
+		};
+		for (String rule : rules) {
+			for (int i=0; i<EVENT_COUNT/10; i++) {
+				CalendarEvent event = new CalendarEvent("hockey team", randomStart(random));
+				event.getProperties().add(new RRule(rule));
+				assertMatchesIcal4j(random, event);
+			}
+		}
+	}
+
+	@Test
+	public void testDayOfMonthMissingFromShortMonths() {
+		log.info("testDayOfMonthMissingFromShortMonths");
+		CalendarEvent event = new CalendarEvent("trash", LocalDateTime.of(2017, 1, 31, 7, 30));
+		event.addRecurrenceDayOfMonth(-31, 1);
+		assertEquals(LocalDateTime.of(2017, 3, 1, 7, 30), event.getNextOccurrence(LocalDateTime.of(2017, 2, 1, 0, 0)));
+		
+		event = new CalendarEvent("trash", LocalDateTime.of(2017, 1, 31, 7, 30));
+		event.addRecurrenceDayOfMonth(31, 1);
+		assertEquals(LocalDateTime.of(2017, 3, 31, 7, 30), event.getNextOccurrence(LocalDateTime.of(2017, 2, 1, 0, 0)));
+		assertEquals(LocalDateTime.of(2017, 5, 31, 7, 30), event.getNextOccurrence(LocalDateTime.of(2017, 3, 31, 7, 30)));
+	}
+
+	@Test
+	public void testUnsupportedRulesUseIcal4j() throws ParseException {
+		log.info("testUnsupportedRulesUseIcal4j");
+		Random random = new Random(20170205L);
+		String[] rules = {
+				"FREQ=WEEKLY;COUNT=5;BYDAY=TU",
+				"FREQ=DAILY;INTERVAL=3",
+				"FREQ=MONTHLY;BYDAY=MO,TU",
+				"FREQ=MONTHLY;BYDAY=FR;BYSETPOS=-1",
+				"FREQ=YEARLY;BYMONTH=3;BYMONTHDAY=4"
+		};
+		for (String rule : rules) {
+			CalendarEvent event = new CalendarEvent("mortgage", randomStart(random));
+			event.getProperties().add(new RRule(rule));
+			for (CompiledRecurrence compiled : event.getCompiledRecurrences()) {
+				assertFalse(rule, compiled.isCompiled());
+			}
+			assertMatchesIcal4j(random, event);
+		}
+	}
+
+	@Test
+	public void testSupportedRulesAreCompiled() {
+		log.info("testSupportedRulesAreCompiled");
+		CalendarEvent event = new CalendarEvent("trash", LocalDateTime.of(2017, 1, 31, 7, 30));
+		event.addRecurrenceWeekly(DayOfWeek.TUESDAY, 1);
+		event.addRecurrenceDayOfMonth(-1, 1);
+		event.addRecurrenceWeekdayOfMonth(DayOfWeek.SATURDAY, 2, 1);
+		CompiledRecurrence[] compiled = event.getCompiledRecurrences();
+		assertEquals(3, compiled.length);
+		assertEquals(CompiledRecurrence.SHAPE_WEEKLY, compiled[0].getShape());
+		assertEquals(CompiledRecurrence.SHAPE_MONTHLY_DAY, compiled[1].getShape());
+		assertEquals(CompiledRecurrence.SHAPE_MONTHLY_WEEKDAY, compiled[2].getShape());
+	}
+
+	@Test
+	public void testRecurrenceChangesInvalidateCompiledRules() {
+		log.info("testRecurrenceChangesInvalidateCompiledRules");
+		CalendarEvent event = new CalendarEvent("trash", LocalDateTime.of(2017, 1, 31, 7, 30));
+		event.addRecurrenceWeekly(DayOfWeek.TUESDAY, 1);
+		LocalDateTime ldtQuery = LocalDateTime.of(2017, 2, 8, 10, 0);
+		assertEquals(LocalDateTime.of(2017, 2, 14, 7, 30), event.getNextOccurrence(ldtQuery));
+
+		event.addRecurrenceWeekly(DayOfWeek.FRIDAY, 1);
+		assertEquals(LocalDateTime.of(2017, 2, 10, 7, 30), event.getNextOccurrence(ldtQuery));
+
+		event.deleteRecurrenceWeekly(DayOfWeek.FRIDAY, 1);
+		assertEquals(LocalDateTime.of(2017, 2, 14, 7, 30), event.getNextOccurrence(ldtQuery));
+
+		event.deleteRecurrencesAll();
+		assertNull(event.getNextOccurrence(ldtQuery));
+	}
+
+	@Test
+	public void testNoFurtherOccurrences() throws ParseException {
+		log.info("testNoFurtherOccurrences");
+		// No February 30th and the single weekly pickup is already past.
+		CalendarEvent event = new CalendarEvent("trash", LocalDateTime.of(2017, 2, 1, 7, 30));
+		event.getProperties().add(new RRule(new Recur("FREQ=MONTHLY;INTERVAL=12;BYMONTHDAY=30")));
+		event.getProperties().add(new RRule(new Recur("FREQ=WEEKLY;COUNT=1;BYDAY=TU")));
+		assertNull(event.getNextOccurrence(LocalDateTime.of(2017, 3, 1, 0, 0)));
+		assertNull(event.getNextOccurrenceIcal4j(LocalDateTime.of(2017, 3, 1, 0, 0)));
+	}
+
+	@Test
+	public void testRebaseKeepsOccurrences() throws ParseException {
+		log.info("testRebaseKeepsOccurrences");
+		Random random = new Random(20170206L);
+		String[] rules = {
+				"FREQ=WEEKLY;BYDAY=TU",
+				"FREQ=WEEKLY;INTERVAL=2;BYDAY=FR",
+				"FREQ=WEEKLY;INTERVAL=3;BYDAY=MO,TH",
+				"FREQ=MONTHLY;BYMONTHDAY=15",
+				"FREQ=MONTHLY;INTERVAL=2;BYMONTHDAY=-1",
+				"FREQ=MONTHLY;INTERVAL=3;BYMONTHDAY=31",
+				"FREQ=MONTHLY;BYDAY=2SA",
+				"FREQ=MONTHLY;INTERVAL=2;BYDAY=-1FR"
+		};
+		int rebasedCount = 0;
+		for (String rule : rules) {
+			for (int i=0; i<EVENT_COUNT/10; i++) {
+				LocalDateTime ldtStart = randomStart(random);
+				CalendarEvent original = new CalendarEvent("trash", ldtStart);
+				original.getProperties().add(new RRule(rule));
+				CalendarEvent rebased = new CalendarEvent("trash", ldtStart);
+				rebased.getProperties().add(new RRule(rule));
+				// Second RRULE with a different interval on some weekly events.
+				if ( rule.startsWith("FREQ=WEEKLY") && random.nextBoolean() ) {
+					original.getProperties().add(new RRule("FREQ=WEEKLY;INTERVAL=4;BYDAY=SU"));
+					rebased.getProperties().add(new RRule("FREQ=WEEKLY;INTERVAL=4;BYDAY=SU"));
+				}
+				
+				LocalDateTime ldtLimit = ldtStart.plusMinutes(random.nextInt(3*366*24*60));
+				if (rebased.rebaseStart(ldtLimit)) {
+					rebasedCount++;
+					LocalDateTime ldtNewStart = rebased.getStartLocalDateTime();
+					assertTrue(ldtNewStart.isAfter(ldtStart));
+					assertFalse(ldtNewStart.isAfter(ldtLimit));
+					assertEquals(ldtNewStart, rebased.getNextOccurrenceIcal4j(ldtNewStart.minusMinutes(1)));
+				}
+				for (int q=0; q<QUERY_COUNT; q++) {
+					LocalDateTime ldtQuery = ldtLimit.plusMinutes(random.nextInt(366*24*60));
+					assertEquals("rule="+rule+" start="+ldtStart+" query="+ldtQuery,
+							original.getNextOccurrenceIcal4j(ldtQuery), rebased.getNextOccurrenceIcal4j(ldtQuery));
+					assertEquals(original.getNextOccurrence(ldtQuery), rebased.getNextOccurrence(ldtQuery));
+				}
+			}
+		}
+		assertTrue(rebasedCount > EVENT_COUNT/2);
+	}
+
+	@Test
+	public void testRebaseSkipsUnsupportedRules() throws ParseException {
+		log.info("testRebaseSkipsUnsupportedRules");
+		LocalDateTime ldtStart = LocalDateTime.of(2017, 1, 31, 7, 30);
+		LocalDateTime ldtLimit = LocalDateTime.of(2019, 6, 1, 0, 0);
+		
+		CalendarEvent event = new CalendarEvent("trash", ldtStart);
+		event.getProperties().add(new RRule("FREQ=WEEKLY;COUNT=500;BYDAY=TU"));
+		assertFalse(event.rebaseStart(ldtLimit));
+		
+		event = new CalendarEvent("trash", ldtStart);
+		event.addRecurrenceWeekly(DayOfWeek.TUESDAY, 1);
+		event.addRecurrenceDayOfMonth(1, 1);
+		assertFalse(event.rebaseStart(ldtLimit));
+		
+		event = new CalendarEvent("trash", ldtStart);
+		event.addRecurrenceWeekly(DayOfWeek.TUESDAY, 1);
+		assertFalse(event.rebaseStart(ldtStart.minusDays(1)));
+		assertTrue(event.rebaseStart(ldtLimit));
+		assertEquals(LocalDateTime.of(2019, 5, 28, 7, 30), event.getStartLocalDateTime());
+		assertFalse(event.rebaseStart(ldtLimit));
+	}
+
+	@Test
+	public void testEpochMinuteConversions() {
+		log.info("testEpochMinuteConversions");
+		LocalDateTime ldt = LocalDateTime.of(2017, 3, 12, 2, 30);
+		assertEquals(ldt, CompiledRecurrence.fromEpochMinute(CompiledRecurrence.toEpochMinute(ldt)));
+		assertEquals(0, CompiledRecurrence.toEpochMinute(LocalDateTime.of(1970, 1, 1, 0, 0, 59)));
+		assertEquals(-1, CompiledRecurrence.toEpochMinute(LocalDateTime.of(1969, 12, 31, 23, 59)));
+	}
+}
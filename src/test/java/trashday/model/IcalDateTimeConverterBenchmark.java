@@ -0,0 +1,130 @@
+package trashday.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH microbenchmarks comparing the {@link IcalDateTimeConverter} conversions against
+ * the {@link java.time.ZonedDateTime} conversions they replace.
+ * <p>
+ * Not a JUnit test.  Run from the command line after {@code mvn test-compile}:
+ * <pre>
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=trashday.model.IcalDateTimeConverterBenchmark
+ * </pre>
+ *
+ * @author	J. Todd Baldwin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IcalDateTimeConverterBenchmark {
+	/** Wall-clock times to convert: a year of weekly pickups */
+	private LocalDateTime[] ldts;
+	/** ical4j date/times to convert */
+	private net.fortuna.ical4j.model.DateTime[] icalDateTimes;
+
+	/**
+	 * Build the date/times to convert.
+	 */
+	@Setup
+	public void setUp() {
+		ldts = new LocalDateTime[52];
+		icalDateTimes = new net.fortuna.ical4j.model.DateTime[ldts.length];
+		LocalDateTime ldt = LocalDateTime.of(2017, 2, 8, 7, 30);
+		for (int i=0; i<ldts.length; i++) {
+			ldts[i] = ldt.plusWeeks(i);
+			icalDateTimes[i] = IcalDateTimeConverter.toIcalDateTime(ldts[i]);
+		}
+	}
+
+	/**
+	 * LocalDateTime to ical4j DateTime with epoch arithmetic.
+	 *
+	 * @return sum of the results (returned so the JIT cannot discard the work)
+	 */
+	@Benchmark
+	public long toIcalDirect() {
+		long sum = 0;
+		for (LocalDateTime ldt : ldts) {
+			sum += IcalDateTimeConverter.toIcalDateTime(ldt).getTime();
+		}
+		return sum;
+	}
+
+	/**
+	 * LocalDateTime to ical4j DateTime through ZonedDateTime.
+	 *
+	 * @return sum of the results (returned so the JIT cannot discard the work)
+	 */
+	@Benchmark
+	public long toIcalZoned() {
+		long sum = 0;
+		for (LocalDateTime ldt : ldts) {
+			ZonedDateTime zdt = ZonedDateTime.of(ldt, ZoneId.systemDefault()).truncatedTo(ChronoUnit.MINUTES);
+			sum += new net.fortuna.ical4j.model.DateTime(java.util.Date.from(zdt.toInstant())).getTime();
+		}
+		return sum;
+	}
+
+	/**
+	 * ical4j DateTime to LocalDateTime with epoch arithmetic.
+	 *
+	 * @return sum of the results (returned so the JIT cannot discard the work)
+	 */
+	@Benchmark
+	public long toLocalDirect() {
+		long sum = 0;
+		for (net.fortuna.ical4j.model.DateTime icalDateTime : icalDateTimes) {
+			sum += IcalDateTimeConverter.toLocalDateTime(icalDateTime).getMinute();
+		}
+		return sum;
+	}
+
+	/**
+	 * ical4j DateTime to LocalDateTime through ZoneId rules.
+	 *
+	 * @return sum of the results (returned so the JIT cannot discard the work)
+	 */
+	@Benchmark
+	public long toLocalZoned() {
+		long sum = 0;
+		for (net.fortuna.ical4j.model.DateTime icalDateTime : icalDateTimes) {
+			sum += LocalDateTime.ofInstant(icalDateTime.toInstant(), ZoneId.systemDefault()).getMinute();
+		}
+		return sum;
+	}
+
+	/**
+	 * Run the benchmarks.
+	 *
+	 * @param args unused
+	 * @throws RunnerException if JMH fails to run
+	 */
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+				.include(IcalDateTimeConverterBenchmark.class.getSimpleName())
+				.build();
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,105 @@
+package trashday.model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Random;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * JUnit tests for the {@link trashday.model.IcalDateTimeConverter} class.
+ *
+ * @author J. Todd Baldwin
+ */
+@RunWith(JUnit4.class)
+public class IcalDateTimeConverterTest {
+	/** Zones with whole-hour, half-hour and 30-minute daylight saving offsets, plus no transitions. */
+	private static final String[] zoneNames = {
+			"America/New_York", "Europe/London", "Australia/Lord_Howe",
+			"Asia/Kolkata", "America/St_Johns", "Pacific/Apia", "UTC" };
+
+	/**
+	 * Check both conversions of one wall-clock time match the {@link java.time.ZonedDateTime} path.
+	 *
+	 * @param ldt wall-clock time
+	 * @param zoneId time zone
+	 */
+	private void assertMatchesZoned(LocalDateTime ldt, ZoneId zoneId) {
+		String message = ldt+" "+zoneId;
+		long expectedMilli = ZonedDateTime.of(ldt, zoneId).toInstant().toEpochMilli();
+		assertEquals(message, expectedMilli, IcalDateTimeConverter.toEpochMilli(ldt, zoneId));
+		assertEquals(message, LocalDateTime.ofInstant(Instant.ofEpochMilli(expectedMilli), zoneId),
+				IcalDateTimeConverter.toLocalDateTime(expectedMilli, zoneId));
+
+		LocalDateTime expectedGap = ldt;
+		if (zoneId.getRules().getValidOffsets(ldt).isEmpty()) {
+			expectedGap = ldt.atZone(zoneId).toLocalDateTime();
+		}
+		assertEquals(message, expectedGap, IcalDateTimeConverter.resolveGap(ldt, zoneId));
+	}
+
+	/**
+	 * Test random date/times in each zone, switching zones often so the remembered
+	 * offset span is replaced.
+	 */
+	@Test
+	public void testRandomTimes() {
+		Random random = new Random(20170215L);
+		LocalDateTime base = LocalDateTime.of(1990, 1, 1, 0, 0);
+		for (int i=0; i<20000; i++) {
+			ZoneId zoneId = ZoneId.of(zoneNames[random.nextInt(zoneNames.length)]);
+			LocalDateTime ldt = base.plusSeconds(random.nextInt(60 * 365 * 24 * 60) * 60L)
+					.plusNanos(random.nextInt(1000) * 1000000L);
+			assertMatchesZoned(ldt, zoneId);
+		}
+	}
+
+	/**
+	 * Test every minute around every zone transition for several years, inside the
+	 * daylight saving gaps and overlaps.
+	 */
+	@Test
+	public void testTransitions() {
+		for (String zoneName : zoneNames) {
+			ZoneId zoneId = ZoneId.of(zoneName);
+			ZoneRules rules = zoneId.getRules();
+			Instant instant = Instant.parse("2010-01-01T00:00:00Z");
+			Instant end = Instant.parse("2030-01-01T00:00:00Z");
+			ZoneOffsetTransition transition = rules.nextTransition(instant);
+			while ( (transition != null) && transition.getInstant().isBefore(end) ) {
+				LocalDateTime ldtBefore = transition.getDateTimeBefore();
+				for (int minutes=-90; minutes<=90; minutes++) {
+					assertMatchesZoned(ldtBefore.plusMinutes(minutes), zoneId);
+				}
+				transition = rules.nextTransition(transition.getInstant());
+			}
+		}
+	}
+
+	/**
+	 * Test the ical4j conversions round trip in the host default time zone.
+	 */
+	@Test
+	public void testIcalRoundTrip() {
+		LocalDateTime ldt = LocalDateTime.of(2017, 2, 15, 15, 29, 45, 123000000);
+		net.fortuna.ical4j.model.DateTime icalDateTime = IcalDateTimeConverter.toIcalDateTime(ldt);
+		assertEquals("20170215T152900", icalDateTime.toString());
+		assertEquals(ldt.truncatedTo(ChronoUnit.MINUTES), IcalDateTimeConverter.toLocalDateTime(icalDateTime));
+
+		ZoneId zoneId = ZoneId.systemDefault();
+		for (int hours=0; hours<24*366*2; hours+=5) {
+			LocalDateTime ldtHour = ldt.plusHours(hours).truncatedTo(ChronoUnit.MINUTES);
+			java.util.Date expected = java.util.Date.from(ZonedDateTime.of(ldtHour, zoneId).toInstant());
+			assertEquals(expected.getTime(), IcalDateTimeConverter.toIcalDateTime(ldtHour).getTime());
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package trashday.model;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import net.fortuna.ical4j.data.CalendarBuilder;
+import net.fortuna.ical4j.data.ParserException;
+
+/**
+ * JMH parse throughput benchmarks comparing the {@link IcalStreamReader} against ical4j's
+ * CalendarBuilder for stored calendars of a few realistic sizes: a couple of pickups, a
+ * typical household schedule and a large schedule.
+ * <p>
+ * Not a JUnit test.  Run from the command line after {@code mvn test-compile}:
+ * <pre>
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=trashday.model.IcalStreamReaderBenchmark
+ * </pre>
+ *
+ * @author	J. Todd Baldwin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IcalStreamReaderBenchmark {
+	/** Number of pickup events in the calendar */
+	@Param({"3", "12", "40"})
+	private int eventCount;
+
+	/** Stored iCalendar text for the calendar */
+	private String icalString;
+
+	/**
+	 * Build a calendar with the requested number of weekly and monthly pickups.
+	 */
+	@Setup
+	public void setUp() {
+		LocalDateTime ldtRequest = LocalDateTime.of(2017, 2, 8, 10, 1);
+		Calendar calendar = new Calendar();
+		for (int i=0; i<eventCount; i++) {
+			String pickupName = "pickup "+(i / 4);
+			if ( (i % 4) == 3 ) {
+				calendar.pickupAddDayOfMonth(ldtRequest, pickupName, (i % 28) + 1, LocalTime.of(7, 30));
+			} else {
+				calendar.pickupAddWeekly(ldtRequest, pickupName, DayOfWeek.of((i % 7) + 1), LocalTime.of(6 + (i % 4), 0));
+			}
+		}
+		icalString = calendar.toStringRFC5545();
+	}
+
+	/**
+	 * Parse with the stored subset reader.
+	 *
+	 * @return parsed calendar (returned so the JIT cannot discard the work)
+	 */
+	@Benchmark
+	public net.fortuna.ical4j.model.Calendar streamReader() {
+		return IcalStreamReader.read(icalString);
+	}
+
+	/**
+	 * Parse with ical4j's CalendarBuilder.
+	 *
+	 * @return parsed calendar (returned so the JIT cannot discard the work)
+	 * @throws ParserException Failed to understand the provided ical source.
+	 * @throws IOException Could not read the ical source string correctly.
+	 */
+	@Benchmark
+	public net.fortuna.ical4j.model.Calendar calendarBuilder() throws IOException, ParserException {
+		return new CalendarBuilder().build(new StringReader(icalString));
+	}
+
+	/**
+	 * Run the benchmarks.
+	 *
+	 * @param args unused
+	 * @throws RunnerException if JMH fails to run
+	 */
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+				.include(IcalStreamReaderBenchmark.class.getSimpleName())
+				.build();
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,169 @@
+package trashday.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneOffsetTransition;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import net.fortuna.ical4j.data.CalendarBuilder;
+import net.fortuna.ical4j.data.ParserException;
+
+/**
+ * JUnit tests for the {@link trashday.model.IcalStreamReader} class.
+ *
+ * @author J. Todd Baldwin
+ */
+@RunWith(JUnit4.class)
+public class IcalStreamReaderTest {
+	/** Calendar text in the stored subset */
+	private static final String storedIcal = "BEGIN:VCALENDAR\r\n" + 
+			"PRODID:-//Ben Fortuna//iCal4j 2.0.0//EN\r\n" + 
+			"VERSION:2.0\r\n" + 
+			"CALSCALE:GREGORIAN\r\n" + 
+			"BEGIN:VEVENT\r\n" + 
+			"DTSTAMP:20170206T030400Z\r\n" + 
+			"DTSTART:20170131T073000\r\n" + 
+			"DTEND:20170131T073000\r\n" + 
+			"SUMMARY:trash\r\n" + 
+			"UID:20170206T030400Z-TrashDaySkill@AWS\r\n" + 
+			"RRULE:FREQ=WEEKLY;BYDAY=TU\r\n" + 
+			"END:VEVENT\r\n" + 
+			"BEGIN:VEVENT\r\n" + 
+			"DTSTAMP:20170206T030410Z\r\n" + 
+			"DTSTART:20170203T073000\r\n" + 
+			"DTEND:20170203T073000\r\n" + 
+			"SUMMARY:recycling\r\n" + 
+			"UID:20170206T030410Z-TrashDaySkill@AWS\r\n" + 
+			"RRULE:FREQ=WEEKLY;INTERVAL=2;BYDAY=FR\r\n" + 
+			"END:VEVENT\r\n" + 
+			"END:VCALENDAR\r\n";
+
+	/**
+	 * Read a calendar with ical4j's CalendarBuilder.
+	 *
+	 * @param icalString iCalendar text
+	 * @return ical4j calendar
+	 * @throws ParserException Failed to understand the provided ical source.
+	 * @throws IOException Could not read the ical source string correctly.
+	 */
+	private net.fortuna.ical4j.model.Calendar build(String icalString) throws IOException, ParserException {
+		return new CalendarBuilder().build(new StringReader(icalString));
+	}
+
+	/**
+	 * Check the reader gives the same calendar as the CalendarBuilder.
+	 *
+	 * @param icalString iCalendar text in the stored subset
+	 * @throws ParserException Failed to understand the provided ical source.
+	 * @throws IOException Could not read the ical source string correctly.
+	 */
+	private void assertSameAsBuilder(String icalString) throws IOException, ParserException {
+		net.fortuna.ical4j.model.Calendar expected = build(icalString);
+		net.fortuna.ical4j.model.Calendar actual = IcalStreamReader.read(icalString);
+		assertNotNull(actual);
+		assertEquals(expected, actual);
+		assertEquals(expected.toString(), actual.toString());
+	}
+
+	/**
+	 * Test calendars written by this skill read the same as with the CalendarBuilder.
+	 *
+	 * @throws ParserException Failed to understand the provided ical source.
+	 * @throws IOException Could not read the ical source string correctly.
+	 */
+	@Test
+	public void testStoredCalendars() throws IOException, ParserException {
+		assertSameAsBuilder(storedIcal);
+		assertSameAsBuilder(storedIcal.replace("\r\n", "\n"));
+		// Written by a host in the UTC time zone
+		assertSameAsBuilder(storedIcal.replaceAll("(DTSTART|DTEND):(\\d+T\\d+)", "$1:$2Z"));
+
+		Calendar calendar = new Calendar();
+		calendar.initBasicExampleCalendar();
+		assertSameAsBuilder(calendar.toStringRFC5545());
+		calendar = new Calendar();
+		calendar.initComplexExampleCalendar();
+		assertSameAsBuilder(calendar.toStringRFC5545());
+
+		LocalDateTime ldtRequest = LocalDateTime.of(2017, 2, 8, 10, 1);
+		calendar.pickupAddDayOfMonth(ldtRequest, "scrap metal", -1, LocalTime.of(9, 0));
+		calendar.pickupAddWeekly(ldtRequest, "lawn waste", DayOfWeek.THURSDAY, LocalTime.of(6, 0));
+		String icalString = calendar.toStringRFC5545();
+		assertSameAsBuilder(icalString);
+
+		// The Calendar reads through this reader and keeps the same pickups.
+		Calendar parsed = new Calendar(icalString);
+		assertEquals(icalString, parsed.toStringRFC5545());
+		assertEquals(calendar.pickupGetNextOccurrencesInOrder(ldtRequest), parsed.pickupGetNextOccurrencesInOrder(ldtRequest));
+	}
+
+	/**
+	 * Test text outside the stored subset is left for the CalendarBuilder.
+	 *
+	 * @throws ParserException Failed to understand the provided ical source.
+	 * @throws IOException Could not read the ical source string correctly.
+	 */
+	@Test
+	public void testUnsupported() throws IOException, ParserException {
+		String[] unsupported = {
+				storedIcal.replace("SUMMARY:trash\r\n", "SUMMARY:trash\r\nX-NOTE:curb\r\n"),
+				storedIcal.replace("DTSTART:20170131T073000", "DTSTART;TZID=America/New_York:20170131T073000"),
+				storedIcal.replace("DTSTART:20170131T073000", "DTSTART:20170131T0730"),
+				storedIcal.replace("SUMMARY:trash", "SUMMARY:trash\\, bags"),
+				storedIcal.replace("SUMMARY:recycling", "SUMMARY:recy\r\n cling"),
+				storedIcal.replace("VERSION:2.0\r\n", "VERSION:2.0\r\nX-WR-CALNAME:Pickups\r\n"),
+				storedIcal.replace("BEGIN:VEVENT\r\nDTSTAMP:20170206T030410Z", "BEGIN:VTODO\r\nDTSTAMP:20170206T030410Z"),
+				storedIcal.replace("DTSTAMP:20170206T030400Z", "DTSTAMP:2017020XT030400Z"),
+				storedIcal.replace("END:VCALENDAR\r\n", ""),
+				storedIcal + "BEGIN:VCALENDAR\r\n",
+				"",
+				"not a calendar",
+				null
+		};
+		for (String icalString : unsupported) {
+			assertNull(icalString, IcalStreamReader.read(icalString));
+		}
+
+		// The Calendar still reads these with the CalendarBuilder.
+		Calendar calendar = new Calendar(unsupported[0]);
+		assertEquals(2, calendar.getEvents().size());
+		calendar = new Calendar(unsupported[4]);
+		assertEquals(1, calendar.getEvents("recycling").size());
+	}
+
+	/**
+	 * Test date/times near daylight saving changes in the host time zone.  Those in an
+	 * overlap are left for the CalendarBuilder, the rest read the same.
+	 *
+	 * @throws ParserException Failed to understand the provided ical source.
+	 * @throws IOException Could not read the ical source string correctly.
+	 */
+	@Test
+	public void testTransitions() throws IOException, ParserException {
+		ZoneId zoneId = ZoneId.systemDefault();
+		ZoneOffsetTransition transition = zoneId.getRules().nextTransition(java.time.Instant.parse("2017-01-01T00:00:00Z"));
+		if (transition == null) {
+			return;
+		}
+		LocalDateTime ldtBefore = transition.getDateTimeBefore();
+		for (int minutes=-90; minutes<=90; minutes+=15) {
+			String value = ldtBefore.plusMinutes(minutes).format(DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss"));
+			String icalString = storedIcal.replace("20170131T073000", value);
+			if (IcalStreamReader.read(icalString) != null) {
+				assertSameAsBuilder(icalString);
+			}
+		}
+	}
+}
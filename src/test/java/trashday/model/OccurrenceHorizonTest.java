@@ -0,0 +1,214 @@
+package trashday.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import net.fortuna.ical4j.data.ParserException;
+
+/**
+ * JUnit tests for the {@link trashday.model.OccurrenceHorizon} class.
+ *
+ * @author J. Todd Baldwin
+ */
+@RunWith(JUnit4.class)
+public class OccurrenceHorizonTest {
+    @Rule
+    public ExpectedException thrown= ExpectedException.none();
+
+    /** Request time used by the tests */
+    private static final LocalDateTime ldtRequest = LocalDateTime.of(2017, 2, 8, 10, 1);
+
+    /**
+     * Check the horizon calendar gives the same next pickups as the plain calendar.
+     *
+     * @param expected calendar without a horizon
+     * @param actual calendar with a horizon
+     * @param ldtQuery query time
+     */
+    private void assertSameNextPickups(Calendar expected, Calendar actual, LocalDateTime ldtQuery) {
+		assertEquals(expected.pickupGetNextOccurrencesInOrder(ldtQuery), actual.pickupGetNextOccurrencesInOrder(ldtQuery));
+		for (String pickupName : expected.pickupGetNextOccurrences(ldtQuery).keySet()) {
+			assertEquals(expected.pickupGetNextOccurrence(ldtQuery, pickupName), actual.pickupGetNextOccurrence(ldtQuery, pickupName));
+		}
+    }
+
+	/**
+	 * Test horizon answers match the direct calculation as queries move forward,
+	 * jump past the horizon end and move backward.
+	 */
+	@Test
+	public void testMatchesDirectCalculation() {
+		Calendar expected = new Calendar();
+		expected.initComplexExampleCalendar();
+		Calendar actual = new Calendar();
+		actual.initComplexExampleCalendar();
+		actual.setOccurrenceHorizonWeeks(2);
+		assertEquals(2, actual.getOccurrenceHorizonWeeks());
+
+		for (int hours=0; hours<24*120; hours+=7) {
+			assertSameNextPickups(expected, actual, ldtRequest.plusHours(hours));
+		}
+		assertSameNextPickups(expected, actual, ldtRequest.plusYears(3));
+		assertSameNextPickups(expected, actual, ldtRequest.minusMonths(1));
+		assertSameNextPickups(expected, actual, ldtRequest);
+
+		actual.setOccurrenceHorizonWeeks(0);
+		assertEquals(0, actual.getOccurrenceHorizonWeeks());
+		assertSameNextPickups(expected, actual, ldtRequest);
+	}
+
+	/**
+	 * Test the horizon follows events added and deleted after it is built.
+	 */
+	@Test
+	public void testEventChanges() {
+		Calendar expected = new Calendar();
+		expected.initBasicExampleCalendar();
+		Calendar actual = new Calendar();
+		actual.initBasicExampleCalendar();
+		actual.setOccurrenceHorizonWeeks(4);
+		assertSameNextPickups(expected, actual, ldtRequest);
+
+		expected.pickupAddWeekly(ldtRequest, "lawn waste", DayOfWeek.THURSDAY, LocalTime.of(6, 0));
+		actual.pickupAddWeekly(ldtRequest, "lawn waste", DayOfWeek.THURSDAY, LocalTime.of(6, 0));
+		assertSameNextPickups(expected, actual, ldtRequest);
+
+		expected.pickupAddDayOfMonth(ldtRequest, "scrap metal", -1, LocalTime.of(9, 0));
+		actual.pickupAddDayOfMonth(ldtRequest, "scrap metal", -1, LocalTime.of(9, 0));
+		assertSameNextPickups(expected, actual, ldtRequest.plusDays(10));
+
+		expected.pickupDeleteWeekly("trash", DayOfWeek.TUESDAY, LocalTime.of(7, 30));
+		actual.pickupDeleteWeekly("trash", DayOfWeek.TUESDAY, LocalTime.of(7, 30));
+		assertSameNextPickups(expected, actual, ldtRequest);
+
+		expected.pickupDelete("recycling");
+		actual.pickupDelete("recycling");
+		assertNull(actual.pickupGetNextOccurrence(ldtRequest, "recycling"));
+		assertSameNextPickups(expected, actual, ldtRequest);
+
+		actual.deleteEntireSchedule();
+		assertTrue(actual.pickupGetNextOccurrencesInOrder(ldtRequest).isEmpty());
+		actual.initBasicExampleCalendar();
+		Calendar basic = new Calendar();
+		basic.initBasicExampleCalendar();
+		assertSameNextPickups(basic, actual, ldtRequest);
+	}
+
+	/**
+	 * Count an event's occurrences in [from, to) directly.
+	 *
+	 * @param event calendar event
+	 * @param from first local epoch minute included
+	 * @param to first local epoch minute excluded
+	 * @return number of occurrences
+	 */
+	private int countOccurrences(CalendarEvent event, long from, long to) {
+		int count = 0;
+		for (long next = event.getNextEpochMinute(from - 1); (next != CompiledRecurrence.NO_OCCURRENCE) && (next < to); next = event.getNextEpochMinute(next)) {
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Test the horizon only materializes its configured span, slides forward near its
+	 * end and is rebuilt for queries outside it.
+	 */
+	@Test
+	public void testHorizonSpan() {
+		Calendar calendar = new Calendar();
+		calendar.pickupAddWeekly(ldtRequest, "trash", DayOfWeek.FRIDAY, LocalTime.of(7, 30));
+		CalendarEvent event = calendar.getEvents().get(0);
+
+		OccurrenceHorizon horizon = new OccurrenceHorizon(3);
+		horizon.addEvent(event);
+		long after = CompiledRecurrence.toEpochMinute(ldtRequest);
+		long next = horizon.nextEpochMinute("trash", after);
+		assertEquals(LocalDateTime.of(2017, 2, 10, 7, 30), CompiledRecurrence.fromEpochMinute(next));
+		assertEquals(after + 1 - OccurrenceHorizon.LOOKBACK_MINUTES, horizon.getStartEpochMinute());
+		assertEquals(3, horizon.size());
+
+		// Within a week of the end, the horizon slides forward and keeps its start.
+		long start = horizon.getStartEpochMinute();
+		long nearEnd = after + 15 * 24 * 60;
+		assertEquals(event.getNextEpochMinute(nearEnd), horizon.nextEpochMinute("trash", nearEnd));
+		assertEquals(nearEnd + 1 - OccurrenceHorizon.LOOKBACK_MINUTES, horizon.getStartEpochMinute());
+		assertEquals(nearEnd + 1 + 3 * 7 * 24 * 60, horizon.getEndEpochMinute());
+		assertTrue(horizon.getStartEpochMinute() > start);
+		assertEquals(countOccurrences(event, horizon.getStartEpochMinute(), horizon.getEndEpochMinute()), horizon.size());
+
+		// Going past the end rebuilds the horizon there.
+		long later = after + 10 * 7 * 24 * 60;
+		assertEquals(event.getNextEpochMinute(later), horizon.nextEpochMinute("trash", later));
+		assertEquals(later + 1 - OccurrenceHorizon.LOOKBACK_MINUTES, horizon.getStartEpochMinute());
+		assertEquals(3, horizon.size());
+
+		horizon.removeEvent(event);
+		assertEquals(0, horizon.size());
+		assertEquals(CompiledRecurrence.NO_OCCURRENCE, horizon.nextEpochMinute("trash", later));
+		assertEquals(CompiledRecurrence.NO_OCCURRENCE, horizon.nextEpochMinute("recycling", later));
+	}
+
+	/**
+	 * Test calendars from the {@link CalendarCache} use a horizon shared by their views,
+	 * and a changed view keeps its own horizon up to date without touching the cached one.
+	 *
+	 * @throws IOException if the cached calendar cannot be read
+	 * @throws ParserException if the cached calendar cannot be read
+	 */
+	@Test
+	public void testCachedCalendars() throws IOException, ParserException {
+		Calendar expected = new Calendar();
+		expected.initComplexExampleCalendar();
+		byte[] calendarData = CalendarData.encode(expected);
+		CalendarCache cache = new CalendarCache(2);
+
+		Calendar view = cache.get(calendarData);
+		assertEquals(CalendarCache.OCCURRENCE_HORIZON_WEEKS, view.getOccurrenceHorizonWeeks());
+		for (int days=0; days<60; days+=3) {
+			assertSameNextPickups(expected, view, ldtRequest.plusDays(days));
+		}
+		assertSameNextPickups(expected, cache.get(calendarData), ldtRequest);
+
+		expected.pickupDeleteWeekly("trash", DayOfWeek.TUESDAY, LocalTime.of(7, 30));
+		view.pickupDeleteWeekly("trash", DayOfWeek.TUESDAY, LocalTime.of(7, 30));
+		assertFalse(view.isShared());
+		assertEquals(CalendarCache.OCCURRENCE_HORIZON_WEEKS, view.getOccurrenceHorizonWeeks());
+		assertSameNextPickups(expected, view, ldtRequest);
+		expected.pickupAddWeekly(ldtRequest, "lawn waste", DayOfWeek.THURSDAY, LocalTime.of(6, 0));
+		view.pickupAddWeekly(ldtRequest, "lawn waste", DayOfWeek.THURSDAY, LocalTime.of(6, 0));
+		assertSameNextPickups(expected, view, ldtRequest);
+
+		// Other views still see the cached calendar unchanged.
+		Calendar original = new Calendar();
+		original.initComplexExampleCalendar();
+		Calendar other = cache.get(calendarData);
+		assertTrue(other.isShared());
+		assertEquals(LocalDateTime.of(2017, 2, 14, 7, 30), other.pickupGetNextOccurrence(ldtRequest.plusDays(3), "trash"));
+		assertNotNull(other.pickupGetNextOccurrence(ldtRequest, "scrap metal"));
+		assertSameNextPickups(original, other, ldtRequest.plusDays(3));
+	}
+
+	/**
+	 * Test a horizon must cover at least one week.
+	 */
+	@Test
+	public void testBadWeeks() {
+		thrown.expect(IllegalArgumentException.class);
+		new OccurrenceHorizon(0);
+	}
+}
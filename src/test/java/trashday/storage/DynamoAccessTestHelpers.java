@@ -52,6 +52,8 @@ public class DynamoAccessTestHelpers {
     
     /** Table to store all user schedules */
 	protected static final String tableName = "TrashDayScheduleDataTest";
+	/** Table to store all user intent counts */
+	protected static final String intentLogTableName = tableName + DynamoItemPersistence.INTENT_LOG_TABLE_SUFFIX;
 	/** Each test grabs unique customer ID(s) via {@link #getNextCustomerId()} to avoid problems if/when we run the tests multi-threaded. */
 	protected static int customerIdNumber = 0;
 
@@ -64,7 +66,7 @@ public class DynamoAccessTestHelpers {
 
 	/**
 	 * Table management helper function that creates a Dynamo DB table
-	 * suitable for storing user Schedules.
+	 * suitable for storing user Schedules, and its intent log table.
 	 * 
 	 * @return null on failure.  Otherwise a CreateTableResult that includes 
 	 * 		information about the newly-created table. 
@@ -88,6 +90,8 @@ public class DynamoAccessTestHelpers {
 		try {
 			ctr = dynamoDbLowLevel.createTable(attributeDefinitions, tableName, keySchema, provisionedThroughput);
 			log.info("Created Table: {}", ctr.toString());
+			CreateTableResult intentLogCtr = new IntentLogPersistence(dynamoDbLowLevel, intentLogTableName).createTable(5, 5);
+			log.info("Created Table: {}", intentLogCtr.toString());
 		} catch (ResourceInUseException ex) {
 			log.info("table create exception: {}", ex.getErrorMessage());
 		} catch (AmazonDynamoDBException ex) {
@@ -97,13 +101,19 @@ public class DynamoAccessTestHelpers {
     }
     
 	/**
-	 * Table management helper function that deletes a Dynamo DB table.
+	 * Table management helper function that deletes a Dynamo DB table and its
+	 * intent log table.
 	 * 
 	 * @return true if table was successfully deleted
 	 */
     public static boolean tableDelete() {
 		log.info("Delete {} table", tableName);
 		DeleteTableResult dtr;
+		try {
+			dynamoDbLowLevel.deleteTable(intentLogTableName);
+		} catch (ResourceNotFoundException ex) {
+			log.info("Table {} not found.", intentLogTableName);
+		}
 		try {
 			dtr = dynamoDbLowLevel.deleteTable(tableName);
 		} catch (ResourceNotFoundException ex) {
@@ -166,6 +176,24 @@ public class DynamoAccessTestHelpers {
         return table.putItem(itemModelVersion1);
 	}
 	
+	/**
+	 * Create a table item using "document" db access with the calendar in the older RFC 5545
+	 * text "Calendar" field.  Contains fields: CustomerId, TimeZone and Calendar.
+	 * 
+	 * @param customerId String of this user's id
+	 * @param calendar Calendar to store as text
+	 * @return PutItemOutcome of the item write
+	 */
+	public PutItemOutcome itemCreateCalendarText(String customerId, Calendar calendar) {
+        Table table = dynamoDbDocument.getTable(tableName);
+        Item itemCalendarText = new Item()
+        	    .withPrimaryKey("CustomerId", customerId)
+        	    .withString("TimeZone", "US/Eastern")
+        	    .withString("Calendar", calendar.toStringRFC5545())
+        	    ;
+        return table.putItem(itemCalendarText);
+	}
+	
 	/**
 	 * Create a table item using "item persistence" db access in current format.  Contains fields: CustomerId,
 	 * TimeZone, Calendar, and IntentLog.
@@ -216,7 +244,7 @@ public class DynamoAccessTestHelpers {
 	
 	/**
 	 * Table item helper function to remove item(s) that match the 
-	 * given customer id.
+	 * given customer id, including their intent log items.
 	 * 
 	 * @param customerId String customer identifier
 	 */
@@ -249,6 +277,11 @@ public class DynamoAccessTestHelpers {
         } catch (Exception e) {
             log.info("Error deleting item in {}: {},", tableName, e.getMessage());
             //fail("Cannot perform item delete");
+        }
+		try {
+			new IntentLogPersistence(dynamoDbLowLevel, intentLogTableName).eraseIntentLog(customerId);
+        } catch (Exception e) {
+            log.info("Error deleting items in {}: {},", intentLogTableName, e.getMessage());
         }
 	}
 	
@@ -299,6 +332,10 @@ public class DynamoAccessTestHelpers {
 	}
 	
 	public SessionDao newSessionDao(String userId) {
+		return newSessionDao(userId, null);
+	}
+	
+	public SessionDao newSessionDao(String userId, java.util.Date requestTimestamp) {
 		Map<String, Object> attributes = new HashMap<String, Object>();
 		User user = User.builder().withUserId(userId).build();
         Session testSession = Session.builder()
@@ -306,6 +343,6 @@ public class DynamoAccessTestHelpers {
 				.withSessionId("TEST-SESSION-ID")
 				.withUser(user)
 				.build();
-		return new SessionDao(testSession);
+		return new SessionDao(testSession, requestTimestamp);
 	}
 }
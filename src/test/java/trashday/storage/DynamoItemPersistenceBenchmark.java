@@ -0,0 +1,178 @@
+package trashday.storage;
+
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.SaveBehavior;
+import com.amazonaws.services.dynamodbv2.document.DynamoDB;
+
+import dynamotesting.LocalDynamoDBCreationRule;
+
+/**
+ * JMH microbenchmarks comparing {@link DynamoItemPersistence} item loads and saves
+ * through its shared {@link DynamoDBMapper} against building a new mapper (and table
+ * override configuration) for every call, as it used to.  Runs against a local Dynamo DB
+ * started with {@link dynamotesting.LocalDynamoDBCreationRule}, so the difference is the
+ * per-call mapper overhead rather than network time.
+ * <p>
+ * Not a JUnit test.  Run from the command line after {@code mvn test-compile}:
+ * <pre>
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=trashday.storage.DynamoItemPersistenceBenchmark
+ * </pre>
+ *
+ * @author	J. Todd Baldwin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DynamoItemPersistenceBenchmark extends DynamoAccessTestHelpers {
+	/** Local Dynamo DB for the benchmark */
+	private LocalDynamoDB localDynamoDB;
+	/** Item with the benchmark user's key */
+	private DynamoItem itemKey;
+	/** Item with the benchmark user's data */
+	private DynamoItem item;
+
+	/**
+	 * Starts and stops the local Dynamo DB outside of a JUnit run.
+	 */
+	private static class LocalDynamoDB extends LocalDynamoDBCreationRule {
+		/**
+		 * Create the local Dynamo DB rule for the test table.
+		 */
+		LocalDynamoDB() {
+			super(tableName);
+		}
+		
+		/**
+		 * Start the local Dynamo DB.
+		 * 
+		 * @throws Throwable if the server does not start
+		 */
+		void start() throws Throwable {
+			before();
+		}
+		
+		/**
+		 * Stop the local Dynamo DB.
+		 */
+		void stop() {
+			after();
+		}
+	}
+
+	/**
+	 * Start the local Dynamo DB, create the table and store one user's item.
+	 *
+	 * @throws Throwable if the local Dynamo DB does not start
+	 */
+	@Setup
+	public void setUp() throws Throwable {
+		localDynamoDB = new LocalDynamoDB();
+		localDynamoDB.start();
+		dynamoDbLowLevel = localDynamoDB.getAmazonDynamoDBClient();
+		dynamoDbDocument = new DynamoDB(dynamoDbLowLevel);
+		dynamoDbItemPersistence = localDynamoDB.getTrashDayDbClient();
+		tableCreate();
+		
+		item = new DynamoItem();
+		item.setCustomerId(getNextCustomerId());
+		item.setCalendar(newComplexCalendar());
+		item.setTimeZone(TimeZone.getTimeZone("US/Eastern"));
+		dynamoDbItemPersistence.saveItem(item);
+		itemKey = new DynamoItem();
+		itemKey.setCustomerId(item.getCustomerId());
+	}
+
+	/**
+	 * Stop the local Dynamo DB.
+	 */
+	@TearDown
+	public void tearDown() {
+		localDynamoDB.stop();
+	}
+	
+	/**
+	 * Build a mapper the way {@link DynamoItemPersistence} used to for each call.
+	 * 
+	 * @return new mapper for the test table
+	 */
+	private DynamoDBMapper newMapper() {
+		DynamoDBMapperConfig.Builder builder = new DynamoDBMapperConfig.Builder();
+		builder.setTableNameOverride(DynamoDBMapperConfig.TableNameOverride.withTableNameReplacement(tableName));
+		return new DynamoDBMapper(dynamoDbLowLevel, builder.build());
+	}
+
+	/**
+	 * Load the user's item with the shared mapper.
+	 *
+	 * @return loaded item (returned so the JIT cannot discard the work)
+	 */
+	@Benchmark
+	public DynamoItem loadSharedMapper() {
+		return dynamoDbItemPersistence.loadCompleteItem(itemKey);
+	}
+
+	/**
+	 * Load the user's item with a new mapper.
+	 *
+	 * @return loaded item (returned so the JIT cannot discard the work)
+	 */
+	@Benchmark
+	public DynamoItem loadNewMapper() {
+		return newMapper().load(itemKey);
+	}
+
+	/**
+	 * Save the user's item with the shared mapper.
+	 */
+	@Benchmark
+	public void saveSharedMapper() {
+		dynamoDbItemPersistence.saveItem(item);
+	}
+
+	/**
+	 * Save the user's item with a new mapper.
+	 */
+	@Benchmark
+	public void saveNewMapper() {
+		DynamoItem saveItem = new DynamoItem(item);
+		saveItem.clearSchedule();
+		saveItem.clearIntentLog();
+		newMapper().save(saveItem, SaveBehavior.UPDATE_SKIP_NULL_ATTRIBUTES.config());
+	}
+
+	/**
+	 * Run the benchmarks.
+	 *
+	 * @param args unused
+	 * @throws RunnerException if JMH fails to run
+	 */
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+				.include(DynamoItemPersistenceBenchmark.class.getSimpleName())
+				.build();
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,161 @@
+package trashday.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import trashday.model.Calendar;
+import trashday.model.IntentLog;
+
+/**
+ * JUnit tests for the {@link trashday.storage.InMemoryUserDataStore} class.  The
+ * same checks run against {@link trashday.storage.MappedFileUserDataStore} in
+ * {@link MappedFileUserDataStoreTest}.
+ *
+ * @author J. Todd Baldwin
+ */
+@RunWith(JUnit4.class)
+public class InMemoryUserDataStoreTest {
+
+	/**
+	 * Create the store under test.
+	 *
+	 * @return new, empty store
+	 * @throws Exception if the store cannot be created
+	 */
+	protected InMemoryUserDataStore createStore() throws Exception {
+		return new InMemoryUserDataStore();
+	}
+
+	/**
+	 * Create an item key for a user.
+	 *
+	 * @param customerId String user id
+	 * @return {@link DynamoItem} with only the customer id set
+	 */
+	private static DynamoItem itemKey(String customerId) {
+		DynamoItem item = new DynamoItem();
+		item.setCustomerId(customerId);
+		return item;
+	}
+
+	/**
+	 * Saves skip null attributes, complete saves remove them, and each save adds one to the version.
+	 *
+	 * @throws Exception if the store cannot be created
+	 */
+	@Test
+	public void testSaveAndLoad() throws Exception {
+		InMemoryUserDataStore store = createStore();
+		assertNull(store.loadUserDataItem(itemKey("a")));
+		assertNull(store.loadUserDataItem(null));
+
+		Calendar calendar = new Calendar();
+		calendar.initBasicExampleCalendar();
+		DynamoItem item = itemKey("a");
+		item.setCalendar(calendar);
+		item.setTimeZone(TimeZone.getTimeZone("US/Eastern"));
+		store.saveItem(item);
+
+		DynamoItem loaded = store.loadUserDataItem(itemKey("a"));
+		assertEquals(Long.valueOf(1), loaded.getVersion());
+		assertEquals(calendar.toStringRFC5545(), loaded.getCalendar().toStringRFC5545());
+		assertEquals("US/Eastern", loaded.getTimeZone().getID());
+
+		DynamoItem timeZoneOnly = itemKey("a");
+		timeZoneOnly.setTimeZone(TimeZone.getTimeZone("US/Pacific"));
+		store.saveItem(timeZoneOnly);
+		loaded = store.loadCompleteItem(itemKey("a"));
+		assertEquals(Long.valueOf(2), loaded.getVersion());
+		assertNotNull(loaded.getCalendar());
+		assertEquals("US/Pacific", loaded.getTimeZone().getID());
+
+		store.saveCompleteItem(timeZoneOnly);
+		loaded = store.loadUserDataItem(itemKey("a"));
+		assertEquals(Long.valueOf(3), loaded.getVersion());
+		assertNull(loaded.getCalendar());
+		assertEquals(1, store.size());
+
+		store.eraseItem(itemKey("a"));
+		assertNull(store.loadUserDataItem(itemKey("a")));
+		assertEquals(0, store.size());
+	}
+
+	/**
+	 * Intent counts are added, returned as a copy and erased.
+	 *
+	 * @throws Exception if the store cannot be created
+	 */
+	@Test
+	public void testIntentCounts() throws Exception {
+		InMemoryUserDataStore store = createStore();
+		assertTrue(store.loadIntentLog("a").getLog().isEmpty());
+
+		IntentLog session = new IntentLog();
+		session.incrementIntent("2017-05", "TellNextPickup", 2);
+		store.addIntentCounts("a", session);
+		store.addIntentCounts("a", session);
+		IntentLog loaded = store.loadIntentLog("a");
+		assertEquals(Integer.valueOf(4), loaded.getLog().get("2017-05").get("TellNextPickup"));
+
+		loaded.incrementIntent("2017-05", "TellNextPickup", 1);
+		assertEquals(Integer.valueOf(4), store.loadIntentLog("a").getLog().get("2017-05").get("TellNextPickup"));
+
+		store.eraseIntentLog("a");
+		assertTrue(store.loadIntentLog("a").getLog().isEmpty());
+	}
+
+	/**
+	 * Saves and intent counts from many threads are all kept.
+	 *
+	 * @throws Exception if the store cannot be created or a thread fails
+	 */
+	@Test
+	public void testConcurrentUpdates() throws Exception {
+		InMemoryUserDataStore store = createStore();
+		int threads = 8;
+		int savesPerThread = 200;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		for (int t=0; t<threads; t++) {
+			final String ownCustomerId = "user-"+t;
+			futures.add(executor.submit(() -> {
+				IntentLog session = new IntentLog();
+				session.incrementIntent("2017-05", "TellNextPickup", 1);
+				for (int i=0; i<savesPerThread; i++) {
+					DynamoItem item = itemKey("shared");
+					item.setTimeZone(TimeZone.getTimeZone("US/Eastern"));
+					store.saveItem(item);
+					item.setCustomerId(ownCustomerId);
+					store.saveItem(item);
+					store.addIntentCounts("shared", session);
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+		assertEquals(Long.valueOf(threads * savesPerThread), store.loadUserDataItem(itemKey("shared")).getVersion());
+		assertEquals(Long.valueOf(savesPerThread), store.loadUserDataItem(itemKey("user-0")).getVersion());
+		assertEquals(threads + 1, store.size());
+		Map<String,Integer> counts = store.loadIntentLog("shared").getLog().get("2017-05");
+		assertEquals(Integer.valueOf(threads * savesPerThread), counts.get("TellNextPickup"));
+	}
+}
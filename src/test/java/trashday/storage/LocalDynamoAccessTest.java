@@ -2,8 +2,15 @@ package trashday.storage;
 
 import static org.junit.Assert.*;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
@@ -13,12 +20,18 @@ import org.junit.runners.JUnit4;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.amazonaws.services.dynamodbv2.document.AttributeUpdate;
 import com.amazonaws.services.dynamodbv2.document.DynamoDB;
+import com.amazonaws.services.dynamodbv2.document.Item;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.CreateTableResult;
+import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
 
 import dynamotesting.LocalDynamoDBCreationRule;
 import trashday.model.Calendar;
+import trashday.model.IntentLog;
 import trashday.model.Schedule;
 import trashday.ui.FormatUtils;
 
@@ -102,6 +115,43 @@ public class LocalDynamoAccessTest extends DynamoAccessTestHelpers {
         // Should have a (new from Schedule) Calendar.
         assertNotNull(sessionDao.getCalendar());
         assertEquals("Pickup trash every Monday at 6:30 AM.\n", FormatUtils.printableCalendar(sessionDao.getCalendar(), ldtRequest));
+        
+        // Upgraded item keeps the IntentLog the user data load skipped.
+        DynamoItem searchItem = new DynamoItem();
+        searchItem.setCustomerId(customerVersion1);
+        DynamoItem item = dynamoDbItemPersistence.loadCompleteItem(searchItem);
+        assertNull(item.getSchedule());
+        assertNotNull(item.getCalendar());
+        assertNotNull(item.getIntentLog());
+	}
+	
+	/**
+	 * Confirm the projected loads only read the attributes their callers use.
+	 */
+	@Test
+	public void testProjectedLoads() {
+		String customerId = getNextCustomerId();
+        itemCreateCurrentVersion(customerId);
+        DynamoItem searchItem = new DynamoItem();
+        searchItem.setCustomerId(customerId);
+        
+        DynamoItem userDataItem = dynamoDbItemPersistence.loadUserDataItem(searchItem);
+        assertEquals(customerId, userDataItem.getCustomerId());
+        assertNotNull(userDataItem.getCalendar());
+        assertNotNull(userDataItem.getTimeZone());
+        assertNull(userDataItem.getIntentLog());
+        
+        DynamoItem intentLogItem = dynamoDbItemPersistence.loadIntentLogItem(searchItem);
+        assertEquals(customerId, intentLogItem.getCustomerId());
+        assertNotNull(intentLogItem.getIntentLog());
+        assertNull(intentLogItem.getCalendar());
+        assertNull(intentLogItem.getTimeZone());
+        
+        searchItem.setCustomerId(getNextCustomerId());
+        assertNull(dynamoDbItemPersistence.loadUserDataItem(searchItem));
+        assertNull(dynamoDbItemPersistence.loadIntentLogItem(searchItem));
+        
+		itemDelete(customerId); 
 	}
 
 	/**
@@ -150,6 +200,352 @@ public class LocalDynamoAccessTest extends DynamoAccessTestHelpers {
         assertEquals(currentPickupSchedule, version1PickupSchedule);
 	}
     
+	/**
+	 * Confirm an item with the calendar in the older text field is read through the
+	 * {@link DynamoDao} and copied to the binary "CalendarData" field.  The text field
+	 * is kept for the previous release.
+	 */
+	@Test
+	public void testCalendarTextUpgrade() {
+		LocalDateTime ldtRequest = LocalDateTime.of(2017, 2, 8, 10, 1);
+		String customerId = getNextCustomerId();
+		Calendar calendar = newComplexCalendar();
+		String expectedCalendar = FormatUtils.printableCalendar(calendar, ldtRequest);
+		itemCreateCalendarText(customerId, calendar);
+		
+        DynamoDao dynamoDao = new DynamoDao(dynamoDbItemPersistence);
+        SessionDao sessionDao = newSessionDao(customerId);
+        assertTrue(dynamoDao.readUserData(sessionDao));
+        assertEquals(expectedCalendar, FormatUtils.printableCalendar(sessionDao.getCalendar(), ldtRequest));
+        
+        Item rawItem = dynamoDbDocument.getTable(tableName).getItem("CustomerId", customerId);
+        assertTrue(rawItem.hasAttribute("Calendar"));
+        assertTrue(rawItem.hasAttribute("CalendarData"));
+        assertTrue(rawItem.getBinary("CalendarData").length < calendar.toStringRFC5545().length() / 2);
+        assertEquals("US/Eastern", rawItem.getString("TimeZone"));
+        assertEquals(1, rawItem.getLong(DynamoItem.ATTR_VERSION));
+        
+        DynamoItem searchItem = new DynamoItem();
+        searchItem.setCustomerId(customerId);
+        DynamoItem item = dynamoDbItemPersistence.loadCompleteItem(searchItem);
+        assertEquals(expectedCalendar, FormatUtils.printableCalendar(item.getCalendarText(), ldtRequest));
+        assertEquals(expectedCalendar, FormatUtils.printableCalendar(item.getCalendar(), ldtRequest));
+        
+        // Upgraded once.  Later saves keep the text in step with the binary data.
+        dynamoDbItemPersistence.getUserItemCache().clear();
+        sessionDao = newSessionDao(customerId);
+        assertTrue(dynamoDao.readUserData(sessionDao));
+        rawItem = dynamoDbDocument.getTable(tableName).getItem("CustomerId", customerId);
+        assertEquals(1, rawItem.getLong(DynamoItem.ATTR_VERSION));
+        Calendar changed = sessionDao.getCalendar();
+        changed.pickupDelete(changed.getEvents().get(0).getName());
+        sessionDao.setCalendar(changed);
+        dynamoDao.writeUserData(sessionDao);
+        item = dynamoDbItemPersistence.loadCompleteItem(searchItem);
+        assertEquals(FormatUtils.printableCalendar(changed, ldtRequest), FormatUtils.printableCalendar(item.getCalendarText(), ldtRequest));
+        assertEquals(FormatUtils.printableCalendar(changed, ldtRequest), FormatUtils.printableCalendar(item.getCalendar(), ldtRequest));
+        
+		itemDelete(customerId); 
+	}
+    
+	/**
+	 * Confirm calendar event starts are rebased when written through the {@link DynamoDao}
+	 * while the calendar in the session is left as-is.
+	 */
+	@Test
+	public void testRebaseOnWrite() {
+		LocalDateTime ldtRequest = LocalDateTime.of(2019, 6, 3, 9, 10);
+		java.util.Date requestTimestamp = java.util.Date.from(ldtRequest.atZone(java.time.ZoneId.of("US/Eastern")).toInstant());
+		
+		String customerId = getNextCustomerId();
+		Calendar calendar = newComplexCalendar();
+		String expectedCalendar = FormatUtils.printableCalendar(calendar, ldtRequest);
+		String sessionCalendar = calendar.toStringRFC5545();
+        DynamoDao dynamoDao = new DynamoDao(dynamoDbItemPersistence);
+        SessionDao sessionDao = newSessionDao(customerId, requestTimestamp);
+        sessionDao.setCalendar(calendar);
+        sessionDao.setTimeZone(TimeZone.getTimeZone("US/Eastern"));
+        dynamoDao.writeUserData(sessionDao);
+        assertEquals(sessionCalendar, sessionDao.getCalendar().toStringRFC5545());
+        
+        DynamoItem searchItem = new DynamoItem();
+        searchItem.setCustomerId(customerId);
+        DynamoItem item = dynamoDbItemPersistence.loadCompleteItem(searchItem);
+        assertEquals(expectedCalendar, FormatUtils.printableCalendar(item.getCalendar(), ldtRequest));
+        for (trashday.model.CalendarEvent event : item.getCalendar().getEvents()) {
+        	assertTrue(event.getStartLocalDateTime().isAfter(LocalDateTime.of(2019, 1, 1, 0, 0)));
+        	assertTrue(event.getStartLocalDateTime().isBefore(ldtRequest));
+        }
+        
+		itemDelete(customerId); 
+	}
+
+	/**
+	 * User data loads read through the {@link UserItemCache}.  A cache hit reads nothing
+	 * from Dynamo DB, and saves from this container refresh the entry.
+	 */
+	@Test
+	public void testUserItemCache() {
+		LocalDateTime ldtRequest = LocalDateTime.of(2017, 2, 8, 10, 1);
+		UserItemCache cache = dynamoDbItemPersistence.getUserItemCache();
+		String customerId = getNextCustomerId();
+        DynamoItem searchItem = new DynamoItem();
+        searchItem.setCustomerId(customerId);
+        DynamoItem item = new DynamoItem();
+        item.setCustomerId(customerId);
+        item.setTimeZone(TimeZone.getTimeZone("US/Eastern"));
+        dynamoDbItemPersistence.saveItem(item);
+        
+        // First load reads the item.  Second is answered from the cache.
+        long hits = cache.getHitCount();
+        DynamoItem loaded = dynamoDbItemPersistence.loadUserDataItem(searchItem);
+        assertEquals(Long.valueOf(1), loaded.getVersion());
+        assertEquals(hits, cache.getHitCount());
+        loaded = dynamoDbItemPersistence.loadUserDataItem(searchItem);
+        assertEquals(hits+1, cache.getHitCount());
+        assertEquals("US/Eastern", loaded.getTimeZone().getID());
+        assertNull(loaded.getCalendar());
+        
+        // A save on top of the cached version updates the entry.
+        Calendar calendar = newComplexCalendar();
+        item = new DynamoItem();
+        item.setCustomerId(customerId);
+        item.setCalendar(calendar);
+        dynamoDbItemPersistence.saveItem(item);
+        loaded = dynamoDbItemPersistence.loadUserDataItem(searchItem);
+        assertEquals(hits+2, cache.getHitCount());
+        assertEquals(Long.valueOf(2), loaded.getVersion());
+        assertEquals("US/Eastern", loaded.getTimeZone().getID());
+        assertEquals(FormatUtils.printableCalendar(calendar, ldtRequest), FormatUtils.printableCalendar(loaded.getCalendar(), ldtRequest));
+        
+        // A hit reads nothing, so a change made elsewhere is not seen until the entry is gone.
+        dynamoDbDocument.getTable(tableName).updateItem("CustomerId", customerId, 
+        		new AttributeUpdate("TimeZone").put("US/Central"),
+        		new AttributeUpdate(DynamoItem.ATTR_VERSION).addNumeric(1));
+        loaded = dynamoDbItemPersistence.loadUserDataItem(searchItem);
+        assertEquals(hits+3, cache.getHitCount());
+        assertEquals("US/Eastern", loaded.getTimeZone().getID());
+        assertEquals(Long.valueOf(2), loaded.getVersion());
+        
+        // A save on top of the other container's version drops the entry.
+        long stale = cache.getStaleCount();
+        item = new DynamoItem();
+        item.setCustomerId(customerId);
+        item.setCalendar(calendar);
+        dynamoDbItemPersistence.saveItem(item);
+        assertEquals(stale+1, cache.getStaleCount());
+        loaded = dynamoDbItemPersistence.loadUserDataItem(searchItem);
+        assertEquals(hits+3, cache.getHitCount());
+        assertEquals("US/Central", loaded.getTimeZone().getID());
+        assertEquals(Long.valueOf(4), loaded.getVersion());
+        
+        // Deleting through this container drops the entry.
+        dynamoDbItemPersistence.eraseItem(loaded);
+        assertNull(dynamoDbItemPersistence.loadUserDataItem(searchItem));
+	}
+	
+	/**
+	 * Warming up builds the mapper's table model without reading or writing any items.
+	 */
+	@Test
+	public void testWarmUp() {
+		UserItemCache cache = dynamoDbItemPersistence.getUserItemCache();
+		long hits = cache.getHitCount();
+		long misses = cache.getMissCount();
+		dynamoDbItemPersistence.warmUp();
+		assertEquals(hits, cache.getHitCount());
+		assertEquals(misses, cache.getMissCount());
+		
+        DynamoItem searchItem = new DynamoItem();
+        searchItem.setCustomerId("cold-start-example");
+		assertNull(dynamoDbItemPersistence.loadUserDataItem(searchItem));
+	}
+	
+	/**
+	 * Intent counts from sessions are added on the server to year-week items in the
+	 * intent log table, which expire {@link IntentLogPersistence#WEEKS_TO_KEEP} weeks later.
+	 */
+	@Test
+	public void testAppendIntentLogData() {
+		String customerId = getNextCustomerId();
+        itemCreateCurrentVersion(customerId);
+        DynamoDao dynamoDao = new DynamoDao(dynamoDbItemPersistence);
+        SessionDao sessionDao = newSessionDao(customerId);
+        IntentLogPersistence intentLogPersistence = dynamoDbItemPersistence.getIntentLogPersistence();
+        assertEquals(intentLogTableName, intentLogPersistence.getTableName());
+        
+        // Older Json IntentLog attribute is still read.
+        IntentLog expectedLog = new IntentLog();
+        expectedLog.incrementIntent("2017-05", "respondTimeZoneUpdatedScheduleMissing", 1);
+        expectedLog.incrementIntent("2017-05", "respondPickupAddSingle", 1);
+        expectedLog.incrementIntent("2017-05", "open", 2);
+        expectedLog.incrementIntent("2017-05", "tellSchedule", 2);
+        assertEquals(expectedLog.toJson(), dynamoDbItemPersistence.loadIntentLog(customerId).toJson());
+        
+        // First session creates the 2017-06 item.  Second one adds into it and creates 2017-07.
+        IntentLog sessionLog = new IntentLog();
+        sessionLog.incrementIntent("2017-06", "open", 1);
+        sessionLog.incrementIntent("2017-06", "tellSchedule", 2);
+        dynamoDao.appendIntentLogData(sessionDao, sessionLog);
+        sessionLog = new IntentLog();
+        sessionLog.incrementIntent("2017-06", "tellSchedule", 1);
+        sessionLog.incrementIntent("2017-07", "open", 1);
+        dynamoDao.appendIntentLogData(sessionDao, sessionLog);
+        
+        IntentLog expectedWeeks = new IntentLog();
+        expectedWeeks.incrementIntent("2017-06", "open", 1);
+        expectedWeeks.incrementIntent("2017-06", "tellSchedule", 3);
+        expectedWeeks.incrementIntent("2017-07", "open", 1);
+        assertEquals(expectedWeeks.toJson(), intentLogPersistence.loadIntentLog(customerId).toJson());
+        expectedLog.join(expectedWeeks);
+        assertEquals(expectedLog.toJson(), dynamoDbItemPersistence.loadIntentLog(customerId).toJson());
+        
+        Item weekItem = dynamoDbDocument.getTable(intentLogTableName).getItem(
+        		IntentLogPersistence.ATTR_CUSTOMER_ID, customerId, IntentLogPersistence.ATTR_YEAR_WEEK, "2017-06");
+        assertEquals(3, weekItem.getInt(IntentLogPersistence.ATTR_COUNT_PREFIX+"tellSchedule"));
+        long expiresIn = weekItem.getLong(IntentLogPersistence.ATTR_EXPIRES_AT) - Instant.now().getEpochSecond();
+        assertTrue(expiresIn > (IntentLogPersistence.WEEKS_TO_KEEP * 7 - 1) * 24 * 3600L);
+        assertTrue(expiresIn <= IntentLogPersistence.WEEKS_TO_KEEP * 7 * 24 * 3600L);
+        
+        // Counts never touch the user's item.
+        DynamoItem item = new DynamoItem();
+        item.setCustomerId(customerId);
+        item = dynamoDbItemPersistence.loadCompleteItem(item);
+        assertEquals(FormatUtils.printableCalendar(newCalendarVeryBasic(), LocalDateTime.now()), FormatUtils.printableCalendar(item.getCalendar(), LocalDateTime.now()));
+        assertEquals(1, item.getIntentLog().getLog().size());
+        
+        // Expired weeks are skipped until Dynamo DB deletes them.
+        String expiredCustomerId = getNextCustomerId();
+        intentLogPersistence.addIntentCounts(expiredCustomerId, sessionLog, 
+        		Instant.now().minus(IntentLogPersistence.WEEKS_TO_KEEP * 7 + 1, ChronoUnit.DAYS));
+        assertTrue(intentLogPersistence.loadIntentLog(expiredCustomerId).getLog().isEmpty());
+        
+        // Erasing the user's data erases their intent counts.
+        dynamoDao.eraseUserData(sessionDao);
+        assertTrue(dynamoDbItemPersistence.loadIntentLog(customerId).getLog().isEmpty());
+        
+        itemDelete(customerId);
+        itemDelete(expiredCustomerId);
+	}
+	
+	/**
+	 * Intent counts written with the asynchronous client are stored once the write
+	 * completes, and a failed write completes its future exceptionally.
+	 * 
+	 * @throws Exception if the write does not complete
+	 */
+	@Test
+	public void testAppendIntentLogDataAsync() throws Exception {
+		String customerId = getNextCustomerId();
+        DynamoDao dynamoDao = new DynamoDao(dynamoDbItemPersistence);
+        SessionDao sessionDao = newSessionDao(customerId);
+        IntentLog sessionLog = new IntentLog();
+        sessionLog.incrementIntent("2017-06", "tellSchedule", 2);
+        sessionLog.incrementIntent("2017-07", "open", 1);
+        dynamoDao.appendIntentLogDataAsync(sessionDao, sessionLog).get(10, TimeUnit.SECONDS);
+        assertEquals(sessionLog.toJson(), dynamoDbItemPersistence.loadIntentLog(customerId).toJson());
+        assertTrue(dynamoDao.appendIntentLogDataAsync(sessionDao, null).isDone());
+        
+        IntentLogPersistence missingTable = new IntentLogPersistence(dynamoDbLowLevel, "NoSuchIntentLogTable");
+        try {
+        	missingTable.addIntentCountsAsync(customerId, sessionLog).get(10, TimeUnit.SECONDS);
+        	fail("Write to a missing table should fail.");
+        } catch (ExecutionException ex) {
+        	assertTrue(ex.getCause() instanceof ResourceNotFoundException);
+        }
+        
+        itemDelete(customerId);
+	}
+	
+	/**
+	 * The migration job moves intent counts out of the users' items and into the 
+	 * intent log table.
+	 */
+	@Test
+	public void testMoveIntentLogs() {
+		String customerId = getNextCustomerId();
+        itemCreateCurrentVersion(customerId);
+        Map<String, AttributeValue> counts = new HashMap<String, AttributeValue>();
+        counts.put("open", new AttributeValue().withN("1"));
+        dynamoDbLowLevel.updateItem(new UpdateItemRequest()
+        		.withTableName(tableName)
+        		.withKey(Collections.singletonMap("CustomerId", new AttributeValue(customerId)))
+        		.withUpdateExpression("SET #w = :counts")
+        		.withExpressionAttributeNames(Collections.singletonMap("#w", DynamoItem.ATTR_INTENT_COUNTS_PREFIX+"2017-06"))
+        		.withExpressionAttributeValues(Collections.singletonMap(":counts", new AttributeValue().withM(counts))));
+        IntentLog sessionLog = new IntentLog();
+        sessionLog.incrementIntent("2017-06", "tellSchedule", 1);
+        dynamoDbItemPersistence.addIntentCounts(customerId, sessionLog);
+        
+        IntentLog expectedLog = new IntentLog();
+        expectedLog.incrementIntent("2017-05", "respondTimeZoneUpdatedScheduleMissing", 1);
+        expectedLog.incrementIntent("2017-05", "respondPickupAddSingle", 1);
+        expectedLog.incrementIntent("2017-05", "open", 2);
+        expectedLog.incrementIntent("2017-05", "tellSchedule", 2);
+        expectedLog.incrementIntent("2017-06", "open", 1);
+        expectedLog.incrementIntent("2017-06", "tellSchedule", 1);
+        assertEquals(expectedLog.toJson(), dynamoDbItemPersistence.loadIntentLog(customerId).toJson());
+        
+        assertTrue(new IntentLogMigration(dynamoDbItemPersistence).migrate() >= 1);
+        assertEquals(expectedLog.toJson(), dynamoDbItemPersistence.getIntentLogPersistence().loadIntentLog(customerId).toJson());
+        Item rawItem = dynamoDbDocument.getTable(tableName).getItem("CustomerId", customerId);
+        assertFalse(rawItem.hasAttribute(DynamoItem.ATTR_INTENT_LOG));
+        assertFalse(rawItem.hasAttribute(DynamoItem.ATTR_INTENT_COUNTS_PREFIX+"2017-06"));
+        assertTrue(rawItem.hasAttribute(DynamoItem.ATTR_CALENDAR_DATA));
+        
+        assertFalse(rawItem.hasAttribute(DynamoItem.ATTR_INTENT_LOG_MOVE));
+        
+        // Nothing left to move, so moving again changes nothing.
+        dynamoDbItemPersistence.moveIntentLogs();
+        assertEquals(expectedLog.toJson(), dynamoDbItemPersistence.loadIntentLog(customerId).toJson());
+        
+        itemDelete(customerId);
+	}
+	
+	/**
+	 * A move of intent counts left unfinished is finished by the next run, and its counts
+	 * are added once however often it is retried.
+	 */
+	@Test
+	public void testMoveIntentLogsRetried() {
+		String customerId = getNextCustomerId();
+        itemCreateCurrentVersion(customerId);
+        dynamoDbDocument.getTable(tableName).updateItem("CustomerId", customerId, 
+        		new AttributeUpdate(DynamoItem.ATTR_INTENT_LOG).delete());
+        IntentLog movedLog = new IntentLog();
+        movedLog.incrementIntent("2017-06", "open", 3);
+        Map<String, AttributeValue> moveFields = new HashMap<String, AttributeValue>();
+        moveFields.put("Id", new AttributeValue("test-move"));
+        moveFields.put("Log", new AttributeValue(new DynamoItem.IntentLogConverter().convert(movedLog)));
+        UpdateItemRequest unfinishedMove = new UpdateItemRequest()
+        		.withTableName(tableName)
+        		.withKey(Collections.singletonMap("CustomerId", new AttributeValue(customerId)))
+        		.withUpdateExpression("SET #mv = :mv")
+        		.withExpressionAttributeNames(Collections.singletonMap("#mv", DynamoItem.ATTR_INTENT_LOG_MOVE))
+        		.withExpressionAttributeValues(Collections.singletonMap(":mv", new AttributeValue().withM(moveFields)));
+        IntentLogPersistence intentLogPersistence = dynamoDbItemPersistence.getIntentLogPersistence();
+        
+        // Counts added once, even when the move is left in the item after they were added.
+        for (int i=0; i<2; i++) {
+        	dynamoDbLowLevel.updateItem(unfinishedMove);
+        	dynamoDbItemPersistence.moveIntentLogs();
+        	assertEquals(movedLog.toJson(), intentLogPersistence.loadIntentLog(customerId).toJson());
+        	Item rawItem = dynamoDbDocument.getTable(tableName).getItem("CustomerId", customerId);
+        	assertFalse(rawItem.hasAttribute(DynamoItem.ATTR_INTENT_LOG_MOVE));
+        }
+        assertEquals(0, intentLogPersistence.addMovedIntentCounts(customerId, movedLog, "test-move"));
+        
+        // Counts of a move whose item was erased can be erased again.  Other weeks are kept.
+        IntentLog sessionLog = new IntentLog();
+        sessionLog.incrementIntent("2017-07", "open", 1);
+        intentLogPersistence.addIntentCounts(customerId, sessionLog);
+        assertEquals(1, intentLogPersistence.eraseMovedIntentCounts(customerId, movedLog, "test-move"));
+        assertEquals(sessionLog.toJson(), intentLogPersistence.loadIntentLog(customerId).toJson());
+        
+        intentLogPersistence.eraseIntentLog(customerId);
+        itemDelete(customerId);
+	}
+	
 	/**
 	 * JUnit test that confirms we can Create, Read, Update, and
 	 * Delete (CRUD) user {@link trashday.model.Schedule} items from the
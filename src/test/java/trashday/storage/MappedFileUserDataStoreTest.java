@@ -0,0 +1,148 @@
+package trashday.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import trashday.model.Calendar;
+
+/**
+ * JUnit tests for the {@link trashday.storage.MappedFileUserDataStore} class.  Runs the
+ * {@link InMemoryUserDataStoreTest} checks against a store file, plus checks of the file itself.
+ *
+ * @author J. Todd Baldwin
+ */
+@RunWith(JUnit4.class)
+public class MappedFileUserDataStoreTest extends InMemoryUserDataStoreTest {
+    @Rule
+    public ExpectedException thrown= ExpectedException.none();
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** Stores opened by a test, closed after it */
+    private final List<MappedFileUserDataStore> openStores = new ArrayList<MappedFileUserDataStore>();
+
+	/**
+	 * Create a store in a new file with room for the concurrent update test's users.
+	 *
+	 * @return new, empty store
+	 * @throws IOException if the file cannot be created
+	 */
+	@Override
+	protected InMemoryUserDataStore createStore() throws IOException {
+		return open(folder.newFile(), 16, 4096);
+	}
+
+	/**
+	 * Open a store file and remember to close it.
+	 *
+	 * @param storeFile file to open
+	 * @param slotCount number of slots
+	 * @param slotSize bytes per slot
+	 * @return opened store
+	 * @throws IOException if the file cannot be opened
+	 */
+	private MappedFileUserDataStore open(File storeFile, int slotCount, int slotSize) throws IOException {
+		MappedFileUserDataStore store = new MappedFileUserDataStore(storeFile, slotCount, slotSize);
+		openStores.add(store);
+		return store;
+	}
+
+	/**
+	 * Close the stores the test opened.
+	 *
+	 * @throws IOException if a file cannot be closed
+	 */
+	@After
+	public void closeStores() throws IOException {
+		for (MappedFileUserDataStore store : openStores) {
+			store.close();
+		}
+	}
+
+	/**
+	 * Records are found again when the file is reopened, and erased users' slots are reused.
+	 *
+	 * @throws IOException if the file cannot be opened
+	 */
+	@Test
+	public void testReopen() throws IOException {
+		File storeFile = folder.newFile();
+		MappedFileUserDataStore store = open(storeFile, 2, 4096);
+		Calendar calendar = new Calendar();
+		calendar.initBasicExampleCalendar();
+		DynamoItem item = new DynamoItem();
+		item.setCustomerId("a");
+		item.setCalendar(calendar);
+		store.saveItem(item);
+		item.setCustomerId("b");
+		item.setTimeZone(TimeZone.getTimeZone("US/Central"));
+		store.saveItem(item);
+		store.saveItem(item);
+		store.eraseItem(item);
+		assertEquals(1, store.getFreeSlotCount());
+		store.close();
+		openStores.clear();
+
+		store = open(storeFile, 2, 4096);
+		assertEquals(1, store.size());
+		assertEquals(1, store.getFreeSlotCount());
+		item.setCustomerId("a");
+		DynamoItem loaded = store.loadUserDataItem(item);
+		assertEquals(calendar.toStringRFC5545(), loaded.getCalendar().toStringRFC5545());
+		assertNull(loaded.getTimeZone());
+		item.setCustomerId("b");
+		assertNull(store.loadUserDataItem(item));
+
+		item.setCustomerId("c");
+		store.saveItem(item);
+		assertEquals(0, store.getFreeSlotCount());
+		thrown.expect(IllegalStateException.class);
+		item.setCustomerId("d");
+		store.saveItem(item);
+	}
+
+	/**
+	 * Records larger than a slot are refused.
+	 *
+	 * @throws IOException if the file cannot be opened
+	 */
+	@Test
+	public void testRecordTooLarge() throws IOException {
+		MappedFileUserDataStore store = open(folder.newFile(), 2, 64);
+		Calendar calendar = new Calendar();
+		calendar.initBasicExampleCalendar();
+		DynamoItem item = new DynamoItem();
+		item.setCustomerId("a");
+		item.setCalendar(calendar);
+		thrown.expect(IllegalArgumentException.class);
+		store.saveItem(item);
+	}
+
+	/**
+	 * An existing file must match the slot count and size.
+	 *
+	 * @throws IOException if the file cannot be opened
+	 */
+	@Test
+	public void testSizeMismatch() throws IOException {
+		File storeFile = folder.newFile();
+		open(storeFile, 2, 4096).close();
+		openStores.clear();
+		thrown.expect(IllegalArgumentException.class);
+		open(storeFile, 4, 4096);
+	}
+}
@@ -0,0 +1,269 @@
+package trashday.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.amazonaws.services.dynamodbv2.document.DynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+import dynamotesting.LocalDynamoDBCreationRule;
+
+/**
+ * JUnit tests for the {@link trashday.storage.ScheduleTableBackup} tool, exporting and
+ * importing a local Dynamo DB table.
+ *
+ * @author J. Todd Baldwin
+ */
+@RunWith(JUnit4.class)
+public class ScheduleTableBackupTest extends DynamoAccessTestHelpers {
+	/**
+	 * Use {@link dynamotesting.LocalDynamoDBCreationRule} to create
+	 * a local Dynamo DB instance for this test class.
+	 */
+    @ClassRule
+    public static final LocalDynamoDBCreationRule localDynamoDB = new LocalDynamoDBCreationRule(tableName);
+
+    /**
+     * Connect to the local Dynamo DB.
+     */
+	@BeforeClass
+	public static void setUpBeforeClass() {
+		dynamoDbLowLevel = localDynamoDB.getAmazonDynamoDBClient();
+		dynamoDbDocument = new DynamoDB(dynamoDbLowLevel);
+		dynamoDbItemPersistence = localDynamoDB.getTrashDayDbClient();
+	}
+
+	/**
+	 * Start each test with empty tables.
+	 */
+	@Before
+	public void setUp() {
+		tableClear();
+	}
+
+	/**
+	 * Remove the version from items, for comparing restored items with the originals.
+	 *
+	 * @param items Map of items by customer id
+	 * @return Map of versions by customer id, for items that have one
+	 */
+	private static Map<String, Long> removeVersions(Map<String, Map<String, AttributeValue>> items) {
+		Map<String, Long> versions = new HashMap<String, Long>();
+		for (Map.Entry<String, Map<String, AttributeValue>> item : items.entrySet()) {
+			AttributeValue version = item.getValue().remove(DynamoItem.ATTR_VERSION);
+			if (version != null) {
+				versions.put(item.getKey(), Long.valueOf(version.getN()));
+			}
+		}
+		return versions;
+	}
+
+	/**
+	 * Read every item in the table.
+	 *
+	 * @return Map of items by customer id
+	 */
+	private static Map<String, Map<String, AttributeValue>> scanTable() {
+		Map<String, Map<String, AttributeValue>> items = new HashMap<String, Map<String, AttributeValue>>();
+		ScanResult result = dynamoDbLowLevel.scan(new ScanRequest().withTableName(tableName).withConsistentRead(true));
+		for (Map<String, AttributeValue> item : result.getItems()) {
+			items.put(item.get(DynamoItem.ATTR_CUSTOMER_ID).getS(), item);
+		}
+		return items;
+	}
+
+	/**
+	 * Store items in every form the table has held, plus one with every attribute type.
+	 *
+	 * @param currentItems number of items in the current form
+	 */
+	private void createItems(int currentItems) {
+		for (int i=0; i<currentItems; i++) {
+			itemCreateCurrentVersion(getNextCustomerId());
+		}
+		itemCreateVersion1(getNextCustomerId());
+		itemCreateCalendarText(getNextCustomerId(), newCalendarVeryBasic());
+
+		Map<String, AttributeValue> item = new HashMap<String, AttributeValue>();
+		item.put(DynamoItem.ATTR_CUSTOMER_ID, new AttributeValue(getNextCustomerId()));
+		item.put("Binary", new AttributeValue().withB(ByteBuffer.wrap(new byte[] { 0, 1, (byte) 0xff })));
+		item.put("BinarySet", new AttributeValue().withBS(ByteBuffer.wrap(new byte[] { 2 }), ByteBuffer.wrap(new byte[] { 3 })));
+		item.put("StringSet", new AttributeValue().withSS("a", "b"));
+		item.put("NumberSet", new AttributeValue().withNS("1", "2.5"));
+		item.put("List", new AttributeValue().withL(new AttributeValue("x"), new AttributeValue().withN("7")));
+		item.put("Map", new AttributeValue().withM(Collections.singletonMap("open", new AttributeValue().withN("3"))));
+		item.put("Bool", new AttributeValue().withBOOL(true));
+		item.put("Null", new AttributeValue().withNULL(true));
+		dynamoDbLowLevel.putItem(tableName, item);
+	}
+
+	/**
+	 * Export with a parallel Scan, clear the table, import, and find every item as it was.
+	 *
+	 * @throws IOException if the export cannot be read or written
+	 */
+	@Test
+	public void testExportImport() throws IOException {
+		createItems(60);
+		Map<String, Map<String, AttributeValue>> expected = scanTable();
+		assertEquals(63, expected.size());
+
+		ScheduleTableBackup backup = new ScheduleTableBackup(dynamoDbItemPersistence);
+		StringWriter export = new StringWriter();
+		assertEquals(63, backup.exportTable(export, 4));
+		String[] lines = export.toString().split("\n");
+		assertEquals(64, lines.length);
+		assertEquals(ScheduleTableBackup.TRAILER_PREFIX+"63", lines[63]);
+
+		tableClear();
+		long importStart = System.currentTimeMillis();
+		assertEquals(63, backup.importTable(new BufferedReader(new StringReader(export.toString())), 3));
+		Map<String, Map<String, AttributeValue>> restored = scanTable();
+		Map<String, Long> expectedVersions = removeVersions(expected);
+		Map<String, Long> restoredVersions = removeVersions(restored);
+		assertEquals(expected, restored);
+		assertEquals(0, backup.getUnprocessedRetryCount());
+
+		// Restored versions are past any version cached before the restore.
+		assertEquals(expectedVersions.keySet(), restoredVersions.keySet());
+		for (Map.Entry<String, Long> version : restoredVersions.entrySet()) {
+			assertTrue(version.getValue() > expectedVersions.get(version.getKey()));
+			assertTrue(version.getValue() >= importStart);
+		}
+
+		// Restored items are read through the item persistence as before.
+		DynamoItem item = new DynamoItem();
+		item.setCustomerId(expected.keySet().iterator().next());
+		assertTrue(dynamoDbItemPersistence.loadCompleteItem(item) != null);
+	}
+
+	/**
+	 * Items Dynamo DB leaves unprocessed are sent again.
+	 *
+	 * @throws IOException if the export cannot be read or written
+	 */
+	@Test
+	public void testUnprocessedItemsRetried() throws IOException {
+		createItems(30);
+		Map<String, Map<String, AttributeValue>> expected = scanTable();
+		StringWriter export = new StringWriter();
+		new ScheduleTableBackup(dynamoDbItemPersistence).exportTable(export, 2);
+		tableClear();
+
+		// Every first attempt at a batch leaves its last item unprocessed.
+		ScheduleTableBackup backup = new ScheduleTableBackup(dynamoDbItemPersistence) {
+			@Override
+			protected BatchWriteItemResult batchWriteItem(BatchWriteItemRequest request) {
+				List<WriteRequest> requests = request.getRequestItems().get(tableName);
+				if (requests.size() == 1) {
+					return super.batchWriteItem(request);
+				}
+				List<WriteRequest> written = new ArrayList<WriteRequest>(requests.subList(0, requests.size() - 1));
+				super.batchWriteItem(new BatchWriteItemRequest().withRequestItems(Collections.singletonMap(tableName, written)));
+				return new BatchWriteItemResult().withUnprocessedItems(
+						Collections.singletonMap(tableName, Arrays.asList(requests.get(requests.size() - 1))));
+			}
+		};
+		assertEquals(33, backup.importTable(new BufferedReader(new StringReader(export.toString())), 2));
+		assertEquals(2, backup.getUnprocessedRetryCount());
+		Map<String, Map<String, AttributeValue>> restored = scanTable();
+		removeVersions(expected);
+		removeVersions(restored);
+		assertEquals(expected, restored);
+	}
+
+	/**
+	 * A line whose item does not match its checksum is refused, and no item is written,
+	 * even from lines before it.
+	 *
+	 * @throws IOException if the export cannot be read or written
+	 */
+	@Test
+	public void testDamagedLine() throws IOException {
+		createItems(40);
+		StringWriter export = new StringWriter();
+		new ScheduleTableBackup(dynamoDbItemPersistence).exportTable(export, 1);
+		String[] lines = export.toString().split("\n");
+		String last = lines[lines.length - 2];
+		lines[lines.length - 2] = last.substring(0, last.length() - 2) + "X" + last.substring(last.length() - 1);
+		String damaged = String.join("\n", lines) + "\n";
+		tableClear();
+
+		try {
+			new ScheduleTableBackup(dynamoDbItemPersistence).importTable(new BufferedReader(new StringReader(damaged)), 1);
+			throw new AssertionError("Damaged file imported.");
+		} catch (IllegalStateException ex) {
+			assertTrue(ex.getMessage().contains("Checksum does not match"));
+		}
+		assertEquals(0, scanTable().size());
+	}
+
+	/**
+	 * An export file without its last line is refused, and no item is written.
+	 *
+	 * @throws IOException if the export cannot be read or written
+	 */
+	@Test
+	public void testCutShortFile() throws IOException {
+		createItems(40);
+		StringWriter export = new StringWriter();
+		new ScheduleTableBackup(dynamoDbItemPersistence).exportTable(export, 1);
+		String cutShort = export.toString().substring(0, export.toString().indexOf(ScheduleTableBackup.TRAILER_PREFIX));
+		tableClear();
+
+		try {
+			new ScheduleTableBackup(dynamoDbItemPersistence).importTable(new BufferedReader(new StringReader(cutShort)), 1);
+			throw new AssertionError("Cut short file imported.");
+		} catch (IllegalStateException ex) {
+			assertTrue(ex.getMessage().contains("cut short"));
+		}
+		assertEquals(0, scanTable().size());
+	}
+
+	/**
+	 * An export file whose last line has no readable item count is refused, and no item is written.
+	 *
+	 * @throws IOException if the export cannot be read or written
+	 */
+	@Test
+	public void testGarbledTrailer() throws IOException {
+		createItems(1);
+		StringWriter export = new StringWriter();
+		new ScheduleTableBackup(dynamoDbItemPersistence).exportTable(export, 1);
+		String text = export.toString();
+		String garbled = text.substring(0, text.indexOf(ScheduleTableBackup.TRAILER_PREFIX)) + ScheduleTableBackup.TRAILER_PREFIX + "abc\n";
+		tableClear();
+
+		try {
+			new ScheduleTableBackup(dynamoDbItemPersistence).importTable(new BufferedReader(new StringReader(garbled)), 1);
+			throw new AssertionError("Garbled file imported.");
+		} catch (IllegalStateException ex) {
+			assertTrue(ex.getMessage().startsWith("Line 5: Bad item count"));
+		}
+		assertEquals(0, scanTable().size());
+	}
+}
@@ -131,4 +131,33 @@ public class SessionDaoTest {
 		assertEquals(expectedTimeZone, actualTimeZone);		
 	}
 
+	@Test
+	public void testUserDataDirtyAccessors() {
+		log.trace("testUserDataDirtyAccessors");
+		java.util.Date requestTimestamp = new java.util.Date(1480001235000L);
+		SessionDao sessionDao = new SessionDao(testSession, requestTimestamp);
+		
+		// No unsaved changes yet.
+		assertFalse(sessionDao.isUserDataDirty());
+		assertNull(sessionDao.getUserDataDirtySince());
+		
+		// First change records the request time.  Later changes keep it.
+		sessionDao.markUserDataDirty();
+		assertTrue(sessionDao.isUserDataDirty());
+		assertEquals(Long.valueOf(requestTimestamp.getTime()), sessionDao.getUserDataDirtySince());
+		new SessionDao(testSession, new java.util.Date(requestTimestamp.getTime()+5000)).markUserDataDirty();
+		assertEquals(Long.valueOf(requestTimestamp.getTime()), sessionDao.getUserDataDirtySince());
+		
+		// Session read from Alexa Json may hold an Integer or Long.
+		testSession.setAttribute(SessionDao.SESSION_ATTR_USER_DATA_DIRTY_SINCE, 12345);
+		assertEquals(Long.valueOf(12345L), sessionDao.getUserDataDirtySince());
+		testSession.setAttribute(SessionDao.SESSION_ATTR_USER_DATA_DIRTY_SINCE, DayOfWeek.MONDAY);
+		assertFalse(sessionDao.isUserDataDirty());
+		
+		// Clear the unsaved changes flag.
+		sessionDao.markUserDataDirty();
+		sessionDao.clearUserDataDirty();
+		assertFalse(sessionDao.isUserDataDirty());
+	}
+
 }
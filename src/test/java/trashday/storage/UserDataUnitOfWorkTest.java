@@ -0,0 +1,130 @@
+package trashday.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.TimeZone;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.amazon.speech.speechlet.Session;
+
+import trashday.model.Calendar;
+
+/**
+ * JUnit tests for the {@link trashday.storage.UserDataUnitOfWork} class.
+ *
+ * @author J. Todd Baldwin
+ */
+@RunWith(JUnit4.class)
+public class UserDataUnitOfWorkTest {
+
+	/**
+	 * {@link DynamoDao} that counts item reads and fills in a stored time zone
+	 * instead of using a database.
+	 */
+	private static class CountingDynamoDao extends DynamoDao {
+		/** Time zone "stored" for the user, or null for a new user */
+		private final TimeZone storedTimeZone;
+		/** Number of item reads */
+		private int readCount = 0;
+
+		/**
+		 * Create the counting data access object.
+		 *
+		 * @param storedTimeZone time zone "stored" for the user, or null for a new user
+		 */
+		CountingDynamoDao(TimeZone storedTimeZone) {
+			super(null);
+			this.storedTimeZone = storedTimeZone;
+		}
+
+		@Override
+		public boolean readUserData(SessionDao sessionDao) {
+			readCount++;
+			if (storedTimeZone == null) {
+				return false;
+			}
+			sessionDao.setTimeZone(storedTimeZone);
+			return true;
+		}
+	}
+
+	/**
+	 * Make a new, empty session for one request.
+	 *
+	 * @return {@link SessionDao} with no user data
+	 */
+	private SessionDao newSessionDao() {
+		Session session = Session.builder()
+				.withAttributes(new HashMap<String, Object>())
+				.withSessionId("TEST-SESSION-ID")
+				.build();
+		return new SessionDao(session);
+	}
+
+	/**
+	 * Test a user with a time zone but no calendar costs one item read per request.
+	 */
+	@Test
+	public void testOneReadPerRequest() {
+		TimeZone timeZone = TimeZone.getTimeZone("US/Eastern");
+		CountingDynamoDao dynamoDao = new CountingDynamoDao(timeZone);
+		long totalAvoided = UserDataUnitOfWork.getTotalReadsAvoided();
+		UserDataUnitOfWork userData = new UserDataUnitOfWork(newSessionDao(), dynamoDao);
+		assertFalse(userData.isItemRead());
+
+		assertNull(userData.getCalendar());
+		assertEquals(timeZone, userData.getTimeZone());
+		assertNull(userData.getCalendar());
+		assertEquals(1, dynamoDao.readCount);
+		assertEquals(1, userData.getReadsAvoided());
+		assertTrue(userData.isItemRead());
+		assertTrue(UserDataUnitOfWork.getTotalReadsAvoided() >= totalAvoided + 1);
+
+		// The next request reads again.
+		userData = new UserDataUnitOfWork(newSessionDao(), dynamoDao);
+		assertEquals(timeZone, userData.getTimeZone());
+		assertEquals(2, dynamoDao.readCount);
+		assertEquals(0, userData.getReadsAvoided());
+	}
+
+	/**
+	 * Test a new user with no stored item is only looked up once.
+	 */
+	@Test
+	public void testNewUser() {
+		CountingDynamoDao dynamoDao = new CountingDynamoDao(null);
+		UserDataUnitOfWork userData = new UserDataUnitOfWork(newSessionDao(), dynamoDao);
+		assertNull(userData.getCalendar());
+		assertNull(userData.getTimeZone());
+		assertFalse(userData.readItem());
+		assertEquals(1, dynamoDao.readCount);
+		assertEquals(2, userData.getReadsAvoided());
+	}
+
+	/**
+	 * Test data already in the session needs no item read.
+	 */
+	@Test
+	public void testSessionData() {
+		CountingDynamoDao dynamoDao = new CountingDynamoDao(null);
+		SessionDao sessionDao = newSessionDao();
+		Calendar calendar = new Calendar();
+		calendar.initBasicExampleCalendar();
+		sessionDao.setCalendar(calendar);
+		sessionDao.setTimeZone(TimeZone.getTimeZone("US/Pacific"));
+		UserDataUnitOfWork userData = new UserDataUnitOfWork(sessionDao, dynamoDao);
+		assertSame(sessionDao, userData.getSessionDao());
+		assertEquals(calendar.toStringRFC5545(), userData.getCalendar().toStringRFC5545());
+		assertEquals("US/Pacific", userData.getTimeZone().getID());
+		assertEquals(0, dynamoDao.readCount);
+		assertFalse(userData.isItemRead());
+	}
+}
@@ -0,0 +1,118 @@
+package trashday.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import trashday.model.Calendar;
+import trashday.model.CalendarData;
+
+/**
+ * JUnit tests for the {@link trashday.storage.UserItemCache} class.
+ *
+ * @author J. Todd Baldwin
+ */
+@RunWith(JUnit4.class)
+public class UserItemCacheTest {
+    @Rule
+    public ExpectedException thrown= ExpectedException.none();
+
+	/**
+	 * Test hits, misses, stale entries and the hit rate.
+	 */
+	@Test
+	public void testHitsAndMisses() {
+		UserItemCache cache = new UserItemCache(4, 60000);
+		assertEquals(0.0, cache.getHitRate(), 0.0);
+		assertNull(cache.lookup("table/a", 0));
+		assertEquals(1, cache.getMissCount());
+
+		cache.put("table/a", 3, null, "US/Eastern", 0);
+		UserItemCache.Entry entry = cache.lookup("table/a", 1000);
+		assertNotNull(entry);
+		assertEquals(3, entry.getVersion());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(0.5, cache.getHitRate(), 0.0);
+
+		DynamoItem item = entry.toItem("a");
+		assertEquals("a", item.getCustomerId());
+		assertEquals(Long.valueOf(3), item.getVersion());
+		assertEquals("US/Eastern", item.getTimeZone().getID());
+		assertNull(item.getCalendar());
+
+		cache.invalidateStale("table/a");
+		assertEquals(1, cache.getStaleCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(0, cache.size());
+	}
+
+	/**
+	 * Entries are dropped after their time to live and never replaced by older versions.
+	 */
+	@Test
+	public void testTimeToLiveAndVersions() {
+		UserItemCache cache = new UserItemCache(4, 60000);
+		cache.put("table/a", 5, null, "US/Eastern", 0);
+		cache.put("table/a", 4, null, "US/Central", 100);
+		assertEquals("US/Eastern", cache.peek("table/a").getTimeZoneId());
+
+		assertNotNull(cache.lookup("table/a", 59999));
+		assertNull(cache.lookup("table/a", 60000));
+		assertEquals(1, cache.getExpiredCount());
+		assertEquals(0, cache.size());
+	}
+
+	/**
+	 * Least recently used entries are evicted beyond the capacity.
+	 */
+	@Test
+	public void testEviction() {
+		UserItemCache cache = new UserItemCache(2, 60000);
+		cache.put("table/a", 1, null, null, 0);
+		cache.put("table/b", 1, null, null, 0);
+		assertNotNull(cache.lookup("table/a", 0));
+		cache.put("table/c", 1, null, null, 0);
+		assertEquals(1, cache.getEvictionCount());
+		assertEquals(2, cache.size());
+		assertNull(cache.peek("table/b"));
+		assertNotNull(cache.peek("table/a"));
+		assertNotNull(cache.peek("table/c"));
+
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertEquals("UserItemCache[size=0/2, hits=1, misses=0, stale=0, expired=0, evictions=1]", cache.toString());
+	}
+
+	/**
+	 * Cached calendar data is handed out as a calendar the caller may change.
+	 */
+	@Test
+	public void testCalendarData() {
+		Calendar calendar = new Calendar();
+		calendar.initBasicExampleCalendar();
+		UserItemCache cache = new UserItemCache(2, 60000);
+		cache.put("table/a", 1, CalendarData.encode(calendar), null, 0);
+
+		Calendar first = cache.lookup("table/a", 0).toItem("a").getCalendar();
+		String cachedIcal = first.toStringRFC5545();
+		assertTrue(first.pickupDelete(first.getEvents().get(0).getName()));
+		Calendar second = cache.lookup("table/a", 0).toItem("a").getCalendar();
+		assertEquals(cachedIcal, second.toStringRFC5545());
+	}
+
+	/**
+	 * Capacity and time to live must be positive.
+	 */
+	@Test
+	public void testBadArguments() {
+		thrown.expect(IllegalArgumentException.class);
+		new UserItemCache(1, 0);
+	}
+}